@@ -0,0 +1,218 @@
+/**
+ * @overview Times the collections in android2js-game.js at growing sizes, to check that they
+ * scale as the README says. Run it with Node from any directory:
+ *
+ *   node android2js-game/js/collections-benchmark.js [largestSize]
+ *
+ * Each row is one operation. For each size it shows the time per call, then that time divided by
+ * the expected growth (1 for O(1), log2 n for O(log n)) relative to the smallest size. That ratio
+ * stays near 1 while an operation scales as expected; an O(n) operation's ratio grows about as fast
+ * as n does, i.e. 10x per column. Sizes go up by 10x from 1000 to largestSize, 100000 by default.
+ * Past that the collections outgrow the CPU caches and the garbage collector's young generation, so
+ * every call costs more whatever the structure, most of all for LinkedList's one node per element.
+ * Times vary between machines and runs, so compare ratios, not nanoseconds.
+ */
+
+const fs = require("fs");
+const path = require("path");
+const vm = require("vm");
+
+const SMALLEST_SIZE = 1000;
+const DEFAULT_LARGEST_SIZE = 100000;
+const MIN_OPERATIONS = 2000000; // Small sizes are repeated until at least this many calls are timed
+const REPEATS = 3; // The fastest of this many runs is kept, which leaves out most GC pauses
+
+/**
+ * Loads android2js-game.js the way a Web Worker does, so it skips the page setup and only needs
+ * a few globals. It runs in Node's own global scope: in a separate vm context, every lookup of a
+ * global goes through the context and the collections time several times slower than in a page.
+ */
+function loadAndroid2JSGame() {
+	let noop = () => {};
+
+	Object.defineProperty(globalThis, "navigator", { value: { userAgent: "" }, configurable: true });
+	globalThis.addEventListener = noop;
+	globalThis.removeEventListener = noop;
+	globalThis.postMessage = noop;
+
+	vm.runInThisContext("class WorkerGlobalScope {}\n" +
+		"var self = globalThis, window = globalThis;\n" +
+		"Object.setPrototypeOf(Object.getPrototypeOf(globalThis), WorkerGlobalScope.prototype);");
+	vm.runInThisContext(fs.readFileSync( path.join(__dirname, "android2js-game.js"), "utf8" ),
+		{ filename: "android2js-game.js" });
+
+	return vm.runInThisContext("({ LinkedList, PriorityQueue, TreeMap, IntArrayList, IntIntMap })");
+}
+
+/**
+ * Each case fills a fresh collection with n elements and then reads or empties it, and returns
+ * how many calls it made and a checksum of what it read (so none of the work can be skipped).
+ * Keys are a permutation of 0 to n - 1, out of order, so the trees and heaps are not fed sorted input.
+ */
+function createCases(collections) {
+	let { LinkedList, PriorityQueue, TreeMap, IntArrayList, IntIntMap } = collections;
+	let scramble = (i, n) => (i * 7919) % n; // 7919 is prime, so this visits every key below n once
+
+	return [
+		{
+			name: "LinkedList addFirst + pollLast",
+			complexity: "O(1)",
+			run(n) {
+				let list = new LinkedList();
+				let sum = 0;
+
+				for(let i = 0; i < n; i++) {
+					list.addFirst(i);
+				}
+
+				for(let i = 0; i < n; i++) {
+					sum += list.pollLast();
+				}
+
+				return { calls: 2 * n, sum: sum };
+			}
+		},
+		{
+			name: "PriorityQueue add + poll",
+			complexity: "O(log n)",
+			run(n) {
+				let queue = new PriorityQueue();
+				let sum = 0;
+
+				for(let i = 0; i < n; i++) {
+					queue.add( scramble(i, n) );
+				}
+
+				for(let i = 0; i < n; i++) {
+					sum += queue.poll();
+				}
+
+				return { calls: 2 * n, sum: sum };
+			}
+		},
+		{
+			name: "TreeMap put + get",
+			complexity: "O(log n)",
+			run(n) {
+				let map = new TreeMap();
+				let sum = 0;
+
+				for(let i = 0; i < n; i++) {
+					map.put(scramble(i, n), i);
+				}
+
+				for(let i = 0; i < n; i++) {
+					sum += map.get(i);
+				}
+
+				return { calls: 2 * n, sum: sum };
+			}
+		},
+		{
+			name: "IntArrayList add + get",
+			complexity: "O(1)",
+			run(n) {
+				let list = new IntArrayList();
+				let sum = 0;
+
+				for(let i = 0; i < n; i++) {
+					list.add(i);
+				}
+
+				for(let i = 0; i < n; i++) {
+					sum += list.get( scramble(i, n) );
+				}
+
+				return { calls: 2 * n, sum: sum };
+			}
+		},
+		{
+			name: "IntIntMap put + get",
+			complexity: "O(1)",
+			run(n) {
+				let map = new IntIntMap();
+				let sum = 0;
+
+				for(let i = 0; i < n; i++) {
+					map.put(scramble(i, n) * 31, i);
+				}
+
+				for(let i = 0; i < n; i++) {
+					sum += map.get(i * 31);
+				}
+
+				return { calls: 2 * n, sum: sum };
+			}
+		}
+	];
+}
+
+/** Returns the fastest time per call, in nanoseconds, of running `testCase` at size n. */
+function time(testCase, n) {
+	let rounds = Math.max( 1, Math.ceil(MIN_OPERATIONS / (2 * n)) );
+	let best = Infinity;
+	let checksum = 0;
+
+	for(let repeat = 0; repeat < REPEATS; repeat++) {
+		let calls = 0;
+		let start = process.hrtime.bigint();
+
+		for(let round = 0; round < rounds; round++) {
+			let result = testCase.run(n);
+			calls += result.calls;
+			checksum += result.sum;
+		}
+
+		best = Math.min( best, Number(process.hrtime.bigint() - start) / calls );
+	}
+
+	if(checksum !== checksum) {
+		throw new Error(testCase.name + " read back NaN");
+	}
+
+	return best;
+}
+
+function main() {
+	let largestSize = process.argv.length > 2 ? Number(process.argv[2]) : DEFAULT_LARGEST_SIZE;
+	let sizes = [];
+
+	for(let size = SMALLEST_SIZE; size <= largestSize; size *= 10) {
+		sizes.push(size);
+	}
+
+	if(sizes.length === 0) {
+		throw new Error("largestSize must be at least " + SMALLEST_SIZE);
+	}
+
+	let cases = createCases( loadAndroid2JSGame() );
+	let nameWidth = Math.max( ...cases.map(testCase => testCase.name.length) ) + 2;
+
+	// Let the JIT compile every case before anything is timed
+	for(let testCase of cases) {
+		time(testCase, sizes[0]);
+	}
+
+	console.log( "".padEnd(nameWidth + 10) + sizes.map(size => String(size).padStart(20)).join("") );
+
+	for(let testCase of cases) {
+		let growth = testCase.complexity === "O(log n)" ? Math.log2 : () => 1;
+		let baseline = 0;
+		let row = testCase.name.padEnd(nameWidth) + testCase.complexity.padEnd(10);
+
+		for(let size of sizes) {
+			let nanoseconds = time(testCase, size);
+			let scaled = nanoseconds / growth(size);
+
+			if(baseline === 0) {
+				baseline = scaled;
+			}
+
+			row += (nanoseconds.toFixed(1) + " ns (" + (scaled / baseline).toFixed(2) + "x)").padStart(20);
+		}
+
+		console.log(row);
+	}
+}
+
+main();
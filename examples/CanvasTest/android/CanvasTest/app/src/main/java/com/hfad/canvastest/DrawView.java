@@ -8,33 +8,75 @@ import android.graphics.Rect;
 import android.graphics.RectF;
 import android.view.View;
 
-public class DrawView extends View {
+public class DrawView extends View implements Layer.Painter {
+
+    // The picture only changes through setColors(), so it is painted into a layer once and copied from there.
+    // The Paints and shapes are private, and every method that changes them bumps version, so the layer repaints
+    private Layer background;
+    private int version;
+    private Paint circlePaint;
+    private Paint rectPaint;
+    private Paint arcPaint;
+    private Rect rect;
+    private RectF arcBounds;
 
 	public DrawView(Context context) {
         super(context);
+
+        this.background = new Layer(this);
+        this.version = 0;
+
+        // Blue circle outline
+        this.circlePaint = new Paint();
+        this.circlePaint.setStyle(Paint.Style.STROKE);
+        this.circlePaint.setColor(Color.BLUE);
+
+        // Filled red rectangle
+        this.rectPaint = new Paint();
+        this.rectPaint.setStyle(Paint.Style.FILL);
+        this.rectPaint.setColor(Color.RED);
+        this.rect = new Rect(150, 50, 250,  100);
+
+        // Filled semicircle of a custom color
+        this.arcPaint = new Paint();
+        this.arcPaint.setStyle(Paint.Style.FILL);
+        this.arcPaint.setARGB(255, 100, 200, 200);
+        this.arcBounds = new RectF(160, 120, 260, 220);
+    }
+
+    /** Recolors the shapes. The layer is repainted once, on the next draw. */
+    public void setColors(int circleColor, int rectColor, int arcColor) {
+        this.circlePaint.setColor(circleColor);
+        this.rectPaint.setColor(rectColor);
+        this.arcPaint.setColor(arcColor);
+
+        this.version++;
+        this.invalidate();
     }
 
     @Override
 	public void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        Paint paint = new Paint();
+        // A canvas of a new size makes the layer repaint itself at that size
+        this.background.setSize(canvas.getWidth(), canvas.getHeight());
+        this.background.draw(canvas);
+    }
+
+    /** Paints the picture into the background layer. */
+    @Override
+    public void paint(Canvas canvas) {
 
 		// Fill the screen with white
         canvas.drawColor(Color.WHITE);
 
-        // Draw a blue circle outline
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setColor(Color.BLUE);
-        canvas.drawCircle(75, 100, 50, paint);
-
-        // Draw a filled red rectangle
-        paint.setStyle(Paint.Style.FILL);
-        paint.setColor(Color.RED);
-        canvas.drawRect(new Rect(150, 50, 250,  100), paint);
- 
-		// Draw a filled semicircle of a custom color
-		paint.setARGB(255, 100, 200, 200);
-        canvas.drawArc(new RectF(160, 120, 260, 220), 0, 180, false, paint);
+        canvas.drawCircle(75, 100, 50, this.circlePaint);
+        canvas.drawRect(this.rect, this.rectPaint);
+        canvas.drawArc(this.arcBounds, 0, 180, false, this.arcPaint);
+    }
+
+    @Override
+    public int getVersion() {
+        return this.version;
     }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.hfad.canvastest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+/**
+ * Drawing that rarely changes, recorded once into an offscreen Bitmap and then composited with a
+ * single drawBitmap per frame. The content is only redrawn when the painter's version changes, after
+ * invalidate(), or when the layer is given a new size.
+ */
+public class Layer {
+
+    /** Draws a layer's content. Only called when the layer has to be redrawn. */
+    public interface Painter {
+        void paint(Canvas canvas);
+
+        /**
+         * Returns a number that changes whenever what paint() draws changes, e.g. a counter that
+         * every setter bumps. The layer checks it on each draw(), so it repaints without being told.
+         */
+        int getVersion();
+    }
+
+    private Painter painter;
+    private Bitmap bitmap;
+    private Canvas canvas;
+    private int width;
+    private int height;
+    private boolean dirty;
+    private int paintedVersion;
+
+    public Layer(Painter painter) {
+        this.painter = painter;
+        this.bitmap = null;
+        this.canvas = null;
+        this.width = 0;
+        this.height = 0;
+        this.dirty = true;
+    }
+
+    /**
+     * Sizes the layer, e.g. to the canvas it is drawn on. A new size drops the old Bitmap, so the
+     * content is redrawn at the new size.
+     */
+    public void setSize(int width, int height) {
+        if(width == this.width && height == this.height) {
+            return;
+        }
+
+        this.width = width;
+        this.height = height;
+        this.recycle();
+    }
+
+    /** Makes the next draw() repaint the content, e.g. after something the painter's version misses has changed. */
+    public void invalidate() {
+        this.dirty = true;
+    }
+
+    public boolean isDirty() {
+        return this.dirty || this.painter.getVersion() != this.paintedVersion;
+    }
+
+    /** Draws the layer at the top left of `target`, repainting its content first if needed. */
+    public void draw(Canvas target) {
+
+        // Until the layer has a size there is nothing to record into, so just paint straight through
+        if(this.width <= 0 || this.height <= 0) {
+            this.painter.paint(target);
+            return;
+        }
+
+        if(this.bitmap == null) {
+            this.bitmap = Bitmap.createBitmap(this.width, this.height, Bitmap.Config.ARGB_8888);
+            this.canvas = new Canvas(this.bitmap);
+            this.dirty = true;
+        }
+
+        if(this.isDirty()) {
+            int version = this.painter.getVersion(); // Read first, so a change made while painting shows next time
+            this.bitmap.eraseColor(Color.TRANSPARENT);
+            this.painter.paint(this.canvas);
+            this.paintedVersion = version;
+            this.dirty = false;
+        }
+
+        target.drawBitmap(this.bitmap, 0, 0, null);
+    }
+
+    /** Frees the Bitmap. The next draw() makes a new one and repaints into it. */
+    public void recycle() {
+        if(this.bitmap != null) {
+            this.bitmap.recycle();
+        }
+
+        this.bitmap = null;
+        this.canvas = null;
+        this.dirty = true;
+    }
+}
\ No newline at end of file
@@ -56,9 +56,16 @@ R.drawable ={};
 R.layout = {};
 R.raw = {};
 
-// Standardize some method names
-window.requestAnimationFrame = window.requestAnimationFrame || window.webkitRequestAnimationFrame || mozRequestAnimationFrame;
-window.cancelAnimationFrame = window.cancelAnimationFrame || window.webkitCancelAnimationFrame || mozCancelAnimationFrame;
+// True when a WorkerRunnable has loaded this script into a Web Worker (see Thread.startWorker), which has no DOM
+const Android2JSGameIsWorker = typeof WorkerGlobalScope !== "undefined" && self instanceof WorkerGlobalScope;
+
+// Standardize some method names. Some browsers' workers have no animation frames, so fall back to a 60 fps timer there
+window.requestAnimationFrame = window.requestAnimationFrame || window.webkitRequestAnimationFrame || window.mozRequestAnimationFrame || function(callback) {
+	return setTimeout(function() {
+		callback(performance.now());
+	}, 1000 / 60);
+};
+window.cancelAnimationFrame = window.cancelAnimationFrame || window.webkitCancelAnimationFrame || window.mozCancelAnimationFrame || clearTimeout;
 
 window.navigator.vibrate = window.navigator.vibrate || window.navigator.webkitVibrate || window.navigator.mozVibrate;
 
@@ -79,7 +86,19 @@ window.Android2JSGame = {
 	startOnEnterFullscreen: true,
 	allowTouchInput: true,
 	allowMouseInput: false,
-	interruptToSleep: false
+	interruptToSleep: false,
+	bitmapCacheMaxBytes: 32 * 1024 * 1024, // Budget for decoded/scaled Bitmaps kept by BitmapFactory and Bitmap.createScaledBitmap
+	textCacheMaxEntries: 256, // How many text runs Canvas.drawText keeps pre-rendered. 0 turns the cache off
+	batchDrawCalls: true, // Buffer each locked Canvas's rect, oval and bitmap draws, and draw them grouped by state on unlock
+	maxAudioVoices: 16, // How many SoundPool sounds can play at once, across all SoundPools
+	audioBufferMaxBytes: 16 * 1024 * 1024, // Budget for decoded SoundPool sounds, shared by all SoundPools
+	onprogress: null, // Called as each preloaded asset loads or fails, with (loaded, total, failed)
+	preloadConcurrency: 4, // How many assets load at once
+	preloadTimeout: 10000, // Milliseconds before a load attempt is given up on. 0 waits as long as it takes
+	preloadRetries: 2, // How many more times a failed or timed out asset is tried
+	preloadPriorities: {}, // Resource name -> Android2JSGameAssetLoader tier. Drawables default to CRITICAL, raw media to STREAMING
+	preferencesStorage: "localStorage", // Where SharedPreferences are saved: "localStorage", or "indexedDB" for large stores
+	preferencesFlushDelay: 1000 // Most milliseconds an apply() waits to be saved, if the page is never idle
 };
 
 // Declare some "constants": game canvas, its context and dimensions
@@ -97,8 +116,23 @@ window.Android2JSGameImageSources = [];
 window.Android2JSGameImages = [];
 window.Android2JSGameMediaSources = [];
 window.Android2JSGameMediaFiles = [];
+window.Android2JSGameClaimedMedia = new WeakSet(); // Preloaded <audio> elements a MediaPlayer has taken over (see Android2JSGameClaimMedia)
 window.Android2JSGameElementsLoaded = 0;
 window.Android2JSGameElementsToLoad = 0;
+window.Android2JSGameBitmapCache = null; // LruCache, created on first use (see Android2JSGameGetBitmapCache)
+window.Android2JSGameTextCache = null; // LruCache, created on first use (see Android2JSGameGetTextRun)
+window.Android2JSGameContextStates = new WeakMap(); // Android2JSGameContextState for each context Canvas draws on
+window.Android2JSGameDrawCommands = null; // Android2JSGameDrawCommandBuffer, created by the first Canvas.beginRecording
+window.Android2JSGameAudio = null; // Android2JSGameAudioEngine, created by the first SoundPool (see Android2JSGameGetAudioEngine)
+window.Android2JSGamePreferenceWriter = null; // Android2JSGamePreferenceWriter, created while preloading (see Android2JSGameGetPreferenceWriter)
+window.Android2JSGameCanvasOwner = null; // The Thread whose worker has the game canvas, if any (see Thread.startWorker)
+window.Android2JSGameScriptUrl = Android2JSGameIsWorker ? "" : document.currentScript.src; // Loaded again by each worker
+
+// Only set in a worker
+window.Android2JSGameWorkerThread = null; // The Thread running the page's WorkerRunnable
+window.Android2JSGameWorkerImages = {}; // The page's preloaded images, as ImageBitmaps by resource name
+window.Android2JSGameInterruptCell = null; // Int32Array on a SharedArrayBuffer: the page sets it to 1 to wake a sleep
+window.Android2JSGameTouchTargets = []; // Views passed to SurfaceHolder.addCallback, which get the page's touches
 
 /**
  * Fonts will be stored as objects of this form:
@@ -114,17 +148,23 @@ window.Android2JSGameFonts = {};
 window.Android2JSGameStorageTitle = "";
 window.Android2JSGameStoredBodyMargin = "";
 
-// Create clickable "fullscreen" button since JS requires user action for fs
-window.Android2JSGameFSButton = document.createElement("IMG");
+window.Android2JSGameFSButton = null;
+window.Android2JSGameSleepWaitDiv = null;
+
+if(!Android2JSGameIsWorker) {
 
-// Globally create a hidden div just for slowing down processes for thread.sleep
-window.Android2JSGameSleepWaitDiv = document.createElement("DIV");
-window.Android2JSGameSleepWaitDiv.style.width = "1px";
-window.Android2JSGameSleepWaitDiv.style.height = "1px";
-window.Android2JSGameSleepWaitDiv.style.display = "none"; // We need to hide it (or position it off screen)
+	// Create clickable "fullscreen" button since JS requires user action for fs
+	window.Android2JSGameFSButton = document.createElement("IMG");
+
+	// Globally create a hidden div just for slowing down processes for thread.sleep
+	window.Android2JSGameSleepWaitDiv = document.createElement("DIV");
+	window.Android2JSGameSleepWaitDiv.style.width = "1px";
+	window.Android2JSGameSleepWaitDiv.style.height = "1px";
+	window.Android2JSGameSleepWaitDiv.style.display = "none"; // We need to hide it (or position it off screen)
+}
 
 // Check for Safari or Opera to attempt alternatives for various blocked JS features (fullscreen, onresize, orientation, media)
-window.badApple = ~navigator.vendor.toLowerCase().indexOf("apple") && !!navigator.userAgent.match(/(safari)|(opera)/i);
+window.badApple = ~(navigator.vendor || "").toLowerCase().indexOf("apple") && !!navigator.userAgent.match(/(safari)|(opera)/i);
 
 // Wait for DOM to load, so that dev can define their own R class resources
 window.addEventListener("DOMContentLoaded", function() {
@@ -183,22 +223,10 @@ window.addEventListener("DOMContentLoaded", function() {
 	window.Android2JSGameMediaSources = Object.keys(R.raw);
 	window.Android2JSGameMediaFiles = new Array(window.Android2JSGameMediaSources.length);
 
-	window.Android2JSGameElementsLoaded = 0;
-	window.Android2JSGameElementsToLoad = window.Android2JSGameImageSources.length + window.Android2JSGameMediaSources.length;
-
 	// Start loading image and media resources...
 	Android2JSGamePreloadImagesAndMedia(Android2JSGameImageSources, Android2JSGameMediaSources);
 });
 
-/** Manages preloads, calling initiateAndroid2JSGame when resources are loaded. */
-function Android2JSGameLoadElement() {
-	Android2JSGameElementsLoaded++;
-
-	if(Android2JSGameElementsLoaded === Android2JSGameElementsToLoad) {
-		initiateAndroid2JSGame();
-	}
-}
-
 /**
  * Initiates A2JS Game processes: defines game canvas and
  * canvas rendering context, adds the fullscreen button, etc.
@@ -275,30 +303,202 @@ function initiateAndroid2JSGame() {
 }
 
 /**
- * Sets source values for all game images, after applying
- * onload handler.
+ * Loads game images and media, a few at a time, with the critical tier first (see
+ * Android2JSGameAssetLoader), calling initiateAndroid2JSGame as soon as that tier is ready.
+ * By default every drawable is critical, and media streams in afterwards.
  */
 function Android2JSGamePreloadImagesAndMedia(Android2JSGameImageSources, Android2JSGameMediaSources) {
+	let loader = new Android2JSGameAssetLoader(
+		Android2JSGame.preloadConcurrency,
+		Android2JSGame.preloadTimeout,
+		Android2JSGame.preloadRetries
+	);
+
+	let priorities = Android2JSGame.preloadPriorities || {};
+
+	Android2JSGameImageSources.forEach(function(name, i) {
+		loader.add({
+			name: name,
+			url: `img/${name}.png`,
+			tier: priorities.hasOwnProperty(name) ? priorities[name] : Android2JSGameAssetLoader.CRITICAL,
+			create: function() {
+				return (Android2JSGameImages[i] = new Image());
+			}
+		});
+	});
 
-	if(Android2JSGameImageSources.length === 0 && Android2JSGameMediaSources.length === 0) { // No images or media
-		initiateAndroid2JSGame();
-	} else {
+	(Android2JSGameMediaSources || []).forEach(function(name, i) {
+		loader.add({
+			name: name,
+			url: `audio/${name}.wav`,
+			tier: priorities.hasOwnProperty(name) ? priorities[name] : Android2JSGameAssetLoader.STREAMING,
+			create: function() {
+
+				// A MediaPlayer may have claimed the element already, and even started it
+				return Android2JSGameMediaFiles[i] || (Android2JSGameMediaFiles[i] = Android2JSGameCreateMedia());
+			}
+		});
+	});
+
+	// Stores kept in IndexedDB are read before the game starts, as SharedPreferences reads can't wait
+	let preferences = Android2JSGameGetPreferenceWriter();
+
+	loader.start(function() {
+		preferences.onReady(initiateAndroid2JSGame);
+	});
+}
+
+/**
+ * Loads assets by tier, at most `concurrency` at a time. Every asset of a tier starts loading before
+ * any of the next. An attempt that errors or takes longer than `timeout` ms is retried up to `retries`
+ * times, then the asset is counted as failed, so one missing file can't stop the game from starting.
+ * Each settled asset updates Android2JSGameElementsLoaded and calls Android2JSGame.onprogress.
+ */
+class Android2JSGameAssetLoader {
+	constructor(concurrency, timeout, retries) {
+		this.concurrency = Math.max(1, concurrency || 1);
+		this.timeout = timeout;
+		this.retries = retries;
+
+		this.queue = []; // Assets not yet started, sorted by tier in start()
+		this.active = 0;
+		this.criticalLeft = 0;
+		this.loaded = 0;
+		this.failed = 0;
+		this.onCriticalReady = null;
+	}
+
+	/**
+	 * @param {Object} asset - `name`, `url`, `tier`, and `create`, a function returning
+	 *   the Image or Audio element to load the asset into.
+	 */
+	add(asset) {
+		asset.attempts = 0;
+		this.queue.push(asset);
+
+		if(asset.tier <= Android2JSGameAssetLoader.CRITICAL) {
+			this.criticalLeft++;
+		}
+	}
+
+	/** Starts loading. `onCriticalReady` is called once every critical asset has loaded or failed. */
+	start(onCriticalReady) {
+		this.onCriticalReady = onCriticalReady;
+
+		// Array.prototype.sort is stable, so each tier keeps the order its assets were added in
+		this.queue.sort(function(a, b) {
+			return a.tier - b.tier;
+		});
+
+		window.Android2JSGameElementsLoaded = 0;
+		window.Android2JSGameElementsToLoad = this.queue.length;
+
+		this.checkCriticalReady();
+		this.pump();
+	}
+
+	pump() {
+		while(this.active < this.concurrency && this.queue.length > 0) {
+			this.load( this.queue.shift() );
+		}
+	}
+
+	load(asset) {
+		let self = this;
+		let element = asset.create();
+		let readyEvent = element instanceof HTMLMediaElement ? "canplay" : "load"; // Media only needs enough to start streaming
+		let timer = null;
+
+		function finish(succeeded) {
+			clearTimeout(timer);
+			element.removeEventListener(readyEvent, onReady);
+			element.removeEventListener("error", onFail);
+
+			// A MediaPlayer playing the element is left to stream it, and to deal with any error
+			let claimed = Android2JSGameClaimedMedia.has(element);
+
+			if(!succeeded && !claimed) {
+				element.removeAttribute("src"); // Stops the download
+			}
+
+			self.active--;
+			self.settle(asset, succeeded, claimed);
+		}
+
+		function onReady() {
+			finish(true);
+		}
+
+		function onFail() {
+			finish(false);
+		}
+
+		this.active++;
+		asset.attempts++;
+
+		element.addEventListener(readyEvent, onReady);
+		element.addEventListener("error", onFail);
+
+		if(this.timeout > 0) {
+			timer = setTimeout(onFail, this.timeout);
+		}
+
+		// A MediaPlayer that has claimed the element has started it, or released it. Setting src again
+		// would restart its download, or revive one nobody needs
+		if(Android2JSGameClaimedMedia.has(element)) {
+			if(!element.hasAttribute("src") || element.readyState >= HTMLMediaElement.HAVE_FUTURE_DATA) {
+				finish(true);
+			}
+
+			return;
+		}
+
+		element.src = asset.url;
+	}
 
-		// If we have any image sources or media sources, one of these loops will trigger the program to initialize
-		for(let i = 0, len = Android2JSGameImageSources.length; i < len; i++) {
-			Android2JSGameImages[i] = new Image();
-			Android2JSGameImages[i].onload = Android2JSGameLoadElement;
-			Android2JSGameImages[i].src = `img/${Android2JSGameImageSources[i]}.png`;
+	settle(asset, succeeded, claimed) {
+		if(!succeeded && !claimed && asset.attempts <= this.retries) {
+			this.queue.unshift(asset); // Its tier is still the most urgent one left
+			this.pump();
+			return;
+		}
+
+		if(succeeded) {
+			this.loaded++;
+		} else {
+			this.failed++;
+			console.error("Could not load " + asset.url + " after " + asset.attempts + " attempt(s).");
+		}
+
+		window.Android2JSGameElementsLoaded = this.loaded + this.failed;
+
+		if(typeof Android2JSGame.onprogress === "function") {
+			Android2JSGame.onprogress(this.loaded, window.Android2JSGameElementsToLoad, this.failed);
+		}
+
+		if(asset.tier <= Android2JSGameAssetLoader.CRITICAL) {
+			this.criticalLeft--;
+			this.checkCriticalReady();
 		}
 
-		for(let i = 0, len = Android2JSGameMediaSources.length; i < len; i++) {
-			Android2JSGameMediaFiles[i] = new Audio();
-			Android2JSGameMediaFiles[i].onloadeddata = Android2JSGameLoadElement;
-			Android2JSGameMediaFiles[i].src = `audio/${Android2JSGameMediaSources[i]}.wav`;
+		this.pump();
+	}
+
+	checkCriticalReady() {
+		if(this.criticalLeft === 0 && this.onCriticalReady !== null) {
+			let onCriticalReady = this.onCriticalReady;
+
+			this.onCriticalReady = null;
+			onCriticalReady();
 		}
 	}
 }
 
+// Tiers for Android2JSGame.preloadPriorities. The game starts once CRITICAL assets are ready
+Android2JSGameAssetLoader.CRITICAL = 0;
+Android2JSGameAssetLoader.DEFERRED = 1;
+Android2JSGameAssetLoader.STREAMING = 2;
+
 /**
  * If image names are not stored statically, use this (with
  * appropriate PHP files) to read images folder.
@@ -525,6 +725,10 @@ Color.rgb = function(r, g, b) {
 };
 
 // Emulate a few standard Android game initialization processes
+if(Android2JSGameIsWorker) {
+	self.Window = function() {}; // Workers have no Window, so stand one in for the constant below
+}
+
 Window.FEATURE_NO_TITLE = 1;
 
 class WindowManager {
@@ -655,6 +859,11 @@ MotionEvent.ACTION_DOWN = 0;
 MotionEvent.ACTION_MOVE = 1;
 MotionEvent.ACTION_UP = 2;
 
+// Rebuilds a MotionEvent the page posted to a worker, where there are no DOM events to build one from
+MotionEvent.fromMessage = function(data) {
+	return Object.assign(Object.create(MotionEvent.prototype), data);
+};
+
 // Emulates GestureDetector methods
 class GestureDetector {
 	constructor() {
@@ -744,7 +953,9 @@ function findFirstPositive(b, a, i, c) {
 	return c(i / 2, i)|0;
 }
 
-var firstPosCalculation = findFirstPositive(x => matchMedia(`(max-resolution: ${x}dpi)`).matches) / (window.devicePixelRatio || 1);
+// A worker can't query media, so the page passes its own DPI in (see Thread.startWorker)
+var firstPosCalculation = Android2JSGameIsWorker ? window.Android2JSGamePageDpi :
+	findFirstPositive(x => matchMedia(`(max-resolution: ${x}dpi)`).matches) / (window.devicePixelRatio || 1);
 
 // Based on a few devices
 const Android2JSGameDpi = Math.max(16 * ((648 + 80 * window.devicePixelRatio) / 7) / 15, firstPosCalculation);
@@ -757,7 +968,7 @@ class DisplayMetrics {
 
 	/** Initializes display metrics with screen dimensions. */
 	constructor() {
-		let pDepth = window.screen.pixelDepth || 24;
+		let pDepth = (window.screen && window.screen.pixelDepth) || 24;
 
 		this.widthPixels = getFullscreenDimensions().width;
 		this.heightPixels = getFullscreenDimensions().height;
@@ -1093,6 +1304,18 @@ class Activity extends Context {
 
 		window.Android2JSGameCanvas.style.display = "block";
 
+		// Once a worker has the game canvas, only it can resize the canvas, and only it draws there
+		if(window.Android2JSGameCanvasOwner !== null) {
+			window.Android2JSGameCanvas.style.width = window.Android2JSGameWidth + "px";
+			window.Android2JSGameCanvas.style.height = window.Android2JSGameHeight + "px";
+			window.Android2JSGameCanvasOwner.postToWorker({
+				type: "resize",
+				width: window.Android2JSGameWidth,
+				height: window.Android2JSGameHeight
+			});
+			return;
+		}
+
 		window.Android2JSGameCanvas.style.width = (window.Android2JSGameCanvas.width
 			= window.Android2JSGameWidth) + "px";
 
@@ -1189,6 +1412,33 @@ window.oncontextmenu = function() {
 	return false;
 };
 
+/**
+ * A fixed ring of reusable objects, for values used straight away and then dropped, like the Rects
+ * a collision test or a draw call needs (see Rect.obtain). obtain() hands them out in turn, so each
+ * is only valid until `size` more have been obtained. Nothing is allocated after the first lap,
+ * and nothing needs to be given back.
+ */
+class Android2JSGameScratchRing {
+	constructor(create, size) {
+		this.create = create;
+		this.items = new Array(size);
+		this.next = 0;
+	}
+
+	obtain() {
+		let item = this.items[this.next];
+
+		if(typeof item === "undefined") {
+			item = this.items[this.next] = this.create();
+		}
+
+		this.next = (this.next + 1) % this.items.length;
+		return item;
+	}
+}
+
+Android2JSGameScratchRing.SIZE = 64; // Scratch objects of each class in use at once
+
 /** Emulate the Point class. Note in Android Java, a Point's x and y values are static (no getX() or getY() methods) */
 class Point {
 	constructor(x, y) {
@@ -1247,6 +1497,17 @@ Point.prototype.set = function(newX, newY) {
 	this.y = newY;
 };
 
+/** Returns a scratch Point set to (x, y), to use straight away and not keep (see Android2JSGameScratchRing). */
+Point.obtain = function(x=0, y=0) {
+	let point = Point.SCRATCH.obtain();
+	point.set(x, y);
+	return point;
+};
+
+Point.SCRATCH = new Android2JSGameScratchRing(function() {
+	return new Point();
+}, Android2JSGameScratchRing.SIZE);
+
 /** Emulate the Point class. Note in Android Java, a PointF's x and y values are static (no getX() or getY() methods) */
 class PointF {
 	constructor(x, y) {
@@ -1307,6 +1568,17 @@ PointF.prototype.set = function(newX, newY) {
 	this.y = newY;
 };
 
+/** Returns a scratch PointF set to (x, y), to use straight away and not keep (see Android2JSGameScratchRing). */
+PointF.obtain = function(x=0, y=0) {
+	let point = PointF.SCRATCH.obtain();
+	point.set(x, y);
+	return point;
+};
+
+PointF.SCRATCH = new Android2JSGameScratchRing(function() {
+	return new PointF();
+}, Android2JSGameScratchRing.SIZE);
+
 // Mimick the Java Android Rect class
 class Rect {
 	constructor(left, top, right, bottom) {
@@ -1366,9 +1638,7 @@ class Rect {
 				}
 				break;
 			case 2: // contains(int x, int y)
-				let point = new Point(arguments[0], arguments[1]);
-
-				if(this.left <= point.x && point.x <= this.right && this.top <= point.y && point.y <= this.bottom) {
+				if(this.left <= arguments[0] && arguments[0] <= this.right && this.top <= arguments[1] && arguments[1] <= this.bottom) {
 					return true;
 				} else {
 					return false;
@@ -1402,7 +1672,6 @@ class Rect {
 		let bottom;
 		let otherRect = null;
 		let intersecting = false;
-		let intersection; // Rect
 
 		if(arguments.length === 4) {
 			left = arguments[0];
@@ -1418,7 +1687,7 @@ class Rect {
 			throw new Error("Invalid number of arguments for (Rect).intersect");
 		}
 
-		otherRect = new Rect(left, top, right, bottom);
+		otherRect = Rect.obtain(left, topY, right, bottom);
 
 		if(Rect.intersects(this, otherRect)) {
 			intersecting = true;
@@ -1428,8 +1697,7 @@ class Rect {
 			let intRight = Math.min(this.right, otherRect.right);
 			let intBottom = Math.min(this.bottom, otherRect.bottom);
 
-			intersection = new Rect(intLeft, intTop, intRight, intBottom);
-			this.set(intersection);
+			this.set(intLeft, intTop, intRight, intBottom);
 		}
 
 		return intersecting;
@@ -1442,9 +1710,7 @@ class Rect {
 			let right = arguments[2];
 			let bottom = arguments[3];
 
-			let rect = new Rect(left, topY, right, bottom);
-
-			return Rect.intersects(this, rect);
+			return Rect.intersects(this, Rect.obtain(left, topY, right, bottom));
 		} else {
 			throw new Error("Invalid number of arguments for (Rect).intersects. To check if two Rects intersect,\n"
 				+ "use static method Rect.intersects(rect1, rect2)");
@@ -1457,7 +1723,6 @@ class Rect {
 		let right;
 		let bottom;
 		let otherRect = null;
-		let unionRect;
 
 		if(arguments.length === 4) {
 			left = arguments[0];
@@ -1478,15 +1743,24 @@ class Rect {
 			throw new Error("Invalid number of arguments for (Rect).union");
 		}
 
-		otherRect = new Rect(left, top, right, bottom);
+		otherRect = Rect.obtain(left, topY, right, bottom);
+
+		// As in Android, an empty rect adds nothing, and an empty rect grows to whatever is added
+		if(otherRect.isEmpty()) {
+			return;
+		}
+
+		if(this.isEmpty()) {
+			this.set(otherRect);
+			return;
+		}
 
 		let intLeft = Math.min(this.left, otherRect.left);
 		let intTop = Math.min(this.top, otherRect.top);
 		let intRight = Math.max(this.right, otherRect.right);
 		let intBottom = Math.max(this.bottom, otherRect.bottom);
 
-		unionRect = new Rect(intLeft, intTop, intRight, intBottom);
-		this.set(unionRect);
+		this.set(intLeft, intTop, intRight, intBottom);
 	}
 
 	isEmpty() {
@@ -1540,6 +1814,21 @@ Rect.intersects = function(rect1, rect2) {
 	return false;
 };
 
+/**
+ * Returns a scratch Rect set to (left, top, right, bottom), or to a copy of one Rect argument, to
+ * use straight away and not keep: for a collision test, say, or to pass to a Canvas draw, which
+ * copies what it needs (see Android2JSGameScratchRing).
+ */
+Rect.obtain = function(left=0, top=0, right=0, bottom=0) {
+	let rect = Rect.SCRATCH.obtain();
+	rect.set(left, top, right, bottom);
+	return rect;
+};
+
+Rect.SCRATCH = new Android2JSGameScratchRing(function() {
+	return new Rect();
+}, Android2JSGameScratchRing.SIZE);
+
 class RectF {
 	constructor(left, top, right, bottom) {
 		if(arguments.length === 0) {
@@ -1598,9 +1887,7 @@ class RectF {
 				}
 				break;
 			case 2: // contains(int x, int y)
-				let point = new Point(arguments[0], arguments[1]);
-
-				if(this.left <= point.x && point.x <= this.right && this.top <= point.y && point.y <= this.bottom) {
+				if(this.left <= arguments[0] && arguments[0] <= this.right && this.top <= arguments[1] && arguments[1] <= this.bottom) {
 					return true;
 				} else {
 					return false;
@@ -1634,7 +1921,6 @@ class RectF {
 		let bottom;
 		let otherRectF = null;
 		let intersecting = false;
-		let intersection; // RectF
 
 		if(arguments.length === 4) {
 			left = arguments[0];
@@ -1650,7 +1936,7 @@ class RectF {
 			throw new Error("Invalid number of arguments for (RectF).intersect");
 		}
 
-		otherRectF = new RectF(left, top, right, bottom);
+		otherRectF = RectF.obtain(left, topY, right, bottom);
 
 		if(RectF.intersects(this, otherRectF)) {
 			intersecting = true;
@@ -1660,8 +1946,7 @@ class RectF {
 			let intRight = Math.min(this.right, otherRectF.right);
 			let intBottom = Math.min(this.bottom, otherRectF.bottom);
 
-			intersection = new RectF(intLeft, intTop, intRight, intBottom);
-			this.set(intersection);
+			this.set(intLeft, intTop, intRight, intBottom);
 		}
 
 		return intersecting;
@@ -1674,9 +1959,7 @@ class RectF {
 			let right = arguments[2];
 			let bottom = arguments[3];
 
-			let rectF = new RectF(left, topY, right, bottom);
-
-			return RectF.intersects(this, rectF);
+			return RectF.intersects(this, RectF.obtain(left, topY, right, bottom));
 		}  else {
 			throw new Error("Invalid number of arguments for (RectF).intersects. To check if two RectFs intersect,\n"
 				+ "use static method RectF.intersects(rectf1, rectf2)");
@@ -1689,7 +1972,6 @@ class RectF {
 		let right;
 		let bottom;
 		let otherRectF = null;
-		let unionRectF;
 
 		if(arguments.length === 4) {
 			left = arguments[0];
@@ -1710,15 +1992,24 @@ class RectF {
 			throw new Error("Invalid number of arguments for (RectF).union");
 		}
 
-		otherRectF = new RectF(left, top, right, bottom);
+		otherRectF = RectF.obtain(left, topY, right, bottom);
+
+		// As in Android, an empty rect adds nothing, and an empty rect grows to whatever is added
+		if(otherRectF.isEmpty()) {
+			return;
+		}
+
+		if(this.isEmpty()) {
+			this.set(otherRectF);
+			return;
+		}
 
 		let intLeft = Math.min(this.left, otherRectF.left);
 		let intTop = Math.min(this.top, otherRectF.top);
 		let intRight = Math.max(this.right, otherRectF.right);
 		let intBottom = Math.max(this.bottom, otherRectF.bottom);
 
-		unionRectF = new RectF(intLeft, intTop, intRight, intBottom);
-		this.set(unionRectF);
+		this.set(intLeft, intTop, intRight, intBottom);
 	}
 
 	isEmpty() {
@@ -1772,15 +2063,46 @@ RectF.intersects = function(rect1, rect2) {
 	return false;
 };
 
+/**
+ * Returns a scratch RectF set to (left, top, right, bottom), or to a copy of one RectF argument, to
+ * use straight away and not keep: for a collision test, say, or to pass to a Canvas draw, which
+ * copies what it needs (see Android2JSGameScratchRing).
+ */
+RectF.obtain = function(left=0, top=0, right=0, bottom=0) {
+	let rect = RectF.SCRATCH.obtain();
+	rect.set(left, top, right, bottom);
+	return rect;
+};
+
+RectF.SCRATCH = new Android2JSGameScratchRing(function() {
+	return new RectF();
+}, Android2JSGameScratchRing.SIZE);
+
 /** BitmapFactory class, used to create Bitmaps from files. */
 class BitmapFactory {
 	constructor() {}
 
-	decodeResource(resourcesReference, resourcePath) {
+	/**
+	 * Decoded resources are cached by path and config, so decoding the same drawable
+	 * again returns the same Bitmap. Use Bitmap.copy() before modifying the result.
+	 */
+	decodeResource(resourcesReference, resourcePath, options) {
+		let config = (options && options.inPreferredConfig) || Bitmap.Config.ARGB_8888;
+		let cacheKey = resourcesReference.getDrawablePath() + resourcePath + ":" + config;
+		let bitmap = Android2JSGameGetBitmapCache().get(cacheKey);
 
-		return new Bitmap(BITMAP_CONSTRUCTOR_KEY,
+		if(bitmap !== null) {
+			return bitmap;
+		}
+
+		bitmap = new Bitmap(BITMAP_CONSTRUCTOR_KEY,
 			resourcesReference.getDrawablePath(),
 			resourcePath);
+
+		bitmap.config = config;
+		Android2JSGameCacheBitmap(cacheKey, bitmap);
+
+		return bitmap;
 	}
 
 	decodeStream(istream, paddingRect, option) {
@@ -1804,13 +2126,39 @@ class Bitmap {
 				"Use Bitmap.createBitmap instead.");
 		}
 
-		this.image = new Image();
+		this.image = Android2JSGameIsWorker ? null : new Image();
 		this.config = Bitmap.Config.ARGB_8888; // Current standard
 
 		this.mutable = false;
+		this.offscreen = false; // True for blank Bitmaps made to be drawn into, which have no image
 
 		if(arguments.length === 4) { // key (for A2JS), width, height, Bitmap.Config
 			this.config = arguments[3];
+			this.width = arguments[1];
+			this.height = arguments[2];
+			this.canvas = Android2JSGameCreateOffscreenCanvas(this.width, this.height);
+			this.ctx = this.canvas.getContext("2d");
+			this.offscreen = true;
+			this.mutable = true;
+			return this;
+		}
+
+		// A worker has no Image, so a resource is copied from the ImageBitmap the page sent over, and drawn from there
+		if(Android2JSGameIsWorker) {
+			let source = window.Android2JSGameWorkerImages[resourcePath] || null;
+
+			this.width = source !== null ? source.width : 1;
+			this.height = source !== null ? source.height : 1;
+			this.canvas = Android2JSGameCreateOffscreenCanvas(this.width, this.height);
+			this.ctx = this.canvas.getContext("2d");
+			this.offscreen = true;
+
+			if(source !== null) {
+				this.ctx.drawImage(source, 0, 0);
+			} else {
+				console.error("No image for " + resourcePath + " in this worker. Only R.drawable resources preloaded by the page are sent.");
+			}
+
 			return this;
 		}
 
@@ -1829,6 +2177,7 @@ class Bitmap {
 			storedBitmap.canvas.style.width = (this.width * dmDensity) + "px";
 			storedBitmap.canvas.height = this.height * dmDensity;
 			storedBitmap.canvas.style.height = (this.height * dmDensity) + "px";
+			Android2JSGameInvalidateContextState(storedBitmap.ctx); // Resizing reset the context
 
 			/**
 			 * In deciding whether to set the canvas background to the image
@@ -1866,6 +2215,13 @@ class Bitmap {
 	}
 
 	copy() {
+		if(this.offscreen) {
+			let copiedBitmap = new Bitmap(BITMAP_CONSTRUCTOR_KEY, this.width, this.height, this.config);
+			copiedBitmap.ctx.drawImage(this.canvas, 0, 0);
+
+			return copiedBitmap;
+		}
+
 		let copiedBitmap = new Bitmap(BITMAP_CONSTRUCTOR_KEY);
 		copiedBitmap.width = this.width;
 		copiedBitmap.height = this.height;
@@ -1875,6 +2231,7 @@ class Bitmap {
 		copiedBitmap.canvas.style.width = this.canvas.style.width;
 		copiedBitmap.canvas.height = this.canvas.height;
 		copiedBitmap.canvas.style.height = this.canvas.style.height;
+		Android2JSGameInvalidateContextState(copiedBitmap.ctx); // Setting the size resets the context, even to the same size
 		copiedBitmap.image = this.image;
 		copiedBitmap.ctx.drawImage(copiedBitmap.image);
 		copiedBitmap.mutable = true;
@@ -1883,7 +2240,7 @@ class Bitmap {
 	}
 
 	getWidth() {
-		return this.image.width;
+		return this.offscreen ? this.width : this.image.width;
 	}
 
 	setWidth(width) {
@@ -1894,11 +2251,12 @@ class Bitmap {
 
 		this.canvas.width = this.width * dmDensity;
 		this.canvas.style.width = (this.width * dmDensity) + "px";
+		Android2JSGameInvalidateContextState(this.ctx);
 		this.ctx.drawImage(this.image, 0, 0);
 	}
 
 	getHeight() {
-		return this.image.height;
+		return this.offscreen ? this.height : this.image.height;
 	}
 
 	setHeight(height) {
@@ -1909,6 +2267,7 @@ class Bitmap {
 
 		this.canvas.width = this.width * dmDensity;
 		this.canvas.style.width = (this.width * dmDensity) + "px";
+		Android2JSGameInvalidateContextState(this.ctx);
 		this.ctx.drawImage(this.image, 0, 0);
 	}
 
@@ -1919,6 +2278,115 @@ class Bitmap {
 	getConfig() {
 		return this.config;
 	}
+
+	// Every config we support stores 4 bytes per pixel
+	getByteCount() {
+		return this.getWidth() * this.getHeight() * 4;
+	}
+
+	getAllocationByteCount() {
+		return this.getByteCount();
+	}
+
+	// What to pass to drawImage: the canvas of a Bitmap that is drawn into, otherwise the decoded image
+	getDrawingSource() {
+		return this.offscreen ? this.canvas : this.image;
+	}
+
+	// Fills the whole Bitmap with `color`, replacing what was there. Only Bitmaps from createBitmap(width, height, config) can be erased
+	eraseColor(color) {
+		if(!this.offscreen) {
+			throw new Error("IllegalStateException: cannot erase immutable bitmaps");
+		}
+
+		// Draws queued for this Bitmap must land before it is wiped
+		Android2JSGameFlushDrawCommands();
+
+		// As on Android, erasing ignores the transform, alpha, shadow and blending of any Canvas drawing
+		// into this Bitmap. restore() puts back exactly what its context state has cached, so the cache
+		// stays right without being invalidated
+		this.ctx.save();
+		this.ctx.setTransform(1, 0, 0, 1, 0, 0);
+		this.ctx.clearRect(0, 0, this.canvas.width, this.canvas.height);
+
+		if(color !== Color.TRANSPARENT) {
+			this.ctx.globalAlpha = 1;
+			this.ctx.globalCompositeOperation = "source-over";
+			this.ctx.shadowColor = "rgba(0, 0, 0, 0)";
+			this.ctx.fillStyle = color;
+			this.ctx.fillRect(0, 0, this.canvas.width, this.canvas.height);
+		}
+
+		this.ctx.restore();
+	}
+
+	// Lets go of the pixels. Shrinking the backing canvas frees its memory straight away, rather than on garbage collection
+	recycle() {
+		if(this.offscreen) {
+			this.canvas.width = 0;
+			this.canvas.height = 0;
+			Android2JSGameInvalidateContextState(this.ctx);
+		}
+
+		this.recycled = true;
+	}
+
+	isRecycled() {
+		return this.recycled === true;
+	}
+}
+
+/**
+ * Creates the pixels behind a Bitmap that is drawn into. Where the browser has OffscreenCanvas we use
+ * one, since it is never part of the page; otherwise a <canvas> element that is never attached.
+ */
+function Android2JSGameCreateOffscreenCanvas(width, height) {
+	if(typeof OffscreenCanvas !== "undefined") {
+		return new OffscreenCanvas(width, height);
+	}
+
+	let canvas = document.createElement("CANVAS");
+	canvas.width = width;
+	canvas.height = height;
+
+	return canvas;
+}
+
+/**
+ * Returns the LRU cache shared by BitmapFactory.decodeResource and Bitmap.createScaledBitmap,
+ * bounded by Android2JSGame.bitmapCacheMaxBytes.
+ */
+function Android2JSGameGetBitmapCache() {
+	if(window.Android2JSGameBitmapCache === null) {
+		window.Android2JSGameBitmapCache = new LruCache(Android2JSGame.bitmapCacheMaxBytes);
+		window.Android2JSGameBitmapCache.sizeOf = function(key, bitmap) {
+			return bitmap.getByteCount();
+		};
+	}
+
+	return window.Android2JSGameBitmapCache;
+}
+
+/**
+ * Stores a Bitmap in the shared cache. Images load asynchronously, so a Bitmap's size
+ * may still be 0 here; it is stored again once loaded, which charges its real size.
+ */
+function Android2JSGameCacheBitmap(cacheKey, bitmap) {
+	let bitmapCache = Android2JSGameGetBitmapCache();
+
+	bitmap.cacheKey = cacheKey;
+	bitmapCache.put(cacheKey, bitmap);
+
+	// Offscreen pixels are there already, with no image to wait for
+	if(bitmap.offscreen) {
+		return;
+	}
+
+	bitmap.image.addEventListener("load", function() {
+		if(bitmapCache.map.get(cacheKey) === bitmap) {
+			bitmapCache.put(cacheKey, bitmap);
+		}
+	});
 }
 
 Bitmap.Config = {
@@ -1977,14 +2445,7 @@ Bitmap.createBitmap = function() {
 					document.body.appendChild(canvas);
 
 					let ctx = canvas.getContext("2d");
-					ctx.setTransform(
-						matrix.values[Matrix.MSCALE_X],
-						matrix.values[Matrix.MSKEW_X],
-						matrix.values[Matrix.MSKEW_Y],
-						matrix.values[Matrix.MSCALE_Y],
-						matrix.values[Matrix.MTRANS_X],
-						matrix.values[Matrix.MTRANS_Y]
-					);
+					matrix.applyTo(ctx);
 
 					ctx.drawImage(image, translatedX, translatedY, signedScaledWidth, signedScaledHeight);
 
@@ -2016,10 +2477,8 @@ Bitmap.createBitmap = function() {
 				"arguments for width and height must be positive.");
 		}
 
-		var bitmap = new Bitmap(BITMAP_CONSTRUCTOR_KEY, null, null);
-		bitmap.setWidth(arguments[0]);
-		bitmap.setHeight(arguments[1]);
-		return bitmap;
+		// A blank Bitmap, usually to be drawn into with new Canvas(bitmap)
+		return new Bitmap(BITMAP_CONSTRUCTOR_KEY, arguments[0], arguments[1], arguments[2] || Bitmap.Config.ARGB_8888);
 	}
 };
 
@@ -2031,6 +2490,32 @@ Bitmap.createScaledBitmap = function(src, destWidth, destHeight, filter) {
 			"arguments for width and height must be positive.");
 	}
 
+	// Scaled copies of cached Bitmaps are cached too, by source, size, and config
+	let cacheKey = null;
+
+	if(src.cacheKey) {
+		cacheKey = src.cacheKey + "@" + destWidth + "x" + destHeight + ":" + src.config + (filter ? ":filtered" : "");
+
+		let cachedBitmap = Android2JSGameGetBitmapCache().get(cacheKey);
+
+		if(cachedBitmap !== null) {
+			return cachedBitmap;
+		}
+	}
+
+	// Bitmaps with offscreen pixels (all of them, in a worker) can be scaled right away, with no image to load
+	if(src.offscreen) {
+		let scaledBitmap = new Bitmap(BITMAP_CONSTRUCTOR_KEY, destWidth, destHeight, src.config);
+		scaledBitmap.ctx.imageSmoothingEnabled = !!filter;
+		scaledBitmap.ctx.drawImage(src.canvas, 0, 0, destWidth, destHeight);
+
+		if(cacheKey !== null) {
+			Android2JSGameCacheBitmap(cacheKey, scaledBitmap);
+		}
+
+		return scaledBitmap;
+	}
+
 	/**
 	 * Use destWidth and destHeight arguments to set the new bitmap image as a resized
 	 * version of the source bitmap's image
@@ -2077,33 +2562,41 @@ Bitmap.createScaledBitmap = function(src, destWidth, destHeight, filter) {
 			"Link to a web server to use images in Bitmap.createScaledBitmap.");
 	}
 
+	if(cacheKey !== null) {
+		bitmap.config = src.config;
+		Android2JSGameCacheBitmap(cacheKey, bitmap);
+	}
+
 	return bitmap;
 };
 
 // Consider reworking to use DOMMatrix
+/**
+ * Emulates Android's 3x3 Matrix. The 9 values are kept in a Float64Array, in the order of the
+ * Matrix.M* indexes, and every operation works on it in place, so transforming allocates nothing.
+ * As on Android, preX(...) makes this matrix M * X, and postX(...) makes it X * M.
+ */
 class Matrix {
 	constructor(oldMatrix) {
+		this.values = new Float64Array(9);
 
 		// Default to the identity matrix
-		if(typeof oldMatrix === "undefined") {
-			this.values = new Array(9);
-			
-			this.values[Matrix.MSCALE_X] = 1;
-			this.values[Matrix.MSKEW_X] = 0;
-
-			this.values[Matrix.MTRANS_X] = 0;
-
-			this.values[Matrix.MSKEW_Y] = 0;
-			this.values[Matrix.MSCALE_Y] = 1;
-
-			this.values[Matrix.MTRANS_Y] = 0;
+		if(typeof oldMatrix === "undefined" || oldMatrix === null) {
+			this.reset();
+		} else { // Copy the source matrix
+			this.values.set(oldMatrix.values);
+		}
+	}
 
-			this.values[Matrix.MPERSP_0] = 0;
-			this.values[Matrix.MPERSP_1] = 0;
-			this.values[Matrix.MPERSP_2] = 1;
+	reset() {
+		Matrix.setAffine(this.values, 1, 0, 0, 0, 1, 0);
+	}
 
-		} else { // Create a deep copy of the source matrix
-			this.values = JSON.parse(JSON.stringify(oldMatrix.values));
+	set(src) {
+		if(src === null) {
+			this.reset();
+		} else {
+			this.values.set(src.values);
 		}
 	}
 
@@ -2112,93 +2605,367 @@ class Matrix {
 			return false;
 		}
 
-		if(JSON.stringify(this.values).replace(/\s/g, "") == JSON.stringify(otherObject.values).replace(/\s/g, "")) {
-			return true;
+		for(let i = 0; i < 9; i++) {
+			if(this.values[i] !== otherObject.values[i]) {
+				return false;
+			}
 		}
 
-		return false;
+		return true;
 	}
 
-	preScale(scaleX, scaleY) {
-		this.values[Matrix.MSCALE_X] = this.values[Matrix.MSCALE_X] * scaleX;
-		this.values[Matrix.MSCALE_Y] = this.values[Matrix.MSCALE_Y] * scaleY;
-	}
+	isIdentity() {
+		let v = this.values;
 
-	postScale(scaleX, scaleY) {
-		this.values[Matrix.MSCALE_X] = this.values[Matrix.MSCALE_X] * scaleX;
-		this.values[Matrix.MSCALE_Y] = this.values[Matrix.MSCALE_Y] * scaleY;
+		return v[Matrix.MSCALE_X] === 1 && v[Matrix.MSKEW_X] === 0 && v[Matrix.MTRANS_X] === 0 &&
+			v[Matrix.MSKEW_Y] === 0 && v[Matrix.MSCALE_Y] === 1 && v[Matrix.MTRANS_Y] === 0 &&
+			v[Matrix.MPERSP_0] === 0 && v[Matrix.MPERSP_1] === 0 && v[Matrix.MPERSP_2] === 1;
 	}
 
-	preSkew(skewX, skewY) {
-		this.values[Matrix.MSKEW_X] = this.values[Matrix.MSKEW_X] * skewX;
-		this.values[Matrix.MSKEW_Y] = this.values[Matrix.MSKEW_Y] * skewY;
+	// True if this matrix at most translates: no scale, rotation, skew or perspective
+	isTranslate() {
+		let v = this.values;
+
+		return v[Matrix.MSCALE_X] === 1 && v[Matrix.MSKEW_X] === 0 && v[Matrix.MSKEW_Y] === 0 && v[Matrix.MSCALE_Y] === 1 &&
+			v[Matrix.MPERSP_0] === 0 && v[Matrix.MPERSP_1] === 0 && v[Matrix.MPERSP_2] === 1;
 	}
 
-	postSkew(skewX, skewY) {
-		this.values[Matrix.MSKEW_X] = this.values[Matrix.MSKEW_X] * skewX;
-		this.values[Matrix.MSKEW_Y] = this.values[Matrix.MSKEW_Y] * skewY;
+	isAffine() {
+		return this.values[Matrix.MPERSP_0] === 0 && this.values[Matrix.MPERSP_1] === 0 && this.values[Matrix.MPERSP_2] === 1;
 	}
 
-	getValues(arr) {
-		arr.splice(0, arr.length);
+	// True if this matrix maps any rectangle to another rectangle: only scales, translates, and rotates by multiples of 90°
+	rectStaysRect() {
+		let v = this.values;
+
+		if(!this.isAffine()) {
+			return false;
+		}
 
-		for(var i = 0; i < 9; i++) {
-			arr.push(this.values[i]);
+		if(v[Matrix.MSKEW_X] === 0 && v[Matrix.MSKEW_Y] === 0) {
+			return v[Matrix.MSCALE_X] !== 0 && v[Matrix.MSCALE_Y] !== 0;
 		}
+
+		return v[Matrix.MSCALE_X] === 0 && v[Matrix.MSCALE_Y] === 0 && v[Matrix.MSKEW_X] !== 0 && v[Matrix.MSKEW_Y] !== 0;
 	}
 
-	isIdentity() {
-		return this.equals(new Matrix());
+	setTranslate(dx, dy) {
+		Matrix.setAffine(this.values, 1, 0, dx, 0, 1, dy);
 	}
-}
 
-Matrix.MSCALE_X = 0;
-Matrix.MSKEW_X = 1;
+	setScale(scaleX, scaleY, pivotX=0, pivotY=0) {
+		Matrix.setAffine(this.values, scaleX, 0, pivotX - scaleX * pivotX, 0, scaleY, pivotY - scaleY * pivotY);
+	}
 
-Matrix.MTRANS_X = 2;
+	setRotate(degrees, pivotX=0, pivotY=0) {
+		Matrix.setRotateValues(this.values, degrees, pivotX, pivotY);
+	}
 
-Matrix.MSKEW_Y = 3;
-Matrix.MSCALE_Y = 4;
+	setSinCos(sinValue, cosValue, pivotX=0, pivotY=0) {
+		Matrix.setAffine(this.values,
+			cosValue, -sinValue, pivotX - cosValue * pivotX + sinValue * pivotY,
+			sinValue, cosValue, pivotY - sinValue * pivotX - cosValue * pivotY);
+	}
 
-Matrix.MTRANS_Y = 5;
+	setSkew(skewX, skewY, pivotX=0, pivotY=0) {
+		Matrix.setAffine(this.values, 1, skewX, -skewX * pivotY, skewY, 1, -skewY * pivotX);
+	}
 
-Matrix.MPERSP_0 = 6;
-Matrix.MPERSP_1 = 7;
-Matrix.MPERSP_2 = 8;
+	// Sets this matrix to a * b
+	setConcat(a, b) {
+		Matrix.multiply(this.values, a.values, b.values);
+		return true;
+	}
 
-class Runnable {
-	run() {}
-}
+	preTranslate(dx, dy) {
+		Matrix.setAffine(Matrix.TEMP, 1, 0, dx, 0, 1, dy);
+		return this.preConcatValues(Matrix.TEMP);
+	}
 
-class Thread extends Runnable {
-	constructor(isMainThread) {
-		super();
-		this.requestedAnimationFrame = null;
-		this.runningAsThread = false;
+	postTranslate(dx, dy) {
+		Matrix.setAffine(Matrix.TEMP, 1, 0, dx, 0, 1, dy);
+		return this.postConcatValues(Matrix.TEMP);
+	}
 
-		this.isMainThread = !!isMainThread;
+	preScale(scaleX, scaleY, pivotX=0, pivotY=0) {
+		Matrix.setAffine(Matrix.TEMP, scaleX, 0, pivotX - scaleX * pivotX, 0, scaleY, pivotY - scaleY * pivotY);
+		return this.preConcatValues(Matrix.TEMP);
+	}
 
-		if(this.isMainThread) {
-			Thread.mainThread = this;
-		} else {
-			
-			// For perhaps, future implentation of thread.join
+	postScale(scaleX, scaleY, pivotX=0, pivotY=0) {
+		Matrix.setAffine(Matrix.TEMP, scaleX, 0, pivotX - scaleX * pivotX, 0, scaleY, pivotY - scaleY * pivotY);
+		return this.postConcatValues(Matrix.TEMP);
+	}
+
+	preRotate(degrees, pivotX=0, pivotY=0) {
+		Matrix.setRotateValues(Matrix.TEMP, degrees, pivotX, pivotY);
+		return this.preConcatValues(Matrix.TEMP);
+	}
+
+	postRotate(degrees, pivotX=0, pivotY=0) {
+		Matrix.setRotateValues(Matrix.TEMP, degrees, pivotX, pivotY);
+		return this.postConcatValues(Matrix.TEMP);
+	}
+
+	preSkew(skewX, skewY, pivotX=0, pivotY=0) {
+		Matrix.setAffine(Matrix.TEMP, 1, skewX, -skewX * pivotY, skewY, 1, -skewY * pivotX);
+		return this.preConcatValues(Matrix.TEMP);
+	}
+
+	postSkew(skewX, skewY, pivotX=0, pivotY=0) {
+		Matrix.setAffine(Matrix.TEMP, 1, skewX, -skewX * pivotY, skewY, 1, -skewY * pivotX);
+		return this.postConcatValues(Matrix.TEMP);
+	}
+
+	preConcat(other) {
+		return this.preConcatValues(other.values);
+	}
+
+	postConcat(other) {
+		return this.postConcatValues(other.values);
+	}
+
+	preConcatValues(values) {
+		Matrix.multiply(this.values, this.values, values);
+		return true;
+	}
+
+	postConcatValues(values) {
+		Matrix.multiply(this.values, values, this.values);
+		return true;
+	}
+
+	/**
+	 * Sets `inverse` (if given) to the inverse of this matrix.
+	 * @returns {boolean} False if this matrix can't be inverted, leaving `inverse` as it was.
+	 */
+	invert(inverse) {
+		let v = this.values;
+		let t = Matrix.PRODUCT;
+
+		t[0] = v[4] * v[8] - v[5] * v[7];
+		t[1] = v[2] * v[7] - v[1] * v[8];
+		t[2] = v[1] * v[5] - v[2] * v[4];
+		t[3] = v[5] * v[6] - v[3] * v[8];
+		t[4] = v[0] * v[8] - v[2] * v[6];
+		t[5] = v[2] * v[3] - v[0] * v[5];
+		t[6] = v[3] * v[7] - v[4] * v[6];
+		t[7] = v[1] * v[6] - v[0] * v[7];
+		t[8] = v[0] * v[4] - v[1] * v[3];
+
+		let determinant = v[0] * t[0] + v[1] * t[3] + v[2] * t[6];
+
+		if(determinant === 0 || !isFinite(determinant)) {
+			return false;
+		}
+
+		if(inverse) {
+			for(let i = 0; i < 9; i++) {
+				inverse.values[i] = t[i] / determinant;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * mapPoints(pts) maps an array of x, y pairs in place. mapPoints(dst, src) and
+	 * mapPoints(dst, dstIndex, src, srcIndex, pointCount) write the mapped points into `dst`.
+	 */
+	mapPoints(dst, dstIndex, src, srcIndex, pointCount) {
+		if(arguments.length === 1) {
+			return this.mapPoints(dst, 0, dst, 0, dst.length >> 1);
+		}
+
+		if(arguments.length === 2) {
+			return this.mapPoints(dst, 0, dstIndex, 0, dstIndex.length >> 1);
+		}
+
+		let v = this.values;
+		let affine = this.isAffine();
+
+		for(let i = 0; i < pointCount; i++) {
+			let x = src[srcIndex + 2 * i];
+			let y = src[srcIndex + 2 * i + 1];
+			let w = affine ? 1 : v[Matrix.MPERSP_0] * x + v[Matrix.MPERSP_1] * y + v[Matrix.MPERSP_2];
+
+			dst[dstIndex + 2 * i] = (v[Matrix.MSCALE_X] * x + v[Matrix.MSKEW_X] * y + v[Matrix.MTRANS_X]) / w;
+			dst[dstIndex + 2 * i + 1] = (v[Matrix.MSKEW_Y] * x + v[Matrix.MSCALE_Y] * y + v[Matrix.MTRANS_Y]) / w;
+		}
+	}
+
+	/**
+	 * Sets `dst` to the bounds of `src` (or of `dst`, if only one RectF is given) once mapped.
+	 * @returns {boolean} rectStaysRect(): whether the mapped rect is exactly `dst`, not just inside it.
+	 */
+	mapRect(dst, src=dst) {
+		let corners = Matrix.CORNERS;
+
+		corners[0] = src.left;  corners[1] = src.top;
+		corners[2] = src.right; corners[3] = src.top;
+		corners[4] = src.right; corners[5] = src.bottom;
+		corners[6] = src.left;  corners[7] = src.bottom;
+
+		this.mapPoints(corners, 0, corners, 0, 4);
+
+		dst.left = Math.min(corners[0], corners[2], corners[4], corners[6]);
+		dst.top = Math.min(corners[1], corners[3], corners[5], corners[7]);
+		dst.right = Math.max(corners[0], corners[2], corners[4], corners[6]);
+		dst.bottom = Math.max(corners[1], corners[3], corners[5], corners[7]);
+
+		return this.rectStaysRect();
+	}
+
+	getValues(arr) {
+		for(let i = 0; i < 9; i++) {
+			arr[i] = this.values[i];
+		}
+	}
+
+	setValues(arr) {
+		for(let i = 0; i < 9; i++) {
+			this.values[i] = arr[i];
+		}
+	}
+
+	/**
+	 * Sets ctx's transform to this matrix. A 2D context can't draw with perspective,
+	 * so the MPERSP_* values are left out.
+	 */
+	applyTo(ctx) {
+		let v = this.values;
+
+		ctx.setTransform(v[Matrix.MSCALE_X], v[Matrix.MSKEW_Y], v[Matrix.MSKEW_X],
+			v[Matrix.MSCALE_Y], v[Matrix.MTRANS_X], v[Matrix.MTRANS_Y]);
+	}
+
+	toString() {
+		let v = this.values;
+
+		return `Matrix{[${v[0]}, ${v[1]}, ${v[2]}][${v[3]}, ${v[4]}, ${v[5]}][${v[6]}, ${v[7]}, ${v[8]}]}`;
+	}
+}
+
+Matrix.MSCALE_X = 0;
+Matrix.MSKEW_X = 1;
+
+Matrix.MTRANS_X = 2;
+
+Matrix.MSKEW_Y = 3;
+Matrix.MSCALE_Y = 4;
+
+Matrix.MTRANS_Y = 5;
+
+Matrix.MPERSP_0 = 6;
+Matrix.MPERSP_1 = 7;
+Matrix.MPERSP_2 = 8;
+
+// Scratch space, so no operation allocates
+Matrix.TEMP = new Float64Array(9); // The matrix a pre/post operation concatenates
+Matrix.PRODUCT = new Float64Array(9); // Results of multiply() and invert(), before they're copied out
+Matrix.CORNERS = new Float64Array(8); // mapRect()'s corners
+
+Matrix.setAffine = function(values, scaleX, skewX, transX, skewY, scaleY, transY) {
+	values[Matrix.MSCALE_X] = scaleX;
+	values[Matrix.MSKEW_X] = skewX;
+	values[Matrix.MTRANS_X] = transX;
+	values[Matrix.MSKEW_Y] = skewY;
+	values[Matrix.MSCALE_Y] = scaleY;
+	values[Matrix.MTRANS_Y] = transY;
+	values[Matrix.MPERSP_0] = 0;
+	values[Matrix.MPERSP_1] = 0;
+	values[Matrix.MPERSP_2] = 1;
+};
+
+Matrix.setRotateValues = function(values, degrees, pivotX, pivotY) {
+	let radians = degrees * Math.PI / 180;
+	let sinValue = Matrix.snap( Math.sin(radians) );
+	let cosValue = Matrix.snap( Math.cos(radians) );
+
+	Matrix.setAffine(values,
+		cosValue, -sinValue, pivotX - cosValue * pivotX + sinValue * pivotY,
+		sinValue, cosValue, pivotY - sinValue * pivotX - cosValue * pivotY);
+};
+
+// Rounds sin(180°) and the like to 0, so quarter turns keep rectStaysRect() true, as on Android
+Matrix.snap = function(value) {
+	return Math.abs(value) < 1e-12 ? 0 : value;
+};
+
+// Sets out = a * b. `out` may be `a` or `b`
+Matrix.multiply = function(out, a, b) {
+	let product = Matrix.PRODUCT;
+
+	for(let row = 0; row < 9; row += 3) {
+		for(let col = 0; col < 3; col++) {
+			product[row + col] = a[row] * b[col] + a[row + 1] * b[col + 3] + a[row + 2] * b[col + 6];
+		}
+	}
+
+	out.set(product);
+};
+
+class Runnable {
+	run() {}
+}
+
+/**
+ * A Runnable to run in a Web Worker rather than on the page. Pass it to new Thread(), and start() loads
+ * this script and `scripts` into a new worker, which then constructs `className` with no arguments and
+ * starts it: as is if it is a Thread, otherwise in a new Thread. While it runs, the first such worker
+ * draws to the game canvas and gets its touches. Activities, audio and storage stay on the page.
+ * @param {string} className - The class to run, defined in one of `scripts`.
+ * @param {string[]} scripts - Script URLs, relative to the page, for the worker to load after this one.
+ */
+class WorkerRunnable extends Runnable {
+	constructor(className, scripts) {
+		super();
+		this.className = className;
+		this.scripts = scripts || [];
+	}
+}
+
+class Thread extends Runnable {
+
+	/**
+	 * @param {Runnable|boolean} target - The Runnable to run, as in Java, or true for the main thread.
+	 */
+	constructor(target) {
+		super();
+		this.requestedAnimationFrame = null;
+		this.runningAsThread = false;
+		this.sleepTimeout = null;
+		this.alive = false;
+		this.joinCallbacks = [];
+
+		this.target = target instanceof Runnable ? target : null;
+		this.worker = null; // Set while a WorkerRunnable target runs
+		this.interruptCell = null;
+
+		this.isMainThread = target === true;
+
+		if(this.isMainThread) {
+			Thread.mainThread = this;
+		} else {
 			Thread.instances.push(this);
 		}
 	}
 
+	// Called once per frame while the thread runs. Without a target, override this
 	run() {
-		if(this.runningAsThread) {
-			let self = this;
-
-			// Continue thread as quickly as we can
-			this.requestedAnimationFrame = window.requestAnimationFrame(
-				self.run.bind(self)
-			);
+		if(this.target !== null) {
+			this.target.run();
 		}
 	}
 
 	start() {
+		this.alive = true;
+
+		if(this.target instanceof WorkerRunnable) {
+			this.startWorker();
+			return;
+		}
+
 		this.runningAsThread = true;
 
 		this.runJavaAndJS();
@@ -2209,14 +2976,38 @@ class Thread extends Runnable {
 		var self = this;
 		this.run.call(self);
 
-		this.requestedAnimationFrame = window.requestAnimationFrame(
-			self.runJavaAndJS.bind(self)
-		);
+		// run() may have stopped the thread, or put it to sleep until a later start()
+		if(this.runningAsThread) {
+			this.requestedAnimationFrame = window.requestAnimationFrame(
+				self.runJavaAndJS.bind(self)
+			);
+		}
 	}
 
+	/**
+	 * Ends the thread: run() is not called again, and join() resolves. A worker's thread
+	 * is asked to stop, woken if asleep, and counts as ended once its worker has closed.
+	 */
 	stop() {
 		this.runningAsThread = false;
 		window.cancelAnimationFrame(this.requestedAnimationFrame);
+		clearTimeout(this.sleepTimeout);
+
+		if(this.worker !== null) {
+			if(this.interruptCell !== null) {
+				Atomics.store(this.interruptCell, 0, 1);
+				Atomics.notify(this.interruptCell, 0);
+			}
+
+			this.worker.postMessage({ type: "stop" });
+			return;
+		}
+
+		this.finish();
+	}
+
+	isAlive() {
+		return this.alive;
 	}
 
 	/**
@@ -2226,10 +3017,19 @@ class Thread extends Runnable {
 	 *
 	 * Android2JSGame.interruptToSleep = true;
 	 *
+	 * In a worker this is always how threads sleep, as it only holds up the worker.
+	 * There it blocks in Atomics.wait where SharedArrayBuffer is available (the page
+	 * must be cross-origin isolated), so stop() on the page wakes it straight away.
+	 *
 	 * @param {number} waitTime - The delay in milliseconds until the
 	 *   next animation starts.
 	 */
 	freezeToSleep(msec) {
+		if(window.Android2JSGameInterruptCell !== null) {
+			Atomics.wait(window.Android2JSGameInterruptCell, 0, 0, msec);
+			return;
+		}
+
 		let startTime = performance.now();
 		let currentTime = performance.now();
 
@@ -2242,7 +3042,9 @@ class Thread extends Runnable {
 		while(currentTime - msec <= startTime) {
 
 			// Updating Element.style is slow, as is updating a DOM element's width. We utilize these facts to force the code to wait
-			Android2JSGameSleepWaitDiv.style.width = (Date.now() / 1000000000000) + "px";
+			if(Android2JSGameSleepWaitDiv !== null) {
+				Android2JSGameSleepWaitDiv.style.width = (Date.now() / 1000000000000) + "px";
+			}
 
 			currentTime = performance.now();
 		}
@@ -2259,24 +3061,245 @@ class Thread extends Runnable {
 	 *   next animation starts.
 	 */
 	sleep(waitTime) {
-		this.stop();
+		this.runningAsThread = false;
+		window.cancelAnimationFrame(this.requestedAnimationFrame);
 
 		let self = this;
-		setTimeout(self.start.bind(self), waitTime);
+		this.sleepTimeout = setTimeout(self.start.bind(self), waitTime);
+	}
+
+	/**
+	 * The page can't block, so this returns a Promise instead, which resolves once the thread
+	 * has ended (see stop()). Use `await thread.join()` in an async function where Java would
+	 * wait. As in Java, passing `millis` gives up waiting after that long, and 0 waits forever.
+	 * @returns {Promise}
+	 */
+	join(millis, nanos) {
+		let self = this;
+
+		return new Promise(function(resolve) {
+			if(!self.alive) {
+				resolve();
+				return;
+			}
+
+			self.joinCallbacks.push(resolve);
+
+			if(millis > 0) {
+				setTimeout(resolve, millis + (nanos || 0) / 1000000);
+			}
+		});
+	}
+
+	// Marks the thread as ended, resolving join(). A worker's thread tells the page, which then closes the worker
+	finish() {
+		this.alive = false;
+
+		this.joinCallbacks.splice(0).forEach(function(resolve) {
+			resolve();
+		});
+
+		if(this === window.Android2JSGameWorkerThread) {
+			self.postMessage({ type: "done" });
+		}
 	}
 
 	/**
-	 * As JS is synchronous by nature, and in particular,
-	 * our run method is being handled synchronously,
-	 * thread.join is unnecessary. This can be modified if we 
-	 * redefine threads to use web workers for instance.
+	 * Runs a WorkerRunnable target in a new Web Worker. If no other worker has the game canvas,
+	 * this one gets it, transferred as an OffscreenCanvas, and the page's touches are posted to it.
 	 */
-	join(millis, nanos) {}
+	startWorker() {
+		let self = this;
+		let scripts = [window.Android2JSGameScriptUrl].concat(this.target.scripts).map(function(src) {
+			return JSON.stringify( new URL(src, window.location.href).href );
+		});
+
+		// The worker has no screen to ask, so it gets the page's density before this script measures it
+		let bootstrap = "self.window = self;\n" +
+			"self.devicePixelRatio = " + (window.devicePixelRatio || 1) + ";\n" +
+			"self.Android2JSGamePageDpi = " + Android2JSGameDpi + ";\n" +
+			"importScripts(" + scripts.join(", ") + ");\n";
+
+		this.worker = new Worker( URL.createObjectURL(new Blob([bootstrap], { type: "text/javascript" })) );
+
+		this.worker.onmessage = function(e) {
+			if(e.data.type === "done") {
+				self.finishWorker();
+			}
+		};
+
+		this.worker.onerror = function(e) {
+			console.error(e.message);
+			self.finishWorker();
+		};
+
+		// Without cross-origin isolation there is no SharedArrayBuffer, and the worker sleeps by spinning instead
+		if(typeof SharedArrayBuffer !== "undefined") {
+			this.interruptCell = new Int32Array(new SharedArrayBuffer(4));
+		}
+
+		let canvas = null;
+
+		if(window.Android2JSGameCanvasOwner === null && typeof window.Android2JSGameCanvas.transferControlToOffscreen === "function") {
+			canvas = Android2JSGameTransferCanvas();
+			window.Android2JSGameCanvasOwner = this;
+
+			Android2JSGameAddInputListeners(window.Android2JSGameCanvas, function(motionEvent) {
+				self.postToWorker({ type: "motion", event: motionEvent });
+			});
+		}
+
+		// Functions (like onload) can't be posted, and only matter on the page
+		let options = {};
+
+		Object.keys(Android2JSGame).forEach(function(key) {
+			if(typeof Android2JSGame[key] !== "function") {
+				options[key] = Android2JSGame[key];
+			}
+		});
+
+		Android2JSGameGetImageBitmaps().then(function(images) {
+			let transfer = Object.keys(images).map(function(name) {
+				return images[name];
+			});
+
+			if(canvas !== null) {
+				transfer.push(canvas);
+			}
+
+			self.postToWorker({
+				type: "start",
+				className: self.target.className,
+				canvas: canvas,
+				width: window.Android2JSGameWidth,
+				height: window.Android2JSGameHeight,
+				options: options,
+				images: images,
+				interruptCell: self.interruptCell
+			}, transfer);
+		});
+	}
+
+	postToWorker(message, transfer) {
+		if(this.worker !== null) {
+			this.worker.postMessage(message, transfer || []);
+		}
+	}
+
+	// Closes the worker, and gives up the game canvas so the next worker Thread can have it
+	finishWorker() {
+		if(this.worker === null) {
+			return;
+		}
+
+		this.worker.terminate();
+		this.worker = null;
+		this.interruptCell = null;
+		this.runningAsThread = false;
+
+		if(window.Android2JSGameCanvasOwner === this) {
+			window.Android2JSGameCanvasOwner = null;
+		}
+
+		this.finish();
+	}
 }
 
 Thread.mainThread = null;
 Thread.instances = [];
 
+/**
+ * A canvas can't be transferred once it has a context, and the game canvas always has one, so a fresh
+ * copy takes its place on the page and is transferred instead. Anything later drawn on the page with
+ * Android2JSGameCtx goes to the old canvas, which is no longer shown.
+ * @returns {OffscreenCanvas} The new game canvas, for the worker to draw to.
+ */
+function Android2JSGameTransferCanvas() {
+	let oldCanvas = window.Android2JSGameCanvas;
+	let canvas = oldCanvas.cloneNode(false);
+
+	canvas.width = oldCanvas.width;
+	canvas.height = oldCanvas.height;
+	oldCanvas.parentNode.replaceChild(canvas, oldCanvas);
+	window.Android2JSGameCanvas = canvas;
+
+	return canvas.transferControlToOffscreen();
+}
+
+/**
+ * Resolves to the preloaded R.drawable images as ImageBitmaps, by resource name, for a worker's
+ * BitmapFactory. An image that failed to load is left out.
+ */
+function Android2JSGameGetImageBitmaps() {
+	let images = {};
+
+	if(typeof createImageBitmap !== "function") {
+		return Promise.resolve(images);
+	}
+
+	return Promise.all(window.Android2JSGameImages.map(function(image, i) {
+		return createImageBitmap(image).then(function(imageBitmap) {
+			images[ window.Android2JSGameImageSources[i] ] = imageBitmap;
+		}, function() {});
+	})).then(function() {
+		return images;
+	});
+}
+
+/**
+ * Handles messages from the page's Thread (see Thread.startWorker). Only used in a worker.
+ */
+function Android2JSGameOnWorkerMessage(e) {
+	let data = e.data;
+
+	switch(data.type) {
+		case "start":
+			Object.assign(Android2JSGame, data.options);
+
+			window.Android2JSGameWidth = data.width;
+			window.Android2JSGameHeight = data.height;
+			window.Android2JSGameWorkerImages = data.images;
+			window.Android2JSGameInterruptCell = data.interruptCell;
+
+			// Only one worker at a time gets the game canvas. Any other draws to a canvas of its own, which isn't shown
+			window.Android2JSGameCanvas = data.canvas || Android2JSGameCreateOffscreenCanvas(data.width, data.height);
+			window.Android2JSGameCtx = window.Android2JSGameCanvas.getContext("2d");
+
+			// Sleeping only holds up this worker, so threads here really sleep, as in Java
+			Thread.prototype.sleep = Thread.prototype.freezeToSleep;
+
+			let runnable = new (eval(data.className))();
+
+			window.Android2JSGameWorkerThread = runnable instanceof Thread ? runnable : new Thread(runnable);
+			window.Android2JSGameWorkerThread.start();
+			break;
+		case "stop":
+			if(window.Android2JSGameWorkerThread !== null) {
+				window.Android2JSGameWorkerThread.stop();
+			} else {
+				self.postMessage({ type: "done" });
+			}
+			break;
+		case "resize":
+			window.Android2JSGameWidth = data.width;
+			window.Android2JSGameHeight = data.height;
+			window.Android2JSGameCanvas.width = data.width;
+			window.Android2JSGameCanvas.height = data.height;
+			break;
+		case "motion":
+			let motionEvent = MotionEvent.fromMessage(data.event);
+
+			window.Android2JSGameTouchTargets.forEach(function(target) {
+				target.onTouchEvent.call(target, motionEvent);
+			});
+			break;
+	}
+}
+
+if(Android2JSGameIsWorker) {
+	self.onmessage = Android2JSGameOnWorkerMessage;
+}
+
 // From ES 2017 solution found here: https://stackoverflow.com/questions/1447407/whats-the-equivalent-of-javas-thread-sleep-in-javascript
 // But... we would have to assume that any function calling this is an async function for it to work correctly
 async function threadSleep(msec) {
@@ -2317,162 +3340,203 @@ Arrays.toString = function(arr) {
 	return "[" + arr.join(", ") + "]";
 };
 
-class ArrayList extends Array {
-	constructor(initialCapacity) {
-		if(typeof initialCapacity === "undefined") {
-			super();
-		} else { // if(initialCapacity instanceof Array) { Array, ArrayList, or list of items
-
-			// Note: `this` keyword is undefined without invoking super
-			super(arguments);
-		}
+/**
+ * Turns a Java Comparator (an object with compare(a, b), or a lambda) into a function. With
+ * no comparator, returns natural ordering: compareTo() where the elements have it, otherwise < and >.
+ */
+function Android2JSGameComparator(comparator) {
+	if(typeof comparator === "function") {
+		return comparator;
 	}
 
-	add(argument0, argument1) {
-		if(typeof argument1 === "undefined") {
-			this.push(argument0);
-		} else {
-			this.splice(argument0, 1, argument1);
-		}
+	if(comparator != null && typeof comparator.compare === "function") {
+		return function(a, b) {
+			return comparator.compare(a, b);
+		};
 	}
 
-	addAll(argument0, argument1) {
-		if(typeof argument1 === "undefined") {
-			this.splice(argument0);
-		} else {
-			this.splice(argument0, argument1.length, argument1);
-		}
-	}
+	return Android2JSGameNaturalOrder;
+}
 
-	clone() {
-		//*** return this; // Shallow copy
-		return JSON.parse(JSON.stringify(this)); // Deep copy
+function Android2JSGameNaturalOrder(a, b) {
+	if(a !== null && typeof a === "object" && typeof a.compareTo === "function") {
+		return a.compareTo(b);
 	}
 
-	// Removes a given object, or the item at a given number index
-	remove(obj) {
-		if(typeof obj === "number") {
-			this.splice(obj, 1);
-		} else {
-			if(this.indexOf(obj) !== -1) {
-				this.splice(this.indexOf(obj), 1);
-			}
-		}
-	}
-	
-	removeAll(subcollection) {
-		for(let x of this) {
-			if(subcollection.includes(this)) {
-				this.remove(x);
-			}
-		}
-	}
+	return a < b ? -1 : (a > b ? 1 : 0);
+}
 
-	retainAll(subcollection) {
-		for(let x of this) {
-			if(!subcollection.includes(this)) {
-				this.remove(x);
-			}
-		}
+// A Java Predicate (an object with test(e), or a lambda) as a function
+function Android2JSGamePredicate(predicate) {
+	if(typeof predicate === "function") {
+		return predicate;
 	}
 
-	subList(startIdx, endIdx) {
-		return this.slice(startIdx, endIdx);
-	}
+	return function(element) {
+		return predicate.test(element);
+	};
+}
 
-	toArray() {
-		return JSON.parse(JSON.stringify( Array.prototype.slice(this) ));
+// True if `collection` (one of ours, an Array or a Set) holds `element`
+function Android2JSGameCollectionContains(collection, element) {
+	if(typeof collection.contains === "function") {
+		return collection.contains(element);
 	}
 
-	contains(obj) {
-		return this.includes(obj);
+	if(typeof collection.includes === "function") {
+		return collection.includes(element);
 	}
 
-	size() {
-		return this.length;
+	return collection.has(element);
+}
+
+/**
+ * A Java Iterator over an index-based list: ArrayList, Vector or IntArrayList.
+ * remove() takes out the element next() last returned.
+ */
+class Android2JSGameListIterator {
+	constructor(list) {
+		this.list = list;
+		this.cursor = 0;
+		this.lastReturned = -1;
 	}
 
-	getArray() {
-		return Array.prototype.slice(this);
+	hasNext() {
+		return this.cursor < this.list.size();
 	}
 
-	clear() {
-		this.splice(0, this.length);
+	next() {
+		if(this.cursor >= this.list.size()) {
+			throw new Error("NoSuchElementException");
+		}
+
+		this.lastReturned = this.cursor++;
+		return this.list.get(this.lastReturned);
 	}
 
-	isEmpty() {
-		return this.length === 0;
+	remove() {
+		if(this.lastReturned < 0) {
+			throw new Error("IllegalStateException: next() has not been called since the last remove()");
+		}
+
+		this.list.removeAt(this.lastReturned);
+		this.cursor = this.lastReturned;
+		this.lastReturned = -1;
 	}
 }
 
-ArrayList.prototype.get = function(idx) {
-	return this[idx];
-};
-
-ArrayList.prototype.set = function(index, element) {
-	this.splice(index, 1, element);
-};
+/**
+ * An Array, so get, set and add at the end are O(1), and adding or removing at an index is O(n),
+ * as in Java. Array methods that make a new array, like slice() and map(), make an ArrayList too.
+ */
+class ArrayList extends Array {
 
-class LinkedList extends Array {
+	// ArrayList(), ArrayList(int initialCapacity) or ArrayList(Collection c). Array methods call this with a length,
+	// which like initialCapacity just starts it empty
 	constructor(initialCapacity) {
-		if(typeof initialCapacity === "undefined") {
-			super();
-		} else { // if(initialCapacity instanceof Array) { Array, ArrayList, or list of items
-
-			super(arguments);
+		super();
 
-			// Note: `this` does not exist without super
-			//*** super.apply(Array, Array.prototype.slice(arguments));
-			// This causes an error. Need to call super directly
+		if(initialCapacity != null && typeof initialCapacity !== "number") {
+			for(let element of initialCapacity) {
+				this.push(element);
+			}
 		}
 	}
 
+	// add(E e), or add(int index, E element) to insert
 	add(argument0, argument1) {
-		if(typeof argument1 === "undefined") {
+		if(arguments.length < 2) {
 			this.push(argument0);
-		} else {
-			this.splice(argument0, 1, argument1);
+			return true;
 		}
+
+		this.checkPositionIndex(argument0);
+		this.splice(argument0, 0, argument1);
 	}
 
+	// addAll(Collection c), or addAll(int index, Collection c) to insert
 	addAll(argument0, argument1) {
-		if(typeof argument1 === "undefined") {
-			this.splice(argument0);
-		} else {
-			this.splice(argument0, argument1.length, argument1);
+		let index = arguments.length < 2 ? this.length : argument0;
+		let collection = arguments.length < 2 ? argument0 : argument1;
+
+		this.checkPositionIndex(index);
+
+		let tail = this.splice(index, this.length - index);
+		let oldLength = this.length;
+
+		for(let element of collection) {
+			this.push(element);
 		}
+
+		for(let i = 0; i < tail.length; i++) {
+			this.push(tail[i]);
+		}
+
+		return this.length - tail.length > oldLength;
 	}
 
+	// As in Java, a shallow copy
 	clone() {
-		//*** return this; // Shallow copy
-		return JSON.parse(JSON.stringify(this)); // Deep copy
+		return new this.constructor(this);
 	}
 
-	// Removes a given object, or the item at a given number index
+	// Removes the item at a given number index, returning it, or else the first of a given object, returning true if found
 	remove(obj) {
 		if(typeof obj === "number") {
-			this.splice(obj, 1);
-		} else {
-			if(this.indexOf(obj) !== -1) {
-				this.splice(this.indexOf(obj), 1);
-			}
+			return this.removeAt(obj);
+		}
+
+		let index = this.indexOf(obj);
+
+		if(index === -1) {
+			return false;
 		}
+
+		this.removeAt(index);
+		return true;
 	}
-	
-	removeAll(subcollection) {
-		for(let x of this) {
-			if(subcollection.includes(this)) {
-				this.remove(x);
+
+	// Shifts the rest down in place, so nothing is allocated
+	removeAt(index) {
+		this.checkElementIndex(index);
+
+		let element = this[index];
+		this.copyWithin(index, index + 1);
+		this.pop();
+
+		return element;
+	}
+
+	/**
+	 * Removes every element `filter` returns true for, in one O(n) pass. The way to remove
+	 * elements while going through the list, rather than remove() inside a for loop.
+	 */
+	removeIf(filter) {
+		let test = Android2JSGamePredicate(filter);
+		let kept = 0;
+
+		for(let i = 0; i < this.length; i++) {
+			if(!test(this[i])) {
+				this[kept++] = this[i];
 			}
 		}
+
+		let removed = kept < this.length;
+		this.length = kept;
+
+		return removed;
+	}
+
+	removeAll(subcollection) {
+		return this.removeIf(function(element) {
+			return Android2JSGameCollectionContains(subcollection, element);
+		});
 	}
 
 	retainAll(subcollection) {
-		for(let x of this) {
-			if(!subcollection.includes(this)) {
-				this.remove(x);
-			}
-		}
+		return this.removeIf(function(element) {
+			return !Android2JSGameCollectionContains(subcollection, element);
+		});
 	}
 
 	subList(startIdx, endIdx) {
@@ -2480,7 +3544,7 @@ class LinkedList extends Array {
 	}
 
 	toArray() {
-		return JSON.parse(JSON.stringify( Array.prototype.slice(this) ));
+		return Array.from(this);
 	}
 
 	contains(obj) {
@@ -2492,2105 +3556,5277 @@ class LinkedList extends Array {
 	}
 
 	getArray() {
-		return Array.prototype.slice(this);
+		return Array.from(this);
 	}
 
 	clear() {
-		this.splice(0, this.length);
+		this.length = 0;
 	}
 
 	isEmpty() {
 		return this.length === 0;
 	}
+
+	iterator() {
+		return new Android2JSGameListIterator(this);
+	}
+
+	// As in Java, sorts by `comparator`, or natural ordering without one (not as strings, like Array.sort)
+	sort(comparator) {
+		return super.sort( Android2JSGameComparator(comparator) );
+	}
+
+	checkElementIndex(index) {
+		if(!(index >= 0 && index < this.length)) {
+			throw new Error("IndexOutOfBoundsException: Index: " + index + ", Size: " + this.length);
+		}
+	}
+
+	checkPositionIndex(index) {
+		if(!(index >= 0 && index <= this.length)) {
+			throw new Error("IndexOutOfBoundsException: Index: " + index + ", Size: " + this.length);
+		}
+	}
 }
 
-LinkedList.prototype.get = function(idx) {
+ArrayList.prototype.get = function(idx) {
 	return this[idx];
 };
 
-LinkedList.prototype.set = function(index, element) {
-	this.splice(index, 1, element);
-};
+ArrayList.prototype.set = function(index, element) {
+	this.checkElementIndex(index);
 
-class Vector extends Array {
-	constructor(initialCapacity) {
-		if(typeof initialCapacity === "undefined") {
-			super();
-		} else { // if(initialCapacity instanceof Array) { Array, ArrayList, or list of items
+	let oldElement = this[index];
+	this[index] = element;
 
-			super(arguments);
+	return oldElement;
+};
 
-			// Note: `this` does not exist without super
-			//*** super.apply(Array, Array.prototype.slice(arguments));
-			// This causes an error. Need to call super directly
+/**
+ * A doubly linked list, as in Java: adding and removing at either end, or through an iterator,
+ * is O(1), and get(index) walks from the nearer end. Also works as a Deque or Queue.
+ */
+class LinkedList {
+	constructor(collection) {
+		this.first = null;
+		this.last = null;
+		this.count = 0;
+
+		if(collection != null) {
+			this.addAll(collection);
 		}
 	}
 
-	add(argument0, argument1) {
-		if(typeof argument1 === "undefined") {
-			this.push(argument0);
+	linkFirst(element) {
+		let node = new LinkedList.Node(element, null, this.first);
+
+		if(this.first === null) {
+			this.last = node;
 		} else {
-			this.splice(argument0, 1, argument1);
+			this.first.prev = node;
 		}
+
+		this.first = node;
+		this.count++;
 	}
 
-	addAll(argument0, argument1) {
-		if(typeof argument1 === "undefined") {
-			this.splice(argument0);
+	linkLast(element) {
+		let node = new LinkedList.Node(element, this.last, null);
+
+		if(this.last === null) {
+			this.first = node;
 		} else {
-			this.splice(argument0, argument1.length, argument1);
+			this.last.next = node;
 		}
+
+		this.last = node;
+		this.count++;
 	}
 
-	clone() {
-		//*** return this; // Shallow copy
-		return JSON.parse(JSON.stringify(this)); // Deep copy
+	linkBefore(element, successor) {
+		if(successor.prev === null) {
+			this.linkFirst(element);
+			return;
+		}
+
+		let node = new LinkedList.Node(element, successor.prev, successor);
+		successor.prev.next = node;
+		successor.prev = node;
+		this.count++;
 	}
 
-	// Removes a given object, or the item at a given number index
-	remove(obj) {
-		if(typeof obj === "number") {
-			this.splice(obj, 1);
+	unlink(node) {
+		if(node.prev === null) {
+			this.first = node.next;
 		} else {
-			if(this.indexOf(obj) !== -1) {
-				this.splice(this.indexOf(obj), 1);
-			}
+			node.prev.next = node.next;
+		}
+
+		if(node.next === null) {
+			this.last = node.prev;
+		} else {
+			node.next.prev = node.prev;
 		}
+
+		node.prev = null;
+		node.next = null;
+		this.count--;
+
+		return node.element;
 	}
-	
-	removeAll(subcollection) {
-		for(let x of this) {
-			if(subcollection.includes(this)) {
-				this.remove(x);
+
+	// The node at `index`, walking from whichever end is nearer
+	node(index) {
+		let node = null;
+
+		if(index < (this.count >> 1)) {
+			node = this.first;
+
+			for(let i = 0; i < index; i++) {
+				node = node.next;
+			}
+		} else {
+			node = this.last;
+
+			for(let i = this.count - 1; i > index; i--) {
+				node = node.prev;
 			}
 		}
+
+		return node;
 	}
 
-	retainAll(subcollection) {
-		for(let x of this) {
-			if(!subcollection.includes(this)) {
-				this.remove(x);
+	// add(E e), or add(int index, E element) to insert
+	add(argument0, argument1) {
+		if(arguments.length < 2) {
+			this.linkLast(argument0);
+			return true;
+		}
+
+		this.checkPositionIndex(argument0);
+
+		if(argument0 === this.count) {
+			this.linkLast(argument1);
+		} else {
+			this.linkBefore(argument1, this.node(argument0));
+		}
+	}
+
+	// addAll(Collection c), or addAll(int index, Collection c) to insert
+	addAll(argument0, argument1) {
+		let index = arguments.length < 2 ? this.count : argument0;
+		let collection = arguments.length < 2 ? argument0 : argument1;
+		let oldCount = this.count;
+
+		this.checkPositionIndex(index);
+
+		let successor = index === this.count ? null : this.node(index);
+
+		for(let element of collection) {
+			if(successor === null) {
+				this.linkLast(element);
+			} else {
+				this.linkBefore(element, successor);
 			}
 		}
+
+		return this.count > oldCount;
 	}
 
-	subList(startIdx, endIdx) {
-		return this.slice(startIdx, endIdx);
+	addFirst(element) {
+		this.linkFirst(element);
 	}
 
-	toArray() {
-		return JSON.parse(JSON.stringify( Array.prototype.slice(this) ));
+	addLast(element) {
+		this.linkLast(element);
 	}
 
-	contains(obj) {
-		return this.includes(obj);
+	offer(element) {
+		this.linkLast(element);
+		return true;
 	}
 
-	size() {
-		return this.length;
+	offerFirst(element) {
+		this.linkFirst(element);
+		return true;
 	}
 
-	getArray() {
-		return Array.prototype.slice(this);
+	offerLast(element) {
+		this.linkLast(element);
+		return true;
 	}
 
-	clear() {
-		this.splice(0, this.length);
+	push(element) {
+		this.linkFirst(element);
 	}
 
-	isEmpty() {
-		return this.length === 0;
+	getFirst() {
+		if(this.first === null) {
+			throw new Error("NoSuchElementException");
+		}
+
+		return this.first.element;
 	}
-}
 
-Vector.prototype.get = function(idx) {
-	return this[idx];
-};
+	getLast() {
+		if(this.last === null) {
+			throw new Error("NoSuchElementException");
+		}
 
-Vector.prototype.set = function(index, element) {
-	this.splice(index, 1, element);
-};
+		return this.last.element;
+	}
 
-class HashedSet extends Set {
-	constructor() {
-		super();
+	element() {
+		return this.getFirst();
 	}
-}
 
-class LinkedHashedSet extends Set {
-	constructor() {
-		super();
+	peek() {
+		return this.first === null ? null : this.first.element;
 	}
-}
 
-class TreeSet extends Set {
-	constructor() {
-		super();
+	peekFirst() {
+		return this.peek();
 	}
-}
 
-class PriorityQueue {}
+	peekLast() {
+		return this.last === null ? null : this.last.element;
+	}
 
-class Polygon {}
+	poll() {
+		return this.first === null ? null : this.unlink(this.first);
+	}
 
-// Handle passive touch events
-var supportsPassive = false;
+	pollFirst() {
+		return this.poll();
+	}
 
-try {
-	var opts = Object.defineProperty({}, 'passive', {
-		get: function() {
-			supportsPassive = true;
+	pollLast() {
+		return this.last === null ? null : this.unlink(this.last);
+	}
+
+	pop() {
+		return this.removeFirst();
+	}
+
+	removeFirst() {
+		if(this.first === null) {
+			throw new Error("NoSuchElementException");
 		}
-	});
 
-	window.addEventListener("test", opts, opts);
-	window.removeEventListener("test", opts, opts);
-} catch(e) {
-	console.log("Passive event handlers not supported.");
-	supportsPassive = false;
-}
+		return this.unlink(this.first);
+	}
 
-class SurfaceHolder {
-	constructor() {
-		this.canvas = null;
+	removeLast() {
+		if(this.last === null) {
+			throw new Error("NoSuchElementException");
+		}
+
+		return this.unlink(this.last);
 	}
 
-	lockCanvas() {
-		this.canvas = new Canvas(window.Android2JSGameCanvas);
-		return this.canvas;
+	// remove() takes the first element; remove(int index) the element there, returning it;
+	// remove(Object o) the first occurrence of o, returning true if found
+	remove(obj) {
+		if(arguments.length === 0) {
+			return this.removeFirst();
+		}
+
+		if(typeof obj === "number") {
+			return this.removeAt(obj);
+		}
+
+		return this.removeFirstOccurrence(obj);
 	}
 
-	unlockCanvasAndPost(canvas) {
-		this.canvas = canvas;
+	removeAt(index) {
+		this.checkElementIndex(index);
+		return this.unlink( this.node(index) );
 	}
 
-	addCallback(gamePanel) {
-		if(Android2JSGame.allowTouchInput) {
-			window.Android2JSGameCanvas.addEventListener("touchstart", function(e) {
-				e.preventDefault(); // Prevent mouse and click events from triggering
+	removeFirstOccurrence(obj) {
+		for(let node = this.first; node !== null; node = node.next) {
+			if(node.element === obj) {
+				this.unlink(node);
+				return true;
+			}
+		}
 
-				gamePanel.onTouchEvent.call(gamePanel, new MotionEvent(e));
-			}, /* supportsPassive ? {passive: true} : */ false);
+		return false;
+	}
 
-			window.Android2JSGameCanvas.addEventListener("touchmove", function(e) {
-				e.preventDefault(); // Prevent mouse and click events from triggering
+	// Removes every element `filter` returns true for, in one O(n) pass
+	removeIf(filter) {
+		let test = Android2JSGamePredicate(filter);
+		let oldCount = this.count;
+		let node = this.first;
 
-				gamePanel.onTouchEvent.call(gamePanel, new MotionEvent(e));
-			}, /* supportsPassive ? {passive: true} : */ false);
+		while(node !== null) {
+			let next = node.next;
 
-			window.Android2JSGameCanvas.addEventListener("touchend", function(e) {
-				e.preventDefault(); // Prevent mouse and click events from triggering
+			if(test(node.element)) {
+				this.unlink(node);
+			}
 
-				gamePanel.onTouchEvent.call(gamePanel, new MotionEvent(e));
-			}, /* supportsPassive ? {passive: true} : */ false);
+			node = next;
 		}
 
-		// For specifically mobile games, it would be best to avoid mouse input
-		if(Android2JSGame.allowMouseInput) {
-			
-			window.Android2JSGameCanvas.addEventListener("mousedown", function(e) {
-				e.preventDefault(); // Prevent mouse and click events from triggering
+		return this.count < oldCount;
+	}
+
+	removeAll(subcollection) {
+		return this.removeIf(function(element) {
+			return Android2JSGameCollectionContains(subcollection, element);
+		});
+	}
+
+	retainAll(subcollection) {
+		return this.removeIf(function(element) {
+			return !Android2JSGameCollectionContains(subcollection, element);
+		});
+	}
+
+	get(index) {
+		this.checkElementIndex(index);
+		return this.node(index).element;
+	}
 
-				window.Android2JSGameMouseIsDown = true;
-				gamePanel.onTouchEvent.call(gamePanel, new MotionEvent(e));
-			}, /* supportsPassive ? {passive: true} : */ false);
+	set(index, element) {
+		this.checkElementIndex(index);
 
-			window.Android2JSGameCanvas.addEventListener("mousemove", function(e) {
-				e.preventDefault(); // Prevent mouse and click events from triggering
+		let node = this.node(index);
+		let oldElement = node.element;
+		node.element = element;
 
-				if(window.Android2JSGameMouseIsDown) {
-					gamePanel.onTouchEvent.call(gamePanel, new MotionEvent(e));
-				}
-			}, /* supportsPassive ? {passive: true} : */ false);
+		return oldElement;
+	}
 
-			window.Android2JSGameCanvas.addEventListener("mouseup", function(e) {
-				e.preventDefault(); // Prevent mouse and click events from triggering
+	indexOf(obj) {
+		let index = 0;
 
-				window.Android2JSGameMouseIsDown = false;
-				gamePanel.onTouchEvent.call(gamePanel, new MotionEvent(e));
-			}, /* supportsPassive ? {passive: true} : */ false);
+		for(let node = this.first; node !== null; node = node.next, index++) {
+			if(node.element === obj) {
+				return index;
+			}
 		}
+
+		return -1;
 	}
-}
 
-const VISIBLE = 0;
-const INVISIBLE = 4;
-const GONE = 8;
+	lastIndexOf(obj) {
+		let index = this.count - 1;
 
-class Surface {
-	constructor() {}
-	lockHardwareCanvas() {}
-	lockCanvas(dirtyRectangle) {}
-	unlockCanvas(canvas) {}
-	unlockCanvasAndPost(canvas) {}
-}
+		for(let node = this.last; node !== null; node = node.prev, index--) {
+			if(node.element === obj) {
+				return index;
+			}
+		}
 
-class View {
-	constructor() {
-		this.view = document.documentElement; // This document's top-level element
-		this.visibilityType = VISIBLE;
-		this.width = this.view.style.clientWidth;
-		this.height = this.view.style.clientHeight;
+		return -1;
+	}
 
-		var self = this;
-		this.view.addEventListener("resize", function() {
-			let oldWidth = self.width;
-			let oldHeight = self.height;
-			self.width = this.view.clientWidth;
-			self.height = this.view.clientHeight;
-			self.onSizeChanged(self.width, self.height, oldWidth, oldHeight);
-		}, false);
+	contains(obj) {
+		return this.indexOf(obj) !== -1;
 	}
 
-	setVisibility(visibilityType) {
-		var visibilityChanged = false;
-		if(visibilityType !== this.visibilityType) {
-			visibilityChanged = true;
-		}
+	size() {
+		return this.count;
+	}
 
-		switch(visibilityType) {
-			case VISIBLE:
-				this.view.style.display = "block";
-				this.view.style.visibility = "visible";
-				break;
-			case INVISIBLE:
-				this.view.style.display = "block";
-				this.view.style.visibility = "hidden";
-				break;
-			case GONE:
-				this.view.style.display = "none";
-				this.view.style.visibility = "visible"; //Return to default
-				break;
-		}
+	isEmpty() {
+		return this.count === 0;
+	}
 
-		if(visibilityChanged) {
-			this.onWindowVisibilityChanged(visibilityType);
-		}
+	clear() {
+		this.first = null;
+		this.last = null;
+		this.count = 0;
 	}
 
-	// Override this method for any screen resizing events (like changing orientation)
-	onSizeChanged(newWidth, newHeight, oldWidth, oldHeight) {}
+	clone() {
+		return new LinkedList(this);
+	}
 
-	onWindowVisibilityChanged(visibilityType) {}
+	toArray() {
+		let array = new Array(this.count);
+		let index = 0;
 
-	onDraw(canvas) {}
-	onKeyDown(keyEvent) {}
-	onKeyUp(keyEvent) {}
-	onTouchEvent(motionEvent) {}
-}
+		for(let node = this.first; node !== null; node = node.next) {
+			array[index++] = node.element;
+		}
 
-class SurfaceView extends View {
-	constructor(context) {
-		super(context);
-		this.holder = new SurfaceHolder();
+		return array;
+	}
 
-		this.surfaceCreated(this.holder);
+	getArray() {
+		return this.toArray();
 	}
 
-	surfaceChanged() {}
-	surfaceDestroyed(surfaceHolder) {}
-	surfaceCreated(surfaceHolder) {}
-	onTouchEvent(motionEvent) {}
+	forEach(action) {
+		for(let node = this.first; node !== null; node = node.next) {
+			action(node.element);
+		}
+	}
 
-	draw(canvas) {}
+	iterator() {
+		return new LinkedList.Iterator(this, false);
+	}
 
-	getHolder(){
-		return this.holder;
+	descendingIterator() {
+		return new LinkedList.Iterator(this, true);
 	}
 
-	setFocusable(focusable) {
-		if(focusable) {
-			window.Android2JSGameCanvas.focus();
+	*[Symbol.iterator]() {
+		for(let node = this.first; node !== null; node = node.next) {
+			yield node.element;
 		}
 	}
-}
 
-Error.prototype.printStackTrace = function() {
-	if(this.stack) {
-		console.log(this.stack);
-	} else if(console.trace) {
-		console.trace();
-	} else {
-		console.error(this);
+	checkElementIndex(index) {
+		if(!(index >= 0 && index < this.count)) {
+			throw new Error("IndexOutOfBoundsException: Index: " + index + ", Size: " + this.count);
+		}
 	}
-};
 
-// The definition of "synchronized" in Java is not carried over here (yet), and is not used as a function anyhow.
-try {
-	var synchronized;
-	window.synchronized = window.synchronized || function(holder) {};
-} catch (e) {
-	console.log("synchronized is a reserve word");
+	checkPositionIndex(index) {
+		if(!(index >= 0 && index <= this.count)) {
+			throw new Error("IndexOutOfBoundsException: Index: " + index + ", Size: " + this.count);
+		}
+	}
 }
 
-class Typeface {
-	constructor() {
-		this.italic = false;
-		this.bold = false;
-		this.fontFamily = "Arial";
-		this.fontStyle = "";
-		this.fontName = "Arial";
+LinkedList.Node = class {
+	constructor(element, prev, next) {
+		this.element = element;
+		this.prev = prev;
+		this.next = next;
 	}
+};
 
-	isBold() {
-		return this.bold;
+// remove() unlinks the node next() last returned, in O(1)
+LinkedList.Iterator = class {
+	constructor(list, descending) {
+		this.list = list;
+		this.descending = descending;
+		this.nextNode = descending ? list.last : list.first;
+		this.lastReturned = null;
 	}
 
-	isItalic() {
-		return this.italic;
+	hasNext() {
+		return this.nextNode !== null;
 	}
-}
 
-// Typeface Styles
-Typeface.NORMAL = 0; // "normal";
-Typeface.ITALIC = 2; // "italic ";
-Typeface.BOLD = 1; // "bold";
-Typeface.BOLD_ITALIC = 3; // "bold italic";
+	next() {
+		if(this.nextNode === null) {
+			throw new Error("NoSuchElementException");
+		}
 
-Typeface.DEFAULT = new Typeface();
-Typeface.DEFAULT.fontFamily = "Arial";
-Typeface.MONOSPACE = new Typeface();
-Typeface.MONOSPACE.fontFamily = "monospace";
-Typeface.SERIF = new Typeface();
-Typeface.SERIF.fontFamily = "serif";
-Typeface.SANS_SERIF = new Typeface();
-Typeface.SANS_SERIF.fontFamily = "sans-serif";
+		this.lastReturned = this.nextNode;
+		this.nextNode = this.descending ? this.nextNode.prev : this.nextNode.next;
 
-Typeface.create = function(family, typefaceStyle) {
-	var fontStyle = "",
-		fontFamily = "Arial";
+		return this.lastReturned.element;
+	}
 
-	let newTypeface = new Typeface();
+	remove() {
+		if(this.lastReturned === null) {
+			throw new Error("IllegalStateException: next() has not been called since the last remove()");
+		}
 
-	switch(typefaceStyle) {
-		case Typeface.NORMAL:
-			fontStyle = "";
-			break;
-		case Typeface.ITALIC:
-			fontStyle = "italic";
-			newTypeface.italic = true;
-			break;
-		case Typeface.BOLD:
-			fontStyle = "bold";
-			newTypeface.bold = true;
-			break;
-		case Typeface.BOLD_ITALIC:
-			fontStyle = "bold italic";
-			newTypeface.bold = true;
-			newTypeface.italic = true;
-			break;
-		default:
-			fontStyle = "";
-			break;
+		this.list.unlink(this.lastReturned);
+		this.lastReturned = null;
 	}
+};
 
-	if(typeof family === "string") {
-		fontFamily = family;
-	} else { // Typeface instance
-		fontFamily = family.fontFamily;
+class Vector extends ArrayList {
+	addElement(element) {
+		this.push(element);
 	}
 
-	newTypeface.fontName = fontFamily;
-	newTypeface.fontStyle = fontStyle;
+	elementAt(index) {
+		this.checkElementIndex(index);
+		return this[index];
+	}
 
-	return newTypeface;
-};
+	firstElement() {
+		if(this.length === 0) {
+			throw new Error("NoSuchElementException");
+		}
 
-Typeface.createFromAsset = function(assetManager, fontUrl) {
-	var fontStyle = "",
-		fontFamily = "",
-		fontPath = fontUrl.replace("fonts/", "").split(".")[0];
+		return this[0];
+	}
 
-	if(!(assetManager instanceof AssetManager)) {
-		throw new Error("Typeface.createFromAssets requires first argument to be an instance of AssetManager.");
+	lastElement() {
+		if(this.length === 0) {
+			throw new Error("NoSuchElementException");
+		}
+
+		return this[this.length - 1];
 	}
 
-	if(!Android2JSGameFonts.hasOwnProperty(fontPath)) {
-		var sheet = document.createElement("STYLE");
-		document.head.appendChild(sheet);
+	insertElementAt(element, index) {
+		this.add(index, element);
+	}
 
-		let newFontName = "a2jsgame_custom_font" + Object.keys(window.Android2JSGameFonts).length;
+	removeElement(element) {
+		return this.remove(element);
+	}
 
-		fontFamily = newFontName;
+	removeElementAt(index) {
+		this.removeAt(index);
+	}
 
-		sheet.innerText =	`
-			@font-face {
-				font-family: ${fontFamily};
-				src: url('${fontUrl}') format('truetype');
-				font-weight: normal;
-				font-style: normal;
-			}
+	removeAllElements() {
+		this.length = 0;
+	}
+}
 
-			div:-wekit-full-screen {
-				@font-face {
-					font-family: ${fontFamily};
-					src: url('${fontUrl}') format('truetype');
-					font-weight: normal;
-					font-style: normal;
-				}
-			}
+class HashedSet extends Set {
+	constructor() {
+		super();
+	}
+}
 
-			div:-moz-full-screen {
-				@font-face {
-					font-family: ${fontFamily};
-					src: url('${fontUrl}') format('truetype');
-					font-weight: normal;
-					font-style: normal;
-				}
-			}
+class LinkedHashedSet extends Set {
+	constructor() {
+		super();
+	}
+}
 
-			div:fullscreen {
-				@font-face {
-					font-family: ${fontFamily};
-					src: url('${fontUrl}') format('truetype');
-					font-weight: normal;
-					font-style: normal;
-				}
-			}
+/**
+ * A sorted map on an AVL tree, so put, get, remove and the navigation methods (floorKey,
+ * ceilingKey, ...) are all O(log n), as with Java's red-black TreeMap. Iterating, or
+ * keySet(), values() and entrySet(), go in key order.
+ */
+class TreeMap {
+
+	// TreeMap(), TreeMap(Comparator comparator) or TreeMap(Map m)
+	constructor(comparatorOrMap) {
+		this.root = null;
+		this.count = 0;
+		this.previousValue = null; // What the last put() or remove() replaced
+
+		if(comparatorOrMap instanceof TreeMap) {
+			this.comparatorValue = comparatorOrMap.comparatorValue;
+			this.compare = comparatorOrMap.compare;
+			this.putAll(comparatorOrMap);
+		} else if(comparatorOrMap instanceof Map) {
+			this.comparatorValue = null;
+			this.compare = Android2JSGameNaturalOrder;
+			this.putAll(comparatorOrMap);
+		} else {
+			this.comparatorValue = comparatorOrMap == null ? null : comparatorOrMap;
+			this.compare = Android2JSGameComparator(comparatorOrMap);
+		}
+	}
 
-			div:full-screen {
-				@font-face {
-					font-family: ${fontFamily};
-					src: url('${fontUrl}') format('truetype');
-					font-weight: normal;
-					font-style: normal;
-				}
+	comparator() {
+		return this.comparatorValue;
+	}
+
+	/** Returns the value `key` had, or null if it wasn't in the map. */
+	put(key, value) {
+		this.previousValue = null;
+		this.root = this.insert(this.root, key, value);
+		return this.previousValue;
+	}
+
+	putAll(map) {
+		if(map instanceof TreeMap) {
+			for(let entry of map) {
+				this.put(entry.key, entry.value);
 			}
-			`;
+		} else {
+			let self = this;
 
-		window.Android2JSGameFonts[fontPath] = {
-			name: fontFamily,
-			path: fontUrl
-		};
-	} else { // This custom font has already been created and recorded
-		fontFamily = window.Android2JSGameFonts[fontPath].name;
+			map.forEach(function(value, key) { // A JS Map, or our HashMap
+				self.put(key, value);
+			});
+		}
 	}
 
-	let newTypeface = new Typeface();
+	get(key) {
+		let entry = this.getEntry(key);
+		return entry === null ? null : entry.value;
+	}
 
-	if(fontFamily) {
-		newTypeface.fontName = fontFamily;
+	getOrDefault(key, defaultValue) {
+		let entry = this.getEntry(key);
+		return entry === null ? defaultValue : entry.value;
 	}
 
-	if(fontStyle) {
-		newTypeface.fontStyle = fontStyle;
+	containsKey(key) {
+		return this.getEntry(key) !== null;
 	}
 
-	return newTypeface;
-};
+	containsValue(value) {
+		for(let entry of this) {
+			if(entry.value === value) {
+				return true;
+			}
+		}
 
-class Paint {
-	constructor(flags) {
-		this.color = "rgb(0, 0, 0)";
-		this.alpha = 255;
-		this.font = "14px Arial";
-		this.style = Paint.Style.FILL;
+		return false;
+	}
 
-		this.textSize = 14;
-		this.typeface = new Typeface();
-		this.fontFamily = "Arial";
-		this.typefaceStyle = "";
+	/** Returns the value `key` had, or null if it wasn't in the map. */
+	remove(key) {
+		this.previousValue = null;
+		this.root = this.delete(this.root, key);
+		return this.previousValue;
+	}
 
-		this.textAlign = Paint.Align.LEFT;
-		this.strokeWidth = 1;
-		
-		this.shadowOffsetX = 0;
-		this.shadowOffsetY = 0;
-		this.shadowBlur = 0;
-		this.xfermode = "source-over";
+	size() {
+		return this.count;
+	}
 
-		if(flags === Paint.ANTI_ALIAS_FLAG) {
-			this.antiAlias = true;
-			window.Android2JSGameCtx.imageSmoothingEnabled = true;
-			window.Android2JSGameCtx.imageSmoothingQuality = "high";
+	isEmpty() {
+		return this.count === 0;
+	}
 
-			// Consider translating context to smooth out lines
-			// window.Android2JSGameCtx.translate(0.5, 0.5);
-		} else {
-			this.antiAlias = false;
-			window.Android2JSGameCtx.imageSmoothingEnabled = false;
-			window.Android2JSGameCtx.imageSmoothingQuality = "low";
+	clear() {
+		this.root = null;
+		this.count = 0;
+	}
 
-			// See not above on smoothing lines
-			// window.Android2JSGameCtx.transform = matrix(1, 0, 0, 1, 0, 0);
+	getEntry(key) {
+		let node = this.root;
+
+		while(node !== null) {
+			let order = this.compare(key, node.key);
+
+			if(order === 0) {
+				return node;
+			}
+
+			node = order < 0 ? node.left : node.right;
 		}
+
+		return null;
 	}
 
-	isAntiAlias() {
-		return this.antiAlias;
+	firstEntry() {
+		let node = this.root;
+
+		while(node !== null && node.left !== null) {
+			node = node.left;
+		}
+
+		return node;
 	}
 
-	setAntiAlias(newAntiAlias) {
-		this.antiAlias = newAntiAlias;
+	lastEntry() {
+		let node = this.root;
 
-		if(this.antiAlias) {
-			this.antiAlias = true;
-			window.Android2JSGameCtx.imageSmoothingEnabled = true;
-			window.Android2JSGameCtx.imageSmoothingQuality = "high";
+		while(node !== null && node.right !== null) {
+			node = node.right;
+		}
 
-			// Consider translating context to smooth out lines
-			// window.Android2JSGameCtx.translate(0.5, 0.5);
-		} else {
-			this.antiAlias = false;
-			window.Android2JSGameCtx.imageSmoothingEnabled = false;
-			window.Android2JSGameCtx.imageSmoothingQuality = "low";
+		return node;
+	}
 
-			// See not above on smoothing lines
-			// window.Android2JSGameCtx.transform = matrix(1, 0, 0, 1, 0, 0);
+	firstKey() {
+		return TreeMap.keyOrThrow( this.firstEntry() );
+	}
+
+	lastKey() {
+		return TreeMap.keyOrThrow( this.lastEntry() );
+	}
+
+	pollFirstEntry() {
+		let entry = this.firstEntry();
+
+		if(entry !== null) {
+			this.remove(entry.key);
 		}
+
+		return entry;
 	}
 
-	getColor() {
-		return this.color;
+	pollLastEntry() {
+		let entry = this.lastEntry();
+
+		if(entry !== null) {
+			this.remove(entry.key);
+		}
+
+		return entry;
 	}
 
-	setColor(color) {
-		this.color = color;
+	// The entry with the greatest key below `key` (or equal to it, if `inclusive`), or null
+	lowerOrFloor(key, inclusive) {
+		let node = this.root;
+		let best = null;
 
-		if(this.style === Paint.Style.FILL) {
-			window.Android2JSGameCtx.fillStyle = color;
-		} else if(this.style === Paint.Style.STROKE) {
-			window.Android2JSGameCtx.strokeStyle = color;
-		} else { // Paint.Style.FILL_AND_STROKE
-			window.Android2JSGameCtx.fillStyle = color;
-			window.Android2JSGameCtx.strokeStyle = color;
+		while(node !== null) {
+			let order = this.compare(key, node.key);
+
+			if(order > 0 || (inclusive && order === 0)) {
+				best = node;
+
+				if(order === 0) {
+					break;
+				}
+
+				node = node.right;
+			} else {
+				node = node.left;
+			}
 		}
+
+		return best;
 	}
 
-	/**
-	 * Set the ARGB values for this Paint instance. Note, unlike
-	 * with CSS and HTML5 canvas context, here alpha is the
-	 * first component instead of the last.
-	 */
-	setARGB(a, r, g, b) {
-		this.alpha = a;
-		this.color = `rgb(${r}, ${g}, ${b})`;
+	// The entry with the least key above `key` (or equal to it, if `inclusive`), or null
+	higherOrCeiling(key, inclusive) {
+		let node = this.root;
+		let best = null;
+
+		while(node !== null) {
+			let order = this.compare(key, node.key);
+
+			if(order < 0 || (inclusive && order === 0)) {
+				best = node;
+
+				if(order === 0) {
+					break;
+				}
+
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+
+		return best;
 	}
 
-	getStrokeWidth() {
-		return this.strokeWidth;
+	floorEntry(key) {
+		return this.lowerOrFloor(key, true);
 	}
 
-	setStrokeWidth(width) {
-		this.strokeWidth = width;
-		window.Android2JSGameCtx.lineWidth = width;
+	lowerEntry(key) {
+		return this.lowerOrFloor(key, false);
 	}
 
-	getStyle() {
-		return this.style;
+	ceilingEntry(key) {
+		return this.higherOrCeiling(key, true);
 	}
 
-	// See Paint.Style for options
-	setStyle(style) {
-		this.style = style;
+	higherEntry(key) {
+		return this.higherOrCeiling(key, false);
 	}
 
-	getTextSize() {
-		return this.textSize;
+	floorKey(key) {
+		return TreeMap.keyOrNull( this.floorEntry(key) );
 	}
 
-	/**
-	 * Records this objects font size in pixels.
-	 * @param {number} fontSizePx - The pixel size to set this font to.
-	 */
-	setTextSize(fontSizePx) {
-		this.textSize = fontSizePx;
+	lowerKey(key) {
+		return TreeMap.keyOrNull( this.lowerEntry(key) );
 	}
 
-	getTypeface() {
-		return this.typeface;
+	ceilingKey(key) {
+		return TreeMap.keyOrNull( this.ceilingEntry(key) );
 	}
 
-	setTypeface(newTypeface) {
+	higherKey(key) {
+		return TreeMap.keyOrNull( this.higherEntry(key) );
+	}
 
-		this.fontFamily = newTypeface.fontName;
-		this.typefaceStyle = newTypeface.fontStyle;
+	keySet() {
+		let keys = new ArrayList();
 
-		// Example: "14px Times New Roman"
-		// this.typeface = (newTypeface.fontStyle ? newTypeface.fontStyle + " " : "") +
-			// this.fontSize.replace(/(\s*[0-9]+)([a-z]+)/, "$1") + " " + newTypeface.fontName;
+		for(let entry of this) {
+			keys.push(entry.key);
+		}
 
-		this.typeface = new Typeface();
-		this.typeface.fontName = newTypeface.fontFamily;
-		this.typefaceStyle = newTypeface.fontStyle;
+		return keys;
 	}
 
-	/**
-	 * Sets the alpha value for this Paint instance.
-	 * @param {number} newAlpha - The new alpha value, between 0 and 255 (inclusive)
-	 */
-	setAlpha(newAlpha) {
-		this.alpha = newAlpha;
+	values() {
+		let values = new ArrayList();
+
+		for(let entry of this) {
+			values.push(entry.value);
+		}
+
+		return values;
 	}
 
-	/**
-	 * Gets the alpha value for this Paint instance, defining
-	 * its drawing opacity, between 0 and 255 (inclusive).
-	 * @returns {number}
-	 */
-	getAlpha() {
-		return this.alpha;
+	entrySet() {
+		return new ArrayList(this);
 	}
 
-	// JS currently does not provide TextMetrics with a height property
-	descent() {
-		var desc = 0;
-		window.Android2JSGameCtx.font = this.getCtxFont();
-		// May need to consider baseline...
+	// As in Java, action(key, value)
+	forEach(action) {
+		for(let entry of this) {
+			action(entry.key, entry.value);
+		}
+	}
 
-		var testString = "a";
-		var textMetrics = window.Android2JSGameCtx.measureText(testString);
+	// Entries in key order, without recursion
+	*[Symbol.iterator]() {
+		let stack = [];
+		let node = this.root;
 
-		try {
-			desc = textMetrics.actualBoundingBoxDescent;
-		} catch(e) {
-			console.log("TextMetrics cannot find descent property. Check browser flags.");
-		}
+		while(node !== null || stack.length > 0) {
+			while(node !== null) {
+				stack.push(node);
+				node = node.left;
+			}
 
-		return desc;
+			node = stack.pop();
+			yield node;
+			node = node.right;
+		}
 	}
 
-	// JS currently does not provide TextMetrics with a height property
-	ascent() {
-		var asc = 0;
-		window.Android2JSGameCtx.font = this.getCtxFont();
+	insert(node, key, value) {
+		if(node === null) {
+			this.count++;
+			return new TreeMap.Entry(key, value);
+		}
 
-		var testString = "a";
-		var textMetrics = window.Android2JSGameCtx.measureText(testString);
+		let order = this.compare(key, node.key);
 
-		try {
-			asc = textMetrics.actualBoundingBoxAscent;
-		} catch(e) {
-			console.log("TextMetrics cannot find ascent property. Check browser flags.");
+		if(order === 0) {
+			this.previousValue = node.value;
+			node.value = value;
+			return node;
 		}
 
-		return asc;
-	}
+		if(order < 0) {
+			node.left = this.insert(node.left, key, value);
+		} else {
+			node.right = this.insert(node.right, key, value);
+		}
 
-	setTextAlign(alignStyle) {
-		this.textAlign = alignStyle;
+		return TreeMap.balance(node);
 	}
 
-	getTextAlign() {
-		return this.textAlign;
-	}
+	delete(node, key) {
+		if(node === null) {
+			return null;
+		}
 
-	getTextBounds(text, substringStart, substringEnd, rect) {
-		var substring = text.substring(substringStart, substringEnd),
-			textMetrics;
+		let order = this.compare(key, node.key);
 
-		window.Android2JSGameCtx.font = this.getCtxFont();
-		textMetrics = window.Android2JSGameCtx.measureText( substring );
+		if(order < 0) {
+			node.left = this.delete(node.left, key);
+		} else if(order > 0) {
+			node.right = this.delete(node.right, key);
+		} else {
+			this.previousValue = node.value;
+			this.count--;
 
-		rect.left = 0;
-		rect.top = 0;
-		rect.right = textMetrics.width;
+			if(node.left === null || node.right === null) {
+				return node.left === null ? node.right : node.left;
+			}
 
-		// Note: JS currently has no TextMetrics height property
-		rect.bottom = this.textSize;
+			// Put the next entry in this one's place, so entries handed out keep their key
+			let successor = node.right;
+
+			while(successor.left !== null) {
+				successor = successor.left;
+			}
+
+			successor.right = TreeMap.deleteMin(node.right);
+			successor.left = node.left;
+			node = successor;
+		}
+
+		return TreeMap.balance(node);
 	}
+}
 
-	getFontMetrics() {
-		var fontMetrics = new Paint.FontMetrics();
-		fontMetrics.ascent = 0;
-		fontMetrics.bottom = this.textSize;
-		fontMetrics.descent = 0;
-		fontMetrics.leading = 0;
-		fontMetrics.top = 0;
-		return fontMetrics;
+// An entry, and a node of the tree. Entries handed out stay valid until their key is removed
+TreeMap.Entry = class {
+	constructor(key, value) {
+		this.key = key;
+		this.value = value;
+		this.left = null;
+		this.right = null;
+		this.height = 1;
 	}
 
-	setShadowLayer(radius, dx, dy, shadowColor) {
-		this.shadowOffsetX = dx;
-		this.shadowOffsetY = dy;
-		this.shadowBlur = radius;
-		this.shadowColor = shadowColor;
+	getKey() {
+		return this.key;
 	}
 
-	clearShadowLayer() {
-		this.shadowOffsetX = 0;
-		this.shadowOffsetY = 0;
-		this.shadowBlur = 0;
-		this.shadowColor = 0;
+	getValue() {
+		return this.value;
 	}
 
-	getXfermode(newXfermode) {
-		return this.xfermode;
+	setValue(value) {
+		let oldValue = this.value;
+		this.value = value;
+		return oldValue;
 	}
+};
 
-	setXfermode(newXfermode) {
-		this.xfermode = newXfermode;
+TreeMap.keyOrThrow = function(entry) {
+	if(entry === null) {
+		throw new Error("NoSuchElementException");
 	}
 
-	// This is for internal use - not a Java method
-	getCtxFont() {
-		
-		// Build the font string
-		let ctxFont = this.textSize + "px " +
-			(this.typefaceStyle ? (this.typefaceStyle + " ") : "") +
-			this.fontFamily;
+	return entry.key;
+};
 
-		return ctxFont;
-	}
-}
+TreeMap.keyOrNull = function(entry) {
+	return entry === null ? null : entry.key;
+};
 
-Paint.Style = {
-	STROKE: "STROKE",
-	FILL: "FILL",
-	FILL_AND_STROKE:  "FILL_AND_STROKE"
+TreeMap.height = function(node) {
+	return node === null ? 0 : node.height;
 };
 
-Paint.Align = {
-	LEFT: "LEFT",
-	CENTER: "CENTER",
-	RIGHT: "RIGHT"
+TreeMap.updateHeight = function(node) {
+	node.height = 1 + Math.max( TreeMap.height(node.left), TreeMap.height(node.right) );
 };
 
-Paint.FontMetrics = function() {
-	this.ascent = 0;
-	this.bottom = 0;
-	this.descent = 0;
-	this.leading = 0;
-	this.top = 0;
+TreeMap.rotateRight = function(node) {
+	let left = node.left;
+	node.left = left.right;
+	left.right = node;
+
+	TreeMap.updateHeight(node);
+	TreeMap.updateHeight(left);
+
+	return left;
 };
 
-Paint.ANTI_ALIAS_FLAG = 1;
+TreeMap.rotateLeft = function(node) {
+	let right = node.right;
+	node.right = right.left;
+	right.left = node;
 
-class Xfermode { constructor() {} }
+	TreeMap.updateHeight(node);
+	TreeMap.updateHeight(right);
 
-class PorterDuffXfermode extends Xfermode {
-	constructor(mode) {
-		super();
-		this.mode = mode;
+	return right;
+};
+
+// Restores the AVL property at `node`, whose subtrees' heights differ by at most 2
+TreeMap.balance = function(node) {
+	TreeMap.updateHeight(node);
+
+	let difference = TreeMap.height(node.left) - TreeMap.height(node.right);
+
+	if(difference > 1) {
+		if(TreeMap.height(node.left.left) < TreeMap.height(node.left.right)) {
+			node.left = TreeMap.rotateLeft(node.left);
+		}
+
+		return TreeMap.rotateRight(node);
 	}
-}
 
-window.PorterDuff = {};
-PorterDuff.Mode = { // copy,, lighter, color-dodge, color-burn, hard-light
-	ADD: "ADD", // Not supported directly in JavaScript
-	CLEAR: "CLEAR", // Not supported directly in JavaScript
-	DST: "DST", // Not supported directly in JavaScript
-	SRC: "SRC",  // Not supported directly in JavaScript
-	DARKEN: "darken",
-	DST_ATOP: "destination-atop",
-	DST_IN: "destination-in",
-	DST_OUT: "destination-out",
-	DST_OVER: "destination-over",
-	LIGHTEN: "lighten",
-	MULTIPLY: "multiply",
-	OVERLAY: "overlay",
-	SCREEN: "screen",
-	SRC_ATOP: "source-atop",
-	SRC_IN: "source-in",
-	SRC_OUT: "source-out",
-	SRC_OVER: "source-over",
-	XOR: "xor"
+	if(difference < -1) {
+		if(TreeMap.height(node.right.right) < TreeMap.height(node.right.left)) {
+			node.right = TreeMap.rotateRight(node.right);
+		}
+
+		return TreeMap.rotateLeft(node);
+	}
+
+	return node;
 };
 
-/**
- * Emulate the Android Java Canvas class - note: this does NOT
- * represent the same thing as HTMLCanvasElement in JavaScript.
- * JavaScript's CanvasRenderingContext2D objects are kind of like
- * a combination of Android's Canvas and Paint class objects, providing
- * drawing styles and operations for drawing on a physical canvas.
- * The <canvas> element is closer to Android's Bitmap objects.
- */
-class Canvas {
-	constructor(bitmap) {
-		if(bitmap instanceof Bitmap) {
+// Unhooks the leftmost node of a subtree, returning the rebalanced rest
+TreeMap.deleteMin = function(node) {
+	if(node.left === null) {
+		return node.right;
+	}
 
-			/**
-			 * This will be reworked. Canvas does not create a new canvas or
-			 * image. It is simply a set of functions to use with a Drawable
-			 * object, like a Bitmap.
-			 */
-			window.Android2JSGameCanvas.style.backgroundImage = bitmap.image;
-			this.bitmap = bitmap;
-		} else {
-			this.bitmap = null;
+	node.left = TreeMap.deleteMin(node.left);
+	return TreeMap.balance(node);
+};
+
+/** A sorted set, kept as the keys of a TreeMap as in Java, so add, remove, contains, first and floor are O(log n). */
+class TreeSet {
+
+	// TreeSet(), TreeSet(Comparator comparator) or TreeSet(Collection c)
+	constructor(comparatorOrCollection) {
+		let isCollection = comparatorOrCollection != null &&
+			typeof comparatorOrCollection !== "function" &&
+			typeof comparatorOrCollection.compare !== "function";
+
+		this.map = new TreeMap(isCollection ? null : comparatorOrCollection);
+
+		if(isCollection) {
+			this.addAll(comparatorOrCollection);
 		}
+	}
 
-		this.width = window.Android2JSGameWidth;
-		this.height = window.Android2JSGameHeight;
-		this.clipBounds = new RectF(0, 0, this.width, this.height);
-		this.matrix = new Matrix(); // Set matrix to the identity
+	comparator() {
+		return this.map.comparator();
 	}
 
-	/**
-	 * In our simple implementation we assume setBitmap is just being used
-	 * to set a background. In Android Java however, this actually redefines
-	 * the current drawing canvas as the Bitmap itself.
-	 */
-	setBitmap(bitmap) {
-		window.Android2JSGameCanvas.style.backgroundImage = bitmap.image;
+	/** Returns true if `element` wasn't in the set already. */
+	add(element) {
+		return this.map.put(element, true) === null;
 	}
 
-	getWidth() {
-		return this.width;
+	addAll(collection) {
+		let oldSize = this.map.size();
+
+		for(let element of collection) {
+			this.add(element);
+		}
+
+		return this.map.size() > oldSize;
 	}
 
-	getHeight() {
-		return this.height;
+	remove(element) {
+		return this.map.remove(element) !== null;
 	}
 
-	setMatrix(matrix) {
-		this.matrix = matrix;
+	contains(element) {
+		return this.map.containsKey(element);
 	}
 
-	drawColor(color) {
-		window.Android2JSGameCtx.clearRect(0, 0, window.Android2JSGameCanvas.width, window.Android2JSGameCanvas.height); // Erase previous frame
+	first() {
+		return this.map.firstKey();
+	}
 
-		if(window.Android2JSGameCanvas.style.background !== color) {
-			window.Android2JSGameCanvas.style.background = color;
-		}
+	last() {
+		return this.map.lastKey();
 	}
 
-	drawRGB(r, g, b) {
-		window.Android2JSGameCtx.clearRect(0, 0, window.Android2JSGameCanvas.width, window.Android2JSGameCanvas.height); // Erase previous frame
+	floor(element) {
+		return this.map.floorKey(element);
+	}
 
-		if(window.Android2JSGameCanvas.style.background !== `rgb(${r}, ${g}, ${b})`) {
-			window.Android2JSGameCanvas.style.background = `rgb(${r}, ${g}, ${b})`;
-		}
+	lower(element) {
+		return this.map.lowerKey(element);
 	}
 
-	drawRect(rect, paint) {
-		Android2JSGameApplyShadow(paint);
+	ceiling(element) {
+		return this.map.ceilingKey(element);
+	}
 
-		if(arguments.length === 5) { // left, top, right, bottom, Paint
-			return this.drawRect(new RectF(arguments[0], arguments[1], arguments[2], arguments[3]), arguments[4]);
-		}
+	higher(element) {
+		return this.map.higherKey(element);
+	}
 
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
+	pollFirst() {
+		return TreeMap.keyOrNull( this.map.pollFirstEntry() );
+	}
 
-		if(paint.getStyle() === Paint.Style.STROKE) {
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.strokeRect(rect.left, rect.top, rect.width(), rect.height());
-		} else if(paint.getStyle() === Paint.Style.FILL) {
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.fillRect(rect.left, rect.top, rect.width(), rect.height());
-		} else { // Paint.Style.FILL_AND_STROKE //*** Wait, what should be the default? Probably not this...
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.fillRect(rect.left, rect.top, rect.width(), rect.height());
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.strokeRect(rect.left, rect.top, rect.width(), rect.height());
-		}
+	pollLast() {
+		return TreeMap.keyOrNull( this.map.pollLastEntry() );
+	}
 
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+	size() {
+		return this.map.size();
 	}
 
-	// Draws an oval contained in a RectF
-	drawOval() {
-		let privateRectF;
-		let paint;
+	isEmpty() {
+		return this.map.isEmpty();
+	}
 
-		if(arguments.length === 5) {
-			privateRectF = new RectF(arguments[0], arguments[1], arguments[2], arguments[3]);
-			paint = arguments[4];
-		} else {
-			privateRectF = arguments[0];
-			paint = arguments[1];
+	clear() {
+		this.map.clear();
+	}
+
+	toArray() {
+		return this.map.keySet().toArray();
+	}
+
+	forEach(action) {
+		for(let entry of this.map) {
+			action(entry.key);
 		}
+	}
 
-		let radiusX = privateRectF.width() / 2;
-		let radiusY = privateRectF.height() / 2;
-		let centerX = privateRectF.left + radiusX;
-		let centerY = privateRectF.top + radiusY;
-		let rotation = 0;
-		let counterclockwise = true;
+	*[Symbol.iterator]() {
+		for(let entry of this.map) {
+			yield entry.key;
+		}
+	}
+}
+
+/**
+ * A binary heap, as in Java: add, offer and poll are O(log n), peek is O(1), and remove(Object)
+ * and contains are O(n). The head is the least element by the comparator, or by natural
+ * ordering without one. Iterating goes through the elements in no particular order.
+ */
+class PriorityQueue {
 
-		Android2JSGameApplyShadow(paint);
+	// PriorityQueue(), (int initialCapacity), (Comparator comparator), (int initialCapacity, Comparator comparator)
+	// or (Collection c)
+	constructor(argument0, argument1) {
+		let comparator = typeof argument0 === "number" ? argument1 : argument0;
+		let collection = null;
 
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
-		window.Android2JSGameCtx.beginPath();
+		if(comparator != null && typeof comparator !== "function" && typeof comparator.compare !== "function") {
+			collection = comparator;
+			comparator = comparator instanceof PriorityQueue ? comparator.comparatorValue : null;
+		}
 
-		window.Android2JSGameCtx.ellipse(centerX, centerY, radiusX, radiusY,
-			rotation, 0, 2 * Math.PI, counterclockwise);
+		this.heap = [];
+		this.comparatorValue = comparator == null ? null : comparator;
+		this.compare = Android2JSGameComparator(comparator);
 
-		if(paint.getStyle() === Paint.Style.STROKE) {
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.stroke();
-		} else if(paint.getStyle() === Paint.Style.FILL) {
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.fill();
-		} else { // Paint.Style.FILL_AND_STROKE
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.fill();
-			window.Android2JSGameCtx.stroke();
+		if(collection !== null) {
+			this.addAll(collection);
 		}
+	}
 
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+	comparator() {
+		return this.comparatorValue;
 	}
 
-	drawCircle(centerX, centerY, radius, paint) {
-		let centerRectF = new RectF(centerX - radius, centerY - radius,
-			centerX + radius, centerY + radius);
+	add(element) {
+		return this.offer(element);
+	}
 
-		if(radius <= 0) {
-			return;
+	offer(element) {
+		if(element == null) {
+			throw new Error("NullPointerException");
 		}
 
-		this.drawOval(centerRectF, paint);
+		this.heap.push(element);
+		this.siftUp(this.heap.length - 1, element);
+
+		return true;
 	}
 
-	drawBitmap(bitmap, nullValue, boundingRect, paint) {
-		Android2JSGameApplyShadow(paint);
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
+	// Appends everything, then restores the heap in one O(n) pass
+	addAll(collection) {
+		let oldSize = this.heap.length;
 
-		try {
-			window.Android2JSGameCtx.drawImage(bitmap.image, boundingRect.left, boundingRect.top, boundingRect.width(), boundingRect.height());
-		} catch(e) {
-			// image resource may have been blocked due to CORS security errors
-			let oldStrokeStyle = window.Android2JSGameCtx.strokeStyle;
-			let oldLineWidth = window.Android2JSGameCtx.lineWidth;
-			window.Android2JSGameCtx.strokeStyle = "red";
-			window.Android2JSGameCtx.lineWidth = 2;
-			window.Android2JSGameCtx.strokeRect(boundingRect.left, boundingRect.top, boundingRect.width(), boundingRect.height());
-			window.Android2JSGameCtx.strokeStyle = oldStrokeStyle;
-			window.Android2JSGameCtx.lineWidth = oldLineWidth;
+		for(let element of collection) {
+			this.heap.push(element);
+		}
+
+		for(let i = (this.heap.length >> 1) - 1; i >= 0; i--) {
+			this.siftDown(i, this.heap[i]);
 		}
 
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+		return this.heap.length > oldSize;
 	}
 
-	drawArc(rectF, thetaStart, thetaEnd, includeCenter, paint) {
-		Android2JSGameApplyShadow(paint);
+	peek() {
+		return this.heap.length === 0 ? null : this.heap[0];
+	}
 
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
-		window.Android2JSGameCtx.beginPath();
+	element() {
+		if(this.heap.length === 0) {
+			throw new Error("NoSuchElementException");
+		}
 
-		// We are assuming a circle here, so width and height are equal in rectF
-		let radius = Math.round(rectF.width() / 2);
+		return this.heap[0];
+	}
 
-		window.Android2JSGameCtx.arc(rectF.left + radius, rectF.top + radius,
-			radius, Math.toRadians(thetaStart), Math.toRadians(thetaEnd), false);
+	poll() {
+		if(this.heap.length === 0) {
+			return null;
+		}
 
-		if(includeCenter) {
-			window.Android2JSGameCtx.moveTo(rectF.left + radius, rectF.top + radius);
+		return this.removeAt(0);
+	}
+
+	// remove() takes the head; remove(Object o) one occurrence of o, returning true if found
+	remove(obj) {
+		if(arguments.length === 0) {
+			if(this.heap.length === 0) {
+				throw new Error("NoSuchElementException");
+			}
+
+			return this.removeAt(0);
 		}
 
-		if(paint.getStyle() === Paint.Style.STROKE) {
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.stroke();
-		} else if(paint.getStyle() === Paint.Style.FILL) {
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.fill();
-		} else { // Style.FILL_AND_STROKE
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.fill();
-			window.Android2JSGameCtx.stroke();
+		let index = this.heap.indexOf(obj);
+
+		if(index === -1) {
+			return false;
 		}
 
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+		this.removeAt(index);
+		return true;
 	}
 
-	// Note: y-values may differ in text display for Android Java vs. JS
-	drawText(textString, x, y, paint) {
-
-		Android2JSGameApplyShadow(paint);
+	removeAt(index) {
+		let removed = this.heap[index];
+		let last = this.heap.pop();
 
-		window.Android2JSGameCtx.font = paint.getCtxFont();
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
+		if(index < this.heap.length) {
+			this.siftDown(index, last);
 
-		switch(paint.getTextAlign()) {
-			case Paint.Align.LEFT:
-				window.Android2JSGameCtx.textAlign = "left";
-				break;
-			case Paint.Align.CENTER:
-				window.Android2JSGameCtx.textAlign = "center";
-				break;
-			case Paint.Align.RIGHT:
-				window.Android2JSGameCtx.textAlign = "right";
-				break;
-			default: {
-				window.Android2JSGameCtx.textAlign = "left";
+			if(this.heap[index] === last) {
+				this.siftUp(index, last);
 			}
 		}
 
-		if(paint.getStyle() === Paint.Style.STROKE) {
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.strokeText(textString, x, y);
-		} else if(paint.getStyle() === Paint.Style.FILL) {
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.fillText(textString, x, y);
-		} else { // Style.FILL_AND_STROKE
-			window.Android2JSGameCtx.fillStyle = paint.getColor();
-			window.Android2JSGameCtx.fillText(textString, x, y);
-			window.Android2JSGameCtx.strokeStyle = paint.getColor();
-			window.Android2JSGameCtx.strokeText(textString, x, y);
-		}
+		return removed;
+	}
 
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+	contains(obj) {
+		return this.heap.indexOf(obj) !== -1;
 	}
 
-	save() { // Android saves into a private stack.
-		window.Android2JSGameCtx.save();
+	size() {
+		return this.heap.length;
 	}
 
-	restore() {
-		window.Android2JSGameCtx.restore();
+	isEmpty() {
+		return this.heap.length === 0;
 	}
 
-	drawPoint(x, y, paint) {
-		Android2JSGameApplyShadow(paint);
+	clear() {
+		this.heap.length = 0;
+	}
 
-		window.Android2JSGameCtx.fillStyle = paint.getColor();
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
-		window.Android2JSGameCtx.fillRect(x, y, 1, 1);
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+	toArray() {
+		return this.heap.slice();
 	}
 
-	drawPoints(points, paint) {
-		for(var i = 0; i < points.length; i++) {
-			this.drawPoint(point.x, point.y, paint);
-		}
+	forEach(action) {
+		this.heap.forEach(function(element) {
+			action(element);
+		});
 	}
 
-	drawLine(startX, startY, stopX, stopY, paint) {
+	[Symbol.iterator]() {
+		return this.heap[Symbol.iterator]();
+	}
 
-		Android2JSGameApplyShadow(paint);
+	// Moves the hole at `index` up until `element` fits there
+	siftUp(index, element) {
+		while(index > 0) {
+			let parent = (index - 1) >> 1;
 
-		window.Android2JSGameCtx.strokeStyle = paint.getColor();
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
+			if(this.compare(element, this.heap[parent]) >= 0) {
+				break;
+			}
 
-		window.Android2JSGameCtx.beginPath();
-		window.Android2JSGameCtx.moveTo(startX, startY);
-		window.Android2JSGameCtx.lineTo(stopX, stopY);
-		window.Android2JSGameCtx.stroke();
+			this.heap[index] = this.heap[parent];
+			index = parent;
+		}
 
-		window.Android2JSGameCtx.globalAlpha = 1.0;
+		this.heap[index] = element;
 	}
 
-	getClipBounds(rect) {
-		if(arguments.length === 0) {
-			return this.clipBounds;
-		}
-
-		rect.left = 0;
-		rect.top = 0;
-		rect.right = this.width;
-		rect.bottom = this.height;
+	// Moves the hole at `index` down until `element` fits there
+	siftDown(index, element) {
+		let half = this.heap.length >> 1;
 
-		if(rect.width() === 0 && rect.height() === 0) {
-			return false;
-		}
+		while(index < half) {
+			let child = 2 * index + 1;
+			let right = child + 1;
 
-		return true;
-	}
+			if(right < this.heap.length && this.compare(this.heap[right], this.heap[child]) < 0) {
+				child = right;
+			}
 
-	drawPath(path, paint) {
-		Android2JSGameApplyShadow(paint);
+			if(this.compare(element, this.heap[child]) <= 0) {
+				break;
+			}
 
-		window.Android2JSGameCtx.strokeStyle = paint.getColor();
-		window.Android2JSGameCtx.globalAlpha = paint.getAlpha() / 255;
-		window.Android2JSGameCtx.globalCompositeOperation = paint.getXfermode();
+			this.heap[index] = this.heap[child];
+			index = child;
+		}
 
-		window.Android2JSGameCtx.stroke(path);
+		this.heap[index] = element;
 	}
 }
 
-window.Android2JSGameApplyShadow = function(paint) {
-	window.Android2JSGameCtx.shadowOffsetX = paint.shadowOffsetX;
-	window.Android2JSGameCtx.shadowOffsetY = paint.shadowOffsetY;
-	window.Android2JSGameCtx.shadowBlur = paint.radius;
-	window.Android2JSGameCtx.shadowColor = paint.shadowColor;
-};
-
-window.Android2JSGameRemoveShadow = function() {
-	window.Android2JSGameCtx.shadowOffsetX = 0;
-	window.Android2JSGameCtx.shadowOffsetY = 0;
-	window.Android2JSGameCtx.shadowBlur = 0;
-	window.Android2JSGameCtx.shadowColor = "rgba(0, 0, 0, 1)";
-};
-
 /**
- * Handle Sensor events, like accelerometer changes.
- * Acceleration events may be added later with JS DeviceMotion API.
+ * A list of ints in an Int32Array that doubles as it fills, for entity ids and the like: no
+ * boxing, no garbage per element, and contiguous memory. Values are truncated to 32-bit ints.
+ * As with ArrayList, remove(int) removes at an index; use removeValue to remove a value.
  */
-class Sensor {
-	constructor(type) {
-		this.type = type;
+class IntArrayList {
+	constructor(initialCapacity=10) {
+		this.elements = new Int32Array( Math.max(initialCapacity, 1) );
+		this.count = 0;
 	}
 
-	getType() {
-		return this.type;
+	ensureCapacity(minCapacity) {
+		if(minCapacity > this.elements.length) {
+			let elements = new Int32Array( Math.max(minCapacity, this.elements.length * 2) );
+			elements.set( this.elements.subarray(0, this.count) );
+			this.elements = elements;
+		}
 	}
-}
 
-Sensor.TYPE_ACCELEROMETER = 1;
-Sensor.TYPE_MAGNETIC_FIELD = 2;
-Sensor.TYPE_GYROSCOPE = 4;
-Sensor.TYPE_GRAVITY = 9;
-Sensor.TYPE_LINEAR_ACCELERATION = 10;
-Sensor.TYPE_LIGHT = 5;
-Sensor.TYPE_GAME_ROTATION_VECTOR = 15;
-Sensor.TYPE_MOTION_DETECT = 30;
-Sensor.TYPE_PRESSURE = 6;
-Sensor.TYPE_ROTATION_VECTOR = 11;
-Sensor.TYPE_ALL = -1;
+	// add(int value), or add(int index, int value) to insert
+	add(argument0, argument1) {
+		if(arguments.length < 2) {
+			this.ensureCapacity(this.count + 1);
+			this.elements[this.count++] = argument0;
+			return true;
+		}
 
-class SensorEvent {
-	constructor(sensorEvent) {
-		this.values = sensorEvent.values;
-		this.type = sensorEvent.type;
-		this.sensor = sensorEvent.sensor;
+		if(!(argument0 >= 0 && argument0 <= this.count)) {
+			throw new Error("IndexOutOfBoundsException: Index: " + argument0 + ", Size: " + this.count);
+		}
+
+		this.ensureCapacity(this.count + 1);
+		this.elements.copyWithin(argument0 + 1, argument0, this.count);
+		this.elements[argument0] = argument1;
+		this.count++;
 	}
 
-	getType() {
-		return this.type;
+	get(index) {
+		this.checkElementIndex(index);
+		return this.elements[index];
 	}
-}
 
-/** interface in Java. You can treat it as a class and extend it in JS, or create a custom class with these methods. */
-class SensorEventListener {
-	onSensorChanged(/* SensorEvent */ sensorEvent) {}
-	onAccuracyChanged(/* Sensor */ sensor, /* int */ accuracy) {}
-}
+	set(index, value) {
+		this.checkElementIndex(index);
 
-class SensorManager {
-	constructor() {
-		this.type = null;
+		let oldValue = this.elements[index];
+		this.elements[index] = value;
+
+		return oldValue;
 	}
 
-	getDefaultSensor(sensorType) {
-		return new Sensor(sensorType);
+	remove(index) {
+		return this.removeAt(index);
 	}
 
-	registerListener(listener, sensor /* accelerometer or magnometor, e.g. */, delayBetweenListens) {
+	removeAt(index) {
+		this.checkElementIndex(index);
 
-		var delayBetweenListens = delayBetweenListens || 0;
-		var self = this;
-		self.delayTime = Date.now();
+		let value = this.elements[index];
+		this.elements.copyWithin(index, index + 1, this.count);
+		this.count--;
 
-		if(sensor.getType() === Sensor.TYPE_ACCELEROMETER) {
-			window.addEventListener("deviceorientation", function(e) {
+		return value;
+	}
 
-				if(Date.now() - self.delayTime > delayBetweenListens) { // Apply listener periodically. Constantly would overload the system.
+	/** Removes the first occurrence of `value`, returning true if found. */
+	removeValue(value) {
+		let index = this.indexOf(value);
 
-					var sensorEvent = new SensorEvent({
-						type: Sensor.TYPE_ACCELEROMETER,
+		if(index === -1) {
+			return false;
+		}
 
-						// Change values to radians to match Java standards
-						values: [Math.toRadians(e.alpha), Math.toRadians(e.beta), Math.toRadians(e.gamma)],
-						sensor: sensor
-					});
+		this.removeAt(index);
+		return true;
+	}
 
-					listener.onSensorChanged( sensorEvent );
+	// Removes every value `filter` returns true for, in one O(n) pass
+	removeIf(filter) {
+		let test = Android2JSGamePredicate(filter);
+		let kept = 0;
 
-					self.delayTime = Date.now(); //  Reset the delay timer
-				}
-			}, false);
+		for(let i = 0; i < this.count; i++) {
+			if(!test(this.elements[i])) {
+				this.elements[kept++] = this.elements[i];
+			}
 		}
+
+		let removed = kept < this.count;
+		this.count = kept;
+
+		return removed;
 	}
-}
 
-SensorManager.SENSOR_DELAY_GAME = 1;
-SensorManager.SENSOR_DELAY_FASTEST = 0;
-SensorManager.SENSOR_DELAY_NORMAL = 3;
-SensorManager.SENSOR_DELAY_UI = 2;
+	indexOf(value) {
+		return this.elements.subarray(0, this.count).indexOf(value);
+	}
 
-/**
- * Sets orientation values to a given matrix.
- * @param {array} rotationMatrix - An array of length 9.
- */
-SensorManager.getOrientation = function(rotationMatrix, orientation) {
-	var result = Array(3);
+	lastIndexOf(value) {
+		return this.elements.subarray(0, this.count).lastIndexOf(value);
+	}
 
-	// Update: need to use 3 x 3 rotationMatrix to get orientation values.
-	orientation = result;
+	contains(value) {
+		return this.indexOf(value) !== -1;
+	}
 
-	console.log("Attempting to set values with SensorManager.getOrientation. " +
-		"You may need to set these values directly in another line of code.");
-};
+	size() {
+		return this.count;
+	}
 
-/**
- * Gets a rotation matrix based on sensor details.
- * @param {array} rotationMatrix - An array of length 9.
- * @param I
- * @param acceleratorOutput
- * @param magnometerOutput
- */
-SensorManager.getRotationMatrix = function(rotationMatrix, I, acceleratorOutput, magnometerOutput) {
-	var success = false;
+	isEmpty() {
+		return this.count === 0;
+	}
 
-	// Update: need to use Output info to set rotationMatrix.
-	rotationMatrix = new Array(9);
+	clear() {
+		this.count = 0;
+	}
 
-	console.log("Attempting to set values with SensorManager.getRotationMatrix. " +
-		"You may need to set these values directly in another line of code.");
+	// Ascending numeric order
+	sort() {
+		this.elements.subarray(0, this.count).sort();
+	}
 
-	success = true;
-	return success;
-};
+	/** Returns a copy of the values, as an Int32Array. */
+	toArray() {
+		return this.elements.slice(0, this.count);
+	}
 
-class Region {
-	constructor() {
-		switch(arguments.length) {
-			case 0:
-				this.left = 0;
-				this.top = 0;
-				this.right = 0;
-				this.bottom = 0;
-				break;
-			case 1: // Rect or Region
-				this.left = arguments[0].left;
-				this.top = arguments[0].top;
-				this.right = arguments[0].right;
-				this.bottom = arguments[0].bottom;
-				break;
-			case 4: // left, top, right, bottom
-				this.left = arguments[0];
-				this.top = arguments[1];
-				this.right = arguments[2];
-				this.bottom = arguments[3];
-				break;
+	forEach(action) {
+		for(let i = 0; i < this.count; i++) {
+			action(this.elements[i]);
 		}
 	}
-}
 
-Region.Op = {
-	DIFFERENCE: "DIFFERENCE",
-	INTERSECT: "INTERSECT",
-	REPLACE: "REPLACE",
-	REVERSE_DIFFERECE: "REVERSE_DIFFERECE",
-	UNION: "UNION",
-	XOR: "XOR"
-};
+	iterator() {
+		return new Android2JSGameListIterator(this);
+	}
 
-class Path {
-	constructor(pathOrSVG) {
-		if(typeof pathOrSVG === "undefined") {
-			this.path = new Path2D();
-		} else {
-			this.path = new Path2D(pathOrSVG);
+	[Symbol.iterator]() {
+		return this.elements.subarray(0, this.count)[Symbol.iterator]();
+	}
+
+	checkElementIndex(index) {
+		if(!(index >= 0 && index < this.count)) {
+			throw new Error("IndexOutOfBoundsException: Index: " + index + ", Size: " + this.count);
 		}
 	}
+}
 
-	addArc(left, top, right, bottom, startAngle, sweepAngle) {
-		let privateRectF = new RectF(left, top, right, bottom);
-		let radiusX = privateRectF.width() / 2;
-		let radiusY = privateRectF.height() / 2;
-		let centerX = privateRectF.left + radiusX;
-		let centerY = privateRectF.top + radiusY;
+/**
+ * An int to int hash map, with open addressing in Int32Arrays: no boxing and no garbage per entry,
+ * and get, put and remove are O(1) on average. Keys and values are truncated to 32-bit ints.
+ * As in android.util.SparseIntArray, get(key) returns 0 (or a given default) for a missing key.
+ */
+class IntIntMap {
+	constructor(initialCapacity=16) {
+		this.count = 0;
+		this.allocate( IntIntMap.tableSizeFor(initialCapacity) );
+	}
 
-		this.path.arc(centerX, centerY, radiusX,
-			Math.toRadians(startAngle), Math.toRadians(sweepAngle),
-			direction === Path.Direction.CCW);
+	allocate(capacity) {
+		this.keys = new Int32Array(capacity);
+		this.values = new Int32Array(capacity);
+		this.used = new Uint8Array(capacity);
+		this.mask = capacity - 1;
+		this.shift = 32 - Math.log2(capacity);
 	}
 
-	addCircle(ceterX, centerY, radius, direction) {
-		this.path.arc(centerX, centerY, radius, 0, Math.PI * 2,
-			direction === Path.Direction.CCW);
+	// Fibonacci hashing: the top bits of key * 2^32 / phi, so nearby ids spread out
+	slotOf(key) {
+		return Math.imul(key, 0x9E3779B9) >>> this.shift;
 	}
 
-	addOval(ovalRectF, direction) {
-		let radiusX = ovalRectF.width() / 2;
-		let radiusY = ovalRectF.height() / 2;
-		let centerX = ovalRectF.left + radiusX;
-		let centerY = ovalRectF.top + radiusY;
-		let rotation = 0;
-		let counterclockwise = true;
+	// The slot holding `key`, or the free slot it would go in
+	find(key) {
+		let slot = this.slotOf(key);
 
-		this.path.ellipse(centerX, centerY, radiusX, radiusY,
-			rotation, 0, 2 * Math.PI, direction === Path.Direction.CCW);
+		while(this.used[slot] === 1 && this.keys[slot] !== key) {
+			slot = (slot + 1) & this.mask;
+		}
+
+		return slot;
 	}
 
-	addPath(path, transformMatrix) {
-		if(typeof transformMatrix === "undefined") {
-			this.path.addPath(path);
-		} else {
-			this.path.addPath(path, transformMatrix);
-		}
+	get(key, valueIfKeyNotFound=0) {
+		let slot = this.find(key | 0);
+		return this.used[slot] === 1 ? this.values[slot] : valueIfKeyNotFound;
 	}
 
-	addRect() {
-		let rectF;
-		let direction;
+	containsKey(key) {
+		return this.used[ this.find(key | 0) ] === 1;
+	}
 
-		if(arguments.length === 2) {
-			rectF = arguments[0];
-			direction = arguments[1];
-		} else {
-			rectF = new RectF(
-				arguments[0],
-				arguments[1],
-				arguments[2],
-				arguments[3]
-			);
+	put(key, value) {
+		key |= 0;
 
-			direction = arguments[4];
+		let slot = this.find(key);
+
+		if(this.used[slot] === 0) {
+			this.used[slot] = 1;
+			this.keys[slot] = key;
+			this.count++;
 		}
 
-		this.path.rect(rectF.left, rectF.top,
-			rectF.right - rectF.left, rectF.bottom - rectF.top);
+		this.values[slot] = value;
+
+		if(this.count > this.keys.length * IntIntMap.LOAD_FACTOR) {
+			this.rehash(this.keys.length * 2);
+		}
 	}
 
-	arcTo() {
-		let privateRectF;
+	/** Removes `key`, returning true if it was in the map. */
+	remove(key) {
+		let hole = this.find(key | 0);
 
-		switch(arguments.length) {
-			case 3:
-			case 4:
-				privateRectF = arguments[0];
-				startAngle = arguments[1];
-				sweepAngle = arguments[2];
+		if(this.used[hole] === 0) {
+			return false;
+		}
 
-				if(arguments.length === 4) {
-					forceMoveTo = arguments[3];
-				}
-				break;
-			case 7:
-				privateRectF = new RectF(arguments[0], arguments[1],
-					arguments[2], arguments[3]);
-				
-				startAngle = arguments[4];
-				sweepAngle = arguments[5];
-				forceMoveTo = arguments[6];
+		// Shift later entries of the same run back into the hole, so lookups never need tombstones
+		let slot = hole;
+
+		while(true) {
+			slot = (slot + 1) & this.mask;
+
+			if(this.used[slot] === 0) {
 				break;
-			default: {
-				throw new Error("Path.arcTo requires 3, 4, or 7 arguments");
+			}
+
+			let home = this.slotOf(this.keys[slot]);
+
+			// Move the entry unless its home slot lies cyclically in (hole, slot]
+			if(((slot - home) & this.mask) >= ((slot - hole) & this.mask)) {
+				this.keys[hole] = this.keys[slot];
+				this.values[hole] = this.values[slot];
+				hole = slot;
 			}
 		}
 
-		let radiusX = privateRectF.width() / 2;
-		let radiusY = privateRectF.height() / 2;
-		let centerX = privateRectF.left + radiusX;
-		let centerY = privateRectF.top + radiusY;
+		this.used[hole] = 0;
+		this.count--;
 
-		this.path.arcTo(centerX, centerY, radiusX,
-			Math.toRadians(startAngle), Math.toRadians(sweepAngle),
-			direction === Path.Direction.CCW);
+		return true;
 	}
 
-	close() {
-		this.path.closePath();
-	}
-}
+	rehash(capacity) {
+		let keys = this.keys;
+		let values = this.values;
+		let used = this.used;
 
-Path.Direction = {
-	CCW: "CCW",
-	CW: "CW"
-};
+		this.allocate(capacity);
 
-Path.FillType = {
-	EVEN_ODD: "EVEN_ODD",
-	INVERSE_EVEN_ODD: "INVERSE_EVEN_ODD",
-	INVERSE_WINDING: "INVERSE_WINDING",
-	WINDING: "WINDING"
-};
+		for(let i = 0; i < keys.length; i++) {
+			if(used[i] === 1) {
+				let slot = this.find(keys[i]);
+				this.used[slot] = 1;
+				this.keys[slot] = keys[i];
+				this.values[slot] = values[i];
+			}
+		}
+	}
 
-/**
- * Methods below are helpers to set up fullscreen and set
- * orientation. These are not based on any Java methods.
- */
+	size() {
+		return this.count;
+	}
 
-// Handle fullscreen and orientation setting processes
-let orientationLock = null;
+	isEmpty() {
+		return this.count === 0;
+	}
 
-window.addEventListener("DOMContentLoaded", function() {
-	orientationLock = screen.lockOrientation || screen.mozLockOrientation || screen.msLockOrientation || null;
+	clear() {
+		this.used.fill(0);
+		this.count = 0;
+	}
 
-	if(!orientationLock && screen.orientation) {
-		orientationLock = screen.orientation.lock || function() {/* noop */};
+	// action(key, value) for each entry, in no particular order
+	forEach(action) {
+		for(let i = 0; i < this.keys.length; i++) {
+			if(this.used[i] === 1) {
+				action(this.keys[i], this.values[i]);
+			}
+		}
 	}
-});
+}
 
-/**
- * Binds fullscreen toggling to an HTML element.
- * @param {Object} elm - The element for fullscreen toggling
- */
-function setFullscreenElement(elm, orientationChoice, callback) {
+IntIntMap.LOAD_FACTOR = 0.75;
 
-	if( Android2JSGameFullscreenTriggers.indexOf(elm) === -1) {
-		elm.addEventListener("click", function(e) {
-				e.preventDefault();
-				toggleFullscreen(orientationChoice, callback);
-		});
+// The power of 2 that holds `capacity` entries within the load factor
+IntIntMap.tableSizeFor = function(capacity) {
+	let size = 2;
 
-		Android2JSGameFullscreenTriggers.push(elm);
+	while(size * IntIntMap.LOAD_FACTOR < capacity) {
+		size *= 2;
 	}
-}
 
-/**
- * Toggles fullscreen. Written for cross-browser support.
- * From Mozilla Developer Network, slightly modified to account for orientation:
- * https://developer.mozilla.org/en-US/docs/Web/API/Fullscreen_API
- *
- * @param {string} [orientationChoice] - The preferred orientation to present
- *   the screen in; "portrait" or "landscape". Defaults to screen's current orientation.
- * @param {function} [callback] - A function to be invoked after fullscreen
- *   is toggled. It is invoked with a boolean argument set to "true" if
- *   fullscreen was entered, false if it was exited.
- */
-function toggleFullscreen(orientationChoice, callback) {
-	var callback = callback || function() {/* noop */};
+	return size;
+};
 
-	if (!document.fullscreenElement && !document.mozFullScreenElement && !document.webkitFullscreenElement && !document.msFullscreenElement ) {
-		document.documentElement.style.overflow = "hidden";
-		enterFullscreen(orientationChoice);
-		callback(true);
-	} else {
-		exitFullscreen();
-		callback(false);
-	}
-}
+class Polygon {}
 
-/**
- * Sets webpage to fullscreen mode if available.
- * @param {string} [orientationChoice] - The preferred orientation to present
- *   the screen in; "portrait" or "landscape". Defaults to screen's current orientation.
+// Handle passive touch events
+var supportsPassive = false;
+
+try {
+	var opts = Object.defineProperty({}, 'passive', {
+		get: function() {
+			supportsPassive = true;
+		}
+	});
+
+	window.addEventListener("test", opts, opts);
+	window.removeEventListener("test", opts, opts);
+} catch(e) {
+	console.log("Passive event handlers not supported.");
+	supportsPassive = false;
+}
+
+class SurfaceHolder {
+	constructor() {
+		this.canvas = null;
+	}
+
+	/**
+	 * With a dirty Rect, drawing is clipped to it, and everything outside it keeps the last
+	 * frame's pixels, as on Android. Only that area is cleared and redrawn.
+	 */
+	lockCanvas(dirty) {
+		this.canvas = new Canvas(window.Android2JSGameCanvas);
+
+		if(dirty instanceof Rect || dirty instanceof RectF) {
+			this.canvas.clipToDirtyRect(dirty);
+		}
+
+		if(Android2JSGame.batchDrawCalls) {
+			this.canvas.beginRecording();
+		}
+
+		return this.canvas;
+	}
+
+	unlockCanvasAndPost(canvas) {
+		if(canvas instanceof Canvas) {
+			canvas.endRecording(); // Draws the frame, while the dirty rect clip still applies
+			canvas.releaseDirtyRect();
+		}
+
+		this.canvas = canvas;
+	}
+
+	addCallback(gamePanel) {
+
+		// In a worker, the page listens for input and posts each MotionEvent over (see Thread.startWorker)
+		if(Android2JSGameIsWorker) {
+			window.Android2JSGameTouchTargets.push(gamePanel);
+			return;
+		}
+
+		Android2JSGameAddInputListeners(window.Android2JSGameCanvas, function(motionEvent) {
+			gamePanel.onTouchEvent.call(gamePanel, motionEvent);
+		});
+	}
+}
+
+/**
+ * Listens for touches (and mouse input, if Android2JSGame.allowMouseInput) on `canvas`,
+ * passing each as a MotionEvent to `onMotionEvent`.
+ */
+function Android2JSGameAddInputListeners(canvas, onMotionEvent) {
+	if(Android2JSGame.allowTouchInput) {
+		canvas.addEventListener("touchstart", function(e) {
+			e.preventDefault(); // Prevent mouse and click events from triggering
+
+			onMotionEvent(new MotionEvent(e));
+		}, /* supportsPassive ? {passive: true} : */ false);
+
+		canvas.addEventListener("touchmove", function(e) {
+			e.preventDefault(); // Prevent mouse and click events from triggering
+
+			onMotionEvent(new MotionEvent(e));
+		}, /* supportsPassive ? {passive: true} : */ false);
+
+		canvas.addEventListener("touchend", function(e) {
+			e.preventDefault(); // Prevent mouse and click events from triggering
+
+			onMotionEvent(new MotionEvent(e));
+		}, /* supportsPassive ? {passive: true} : */ false);
+	}
+
+	// For specifically mobile games, it would be best to avoid mouse input
+	if(Android2JSGame.allowMouseInput) {
+		
+		canvas.addEventListener("mousedown", function(e) {
+			e.preventDefault(); // Prevent mouse and click events from triggering
+
+			window.Android2JSGameMouseIsDown = true;
+			onMotionEvent(new MotionEvent(e));
+		}, /* supportsPassive ? {passive: true} : */ false);
+
+		canvas.addEventListener("mousemove", function(e) {
+			e.preventDefault(); // Prevent mouse and click events from triggering
+
+			if(window.Android2JSGameMouseIsDown) {
+				onMotionEvent(new MotionEvent(e));
+			}
+		}, /* supportsPassive ? {passive: true} : */ false);
+
+		canvas.addEventListener("mouseup", function(e) {
+			e.preventDefault(); // Prevent mouse and click events from triggering
+
+			window.Android2JSGameMouseIsDown = false;
+			onMotionEvent(new MotionEvent(e));
+		}, /* supportsPassive ? {passive: true} : */ false);
+	}
+}
+
+const VISIBLE = 0;
+const INVISIBLE = 4;
+const GONE = 8;
+
+class Surface {
+	constructor() {}
+	lockHardwareCanvas() {}
+	lockCanvas(dirtyRectangle) {}
+	unlockCanvas(canvas) {}
+	unlockCanvasAndPost(canvas) {}
+}
+
+class View {
+	constructor() {
+		this.visibilityType = VISIBLE;
+
+		// A worker has no document; the page tells it of resizes (see Activity.setContentView)
+		if(Android2JSGameIsWorker) {
+			this.view = null;
+			this.width = window.Android2JSGameWidth;
+			this.height = window.Android2JSGameHeight;
+			return;
+		}
+
+		this.view = document.documentElement; // This document's top-level element
+		this.width = this.view.style.clientWidth;
+		this.height = this.view.style.clientHeight;
+
+		var self = this;
+		this.view.addEventListener("resize", function() {
+			let oldWidth = self.width;
+			let oldHeight = self.height;
+			self.width = this.view.clientWidth;
+			self.height = this.view.clientHeight;
+			self.onSizeChanged(self.width, self.height, oldWidth, oldHeight);
+		}, false);
+	}
+
+	setVisibility(visibilityType) {
+		var visibilityChanged = false;
+		if(visibilityType !== this.visibilityType) {
+			visibilityChanged = true;
+		}
+
+		// Nothing to show or hide in a worker
+		if(this.view !== null) {
+			switch(visibilityType) {
+				case VISIBLE:
+					this.view.style.display = "block";
+					this.view.style.visibility = "visible";
+					break;
+				case INVISIBLE:
+					this.view.style.display = "block";
+					this.view.style.visibility = "hidden";
+					break;
+				case GONE:
+					this.view.style.display = "none";
+					this.view.style.visibility = "visible"; //Return to default
+					break;
+			}
+		}
+
+		if(visibilityChanged) {
+			this.onWindowVisibilityChanged(visibilityType);
+		}
+	}
+
+	// Override this method for any screen resizing events (like changing orientation)
+	onSizeChanged(newWidth, newHeight, oldWidth, oldHeight) {}
+
+	// As in Android, the view is redrawn on the next frame, once however many times this is called
+	invalidate() {
+		if(this.invalidatePending) {
+			return;
+		}
+
+		this.invalidatePending = true;
+
+		let self = this;
+		window.requestAnimationFrame(function() {
+			self.invalidatePending = false;
+			self.onDraw(new Canvas(window.Android2JSGameCanvas));
+		});
+	}
+
+	onWindowVisibilityChanged(visibilityType) {}
+
+	onDraw(canvas) {}
+	onKeyDown(keyEvent) {}
+	onKeyUp(keyEvent) {}
+	onTouchEvent(motionEvent) {}
+}
+
+class SurfaceView extends View {
+	constructor(context) {
+		super(context);
+		this.holder = new SurfaceHolder();
+
+		this.surfaceCreated(this.holder);
+	}
+
+	surfaceChanged() {}
+	surfaceDestroyed(surfaceHolder) {}
+	surfaceCreated(surfaceHolder) {}
+	onTouchEvent(motionEvent) {}
+
+	draw(canvas) {}
+
+	getHolder(){
+		return this.holder;
+	}
+
+	setFocusable(focusable) {
+		if(focusable && !Android2JSGameIsWorker) {
+			window.Android2JSGameCanvas.focus();
+		}
+	}
+}
+
+Error.prototype.printStackTrace = function() {
+	if(this.stack) {
+		console.log(this.stack);
+	} else if(console.trace) {
+		console.trace();
+	} else {
+		console.error(this);
+	}
+};
+
+// The definition of "synchronized" in Java is not carried over here (yet), and is not used as a function anyhow.
+try {
+	var synchronized;
+	window.synchronized = window.synchronized || function(holder) {};
+} catch (e) {
+	console.log("synchronized is a reserve word");
+}
+
+class Typeface {
+	constructor() {
+		this.italic = false;
+		this.bold = false;
+		this.fontFamily = "Arial";
+		this.fontStyle = "";
+		this.fontName = "Arial";
+	}
+
+	isBold() {
+		return this.bold;
+	}
+
+	isItalic() {
+		return this.italic;
+	}
+}
+
+// Typeface Styles
+Typeface.NORMAL = 0; // "normal";
+Typeface.ITALIC = 2; // "italic ";
+Typeface.BOLD = 1; // "bold";
+Typeface.BOLD_ITALIC = 3; // "bold italic";
+
+Typeface.DEFAULT = new Typeface();
+Typeface.DEFAULT.fontFamily = "Arial";
+Typeface.MONOSPACE = new Typeface();
+Typeface.MONOSPACE.fontFamily = "monospace";
+Typeface.SERIF = new Typeface();
+Typeface.SERIF.fontFamily = "serif";
+Typeface.SANS_SERIF = new Typeface();
+Typeface.SANS_SERIF.fontFamily = "sans-serif";
+
+Typeface.create = function(family, typefaceStyle) {
+	var fontStyle = "",
+		fontFamily = "Arial";
+
+	let newTypeface = new Typeface();
+
+	switch(typefaceStyle) {
+		case Typeface.NORMAL:
+			fontStyle = "";
+			break;
+		case Typeface.ITALIC:
+			fontStyle = "italic";
+			newTypeface.italic = true;
+			break;
+		case Typeface.BOLD:
+			fontStyle = "bold";
+			newTypeface.bold = true;
+			break;
+		case Typeface.BOLD_ITALIC:
+			fontStyle = "bold italic";
+			newTypeface.bold = true;
+			newTypeface.italic = true;
+			break;
+		default:
+			fontStyle = "";
+			break;
+	}
+
+	if(typeof family === "string") {
+		fontFamily = family;
+	} else { // Typeface instance
+		fontFamily = family.fontFamily;
+	}
+
+	newTypeface.fontName = fontFamily;
+	newTypeface.fontStyle = fontStyle;
+
+	return newTypeface;
+};
+
+Typeface.createFromAsset = function(assetManager, fontUrl) {
+	var fontStyle = "",
+		fontFamily = "",
+		fontPath = fontUrl.replace("fonts/", "").split(".")[0];
+
+	if(!(assetManager instanceof AssetManager)) {
+		throw new Error("Typeface.createFromAssets requires first argument to be an instance of AssetManager.");
+	}
+
+	if(!Android2JSGameFonts.hasOwnProperty(fontPath)) {
+		var sheet = document.createElement("STYLE");
+		document.head.appendChild(sheet);
+
+		let newFontName = "a2jsgame_custom_font" + Object.keys(window.Android2JSGameFonts).length;
+
+		fontFamily = newFontName;
+
+		sheet.innerText =	`
+			@font-face {
+				font-family: ${fontFamily};
+				src: url('${fontUrl}') format('truetype');
+				font-weight: normal;
+				font-style: normal;
+			}
+
+			div:-wekit-full-screen {
+				@font-face {
+					font-family: ${fontFamily};
+					src: url('${fontUrl}') format('truetype');
+					font-weight: normal;
+					font-style: normal;
+				}
+			}
+
+			div:-moz-full-screen {
+				@font-face {
+					font-family: ${fontFamily};
+					src: url('${fontUrl}') format('truetype');
+					font-weight: normal;
+					font-style: normal;
+				}
+			}
+
+			div:fullscreen {
+				@font-face {
+					font-family: ${fontFamily};
+					src: url('${fontUrl}') format('truetype');
+					font-weight: normal;
+					font-style: normal;
+				}
+			}
+
+			div:full-screen {
+				@font-face {
+					font-family: ${fontFamily};
+					src: url('${fontUrl}') format('truetype');
+					font-weight: normal;
+					font-style: normal;
+				}
+			}
+			`;
+
+		window.Android2JSGameFonts[fontPath] = {
+			name: fontFamily,
+			path: fontUrl
+		};
+	} else { // This custom font has already been created and recorded
+		fontFamily = window.Android2JSGameFonts[fontPath].name;
+	}
+
+	let newTypeface = new Typeface();
+
+	if(fontFamily) {
+		newTypeface.fontName = fontFamily;
+	}
+
+	if(fontStyle) {
+		newTypeface.fontStyle = fontStyle;
+	}
+
+	return newTypeface;
+};
+
+class Paint {
+	constructor(flags) {
+		this.color = "rgb(0, 0, 0)";
+		this.alpha = 255;
+		this.font = "14px Arial";
+		this.style = Paint.Style.FILL;
+
+		this.textSize = 14;
+		this.typeface = new Typeface();
+		this.fontFamily = "Arial";
+		this.typefaceStyle = "";
+
+		this.textAlign = Paint.Align.LEFT;
+		this.strokeWidth = 1;
+		
+		this.shadowOffsetX = 0;
+		this.shadowOffsetY = 0;
+		this.shadowBlur = 0;
+		this.xfermode = "source-over";
+
+		if(flags === Paint.ANTI_ALIAS_FLAG) {
+			this.antiAlias = true;
+			window.Android2JSGameCtx.imageSmoothingEnabled = true;
+			window.Android2JSGameCtx.imageSmoothingQuality = "high";
+
+			// Consider translating context to smooth out lines
+			// window.Android2JSGameCtx.translate(0.5, 0.5);
+		} else {
+			this.antiAlias = false;
+			window.Android2JSGameCtx.imageSmoothingEnabled = false;
+			window.Android2JSGameCtx.imageSmoothingQuality = "low";
+
+			// See not above on smoothing lines
+			// window.Android2JSGameCtx.transform = matrix(1, 0, 0, 1, 0, 0);
+		}
+	}
+
+	isAntiAlias() {
+		return this.antiAlias;
+	}
+
+	setAntiAlias(newAntiAlias) {
+		this.antiAlias = newAntiAlias;
+
+		if(this.antiAlias) {
+			this.antiAlias = true;
+			window.Android2JSGameCtx.imageSmoothingEnabled = true;
+			window.Android2JSGameCtx.imageSmoothingQuality = "high";
+
+			// Consider translating context to smooth out lines
+			// window.Android2JSGameCtx.translate(0.5, 0.5);
+		} else {
+			this.antiAlias = false;
+			window.Android2JSGameCtx.imageSmoothingEnabled = false;
+			window.Android2JSGameCtx.imageSmoothingQuality = "low";
+
+			// See not above on smoothing lines
+			// window.Android2JSGameCtx.transform = matrix(1, 0, 0, 1, 0, 0);
+		}
+	}
+
+	getColor() {
+		return this.color;
+	}
+
+	// Canvas sets the context's fill and stroke from the Paint when it draws
+	setColor(color) {
+		this.color = color;
+	}
+
+	/**
+	 * Set the ARGB values for this Paint instance. Note, unlike
+	 * with CSS and HTML5 canvas context, here alpha is the
+	 * first component instead of the last.
+	 */
+	setARGB(a, r, g, b) {
+		this.alpha = a;
+		this.color = `rgb(${r}, ${g}, ${b})`;
+	}
+
+	getStrokeWidth() {
+		return this.strokeWidth;
+	}
+
+	setStrokeWidth(width) {
+		this.strokeWidth = width;
+	}
+
+	getStyle() {
+		return this.style;
+	}
+
+	// See Paint.Style for options
+	setStyle(style) {
+		this.style = style;
+	}
+
+	getTextSize() {
+		return this.textSize;
+	}
+
+	/**
+	 * Records this objects font size in pixels.
+	 * @param {number} fontSizePx - The pixel size to set this font to.
+	 */
+	setTextSize(fontSizePx) {
+		this.textSize = fontSizePx;
+	}
+
+	getTypeface() {
+		return this.typeface;
+	}
+
+	setTypeface(newTypeface) {
+
+		this.fontFamily = newTypeface.fontName;
+		this.typefaceStyle = newTypeface.fontStyle;
+
+		// Example: "14px Times New Roman"
+		// this.typeface = (newTypeface.fontStyle ? newTypeface.fontStyle + " " : "") +
+			// this.fontSize.replace(/(\s*[0-9]+)([a-z]+)/, "$1") + " " + newTypeface.fontName;
+
+		this.typeface = new Typeface();
+		this.typeface.fontName = newTypeface.fontFamily;
+		this.typefaceStyle = newTypeface.fontStyle;
+	}
+
+	/**
+	 * Sets the alpha value for this Paint instance.
+	 * @param {number} newAlpha - The new alpha value, between 0 and 255 (inclusive)
+	 */
+	setAlpha(newAlpha) {
+		this.alpha = newAlpha;
+	}
+
+	/**
+	 * Gets the alpha value for this Paint instance, defining
+	 * its drawing opacity, between 0 and 255 (inclusive).
+	 * @returns {number}
+	 */
+	getAlpha() {
+		return this.alpha;
+	}
+
+	// The main context, set to this paint's font for measuring. The font goes through the context's
+	// state cache; set directly, a later drawText with the cached font would skip setting it back
+	getMeasureCtx() {
+		Android2JSGameGetContextState(window.Android2JSGameCtx).setFont( this.getCtxFont() );
+		return window.Android2JSGameCtx;
+	}
+
+	// JS currently does not provide TextMetrics with a height property
+	descent() {
+		var desc = 0;
+		// May need to consider baseline...
+
+		var testString = "a";
+		var textMetrics = this.getMeasureCtx().measureText(testString);
+
+		try {
+			desc = textMetrics.actualBoundingBoxDescent;
+		} catch(e) {
+			console.log("TextMetrics cannot find descent property. Check browser flags.");
+		}
+
+		return desc;
+	}
+
+	// JS currently does not provide TextMetrics with a height property
+	ascent() {
+		var asc = 0;
+
+		var testString = "a";
+		var textMetrics = this.getMeasureCtx().measureText(testString);
+
+		try {
+			asc = textMetrics.actualBoundingBoxAscent;
+		} catch(e) {
+			console.log("TextMetrics cannot find ascent property. Check browser flags.");
+		}
+
+		return asc;
+	}
+
+	setTextAlign(alignStyle) {
+		this.textAlign = alignStyle;
+	}
+
+	getTextAlign() {
+		return this.textAlign;
+	}
+
+	getTextBounds(text, substringStart, substringEnd, rect) {
+		var substring = text.substring(substringStart, substringEnd),
+			textMetrics;
+
+		textMetrics = this.getMeasureCtx().measureText( substring );
+
+		rect.left = 0;
+		rect.top = 0;
+		rect.right = textMetrics.width;
+
+		// Note: JS currently has no TextMetrics height property
+		rect.bottom = this.textSize;
+	}
+
+	getFontMetrics() {
+		var fontMetrics = new Paint.FontMetrics();
+		fontMetrics.ascent = 0;
+		fontMetrics.bottom = this.textSize;
+		fontMetrics.descent = 0;
+		fontMetrics.leading = 0;
+		fontMetrics.top = 0;
+		return fontMetrics;
+	}
+
+	setShadowLayer(radius, dx, dy, shadowColor) {
+		this.shadowOffsetX = dx;
+		this.shadowOffsetY = dy;
+		this.shadowBlur = radius;
+		this.shadowColor = shadowColor;
+	}
+
+	clearShadowLayer() {
+		this.shadowOffsetX = 0;
+		this.shadowOffsetY = 0;
+		this.shadowBlur = 0;
+		this.shadowColor = 0;
+	}
+
+	getXfermode(newXfermode) {
+		return this.xfermode;
+	}
+
+	setXfermode(newXfermode) {
+		this.xfermode = newXfermode;
+	}
+
+	// This is for internal use - not a Java method
+	getCtxFont() {
+		
+		// Build the font string
+		let ctxFont = this.textSize + "px " +
+			(this.typefaceStyle ? (this.typefaceStyle + " ") : "") +
+			this.fontFamily;
+
+		return ctxFont;
+	}
+}
+
+Paint.Style = {
+	STROKE: "STROKE",
+	FILL: "FILL",
+	FILL_AND_STROKE:  "FILL_AND_STROKE"
+};
+
+Paint.Align = {
+	LEFT: "LEFT",
+	CENTER: "CENTER",
+	RIGHT: "RIGHT"
+};
+
+Paint.FontMetrics = function() {
+	this.ascent = 0;
+	this.bottom = 0;
+	this.descent = 0;
+	this.leading = 0;
+	this.top = 0;
+};
+
+Paint.ANTI_ALIAS_FLAG = 1;
+
+class Xfermode { constructor() {} }
+
+class PorterDuffXfermode extends Xfermode {
+	constructor(mode) {
+		super();
+		this.mode = mode;
+	}
+}
+
+window.PorterDuff = {};
+PorterDuff.Mode = { // copy,, lighter, color-dodge, color-burn, hard-light
+	ADD: "ADD", // Not supported directly in JavaScript
+	CLEAR: "CLEAR", // Not supported directly in JavaScript
+	DST: "DST", // Not supported directly in JavaScript
+	SRC: "SRC",  // Not supported directly in JavaScript
+	DARKEN: "darken",
+	DST_ATOP: "destination-atop",
+	DST_IN: "destination-in",
+	DST_OUT: "destination-out",
+	DST_OVER: "destination-over",
+	LIGHTEN: "lighten",
+	MULTIPLY: "multiply",
+	OVERLAY: "overlay",
+	SCREEN: "screen",
+	SRC_ATOP: "source-atop",
+	SRC_IN: "source-in",
+	SRC_OUT: "source-out",
+	SRC_OVER: "source-over",
+	XOR: "xor"
+};
+
+/**
+ * Emulate the Android Java Canvas class - note: this does NOT
+ * represent the same thing as HTMLCanvasElement in JavaScript.
+ * JavaScript's CanvasRenderingContext2D objects are kind of like
+ * a combination of Android's Canvas and Paint class objects, providing
+ * drawing styles and operations for drawing on a physical canvas.
+ * The <canvas> element is closer to Android's Bitmap objects.
+ */
+/**
+ * The context state Canvas last wrote: alpha, composite operation, fill and stroke
+ * styles, line width, shadow, font, text alignment and transform. Writing a value a property already has is skipped,
+ * since every write makes the browser parse and check it again. There is one per
+ * context (see Android2JSGameGetContextState), shared by every Canvas drawing on it,
+ * so Canvas must write these properties only through here. Call invalidate() after
+ * anything resets the context, like ctx.restore() or resizing its canvas.
+ */
+class Android2JSGameContextState {
+	constructor(ctx) {
+		this.ctx = ctx;
+		this.transform = new Matrix();
+		this.invalidate();
+	}
+
+	invalidate() {
+		this.globalAlpha = null;
+		this.compositeOperation = null;
+		this.fillStyle = null;
+		this.strokeStyle = null;
+		this.lineWidth = null;
+		this.shadowOffsetX = null;
+		this.shadowOffsetY = null;
+		this.shadowBlur = null;
+		this.shadowColor = null;
+		this.font = null;
+		this.textAlign = null;
+		this.transformKnown = false;
+	}
+
+	setGlobalAlpha(alpha) {
+		if(alpha !== this.globalAlpha) {
+			this.ctx.globalAlpha = this.globalAlpha = alpha;
+		}
+	}
+
+	setCompositeOperation(compositeOperation) {
+		if(compositeOperation !== this.compositeOperation) {
+			this.ctx.globalCompositeOperation = this.compositeOperation = compositeOperation;
+		}
+	}
+
+	setFillStyle(fillStyle) {
+		if(fillStyle !== this.fillStyle) {
+			this.ctx.fillStyle = this.fillStyle = fillStyle;
+		}
+	}
+
+	setStrokeStyle(strokeStyle) {
+		if(strokeStyle !== this.strokeStyle) {
+			this.ctx.strokeStyle = this.strokeStyle = strokeStyle;
+		}
+	}
+
+	setLineWidth(lineWidth) {
+		if(lineWidth !== this.lineWidth) {
+			this.ctx.lineWidth = this.lineWidth = lineWidth;
+		}
+	}
+
+	// Stroke color and width, both from `paint`
+	setStroke(paint) {
+		this.setStrokeStyle(paint.getColor());
+		this.setLineWidth(paint.getStrokeWidth());
+	}
+
+	setShadow(offsetX, offsetY, blur, color) {
+		if(offsetX !== this.shadowOffsetX) {
+			this.ctx.shadowOffsetX = this.shadowOffsetX = offsetX;
+		}
+
+		if(offsetY !== this.shadowOffsetY) {
+			this.ctx.shadowOffsetY = this.shadowOffsetY = offsetY;
+		}
+
+		if(blur !== this.shadowBlur) {
+			this.ctx.shadowBlur = this.shadowBlur = blur;
+		}
+
+		if(color !== this.shadowColor) {
+			this.ctx.shadowColor = this.shadowColor = color;
+		}
+	}
+
+	// The shadow set with Paint.setShadowLayer, or none
+	applyShadow(paint) {
+		this.setShadow(paint.shadowOffsetX || 0, paint.shadowOffsetY || 0,
+			paint.shadowBlur || 0, paint.shadowColor || "rgba(0, 0, 0, 0)");
+	}
+
+	clearShadow() {
+		this.setShadow(0, 0, 0, "rgba(0, 0, 0, 0)");
+	}
+
+	// Fonts are the costliest property to write, as the browser parses the whole CSS font string
+	setFont(font) {
+		if(font !== this.font) {
+			this.ctx.font = this.font = font;
+		}
+	}
+
+	setTextAlign(textAlign) {
+		if(textAlign !== this.textAlign) {
+			this.ctx.textAlign = this.textAlign = textAlign;
+		}
+	}
+
+	// The transform of `matrix` (see Matrix.applyTo)
+	setTransform(matrix) {
+		if(this.transformKnown && this.transform.equals(matrix)) {
+			return;
+		}
+
+		this.transform.set(matrix);
+		this.transformKnown = true;
+		matrix.applyTo(this.ctx);
+	}
+}
+
+/** Returns the Android2JSGameContextState for `ctx`, creating it on first use. */
+function Android2JSGameGetContextState(ctx) {
+	let state = window.Android2JSGameContextStates.get(ctx);
+
+	if(typeof state === "undefined") {
+		state = new Android2JSGameContextState(ctx);
+		window.Android2JSGameContextStates.set(ctx, state);
+	}
+
+	return state;
+}
+
+/** Forgets what was written to `ctx`, if a Canvas has drawn on it, e.g. after its canvas is resized. */
+function Android2JSGameInvalidateContextState(ctx) {
+	let state = window.Android2JSGameContextStates.get(ctx);
+
+	if(typeof state !== "undefined") {
+		state.invalidate();
+	}
+}
+
+/**
+ * One drawRect, drawOval or drawBitmap call, with the paint values it was made with.
+ * Commands are pooled by Android2JSGameDrawCommandBuffer and reused every frame.
+ */
+class Android2JSGameDrawCommand {
+	constructor() {
+		this.type = Android2JSGameDrawCommand.RECT;
+		this.source = null; // For BITMAP, the image or canvas to draw
+		this.style = null; // Paint.Style, or null for BITMAP
+		this.color = null;
+		this.alpha = 1.0;
+		this.compositeOperation = "source-over";
+		this.strokeWidth = 0;
+		this.shadowOffsetX = 0;
+		this.shadowOffsetY = 0;
+		this.shadowBlur = 0;
+		this.shadowColor = "rgba(0, 0, 0, 0)";
+
+		this.x = 0;
+		this.y = 0;
+		this.width = 0;
+		this.height = 0;
+
+		// What the command can touch, for deciding whether it may be drawn out of order
+		this.left = 0;
+		this.top = 0;
+		this.right = 0;
+		this.bottom = 0;
+
+		this.next = null; // The next command in the same batch while flushing
+	}
+
+	/**
+	 * Copies what drawing needs from `paint`, so later changes to the Paint don't
+	 * change a command that is still waiting to be drawn. `paint` may be null for BITMAP.
+	 */
+	set(type, paint, source, x, y, width, height) {
+		this.type = type;
+		this.source = source;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+
+		if(paint) {
+			this.style = type === Android2JSGameDrawCommand.BITMAP ? null : paint.getStyle();
+			this.color = type === Android2JSGameDrawCommand.BITMAP ? null : paint.getColor();
+			this.alpha = paint.getAlpha() / 255;
+			this.compositeOperation = paint.getXfermode();
+			this.strokeWidth = (this.style === Paint.Style.STROKE || this.style === Paint.Style.FILL_AND_STROKE) ? paint.getStrokeWidth() : 0;
+			this.shadowOffsetX = paint.shadowOffsetX || 0;
+			this.shadowOffsetY = paint.shadowOffsetY || 0;
+			this.shadowBlur = paint.shadowBlur || 0;
+			this.shadowColor = paint.shadowColor || "rgba(0, 0, 0, 0)";
+		} else {
+			this.style = null;
+			this.color = null;
+			this.alpha = 1.0;
+			this.compositeOperation = "source-over";
+			this.strokeWidth = 0;
+			this.shadowOffsetX = 0;
+			this.shadowOffsetY = 0;
+			this.shadowBlur = 0;
+			this.shadowColor = "rgba(0, 0, 0, 0)";
+		}
+
+		// Strokes, anti-aliasing and shadows all reach past the shape itself
+		let outset = this.strokeWidth / 2 + 1 + this.shadowBlur * 2;
+		this.left = Math.min(x, x + width) - outset + Math.min(0, this.shadowOffsetX);
+		this.top = Math.min(y, y + height) - outset + Math.min(0, this.shadowOffsetY);
+		this.right = Math.max(x, x + width) + outset + Math.max(0, this.shadowOffsetX);
+		this.bottom = Math.max(y, y + height) + outset + Math.max(0, this.shadowOffsetY);
+
+		// Most composite operations only touch the shape, but some (like "copy") change the whole canvas
+		if(this.compositeOperation !== "source-over") {
+			this.left = this.top = -Infinity;
+			this.right = this.bottom = Infinity;
+		}
+
+		this.next = null;
+	}
+
+	// True if drawing this right after `command` needs no context state change
+	hasSameState(command) {
+		return this.source === command.source &&
+			this.style === command.style &&
+			this.color === command.color &&
+			this.alpha === command.alpha &&
+			this.compositeOperation === command.compositeOperation &&
+			this.strokeWidth === command.strokeWidth &&
+			this.shadowOffsetX === command.shadowOffsetX &&
+			this.shadowOffsetY === command.shadowOffsetY &&
+			this.shadowBlur === command.shadowBlur &&
+			this.shadowColor === command.shadowColor;
+	}
+
+	applyState(state) {
+		state.setGlobalAlpha(this.alpha);
+		state.setCompositeOperation(this.compositeOperation);
+		state.setShadow(this.shadowOffsetX, this.shadowOffsetY, this.shadowBlur, this.shadowColor);
+
+		if(this.style !== Paint.Style.STROKE && this.style !== null) {
+			state.setFillStyle(this.color);
+		}
+
+		if(this.style === Paint.Style.STROKE || this.style === Paint.Style.FILL_AND_STROKE) {
+			state.setStrokeStyle(this.color);
+			state.setLineWidth(this.strokeWidth);
+		}
+	}
+
+	// Draws with the state applyState() set
+	draw(ctx, state) {
+		switch(this.type) {
+			case Android2JSGameDrawCommand.RECT:
+				if(this.style !== Paint.Style.STROKE) {
+					ctx.fillRect(this.x, this.y, this.width, this.height);
+				}
+
+				if(this.style !== Paint.Style.FILL) {
+					ctx.strokeRect(this.x, this.y, this.width, this.height);
+				}
+
+				break;
+			case Android2JSGameDrawCommand.OVAL:
+				ctx.beginPath();
+				ctx.ellipse(this.x + this.width / 2, this.y + this.height / 2, this.width / 2, this.height / 2,
+					0, 0, 2 * Math.PI, true);
+
+				if(this.style !== Paint.Style.STROKE) {
+					ctx.fill();
+				}
+
+				if(this.style !== Paint.Style.FILL) {
+					ctx.stroke();
+				}
+
+				break;
+			case Android2JSGameDrawCommand.BITMAP:
+				try {
+					ctx.drawImage(this.source, this.x, this.y, this.width, this.height);
+				} catch(e) {
+					// image resource may have been blocked due to CORS security errors
+					state.setStrokeStyle("red");
+					state.setLineWidth(2);
+					ctx.strokeRect(this.x, this.y, this.width, this.height);
+				}
+
+				break;
+		}
+	}
+}
+
+Android2JSGameDrawCommand.RECT = 0;
+Android2JSGameDrawCommand.OVAL = 1;
+Android2JSGameDrawCommand.BITMAP = 2;
+
+/**
+ * Holds a frame's drawRect, drawOval and drawBitmap calls until flush(), then draws
+ * them grouped by context state and image, so each state is set once per group rather
+ * than once per call. A command only moves ahead of earlier ones it doesn't overlap,
+ * so the frame looks the same as drawing in call order. SurfaceHolder.lockCanvas starts
+ * recording, and unlockCanvasAndPost, or any other drawing, flushes.
+ */
+class Android2JSGameDrawCommandBuffer {
+	constructor() {
+		this.ctx = null;
+		this.state = null;
+		this.commands = [];
+		this.count = 0;
+
+		// Batches, reused between flushes: each is a run of commands in one state
+		this.batchFirst = [];
+		this.batchLast = [];
+		this.batchLeft = [];
+		this.batchTop = [];
+		this.batchRight = [];
+		this.batchBottom = [];
+	}
+
+	// Starts recording for `ctx`, drawing anything recorded for another context first
+	begin(ctx, state) {
+		if(this.ctx !== ctx) {
+			this.flush();
+		}
+
+		this.ctx = ctx;
+		this.state = state;
+	}
+
+	// Returns a pooled command for the caller to set() and keep
+	add() {
+		if(this.count === this.commands.length) {
+			this.commands.push(new Android2JSGameDrawCommand());
+		}
+
+		return this.commands[this.count++];
+	}
+
+	flush() {
+		if(this.count === 0) {
+			return;
+		}
+
+		let batchCount = 0;
+
+		for(let i = 0; i < this.count; i++) {
+			let command = this.commands[i];
+			let target = -1;
+
+			// Look back for a batch in the same state that nothing since overlaps this command
+			for(let b = batchCount - 1; b >= 0 && b >= batchCount - Android2JSGameDrawCommandBuffer.MAX_LOOKBACK; b--) {
+				if(this.batchFirst[b].hasSameState(command)) {
+					target = b;
+					break;
+				}
+
+				if(command.left < this.batchRight[b] && this.batchLeft[b] < command.right &&
+					command.top < this.batchBottom[b] && this.batchTop[b] < command.bottom) {
+					break;
+				}
+			}
+
+			if(target === -1) {
+				target = batchCount++;
+				this.batchFirst[target] = command;
+				this.batchLeft[target] = command.left;
+				this.batchTop[target] = command.top;
+				this.batchRight[target] = command.right;
+				this.batchBottom[target] = command.bottom;
+			} else {
+				this.batchLast[target].next = command;
+				this.batchLeft[target] = Math.min(this.batchLeft[target], command.left);
+				this.batchTop[target] = Math.min(this.batchTop[target], command.top);
+				this.batchRight[target] = Math.max(this.batchRight[target], command.right);
+				this.batchBottom[target] = Math.max(this.batchBottom[target], command.bottom);
+			}
+
+			this.batchLast[target] = command;
+		}
+
+		for(let b = 0; b < batchCount; b++) {
+			this.batchFirst[b].applyState(this.state);
+
+			for(let command = this.batchFirst[b]; command !== null; command = command.next) {
+				command.draw(this.ctx, this.state);
+				command.source = null; // Don't keep images alive from the pool
+			}
+
+			this.batchFirst[b] = this.batchLast[b] = null;
+		}
+
+		this.count = 0;
+	}
+}
+
+Android2JSGameDrawCommandBuffer.MAX_LOOKBACK = 16; // How many batches back a command may move, to keep flush() linear
+
+/** Draws any commands waiting in the shared buffer. Canvas calls this before drawing anything it doesn't record. */
+function Android2JSGameFlushDrawCommands() {
+	if(window.Android2JSGameDrawCommands !== null) {
+		window.Android2JSGameDrawCommands.flush();
+	}
+}
+
+class Canvas {
+	constructor(bitmap) {
+		this.bitmap = null;
+		this.ctx = window.Android2JSGameCtx; // Where this Canvas draws: the game canvas, or an offscreen Bitmap's pixels
+		this.state = Android2JSGameGetContextState(this.ctx);
+		this.state.invalidate(); // Resizing the game canvas resets its context, so start each Canvas afresh
+		this.width = window.Android2JSGameWidth;
+		this.height = window.Android2JSGameHeight;
+		this.recording = false;
+		this.immediateCommand = new Android2JSGameDrawCommand(); // For drawing straight away when not recording
+
+		if(bitmap instanceof Bitmap) {
+			this.setBitmap(bitmap);
+		}
+
+		this.clipBounds = new RectF(0, 0, this.width, this.height);
+		this.dirtyRect = null;
+		this.matrix = new Matrix(); // Set matrix to the identity
+		this.savedMatrices = []; // Matrix for each save() not yet restored, reused from one save() to the next
+		this.saveDepth = 0;
+		this.applyMatrix(); // Whatever the last frame left, each Canvas starts untransformed
+	}
+
+	// True when drawing into a Bitmap rather than onto the game canvas
+	isOffscreen() {
+		return this.ctx !== window.Android2JSGameCtx;
+	}
+
+	/**
+	 * Called by SurfaceHolder.lockCanvas when Android2JSGame.batchDrawCalls is on. Until endRecording(),
+	 * drawRect, drawOval, drawCircle and drawBitmap are kept in a shared Android2JSGameDrawCommandBuffer
+	 * and drawn together, grouped by state.
+	 */
+	beginRecording() {
+		if(window.Android2JSGameDrawCommands === null) {
+			window.Android2JSGameDrawCommands = new Android2JSGameDrawCommandBuffer();
+		}
+
+		window.Android2JSGameDrawCommands.begin(this.ctx, this.state);
+		this.recording = true;
+	}
+
+	/** Called by SurfaceHolder.unlockCanvasAndPost. Draws everything recorded since beginRecording(). */
+	endRecording() {
+		Android2JSGameFlushDrawCommands();
+		this.recording = false;
+	}
+
+	// A command to set(), then pass to submit(): from the shared buffer while recording, otherwise drawn straight away
+	obtainCommand() {
+		if(this.recording) {
+			return window.Android2JSGameDrawCommands.add();
+		}
+
+		Android2JSGameFlushDrawCommands();
+		return this.immediateCommand;
+	}
+
+	submit(command) {
+		if(this.recording) {
+			return;
+		}
+
+		command.applyState(this.state);
+		command.draw(this.ctx, this.state);
+		command.source = null;
+	}
+
+	/** Called by SurfaceHolder.lockCanvas(dirty). Clips every draw to `dirty` until unlockCanvasAndPost. */
+	clipToDirtyRect(dirty) {
+		Android2JSGameFlushDrawCommands();
+
+		this.dirtyRect = new RectF(dirty.left, dirty.top, dirty.right, dirty.bottom);
+		this.clipBounds = this.dirtyRect;
+
+		this.ctx.save();
+		this.ctx.beginPath();
+		this.ctx.rect(dirty.left, dirty.top, dirty.right - dirty.left, dirty.bottom - dirty.top);
+		this.ctx.clip();
+	}
+
+	/** Called by SurfaceHolder.unlockCanvasAndPost. Removes the clip set by clipToDirtyRect, if any. */
+	releaseDirtyRect() {
+		if(this.dirtyRect === null) {
+			return;
+		}
+
+		Android2JSGameFlushDrawCommands();
+
+		this.ctx.restore();
+		this.state.invalidate(); // restore() put back whatever state the context had before the clip
+		this.dirtyRect = null;
+		this.clipBounds = new RectF(0, 0, this.width, this.height);
+	}
+
+	// Erases the previous frame: all of it, or only the dirty rect when one is locked
+	clearFrame() {
+		if(this.dirtyRect === null) {
+			this.ctx.clearRect(0, 0, this.ctx.canvas.width, this.ctx.canvas.height);
+		} else {
+			this.ctx.clearRect(this.dirtyRect.left,
+				this.dirtyRect.top,
+				this.dirtyRect.right - this.dirtyRect.left,
+				this.dirtyRect.bottom - this.dirtyRect.top);
+		}
+	}
+
+	/**
+	 * As in Android Java, a Bitmap from Bitmap.createBitmap(width, height, config)
+	 * becomes what this Canvas draws into, backed by an OffscreenCanvas where the
+	 * browser has one. For a decoded image we keep our simple implementation,
+	 * which only sets the game canvas background.
+	 */
+	setBitmap(bitmap) {
+		this.bitmap = bitmap;
+
+		if(bitmap.offscreen) {
+			this.ctx = bitmap.ctx;
+			this.state = Android2JSGameGetContextState(this.ctx);
+			this.width = bitmap.getWidth();
+			this.height = bitmap.getHeight();
+			this.clipBounds = new RectF(0, 0, this.width, this.height);
+		} else {
+			window.Android2JSGameCanvas.style.backgroundImage = bitmap.image;
+		}
+	}
+
+	getWidth() {
+		return this.width;
+	}
+
+	getHeight() {
+		return this.height;
+	}
+
+	// Draws what was recorded under the old matrix, then sets the context's transform to this.matrix
+	applyMatrix() {
+		Android2JSGameFlushDrawCommands();
+		this.state.setTransform(this.matrix);
+	}
+
+	/** Replaces the current matrix with a copy of `matrix`, or the identity if null. */
+	setMatrix(matrix) {
+		this.matrix.set(matrix);
+		this.applyMatrix();
+	}
+
+	/** Returns a copy of the current matrix, or with `ctm`, copies it into that instead. */
+	getMatrix(ctm) {
+		if(ctm instanceof Matrix) {
+			ctm.set(this.matrix);
+			return;
+		}
+
+		return new Matrix(this.matrix);
+	}
+
+	concat(matrix) {
+		if(matrix !== null) {
+			this.matrix.preConcat(matrix);
+			this.applyMatrix();
+		}
+	}
+
+	translate(dx, dy) {
+		this.matrix.preTranslate(dx, dy);
+		this.applyMatrix();
+	}
+
+	scale(scaleX, scaleY, pivotX, pivotY) {
+		this.matrix.preScale(scaleX, scaleY, pivotX, pivotY);
+		this.applyMatrix();
+	}
+
+	rotate(degrees, pivotX, pivotY) {
+		this.matrix.preRotate(degrees, pivotX, pivotY);
+		this.applyMatrix();
+	}
+
+	skew(skewX, skewY) {
+		this.matrix.preSkew(skewX, skewY);
+		this.applyMatrix();
+	}
+
+	drawColor(color) {
+		Android2JSGameFlushDrawCommands();
+		this.state.setTransform(Canvas.IDENTITY); // As on Android, the color fills the clip whatever the matrix
+
+		this.clearFrame(); // Erase previous frame
+
+		// A Bitmap has no CSS background to show through, so the color is painted into it
+		if(this.isOffscreen()) {
+			this.state.setGlobalAlpha(1.0);
+			this.state.setCompositeOperation("source-over");
+			this.state.clearShadow();
+			this.state.setFillStyle(color);
+			this.ctx.fillRect(0, 0, this.ctx.canvas.width, this.ctx.canvas.height);
+		} else if(window.Android2JSGameCanvas.style.background !== color) {
+			window.Android2JSGameCanvas.style.background = color;
+		}
+
+		this.state.setTransform(this.matrix);
+	}
+
+	drawRGB(r, g, b) {
+		this.drawColor(`rgb(${r}, ${g}, ${b})`);
+	}
+
+	drawRect(rect, paint) {
+		if(arguments.length === 5) { // left, top, right, bottom, Paint
+			return this.drawRect(RectF.obtain(arguments[0], arguments[1], arguments[2], arguments[3]), arguments[4]);
+		}
+
+		let command = this.obtainCommand();
+		command.set(Android2JSGameDrawCommand.RECT, paint, null, rect.left, rect.top, rect.width(), rect.height());
+		this.submit(command);
+	}
+
+	// Draws an oval contained in a RectF
+	drawOval() {
+		let privateRectF;
+		let paint;
+
+		if(arguments.length === 5) {
+			privateRectF = RectF.obtain(arguments[0], arguments[1], arguments[2], arguments[3]);
+			paint = arguments[4];
+		} else {
+			privateRectF = arguments[0];
+			paint = arguments[1];
+		}
+
+		let command = this.obtainCommand();
+		command.set(Android2JSGameDrawCommand.OVAL, paint, null,
+			privateRectF.left, privateRectF.top, privateRectF.width(), privateRectF.height());
+		this.submit(command);
+	}
+
+	drawCircle(centerX, centerY, radius, paint) {
+		if(radius <= 0) {
+			return;
+		}
+
+		this.drawOval(RectF.obtain(centerX - radius, centerY - radius, centerX + radius, centerY + radius), paint);
+	}
+
+	drawBitmap(bitmap, nullValue, boundingRect, paint) {
+
+		// (Bitmap bitmap, float left, float top, Paint paint) draws the Bitmap at its own size
+		if(typeof nullValue === "number") {
+			return this.drawBitmap(bitmap, null, RectF.obtain(nullValue, boundingRect,
+				nullValue + bitmap.getWidth(), boundingRect + bitmap.getHeight()), paint);
+		}
+
+		let command = this.obtainCommand();
+		command.set(Android2JSGameDrawCommand.BITMAP, paint, bitmap.getDrawingSource(),
+			boundingRect.left, boundingRect.top, boundingRect.width(), boundingRect.height());
+		this.submit(command);
+	}
+
+	drawArc(rectF, thetaStart, thetaEnd, includeCenter, paint) {
+		Android2JSGameFlushDrawCommands();
+		this.state.applyShadow(paint);
+
+		this.state.setGlobalAlpha(paint.getAlpha() / 255);
+		this.state.setCompositeOperation(paint.getXfermode());
+		this.ctx.beginPath();
+
+		// We are assuming a circle here, so width and height are equal in rectF
+		let radius = Math.round(rectF.width() / 2);
+
+		this.ctx.arc(rectF.left + radius, rectF.top + radius,
+			radius, Math.toRadians(thetaStart), Math.toRadians(thetaEnd), false);
+
+		if(includeCenter) {
+			this.ctx.moveTo(rectF.left + radius, rectF.top + radius);
+		}
+
+		if(paint.getStyle() === Paint.Style.STROKE) {
+			this.state.setStroke(paint);
+			this.ctx.stroke();
+		} else if(paint.getStyle() === Paint.Style.FILL) {
+			this.state.setFillStyle(paint.getColor());
+			this.ctx.fill();
+		} else { // Style.FILL_AND_STROKE
+			this.state.setFillStyle(paint.getColor());
+			this.state.setStroke(paint);
+			this.ctx.fill();
+			this.ctx.stroke();
+		}
+	}
+
+	// Note: y-values may differ in text display for Android Java vs. JS
+	drawText(textString, x, y, paint) {
+
+		Android2JSGameFlushDrawCommands();
+		this.state.applyShadow(paint);
+
+		this.state.setFont(paint.getCtxFont());
+		this.state.setGlobalAlpha(paint.getAlpha() / 255);
+		this.state.setCompositeOperation(paint.getXfermode());
+
+		switch(paint.getTextAlign()) {
+			case Paint.Align.LEFT:
+				this.state.setTextAlign("left");
+				break;
+			case Paint.Align.CENTER:
+				this.state.setTextAlign("center");
+				break;
+			case Paint.Align.RIGHT:
+				this.state.setTextAlign("right");
+				break;
+			default: {
+				this.state.setTextAlign("left");
+			}
+		}
+
+		// Text drawn before, e.g. a HUD label, is copied from its cached run instead of being laid out and filled again.
+		// Runs are rendered at 1x, so under a scale or rotation they would be resampled and blur; that text is drawn directly
+		let textRun = this.matrix.isTranslate() ? Android2JSGameGetTextRun(textString, paint, this.ctx) : null;
+
+		if(textRun !== null) {
+
+			// Snapped to whole device pixels, so the run is copied as it was rendered
+			let translateX = this.matrix.values[Matrix.MTRANS_X];
+			let translateY = this.matrix.values[Matrix.MTRANS_Y];
+
+			this.ctx.drawImage(textRun.canvas,
+				Math.round(translateX + x - textRun.originX) - translateX,
+				Math.round(translateY + y - textRun.originY) - translateY);
+		} else if(paint.getStyle() === Paint.Style.STROKE) {
+			this.state.setStroke(paint);
+			this.ctx.strokeText(textString, x, y);
+		} else if(paint.getStyle() === Paint.Style.FILL) {
+			this.state.setFillStyle(paint.getColor());
+			this.ctx.fillText(textString, x, y);
+		} else { // Style.FILL_AND_STROKE
+			this.state.setFillStyle(paint.getColor());
+			this.ctx.fillText(textString, x, y);
+			this.state.setStroke(paint);
+			this.ctx.strokeText(textString, x, y);
+		}
+	}
+
+	save() { // Android saves into a private stack.
+		Android2JSGameFlushDrawCommands();
+		this.ctx.save();
+
+		if(this.saveDepth === this.savedMatrices.length) {
+			this.savedMatrices.push(new Matrix());
+		}
+
+		this.savedMatrices[this.saveDepth].set(this.matrix);
+		this.saveDepth++;
+
+		return this.saveDepth; // As on Android, the count to pass to restoreToCount() to undo this save()
+	}
+
+	restore() {
+		Android2JSGameFlushDrawCommands();
+		this.ctx.restore(); // Puts back the context's transform too
+		this.state.invalidate();
+
+		if(this.saveDepth > 0) {
+			this.saveDepth--;
+			this.matrix.set(this.savedMatrices[this.saveDepth]);
+		}
+	}
+
+	getSaveCount() {
+		return this.saveDepth + 1;
+	}
+
+	restoreToCount(saveCount) {
+		while(this.saveDepth >= Math.max(saveCount, 1)) {
+			this.restore();
+		}
+	}
+
+	drawPoint(x, y, paint) {
+		Android2JSGameFlushDrawCommands();
+		this.state.applyShadow(paint);
+
+		this.state.setFillStyle(paint.getColor());
+		this.state.setGlobalAlpha(paint.getAlpha() / 255);
+		this.state.setCompositeOperation(paint.getXfermode());
+		this.ctx.fillRect(x, y, 1, 1);
+	}
+
+	drawPoints(points, paint) {
+		for(var i = 0; i < points.length; i++) {
+			this.drawPoint(point.x, point.y, paint);
+		}
+	}
+
+	drawLine(startX, startY, stopX, stopY, paint) {
+
+		Android2JSGameFlushDrawCommands();
+		this.state.applyShadow(paint);
+
+		this.state.setStroke(paint);
+		this.state.setGlobalAlpha(paint.getAlpha() / 255);
+		this.state.setCompositeOperation(paint.getXfermode());
+
+		this.ctx.beginPath();
+		this.ctx.moveTo(startX, startY);
+		this.ctx.lineTo(stopX, stopY);
+		this.ctx.stroke();
+	}
+
+	// As on Android, in the current matrix's coordinates
+	getClipBounds(rect) {
+		if(arguments.length === 0) {
+			if(this.matrix.isIdentity()) {
+				return this.clipBounds;
+			}
+
+			let bounds = new RectF();
+			this.getClipBounds(bounds);
+			return bounds;
+		}
+
+		rect.left = this.clipBounds.left;
+		rect.top = this.clipBounds.top;
+		rect.right = this.clipBounds.right;
+		rect.bottom = this.clipBounds.bottom;
+
+		if(!this.matrix.isIdentity()) {
+			if(!this.matrix.invert(Canvas.INVERSE)) {
+				rect.setEmpty();
+				return false;
+			}
+
+			Canvas.INVERSE.mapRect(rect);
+
+			if(rect instanceof Rect) { // Round out to whole pixels
+				rect.set(Math.floor(rect.left), Math.floor(rect.top), Math.ceil(rect.right), Math.ceil(rect.bottom));
+			}
+		}
+
+		if(rect.width() === 0 && rect.height() === 0) {
+			return false;
+		}
+
+		return true;
+	}
+
+	drawPath(path, paint) {
+		Android2JSGameFlushDrawCommands();
+		this.state.applyShadow(paint);
+
+		this.state.setStroke(paint);
+		this.state.setGlobalAlpha(paint.getAlpha() / 255);
+		this.state.setCompositeOperation(paint.getXfermode());
+
+		this.ctx.stroke(path);
+	}
+}
+
+Canvas.IDENTITY = new Matrix();
+Canvas.INVERSE = new Matrix(); // Scratch for getClipBounds
+
+/**
+ * Returns `textString` pre-rendered with `paint`, as { canvas, originX, originY }, where the origin is
+ * where drawText's x and y fall on the run's canvas. Runs are kept in an LruCache keyed by font, color,
+ * style, stroke width, alignment and text, bounded by Android2JSGame.textCacheMaxEntries. Expects `ctx`, the context
+ * being drawn on, to have its font and textAlign set for `paint` already. Returns null if the text
+ * should be drawn directly.
+ */
+function Android2JSGameGetTextRun(textString, paint, ctx) {
+	if(!(Android2JSGame.textCacheMaxEntries > 0) || textString.length === 0) {
+		return null;
+	}
+
+	let fonts = Android2JSGameIsWorker ? self.fonts : document.fonts;
+
+	// A web font that is still loading would be cached in the fallback font for good
+	if(fonts && fonts.status !== "loaded") {
+		return null;
+	}
+
+	if(window.Android2JSGameTextCache === null) {
+		window.Android2JSGameTextCache = new LruCache(Android2JSGame.textCacheMaxEntries);
+	}
+
+	// Only stroked styles depend on the stroke width, so filled text shares one run whatever it is
+	let strokeWidth = paint.getStyle() !== Paint.Style.FILL ? paint.getStrokeWidth() : 0;
+	let key = ctx.font + "|" + paint.getColor() + "|" + paint.getStyle() + "|" + strokeWidth + "|" + ctx.textAlign + "|" + textString;
+	let textRun = window.Android2JSGameTextCache.get(key);
+
+	if(textRun !== null) {
+		return textRun;
+	}
+
+	let textMetrics = ctx.measureText(textString);
+
+	// Older browsers don't report the ink bounds, so there is no size to render the run at
+	if(typeof textMetrics.actualBoundingBoxAscent !== "number") {
+		return null;
+	}
+
+	// Room for anti-aliasing, and for strokes, which are centred on the outline, to spill over the ink bounds
+	let padding = 2 + Math.ceil(strokeWidth / 2);
+	let left = Math.ceil(textMetrics.actualBoundingBoxLeft) + padding;
+	let ascent = Math.ceil(textMetrics.actualBoundingBoxAscent) + padding;
+	let runCanvas = Android2JSGameCreateOffscreenCanvas(
+		Math.max(1, left + Math.ceil(textMetrics.actualBoundingBoxRight) + padding),
+		Math.max(1, ascent + Math.ceil(textMetrics.actualBoundingBoxDescent) + padding)
+	);
+
+	let runCtx = runCanvas.getContext("2d");
+	runCtx.font = ctx.font;
+	runCtx.textAlign = ctx.textAlign;
+
+	if(paint.getStyle() !== Paint.Style.STROKE) {
+		runCtx.fillStyle = paint.getColor();
+		runCtx.fillText(textString, left, ascent);
+	}
+
+	if(paint.getStyle() !== Paint.Style.FILL) {
+		runCtx.strokeStyle = paint.getColor();
+		runCtx.lineWidth = strokeWidth > 0 ? strokeWidth : 1; // As on Android, 0 is a one pixel hairline
+		runCtx.strokeText(textString, left, ascent);
+	}
+
+	textRun = {
+		canvas: runCanvas,
+		originX: left,
+		originY: ascent
+	};
+
+	window.Android2JSGameTextCache.put(key, textRun);
+	return textRun;
+}
+
+// `ctx` is the context to apply to, the game canvas's by default. Goes through its context state, so Canvas sees the change
+window.Android2JSGameApplyShadow = function(paint, ctx) {
+	Android2JSGameGetContextState(ctx || window.Android2JSGameCtx).applyShadow(paint);
+};
+
+window.Android2JSGameRemoveShadow = function(ctx) {
+	Android2JSGameGetContextState(ctx || window.Android2JSGameCtx).clearShadow();
+};
+
+/**
+ * Handle Sensor events, like accelerometer changes.
+ * Acceleration events may be added later with JS DeviceMotion API.
+ */
+class Sensor {
+	constructor(type) {
+		this.type = type;
+	}
+
+	getType() {
+		return this.type;
+	}
+}
+
+Sensor.TYPE_ACCELEROMETER = 1;
+Sensor.TYPE_MAGNETIC_FIELD = 2;
+Sensor.TYPE_GYROSCOPE = 4;
+Sensor.TYPE_GRAVITY = 9;
+Sensor.TYPE_LINEAR_ACCELERATION = 10;
+Sensor.TYPE_LIGHT = 5;
+Sensor.TYPE_GAME_ROTATION_VECTOR = 15;
+Sensor.TYPE_MOTION_DETECT = 30;
+Sensor.TYPE_PRESSURE = 6;
+Sensor.TYPE_ROTATION_VECTOR = 11;
+Sensor.TYPE_ALL = -1;
+
+class SensorEvent {
+	constructor(sensorEvent) {
+		this.values = sensorEvent.values;
+		this.type = sensorEvent.type;
+		this.sensor = sensorEvent.sensor;
+	}
+
+	getType() {
+		return this.type;
+	}
+}
+
+/** interface in Java. You can treat it as a class and extend it in JS, or create a custom class with these methods. */
+class SensorEventListener {
+	onSensorChanged(/* SensorEvent */ sensorEvent) {}
+	onAccuracyChanged(/* Sensor */ sensor, /* int */ accuracy) {}
+}
+
+class SensorManager {
+	constructor() {
+		this.type = null;
+	}
+
+	getDefaultSensor(sensorType) {
+		return new Sensor(sensorType);
+	}
+
+	registerListener(listener, sensor /* accelerometer or magnometor, e.g. */, delayBetweenListens) {
+
+		var delayBetweenListens = delayBetweenListens || 0;
+		var self = this;
+		self.delayTime = Date.now();
+
+		if(sensor.getType() === Sensor.TYPE_ACCELEROMETER) {
+			window.addEventListener("deviceorientation", function(e) {
+
+				if(Date.now() - self.delayTime > delayBetweenListens) { // Apply listener periodically. Constantly would overload the system.
+
+					var sensorEvent = new SensorEvent({
+						type: Sensor.TYPE_ACCELEROMETER,
+
+						// Change values to radians to match Java standards
+						values: [Math.toRadians(e.alpha), Math.toRadians(e.beta), Math.toRadians(e.gamma)],
+						sensor: sensor
+					});
+
+					listener.onSensorChanged( sensorEvent );
+
+					self.delayTime = Date.now(); //  Reset the delay timer
+				}
+			}, false);
+		}
+	}
+}
+
+SensorManager.SENSOR_DELAY_GAME = 1;
+SensorManager.SENSOR_DELAY_FASTEST = 0;
+SensorManager.SENSOR_DELAY_NORMAL = 3;
+SensorManager.SENSOR_DELAY_UI = 2;
+
+/**
+ * Sets orientation values to a given matrix.
+ * @param {array} rotationMatrix - An array of length 9.
+ */
+SensorManager.getOrientation = function(rotationMatrix, orientation) {
+	var result = Array(3);
+
+	// Update: need to use 3 x 3 rotationMatrix to get orientation values.
+	orientation = result;
+
+	console.log("Attempting to set values with SensorManager.getOrientation. " +
+		"You may need to set these values directly in another line of code.");
+};
+
+/**
+ * Gets a rotation matrix based on sensor details.
+ * @param {array} rotationMatrix - An array of length 9.
+ * @param I
+ * @param acceleratorOutput
+ * @param magnometerOutput
+ */
+SensorManager.getRotationMatrix = function(rotationMatrix, I, acceleratorOutput, magnometerOutput) {
+	var success = false;
+
+	// Update: need to use Output info to set rotationMatrix.
+	rotationMatrix = new Array(9);
+
+	console.log("Attempting to set values with SensorManager.getRotationMatrix. " +
+		"You may need to set these values directly in another line of code.");
+
+	success = true;
+	return success;
+};
+
+class Region {
+	constructor() {
+		switch(arguments.length) {
+			case 0:
+				this.left = 0;
+				this.top = 0;
+				this.right = 0;
+				this.bottom = 0;
+				break;
+			case 1: // Rect or Region
+				this.left = arguments[0].left;
+				this.top = arguments[0].top;
+				this.right = arguments[0].right;
+				this.bottom = arguments[0].bottom;
+				break;
+			case 4: // left, top, right, bottom
+				this.left = arguments[0];
+				this.top = arguments[1];
+				this.right = arguments[2];
+				this.bottom = arguments[3];
+				break;
+		}
+	}
+}
+
+Region.Op = {
+	DIFFERENCE: "DIFFERENCE",
+	INTERSECT: "INTERSECT",
+	REPLACE: "REPLACE",
+	REVERSE_DIFFERECE: "REVERSE_DIFFERECE",
+	UNION: "UNION",
+	XOR: "XOR"
+};
+
+class Path {
+	constructor(pathOrSVG) {
+		if(typeof pathOrSVG === "undefined") {
+			this.path = new Path2D();
+		} else {
+			this.path = new Path2D(pathOrSVG);
+		}
+	}
+
+	addArc(left, top, right, bottom, startAngle, sweepAngle) {
+		let privateRectF = new RectF(left, top, right, bottom);
+		let radiusX = privateRectF.width() / 2;
+		let radiusY = privateRectF.height() / 2;
+		let centerX = privateRectF.left + radiusX;
+		let centerY = privateRectF.top + radiusY;
+
+		this.path.arc(centerX, centerY, radiusX,
+			Math.toRadians(startAngle), Math.toRadians(sweepAngle),
+			direction === Path.Direction.CCW);
+	}
+
+	addCircle(ceterX, centerY, radius, direction) {
+		this.path.arc(centerX, centerY, radius, 0, Math.PI * 2,
+			direction === Path.Direction.CCW);
+	}
+
+	addOval(ovalRectF, direction) {
+		let radiusX = ovalRectF.width() / 2;
+		let radiusY = ovalRectF.height() / 2;
+		let centerX = ovalRectF.left + radiusX;
+		let centerY = ovalRectF.top + radiusY;
+		let rotation = 0;
+		let counterclockwise = true;
+
+		this.path.ellipse(centerX, centerY, radiusX, radiusY,
+			rotation, 0, 2 * Math.PI, direction === Path.Direction.CCW);
+	}
+
+	addPath(path, transformMatrix) {
+		if(typeof transformMatrix === "undefined") {
+			this.path.addPath(path);
+		} else {
+			this.path.addPath(path, transformMatrix);
+		}
+	}
+
+	addRect() {
+		let rectF;
+		let direction;
+
+		if(arguments.length === 2) {
+			rectF = arguments[0];
+			direction = arguments[1];
+		} else {
+			rectF = new RectF(
+				arguments[0],
+				arguments[1],
+				arguments[2],
+				arguments[3]
+			);
+
+			direction = arguments[4];
+		}
+
+		this.path.rect(rectF.left, rectF.top,
+			rectF.right - rectF.left, rectF.bottom - rectF.top);
+	}
+
+	arcTo() {
+		let privateRectF;
+
+		switch(arguments.length) {
+			case 3:
+			case 4:
+				privateRectF = arguments[0];
+				startAngle = arguments[1];
+				sweepAngle = arguments[2];
+
+				if(arguments.length === 4) {
+					forceMoveTo = arguments[3];
+				}
+				break;
+			case 7:
+				privateRectF = new RectF(arguments[0], arguments[1],
+					arguments[2], arguments[3]);
+				
+				startAngle = arguments[4];
+				sweepAngle = arguments[5];
+				forceMoveTo = arguments[6];
+				break;
+			default: {
+				throw new Error("Path.arcTo requires 3, 4, or 7 arguments");
+			}
+		}
+
+		let radiusX = privateRectF.width() / 2;
+		let radiusY = privateRectF.height() / 2;
+		let centerX = privateRectF.left + radiusX;
+		let centerY = privateRectF.top + radiusY;
+
+		this.path.arcTo(centerX, centerY, radiusX,
+			Math.toRadians(startAngle), Math.toRadians(sweepAngle),
+			direction === Path.Direction.CCW);
+	}
+
+	close() {
+		this.path.closePath();
+	}
+}
+
+Path.Direction = {
+	CCW: "CCW",
+	CW: "CW"
+};
+
+Path.FillType = {
+	EVEN_ODD: "EVEN_ODD",
+	INVERSE_EVEN_ODD: "INVERSE_EVEN_ODD",
+	INVERSE_WINDING: "INVERSE_WINDING",
+	WINDING: "WINDING"
+};
+
+/**
+ * Methods below are helpers to set up fullscreen and set
+ * orientation. These are not based on any Java methods.
+ */
+
+// Handle fullscreen and orientation setting processes
+let orientationLock = null;
+
+window.addEventListener("DOMContentLoaded", function() {
+	orientationLock = screen.lockOrientation || screen.mozLockOrientation || screen.msLockOrientation || null;
+
+	if(!orientationLock && screen.orientation) {
+		orientationLock = screen.orientation.lock || function() {/* noop */};
+	}
+});
+
+/**
+ * Binds fullscreen toggling to an HTML element.
+ * @param {Object} elm - The element for fullscreen toggling
+ */
+function setFullscreenElement(elm, orientationChoice, callback) {
+
+	if( Android2JSGameFullscreenTriggers.indexOf(elm) === -1) {
+		elm.addEventListener("click", function(e) {
+				e.preventDefault();
+				toggleFullscreen(orientationChoice, callback);
+		});
+
+		Android2JSGameFullscreenTriggers.push(elm);
+	}
+}
+
+/**
+ * Toggles fullscreen. Written for cross-browser support.
+ * From Mozilla Developer Network, slightly modified to account for orientation:
+ * https://developer.mozilla.org/en-US/docs/Web/API/Fullscreen_API
+ *
+ * @param {string} [orientationChoice] - The preferred orientation to present
+ *   the screen in; "portrait" or "landscape". Defaults to screen's current orientation.
+ * @param {function} [callback] - A function to be invoked after fullscreen
+ *   is toggled. It is invoked with a boolean argument set to "true" if
+ *   fullscreen was entered, false if it was exited.
+ */
+function toggleFullscreen(orientationChoice, callback) {
+	var callback = callback || function() {/* noop */};
+
+	if (!document.fullscreenElement && !document.mozFullScreenElement && !document.webkitFullscreenElement && !document.msFullscreenElement ) {
+		document.documentElement.style.overflow = "hidden";
+		enterFullscreen(orientationChoice);
+		callback(true);
+	} else {
+		exitFullscreen();
+		callback(false);
+	}
+}
+
+/**
+ * Sets webpage to fullscreen mode if available.
+ * @param {string} [orientationChoice] - The preferred orientation to present
+ *   the screen in; "portrait" or "landscape". Defaults to screen's current orientation.
+ */
+function enterFullscreen(orientationChoice) {
+	let elm = document.getElementById("wrapper") || document.documentElement;
+	if (elm.requestFullscreen) {
+		elm.requestFullscreen();
+	} else if (elm.msRequestFullscreen) {
+		elm.msRequestFullscreen();
+	} else if (elm.mozRequestFullScreen) {
+		elm.mozRequestFullScreen();
+	} else if (elm.webkitRequestFullscreen) {
+		elm.webkitRequestFullscreen(Element.ALLOW_KEYBOARD_INPUT);
+	}
+
+	elm.style.overflow = "hidden";
+
+	window.Android2JSGameStoredBodyMargin = window.getComputedStyle(document.body).getPropertyValue("margin");
+
+	document.body.style.margin = "0";
+
+	if(!window.Android2JSGameFSButton.classList.contains("shrinking-btn")) {
+		window.Android2JSGameFSButton.classList.add("shrinking-btn");
+	}
+
+	/**
+	 * Note: orientation lock performs a screen resize, so if we do it too
+	 * soon, then requestFullscreen overrides it.
+	 */
+	setTimeout(function() {
+		setPageOrientation(orientationChoice);
+
+		setTimeout(function() {
+			
+			// Activity has not been started, and was requested to wait
+			if(Android2JSGame.startOnEnterFullscreen &&
+				!Android2JSGameActivities.length) {
+
+				// Minimize the fullscreen button
+				window.Android2JSGameFSButton.width = "24";
+				window.Android2JSGameFSButton.height = "16";
+				window.Android2JSGameFSButton.style.width = "24px";
+				window.Android2JSGameFSButton.style.height = "16px";
+				window.Android2JSGameFSButton.style.top = "10px";
+				window.Android2JSGameFSButton.style.right = "10px";
+
+				// Start game activity processes
+				let mainActivity = new MainActivity();
+			}
+		}, 500); // Give a little time to change orientation
+	}, 500); // Give a little time to enter fullscreen
+}
+
+/** Exits fullscreen if document is in fullscreen mode. */
+function exitFullscreen() {
+	document.body.style.margin = window.Android2JSGameStoredBodyMargin;
+
+	if (document.exitFullscreen) {
+		document.exitFullscreen();
+	} else if (document.msExitFullscreen) {
+		document.msExitFullscreen();
+	} else if (document.mozCancelFullScreen) {
+		document.mozCancelFullScreen();
+	} else if (document.webkitExitFullscreen) {
+		document.webkitExitFullscreen();
+	}
+}
+
+/**
+ * Attempts to lock webpage into a given orientation.
+ * @param {string} orientationChoice - The preferred orientation; "portrait" or
+ *   "landscape"
+ */
+function setPageOrientation(orientationChoice) {
+	let canLock;
+
+	if((orientationChoice || "").indexOf("portrait") !== -1) {
+		window.Android2JSGamePreferredOrientation = "portrait";
+	}
+	else if((orientationChoice || "").indexOf("landscape") !== -1) {
+		window.Android2JSGamePreferredOrientation = "landscape";
+	}
+
+	if(typeof window.Android2JSGamePreferredOrientation === "undefined") {
+		orientationChoice = getCurrentPageOrientation();
+	} else {
+		orientationChoice = window.Android2JSGamePreferredOrientation;
+	}
+
+	/**
+	 * Remove the orientation instruction that doesn't suit this preference.
+	 *
+	 * Note: this library does not support switching orientations mid-game.
+	 */
+	if(orientationChoice === "portrait") {
+		if(window.Android2JSGameTurnPortraitToLS.parentNode) {
+			window.Android2JSGameTurnPortraitToLS.parentNode.removeChild(
+				window.Android2JSGameTurnPortraitToLS
+			);
+		}
+
+		window.Android2JSGameTurnLSToPortrait.classList.add("show");
+	} else { // "landscape"
+		if(window.Android2JSGameTurnLSToPortrait.parentNode) {
+			window.Android2JSGameTurnLSToPortrait.parentNode.removeChild(
+				window.Android2JSGameTurnLSToPortrait
+			);
+		}
+		
+		window.Android2JSGameTurnPortraitToLS.classList.add("show");
+	}
+
+	try {
+		if(window.screen.orientation) {
+			canLock = orientationLock.call(window.screen.orientation, orientationChoice);
+		} else {
+			canLock = orientationLock.call(window.screen, orientationChoice);
+		}
+
+		if(canLock) {
+			// Remove orientation instruction divs
+			if(window.Android2JSGameTurnPortraitToLS.parentNode) {
+				window.Android2JSGameTurnPortraitToLS.parentNode.removeChild(
+					window.Android2JSGameTurnPortraitToLS
+				);
+			}
+
+			if(window.Android2JSGameTurnLSToPortrait.parentNode) {
+				window.Android2JSGameTurnLSToPortrait.parentNode.removeChild(
+					window.Android2JSGameTurnLSToPortrait
+				);
+			}
+		}
+	} catch(e) {
+		console.log("Cannot lock orientation");
+	}
+}
+
+/**
+ * Find the orientation ("portrait" or "landscape") of the current page.
+ * @returns {string}
+ */
+function getCurrentPageOrientation() {
+	if(typeof window.matchMedia === "function") {
+		if(window.matchMedia("(orientation: landscape)").matches) {
+			return "landscape";
+		} else if(window.matchMedia("(orientation: portrait)").matches) {
+			return "portrait";
+		}
+	} else if(typeof window.orientation !=="undefined") {
+		switch(window.orientation) {
+			case 90:
+			case -90:
+				return "landscape";
+			default:
+				return "portrait";
+		}
+	} else {
+		if(document.documentElement.clientHeight < document.documentElement.clientWidth) {
+			return "landscape";
+		} else {
+			return "portrait";
+		}
+	}
+}
+
+// These aren't really different here - localStorage is available without restriction.
+// Also "readable" and "writeable" have now been deprecated
+const MODE_PRIVATE = "MODE_PRIVATE";
+const MODE_WORLD_READABLE = "MODE_WORLD_READABLE";
+const MODE_WORLD_WRITEABLE = "MODE_WORLD_WRITEABLE";
+
+class SharedPreferences {
+	constructor(savableObjectName, modeConstant) {
+		this.savableObjectName = savableObjectName;
+		this.modeConstant = modeConstant;
+
+		// Values live in memory; the writer saves the ones that change, a few at a time when the page is idle
+		this.writer = Android2JSGameGetPreferenceWriter();
+		this.savableObject = this.writer.read(savableObjectName);
+	}
+	
+	contains(key) {
+		return this.savableObject.hasOwnProperty(key);
+	}
+
+	// Saves this store's unsaved changes now. Android code only calls commit() on an Editor
+	commit() {
+		return this.writer.flush(this.savableObjectName);
+	}
+
+	apply() {
+		this.writer.schedule();
+	}
+
+	edit() {
+		return new SharedPreferences.Editor(this);
+	}
+
+	getAll() {
+		return Object.assign({}, this.savableObject);
+	}
+
+	getBoolean(key, defValue) {
+		return typeof this.savableObject[key] === "boolean" ? this.savableObject[key] : defValue;
+	}
+	
+	getFloat(key, defValue) {
+		return typeof this.savableObject[key] === "number" ? this.savableObject[key] : defValue;
+	}
+	
+	getInt(key, defValue) {
+		return typeof this.savableObject[key] === "number" ? this.savableObject[key] : defValue;
+	}
+	
+	getLong(key, defValue) {
+		return typeof this.savableObject[key] === "number" ? this.savableObject[key] : defValue;
+	}
+	
+	getString(key, defValue) {
+		return typeof this.savableObject[key] === "string" ? this.savableObject[key] : defValue;
+	}
+
+	getEditor() {
+		return this.edit();
+	}
+}
+
+/**
+ * As on Android, changes made through an Editor are only seen once commit() or apply() is called,
+ * and then all at once. Both update the SharedPreferences straight away. commit() also saves the
+ * changed keys before returning; apply() leaves them to be saved when the page is next idle.
+ */
+SharedPreferences.Editor = class {
+	constructor(sharedPreferences) {
+		this.sharedPreferences = sharedPreferences;
+		this.changes = new Map(); // Key -> new value, or undefined to remove it
+		this.clearing = false;
+	}
+
+	putBoolean(key, value) {
+		if(typeof value !== "boolean") {
+			throw new Error("Value to store is not of type boolean.");
+		}
+
+		return this.put(key, value);
+	}
+
+	putFloat(key, value) {
+		if(typeof value !== "number") {
+			throw new Error("Value to store is not of type float.");
+		}
+
+		return this.put(key, value);
+	}
+
+	putInt(key, value) {
+		if(typeof value !== "number" || !Number.isInteger(value)) {
+			throw new Error("Value to store is not of type int.");
+		}
+
+		return this.put(key, value);
+	}
+
+	putLong(key, value) {
+		if(typeof value !== "number" || !Number.isInteger(value) || !Number_is_Long(value)) {
+			throw new Error("Value to store is not of type long.");
+		}
+
+		return this.put(key, value);
+	}
+
+	putString(key, value) {
+		if(typeof value !== "string") {
+			throw new Error("Value to store is not of type String.");
+		}
+
+		return this.put(key, value);
+	}
+
+	put(key, value) {
+		this.changes.set(key, value);
+		return this;
+	}
+
+	remove(key) {
+		this.changes.set(key, undefined);
+		return this;
+	}
+
+	// As on Android, clear() happens first on commit, whatever order it was called in
+	clear() {
+		this.clearing = true;
+		return this;
+	}
+
+	commit() {
+		this.applyChanges();
+		return this.sharedPreferences.writer.flush(this.sharedPreferences.savableObjectName);
+	}
+
+	apply() {
+		this.applyChanges();
+		this.sharedPreferences.writer.schedule();
+	}
+
+	applyChanges() {
+		let name = this.sharedPreferences.savableObjectName;
+		let values = this.sharedPreferences.savableObject;
+		let writer = this.sharedPreferences.writer;
+
+		if(this.clearing) {
+			Object.keys(values).forEach(function(key) {
+				delete values[key];
+				writer.markDirty(name, key, undefined);
+			});
+		}
+
+		this.changes.forEach(function(value, key) {
+			if(value === undefined) {
+				delete values[key];
+			} else {
+				values[key] = value;
+			}
+
+			writer.markDirty(name, key, value);
+		});
+
+		this.changes.clear();
+		this.clearing = false;
+	}
+};
+
+/**
+ * Keeps every SharedPreferences store in memory, and saves only the keys that changed. Changes
+ * to the same key are merged until saved. Saving happens in idle time, a few keys per idle period,
+ * and within Android2JSGame.preferencesFlushDelay ms at most; everything left is saved when the page
+ * is hidden. Each key is saved on its own, in localStorage or (Android2JSGame.preferencesStorage)
+ * in IndexedDB, so a change never rewrites the whole store.
  */
-function enterFullscreen(orientationChoice) {
-	let elm = document.getElementById("wrapper") || document.documentElement;
-	if (elm.requestFullscreen) {
-		elm.requestFullscreen();
-	} else if (elm.msRequestFullscreen) {
-		elm.msRequestFullscreen();
-	} else if (elm.mozRequestFullScreen) {
-		elm.mozRequestFullScreen();
-	} else if (elm.webkitRequestFullscreen) {
-		elm.webkitRequestFullscreen(Element.ALLOW_KEYBOARD_INPUT);
+class Android2JSGamePreferenceWriter {
+	constructor(storage) {
+		let self = this;
+
+		this.storage = storage;
+		this.values = {}; // Store name -> its values
+		this.dirty = new Map(); // Store name + "\n" + key -> { name, key, value }, where an undefined value is removed
+		this.scheduled = false;
+		this.database = null;
+		this.ready = storage !== "indexedDB";
+		this.readyCallbacks = [];
+
+		if(!this.ready) {
+			this.openDatabase();
+		}
+
+		function flushAll() {
+			self.flush();
+		}
+
+		window.addEventListener("pagehide", flushAll, false);
+		window.addEventListener("visibilitychange", function() {
+			if(document.visibilityState === "hidden") {
+				flushAll();
+			}
+		}, false);
+	}
+
+	/** Calls `callback` once stored preferences can be read: straight away, unless they are still loading from IndexedDB. */
+	onReady(callback) {
+		if(this.ready) {
+			callback();
+		} else {
+			this.readyCallbacks.push(callback);
+		}
+	}
+
+	setReady() {
+		this.ready = true;
+
+		this.readyCallbacks.splice(0).forEach(function(callback) {
+			callback();
+		});
+	}
+
+	/** Returns the values of store `name`, which the SharedPreferences for it reads and writes directly. */
+	read(name) {
+		if(!this.values.hasOwnProperty(name)) {
+			this.values[name] = this.storage === "localStorage" ? this.readLocalStorage(name) : {};
+		}
+
+		return this.values[name];
+	}
+
+	readLocalStorage(name) {
+		let values = {};
+		let prefix = Android2JSGamePreferenceWriter.keyPrefix(name);
+
+		try {
+			for(let i = 0; i < localStorage.length; i++) {
+				let storageKey = localStorage.key(i);
+
+				if(storageKey.indexOf(prefix) === 0) {
+					values[ storageKey.substring(prefix.length) ] = JSON.parse( localStorage.getItem(storageKey) );
+				}
+			}
+
+			// Stores saved whole by earlier versions are split into keys once, then removed
+			let legacy = localStorage.getItem(name);
+
+			if(legacy !== null) {
+				let legacyValues = JSON.parse(legacy);
+
+				Object.keys(legacyValues).forEach(function(key) {
+					if(!values.hasOwnProperty(key)) {
+						values[key] = legacyValues[key];
+						localStorage.setItem(prefix + key, JSON.stringify(legacyValues[key]));
+					}
+				});
+
+				localStorage.removeItem(name);
+			}
+		} catch(e) {
+			console.error("Cannot retrieve saved SharedPreferences due to security restrictions on localStorage.");
+		}
+
+		return values;
+	}
+
+	// Loads every store up front, since SharedPreferences reads can't wait
+	openDatabase() {
+		let self = this;
+		let request = null;
+
+		function fallBack(e) {
+			console.error("Cannot use IndexedDB for SharedPreferences, using localStorage instead. " + (e || ""));
+			self.storage = "localStorage";
+			self.database = null;
+			self.values = {};
+			self.setReady();
+		}
+
+		try {
+			request = indexedDB.open("Android2JSGame_" + document.title.replace(/\s/g, "__"), 1);
+		} catch(e) {
+			fallBack(e);
+			return;
+		}
+
+		request.onupgradeneeded = function() {
+			request.result.createObjectStore("preferences"); // Keyed by [store name, key]
+		};
+
+		request.onerror = function() {
+			fallBack(request.error);
+		};
+
+		request.onsuccess = function() {
+			self.database = request.result;
+
+			let cursorRequest = self.database.transaction("preferences", "readonly").objectStore("preferences").openCursor();
+
+			cursorRequest.onsuccess = function() {
+				let cursor = cursorRequest.result;
+
+				if(cursor === null) {
+					self.setReady();
+					return;
+				}
+
+				let name = cursor.key[0];
+
+				if(!self.values.hasOwnProperty(name)) {
+					self.values[name] = {};
+				}
+
+				self.values[name][ cursor.key[1] ] = cursor.value;
+				cursor.continue();
+			};
+
+			cursorRequest.onerror = function() {
+				fallBack(cursorRequest.error);
+			};
+		};
+	}
+
+	markDirty(name, key, value) {
+		this.dirty.set(name + "\n" + key, { name: name, key: key, value: value });
+	}
+
+	/** Saves the changes in idle time, soon. */
+	schedule() {
+		if(this.scheduled || this.dirty.size === 0) {
+			return;
+		}
+
+		let self = this;
+		this.scheduled = true;
+
+		if(typeof window.requestIdleCallback === "function") {
+			window.requestIdleCallback(function(deadline) {
+				self.scheduled = false;
+				self.flushSome(deadline);
+			}, { timeout: Android2JSGame.preferencesFlushDelay });
+		} else {
+			setTimeout(function() {
+				self.scheduled = false;
+				self.flushSome(null);
+			}, Android2JSGame.preferencesFlushDelay);
+		}
+	}
+
+	/**
+	 * Saves changes until the idle period is nearly over, and schedules the rest. Once
+	 * preferencesFlushDelay has run out (`deadline` is null, or timed out) every change is overdue,
+	 * so all of them are saved; saving one per callback would take that delay per key on a busy page.
+	 */
+	flushSome(deadline) {
+		let overdue = deadline === null || deadline.didTimeout;
+		let entries = [];
+
+		for(let [dirtyKey, entry] of this.dirty) {
+			if(!overdue && entries.length > 0 && deadline.timeRemaining() < 1) {
+				break;
+			}
+
+			entries.push(entry);
+			this.dirty.delete(dirtyKey);
+		}
+
+		this.write(entries);
+		this.schedule();
+	}
+
+	/**
+	 * Saves the changes to store `name` (or to every store) now.
+	 * @returns {boolean} False if localStorage refused the write. IndexedDB writes finish after this returns.
+	 */
+	flush(name) {
+		let entries = [];
+		let self = this;
+
+		this.dirty.forEach(function(entry, dirtyKey) {
+			if(name === undefined || entry.name === name) {
+				entries.push(entry);
+				self.dirty.delete(dirtyKey);
+			}
+		});
+
+		return this.write(entries);
+	}
+
+	write(entries) {
+		if(entries.length === 0) {
+			return true;
+		}
+
+		if(this.storage === "indexedDB" && this.database !== null) {
+			let store = this.database.transaction("preferences", "readwrite").objectStore("preferences");
+
+			entries.forEach(function(entry) {
+				if(entry.value === undefined) {
+					store.delete([entry.name, entry.key]);
+				} else {
+					store.put(entry.value, [entry.name, entry.key]);
+				}
+			});
+
+			return true;
+		}
+
+		try {
+			entries.forEach(function(entry) {
+				let storageKey = Android2JSGamePreferenceWriter.keyPrefix(entry.name) + entry.key;
+
+				if(entry.value === undefined) {
+					localStorage.removeItem(storageKey);
+				} else {
+					localStorage.setItem(storageKey, JSON.stringify(entry.value));
+				}
+			});
+		} catch(e) {
+			console.error("Cannot save SharedPreferences due to security restrictions on localStorage.", e);
+			return false;
+		}
+
+		return true;
+	}
+}
+
+// Where each key of store `name` is kept in localStorage. The name is encoded, so it can't contain the "/" that ends it
+Android2JSGamePreferenceWriter.keyPrefix = function(name) {
+	return "Android2JSGamePrefs/" + encodeURIComponent(name) + "/";
+};
+
+/** Returns the writer every SharedPreferences shares, created on first use. */
+function Android2JSGameGetPreferenceWriter() {
+	if(window.Android2JSGamePreferenceWriter === null) {
+		window.Android2JSGamePreferenceWriter = new Android2JSGamePreferenceWriter(Android2JSGame.preferencesStorage);
+	}
+
+	return window.Android2JSGamePreferenceWriter;
+}
+
+class VibrationEffect {}
+
+// The "effect" is inconsequential in JS
+VibrationEffect.createOneShot = function(duration, effect) {
+	return duration;
+};
+
+VibrationEffect.DEFAULT_AMPLITUDE = "DEFAULT_AMPLITUDE";
+
+// Not what you think it is...
+class Vibrator {
+
+	constructor() {}
+
+	hasVibrator() {
+		return window.hasVibrator;
+	}
+
+	vibrate(durationOrPattern) {
+		if(typeof durationOrPattern) {
+			window.navigator.vibrate( durationOrPattern );
+		}
+	}
+
+	cancel() {
+		// This stops any currently running vibration
+		window.navigator.vibrate( 0 );
+	}
+}
+
+/**
+ * Primarily included for MediaPlayer.setDataSource
+ */
+class Uri {
+	constructor(uriString) {
+		this.string = uriString;
+	}
+}
+
+Uri.parse = function(uriString) {
+	return new Uri(uriString.replace(/.+\/res\/raw\/.+/));
+};
+
+/**
+ * MediaPlayer is used for instance to play background music.
+ * Note: for small files, like sound effect, SoundPool is preferred.
+ */
+class MediaPlayer {
+	constructor() {
+
+		this.audioStreamType;
+		this.media = new Audio(); // @todo Allow video... The element streams, so long tracks play before they have fully loaded
+		this.media.preload = "auto";
+		this.src = "";
+
+		this.looping = false;
+		this.active = false; // Used internally for A2JS
+
+		this.onPrepared = function() {/* noop */};
+		this.onError = function() {/* noop */};
+	}
+
+	/** This method needs to be inside a try/catch clause. */
+	prepare() {
+		try {
+			this.media.src = this.src;
+			this.media.load();
+			this.onPrepared();
+		} catch(e) {
+			console.error("Could not load media from src " + this.src);
+		}
+	}
+
+	prepareAsync() {
+		let mediaPlayer = this;
+		this.media.onloadeddata = function() {
+			mediaPlayer.onPrepared();
+		};
+
+		this.media.src = this.src;
+		this.media.load();
+	}
+
+	start() {
+		let self = this;
+		let playing = null;
+
+		this.active = true;
+
+		try {
+			playing = this.media.play();
+		} catch(e) {
+			this.onError();
+			return;
+		}
+
+		// Browsers block playback until the user interacts with the page, so try again once they have
+		if(playing && typeof playing.catch === "function") {
+			playing.catch(function(e) {
+				if(e.name !== "NotAllowedError") {
+					self.onError();
+					return;
+				}
+
+				Android2JSGameOnNextGesture(function() {
+					if(self.active && self.media !== null) {
+						self.media.play();
+					}
+				});
+			});
+		}
 	}
 
-	elm.style.overflow = "hidden";
+	pause() {
+		this.media.pause();
+		this.active = false;
+	}
 
-	window.Android2JSGameStoredBodyMargin = window.getComputedStyle(document.body).getPropertyValue("margin");
+	stop() {
+		this.media.pause();
+		this.active = false;
+		this.media.currentTime = 0;
+	}
 
-	document.body.style.margin = "0";
+	setLooping(looping) {
+		this.looping = looping;
+		this.media.loop = looping;
+	}
 
-	if(!window.Android2JSGameFSButton.classList.contains("shrinking-btn")) {
-		window.Android2JSGameFSButton.classList.add("shrinking-btn");
+	seekTo(msec, mode) {
+		this.media.currentTime = msec;
+	}
+
+	reset() {
+		this.active = false;
+		this.media = null;
+	}
+
+	release() {
+		this.media.pause();
+		this.active = false;
+
+		// Without a source, the browser can let go of the buffered stream
+		this.media.removeAttribute("src");
+		this.media.load();
+		this.media = null;
 	}
 
 	/**
-	 * Note: orientation lock performs a screen resize, so if we do it too
-	 * soon, then requestFullscreen overrides it.
+	 * Upon the writing of this library, HTML5 Audio does not support left/right
+	 * volume difference, so we set both to the mean average of the two.
 	 */
-	setTimeout(function() {
-		setPageOrientation(orientationChoice);
+	setVolume(leftVolume, rightVolume) {
+		this.media.volume = (leftVolume + rightVolume) / 2;
+	}
 
-		setTimeout(function() {
-			
-			// Activity has not been started, and was requested to wait
-			if(Android2JSGame.startOnEnterFullscreen &&
-				!Android2JSGameActivities.length) {
+	// For games, type should generally be AudioManager.STREAM_MUSIC
+	setAudioStreamType(type) {
+		this.audioStreamType = type;
+	}
 
-				// Minimize the fullscreen button
-				window.Android2JSGameFSButton.width = "24";
-				window.Android2JSGameFSButton.height = "16";
-				window.Android2JSGameFSButton.style.width = "24px";
-				window.Android2JSGameFSButton.style.height = "16px";
-				window.Android2JSGameFSButton.style.top = "10px";
-				window.Android2JSGameFSButton.style.right = "10px";
+	/**
+	 * This sets the path where the media will be pulled from.
+	 * We save the actual load/assignment for the prepare() method
+	 * or prepareAsync().
+	 */
+	setDataSource(contextOrUrl, uri) {
+		if(arguments.length === 2) {
+			this.src = uri.string;
+		} else {
+			this.src = contextOrUrl;
+		}
+	}
 
-				// Start game activity processes
-				let mainActivity = new MainActivity();
-			}
-		}, 500); // Give a little time to change orientation
-	}, 500); // Give a little time to enter fullscreen
+	setOnPreparedListener(listener) {
+		this.onPrepared = listener.onPrepared;
+	}
+
+	setOnErrorListener(listener) {
+		this.onError = listener.onError;
+	}
+
+	setWakeMode() {}
+
+	setOnCompletionListener(onCompletionListener) {
+		let self = this;
+		this.media.onended = function() {
+			onCompletionListener.onCompletion(self);
+		};
+	}
+}
+
+/**
+ * For this library we only support the MediaPlayer.create method with
+ * arguments as Context and resource ID. Attempting to overcome
+ * XSS errors by streaming resources from different URLs is outside
+ * the scope of what this framework is meant for.
+ *
+ * Example:
+ *
+ * mediaPlayer = MediaPlayer.create(Constants.CURRENT_CONTEXT, "my_song");
+ * mediaPlayer.start();
+ *
+ */
+MediaPlayer.create = function(context, resourceId) {
+
+	// Currently only support audio (.wav), not video
+	let mediaPlayer = new MediaPlayer();
+	mediaPlayer.src = "audio/" + resourceId + ".wav";
+
+	// Raw resources are preloaded into an <audio> element; playing that one saves downloading the file twice
+	let preloaded = Android2JSGameClaimMedia(resourceId);
+
+	if(preloaded === null) {
+		mediaPlayer.prepare();
+	} else {
+		mediaPlayer.media = preloaded;
+
+		if(preloaded.hasAttribute("src")) {
+			mediaPlayer.onPrepared(); // Already streaming
+		} else {
+			mediaPlayer.prepare(); // Not reached by the preloader yet, or it gave up on it
+		}
+	}
+
+	return mediaPlayer;
+};
+
+/**
+ * Hands the <audio> element the preloader uses for raw resource `name` to a MediaPlayer, creating it
+ * if the preloader has not got to it yet. Each element is handed out once, since a MediaPlayer's
+ * release() empties it. Returns null for anything else, and for an element already handed out.
+ */
+function Android2JSGameClaimMedia(name) {
+	let i = window.Android2JSGameMediaSources.indexOf(name);
+
+	if(i === -1) {
+		return null;
+	}
+
+	let media = window.Android2JSGameMediaFiles[i] || (window.Android2JSGameMediaFiles[i] = Android2JSGameCreateMedia());
+
+	if(window.Android2JSGameClaimedMedia.has(media)) {
+		return null;
+	}
+
+	window.Android2JSGameClaimedMedia.add(media);
+	return media;
+}
+
+function Android2JSGameCreateMedia() {
+	let media = new Audio();
+	media.preload = "auto";
+
+	return media;
+}
+
+// MediaPlayer that is ready for playback
+MediaPlayer.onPreparedListener = function(mediaPlayer) {};
+MediaPlayer.onPreparedListener.prototype.onPrepared = function() {};
+
+/** Mobile browsers generally know not to sleep during playback. */
+MediaPlayer.setScreenOnWhilePlaying = function() {};
+MediaPlayer.setWakeMode = function() {};
+
+class AudioManager {}
+AudioManager.STREAM_MUSIC = "STREAM_MUSIC";
+
+class AudioAttributes {
+	constructor() {}
 }
 
-/** Exits fullscreen if document is in fullscreen mode. */
-function exitFullscreen() {
-	document.body.style.margin = window.Android2JSGameStoredBodyMargin;
+AudioAttributes.CONTENT_TYPE_MOVIE = 3;
+AudioAttributes.CONTENT_TYPE_MUSIC = 2;
+AudioAttributes.CONTENT_TYPE_SPEECH = 1;
+AudioAttributes.CONTENT_TYPE_UNKNOWN = 0;
+
+AudioAttributes.USAGE_UNKNOWN = 0;
+AudioAttributes.USAGE_GAME = 14;
+AudioAttributes.USAGE_MEDIA = 1;
+
+AudioAttributes.Builder = class {
+	constructor(builder) { // builder is an AudioAttributes instance or nothing
+		if(builder instanceof AudioAttributes) {
+			this.usage = builder.usage;
+			this.contentType = contentType;
+		} else { // Use the defaults
+			this.usage = AudioAttributes.USAGE_UNKNOWN;
+			this.contentType = AudioAttributes.CONTENT_TYPE_UNKNOWN;
+		}
+	}
+
+	setUsage(usage) {
+		this.usage = usage;
+		return this;
+	}
+
+	setContentType(contentType) {
+		this.contentType = contentType;
+		return this;
+	}
+
+	build() {
+		let audioAttributes = new AudioAttributes();
+		audioAttributes.usage = this.usage;
+		audioAttributes.contentType = this.contentType;
+
+		return audioAttributes;
+	}
+};
+
+class SoundPool {
+
+	// srcQuality is generally 0
+	constructor(constructorKey, maxStreams, streamType, srcQuality) {
+		if(constructorKey !== SOUND_POOL_CONSTRUCTOR_KEY) {
+			console.error("Newer versions of Android do not support the " + "SoundPool constructor. Use SoundPool.Builder instead.");
+		}
+
+		this.engine = Android2JSGameGetAudioEngine();
+		this.sounds = []; // Sound URLs. A sound's ID is its index + 1, as Android's are never 0
+
+		this.maxStreams = maxStreams; // max # of these clips allowed to play at once
+
+		this.onLoadCompleteListener = {
+			onLoadComplete: function(soundPool, sampleId, status) {/* noop */}
+		};
+	}
+
+	/**
+	 * Decodes the clip into a buffer shared with every other SoundPool that loads it.
+	 * onLoadComplete gets status 0 once it can be played, or 1 if it could not be loaded.
+	 * @returns {number} The sound ID, to pass to play().
+	 */
+	load(context, clip, priority) {
+		let self = this;
+		let soundId = this.sounds.push("audio/" + clip + ".wav");
+
+		if(this.engine === null) {
+			this.onLoadCompleteListener.onLoadComplete(self, soundId, 1);
+			return soundId;
+		}
+
+		this.engine.loadBuffer(this.sounds[soundId - 1]).then(function() {
+			self.onLoadCompleteListener.onLoadComplete(self, soundId, 0);
+		}, function() {
+			self.onLoadCompleteListener.onLoadComplete(self, soundId, 1);
+		});
+
+		return soundId;
+	}
+
+	/**
+	 * Plays a loaded sound on a free voice, or takes over the lowest priority voice (this pool's
+	 * own, once it has maxStreams playing). A sound whose buffer was dropped to stay within
+	 * Android2JSGame.audioBufferMaxBytes is decoded again, and this play is skipped.
+	 * @param {number} loop - 0 plays once, -1 loops forever, and n plays n more times.
+	 * @param {number} rate - Playback rate, from 0.5 to 2.0.
+	 * @returns {number} The stream ID, or 0 if nothing was played.
+	 */
+	play(soundId, leftVolume, rightVolume, priority, loop, rate) {
+		let url = this.sounds[soundId - 1];
+
+		if(this.engine === null || !url) {
+			return 0;
+		}
+
+		let buffer = this.engine.getBuffer(url);
+
+		if(buffer === null) {
+			this.engine.loadBuffer(url).catch(function() {});
+			return 0;
+		}
+
+		let voice = this.engine.obtainVoice(this, priority, this.maxStreams);
+
+		if(voice === null) {
+			return 0;
+		}
+
+		return voice.play(this, buffer, leftVolume, rightVolume, priority, loop, rate);
+	}
+
+	pause(streamId) {
+		this.withVoice(streamId, function(voice) {
+			voice.pause();
+		});
+	}
+
+	resume(streamId) {
+		this.withVoice(streamId, function(voice) {
+			voice.resume();
+		});
+	}
+
+	stop(streamId) {
+		this.withVoice(streamId, function(voice) {
+			voice.stop();
+		});
+	}
+
+	setVolume(streamId, leftVolume, rightVolume) {
+		this.withVoice(streamId, function(voice) {
+			voice.setVolume(leftVolume, rightVolume);
+		});
+	}
+
+	setRate(streamId, rate) {
+		this.withVoice(streamId, function(voice) {
+			voice.setRate(rate);
+		});
+	}
+
+	setLoop(streamId, loop) {
+		this.withVoice(streamId, function(voice) {
+			voice.setLoop(loop);
+		});
+	}
+
+	setPriority(streamId, priority) {
+		this.withVoice(streamId, function(voice) {
+			voice.priority = priority;
+		});
+	}
 
-	if (document.exitFullscreen) {
-		document.exitFullscreen();
-	} else if (document.msExitFullscreen) {
-		document.msExitFullscreen();
-	} else if (document.mozCancelFullScreen) {
-		document.mozCancelFullScreen();
-	} else if (document.webkitExitFullscreen) {
-		document.webkitExitFullscreen();
+	autoPause() {
+		this.forEachVoice(function(voice) {
+			voice.pause();
+		});
 	}
-}
 
-/**
- * Attempts to lock webpage into a given orientation.
- * @param {string} orientationChoice - The preferred orientation; "portrait" or
- *   "landscape"
- */
-function setPageOrientation(orientationChoice) {
-	let canLock;
+	autoResume() {
+		this.forEachVoice(function(voice) {
+			voice.resume();
+		});
+	}
 
-	if((orientationChoice || "").indexOf("portrait") !== -1) {
-		window.Android2JSGamePreferredOrientation = "portrait";
+	// Forgets the sound. Its buffer stays cached for other SoundPools until it is the least recently used
+	unload(soundId) {
+		let found = !!this.sounds[soundId - 1];
+		this.sounds[soundId - 1] = null;
+
+		return found;
 	}
-	else if((orientationChoice || "").indexOf("landscape") !== -1) {
-		window.Android2JSGamePreferredOrientation = "landscape";
+
+	release() {
+		this.forEachVoice(function(voice) {
+			voice.stop();
+		});
+
+		this.sounds = [];
 	}
 
-	if(typeof window.Android2JSGamePreferredOrientation === "undefined") {
-		orientationChoice = getCurrentPageOrientation();
-	} else {
-		orientationChoice = window.Android2JSGamePreferredOrientation;
+	setOnLoadCompleteListener(onLoadCompleteListener) {
+		this.onLoadCompleteListener = onLoadCompleteListener;
 	}
 
-	/**
-	 * Remove the orientation instruction that doesn't suit this preference.
-	 *
-	 * Note: this library does not support switching orientations mid-game.
-	 */
-	if(orientationChoice === "portrait") {
-		if(window.Android2JSGameTurnPortraitToLS.parentNode) {
-			window.Android2JSGameTurnPortraitToLS.parentNode.removeChild(
-				window.Android2JSGameTurnPortraitToLS
-			);
+	// Calls `action` with this pool's voice playing `streamId`, if it is still playing
+	withVoice(streamId, action) {
+		if(this.engine === null) {
+			return;
 		}
 
-		window.Android2JSGameTurnLSToPortrait.classList.add("show");
-	} else { // "landscape"
-		if(window.Android2JSGameTurnLSToPortrait.parentNode) {
-			window.Android2JSGameTurnLSToPortrait.parentNode.removeChild(
-				window.Android2JSGameTurnLSToPortrait
-			);
+		let voice = this.engine.findVoice(streamId);
+
+		if(voice !== null && voice.owner === this) {
+			action(voice);
 		}
-		
-		window.Android2JSGameTurnPortraitToLS.classList.add("show");
 	}
 
-	try {
-		if(window.screen.orientation) {
-			canLock = orientationLock.call(window.screen.orientation, orientationChoice);
-		} else {
-			canLock = orientationLock.call(window.screen, orientationChoice);
+	forEachVoice(action) {
+		if(this.engine === null) {
+			return;
 		}
 
-		if(canLock) {
-			// Remove orientation instruction divs
-			if(window.Android2JSGameTurnPortraitToLS.parentNode) {
-				window.Android2JSGameTurnPortraitToLS.parentNode.removeChild(
-					window.Android2JSGameTurnPortraitToLS
-				);
-			}
+		let self = this;
 
-			if(window.Android2JSGameTurnLSToPortrait.parentNode) {
-				window.Android2JSGameTurnLSToPortrait.parentNode.removeChild(
-					window.Android2JSGameTurnLSToPortrait
-				);
+		this.engine.voices.forEach(function(voice) {
+			if(voice.owner === self) {
+				action(voice);
 			}
-		}
-	} catch(e) {
-		console.log("Cannot lock orientation");
+		});
 	}
 }
 
-/**
- * Find the orientation ("portrait" or "landscape") of the current page.
- * @returns {string}
- */
-function getCurrentPageOrientation() {
-	if(typeof window.matchMedia === "function") {
-		if(window.matchMedia("(orientation: landscape)").matches) {
-			return "landscape";
-		} else if(window.matchMedia("(orientation: portrait)").matches) {
-			return "portrait";
-		}
-	} else if(typeof window.orientation !=="undefined") {
-		switch(window.orientation) {
-			case 90:
-			case -90:
-				return "landscape";
-			default:
-				return "portrait";
-		}
-	} else {
-		if(document.documentElement.clientHeight < document.documentElement.clientWidth) {
-			return "landscape";
-		} else {
-			return "portrait";
-		}
+SoundPool.Builder = class {
+	constructor() {
+		this.audioAttributes = {};
+		this.maxStreams = 1;
+		this.streamType = AudioManager.STREAM_MUSIC;
+		this.srcQuality = 0;
 	}
-}
 
-// These aren't really different here - localStorage is available without restriction.
-// Also "readable" and "writeable" have now been deprecated
-const MODE_PRIVATE = "MODE_PRIVATE";
-const MODE_WORLD_READABLE = "MODE_WORLD_READABLE";
-const MODE_WORLD_WRITEABLE = "MODE_WORLD_WRITEABLE";
+	build() {
+		let soundPool = new SoundPool(SOUND_POOL_CONSTRUCTOR_KEY, this.maxStreams, this.streamType, this.srcQuality);
+		return soundPool;
+	}
 
-class SharedPreferences {
-	constructor(savableObjectName, modeConstant) {
-		this.savableObjectName = savableObjectName;
-		this.modeConstant = modeConstant;
+	setAudioAttributes(audioAttributes) {
+		this.audioAttributes = audioAttributes;
+		return this;
+	}
+
+	setMaxStreams(maxStreams) {
+		this.maxStreams = maxStreams;
+		return this;
+	}
+};
 
-		this.editor = SharedPreferences.Editor;
+/**
+ * Plays SoundPool sounds through Web Audio. Each sound file is decoded once into an AudioBuffer,
+ * shared by every SoundPool, and the buffers kept are bounded by Android2JSGame.audioBufferMaxBytes.
+ * Sounds play on a fixed set of Android2JSGame.maxAudioVoices voices, all mixed into one output.
+ */
+class Android2JSGameAudioEngine {
+	constructor(maxVoices, maxBufferBytes) {
+		let AudioContextClass = window.AudioContext || window.webkitAudioContext;
 
-		// Pull in stored object as a JSON string
-		let loadedObject = null;
-		
-		try {
-			loadedObject = localStorage.getItem(savableObjectName);
-		} catch(e) {
-			console.error("Cannot retrieve saved SharedPreferences due to security restrictions on localStorage.");
-			loadedObject = null;
+		this.context = new AudioContextClass();
+		this.output = this.context.createGain();
+		this.output.connect(this.context.destination);
+
+		this.voices = [];
+		this.nextStreamId = 1;
+
+		for(let i = 0; i < maxVoices; i++) {
+			this.voices.push( new Android2JSGameAudioVoice(this) );
 		}
 
-		// Parse the stored JSON string if found
-		if(loadedObject !== null && loadedObject !== undefined) {
-			this.savableObject = JSON.parse(loadedObject);
-		} else {
-			this.savableObject = {};
+		// An evicted buffer is still heard to the end by any voice playing it, but is decoded again for the next play()
+		this.buffers = new LruCache(maxBufferBytes);
+		this.buffers.sizeOf = function(url, buffer) {
+			return buffer.length * buffer.numberOfChannels * 4; // 32-bit float samples
+		};
+
+		this.loading = new Map(); // URL -> Promise of its AudioBuffer
+
+		// Browsers keep audio suspended until the user interacts with the page
+		if(this.context.state === "suspended") {
+			let context = this.context;
+
+			Android2JSGameOnNextGesture(function() {
+				context.resume();
+			});
 		}
 	}
-	
-	contains(key) {
-		return this.savableObject.hasOwnProperty(key);
+
+	/** Returns the decoded sound at `url`, or null if it isn't loaded (or was dropped from the cache). */
+	getBuffer(url) {
+		return this.buffers.get(url);
 	}
-	
-	commit() {
-		let objectToSave = JSON.stringify( this.savableObject );
-		let successfulSave = false;
 
-		try {
-			localStorage.setItem(this.savableObjectName , objectToSave);
-			successfulSave = true;
-		} catch(e) {
-			console.error(e);
-			successfulSave = false;
-		}
+	/** Resolves to the decoded sound at `url`, fetching and decoding it only if it isn't cached or loading already. */
+	loadBuffer(url) {
+		let self = this;
+		let buffer = this.buffers.get(url);
 
-		return successfulSave;
-	}
+		if(buffer !== null) {
+			return Promise.resolve(buffer);
+		}
 
-	apply() {
-		requestAnimationFrame(function() {
-			let objectToSave = JSON.stringify( this.savableObject );
+		if(this.loading.has(url)) {
+			return this.loading.get(url);
+		}
 
-			try {
-				localStorage.setItem(this.savableObjectName , objectToSave);
-			} catch(e) {
-				console.error("Cannot perform apply() on SharedPreferences due to security restrictions on localStorage.");
+		let loading = fetch(url).then(function(response) {
+			if(!response.ok) {
+				throw new Error("HTTP " + response.status);
 			}
+
+			return response.arrayBuffer();
+		}).then(function(data) {
+
+			// The callback form also works in older Safari, which has no Promise form
+			return new Promise(function(resolve, reject) {
+				self.context.decodeAudioData(data, resolve, reject);
+			});
+		}).then(function(decoded) {
+			self.loading.delete(url);
+			self.buffers.put(url, decoded);
+
+			return decoded;
+		}, function(e) {
+			self.loading.delete(url);
+			console.error("Could not load sound " + url + ": " + (e && e.message));
+
+			throw e;
 		});
-	}
 
-	edit() {
-		return this.getEditor();
+		this.loading.set(url, loading);
+		return loading;
 	}
 
-	getBoolean(key, defValue) {
-		if(typeof this.savableObject[key] === "boolean") {
-			return this.savableObject[key];
-		} else {
-			return defaultValue;
+	/**
+	 * Returns a voice for `owner` to play on. Once `owner` has `maxOwnerVoices` busy voices, one of
+	 * those is taken over; otherwise a free voice, or failing that any busy one. The voice taken over
+	 * is the one with the lowest priority, and the oldest among those. Returns null if even that
+	 * voice's priority is higher than `priority`.
+	 */
+	obtainVoice(owner, priority, maxOwnerVoices) {
+		let ownerVoices = 0;
+		let freeVoice = null;
+
+		this.voices.forEach(function(voice) {
+			if(voice.owner === owner) {
+				ownerVoices++;
+			} else if(voice.owner === null && freeVoice === null) {
+				freeVoice = voice;
+			}
+		});
+
+		let ownerIsFull = maxOwnerVoices > 0 && ownerVoices >= maxOwnerVoices;
+
+		if(!ownerIsFull && freeVoice !== null) {
+			return freeVoice;
 		}
-	}
-	
-	getFloat(key, defValue) {
-		return parseFloat(this.savableObject[key], 10) || defaultValue;
-	}
-	
-	getInt(key, defValue) {
-		return parseInt(this.savableObject[key], 10) || defaultValue;
-	}
-	
-	getLong(key, defValue) {
-		return parseInt(this.savableObject[key], 10) || defaultValue;
-	}
-	
-	getString(key, defValue) {
-		if(typeof this.savableObject[key] === "undefined") {
-			return defaultValue;
-		} else {
-			return this.savableObject[key];
+
+		let victim = null;
+
+		this.voices.forEach(function(voice) {
+			if(voice.owner === null || (ownerIsFull && voice.owner !== owner)) {
+				return;
+			}
+
+			if(victim === null || voice.priority < victim.priority
+				|| (voice.priority === victim.priority && voice.startedAt < victim.startedAt)) {
+				victim = voice;
+			}
+		});
+
+		if(victim === null || victim.priority > priority) {
+			return null;
 		}
+
+		victim.stop();
+		return victim;
 	}
 
-	getEditor() {
-		return {
-			putBoolean: function(key, value) {
-				if(typeof value === "boolean") {
-					this.savableObject[key] = value;
-				} else {
-					throw new Error("Value to store is not of type boolean.");
-				}
-			},
-			putFloat: function(key, value) {
-				if(typeof value === "number" && value.toString().indexOf(".") !== -1) {
-					this.savableObject[key] = value;
-				} else {
-					throw new Error("Value to store is not of type float.");
-				}
-			},
-			putInt: function(key, value) {
-				if(typeof value === "number" && Number.isInteger(value)) {
-					this.savableObject[key] = value;
-				} else {
-					throw new Error("Value to store is not of type int.");
-				}
-			},
-			putLong: function(key, value) {
-				if(typeof value === "number" && Number.isInteger(value) && Number_is_Long(value)) {
-					this.savableObject[key] = value;
-				} else {
-					throw new Error("Value to store is not of type long.");
-				}	
-			},
-			putString: function(key, value) {
-				if(typeof value === "string") {
-					this.savableObject[key] = value;
-				} else {
-					throw new Error("Value to store is not of type String.");
-				}	
+	findVoice(streamId) {
+		for(let i = 0; i < this.voices.length; i++) {
+			if(streamId !== 0 && this.voices[i].streamId === streamId) {
+				return this.voices[i];
 			}
-		};
+		}
+
+		return null;
 	}
 }
 
-class VibrationEffect {}
+/**
+ * One voice of the audio engine: gain and stereo pan nodes that stay connected, and the
+ * AudioBufferSourceNode playing through them, which can only be started once, so a new
+ * one is made each time the voice starts or resumes.
+ */
+class Android2JSGameAudioVoice {
+	constructor(engine) {
+		let context = engine.context;
 
-// The "effect" is inconsequential in JS
-VibrationEffect.createOneShot = function(duration, effect) {
-	return duration;
-};
+		this.engine = engine;
+		this.gain = context.createGain();
+		this.panner = typeof context.createStereoPanner === "function" ? context.createStereoPanner() : null;
 
-VibrationEffect.DEFAULT_AMPLITUDE = "DEFAULT_AMPLITUDE";
+		if(this.panner !== null) {
+			this.gain.connect(this.panner);
+			this.panner.connect(engine.output);
+		} else {
+			this.gain.connect(engine.output);
+		}
 
-// Not what you think it is...
-class Vibrator {
+		this.source = null;
+		this.owner = null; // The SoundPool playing on this voice, or null while it is free
+		this.streamId = 0;
+		this.buffer = null;
+		this.priority = 0;
+		this.loop = 0;
+		this.rate = 1;
+		this.startedAt = 0; // When the current source started, in context time
+		this.position = 0; // How far into the sound the current source started, in seconds of buffer, counting each loop
+		this.paused = false;
+	}
 
-	constructor() {}
+	/** @returns {number} The new stream ID. */
+	play(owner, buffer, leftVolume, rightVolume, priority, loop, rate) {
+		this.owner = owner;
+		this.streamId = this.engine.nextStreamId++;
+		this.buffer = buffer;
+		this.priority = priority;
+		this.loop = loop;
+		this.rate = Math.min(2, Math.max(0.5, rate || 1));
+		this.position = 0;
+		this.paused = false;
 
-	hasVibrator() {
-		return window.hasVibrator;
-	}
+		this.setVolume(leftVolume, rightVolume);
+		this.startSource();
 
-	vibrate(durationOrPattern) {
-		if(typeof durationOrPattern) {
-			window.navigator.vibrate( durationOrPattern );
-		}
+		return this.streamId;
 	}
 
-	cancel() {
-		// This stops any currently running vibration
-		window.navigator.vibrate( 0 );
+	startSource() {
+		let self = this;
+		let context = this.engine.context;
+		let source = context.createBufferSource();
+		let duration = this.buffer.duration;
+
+		source.buffer = this.buffer;
+		source.playbackRate.value = this.rate;
+		source.loop = this.loop !== 0;
+		source.connect(this.gain);
+
+		source.onended = function() {
+			if(self.source === source) {
+				self.free();
+			}
+		};
+
+		this.source = source;
+		this.startedAt = context.currentTime;
+		source.start(0, this.position % duration);
+		this.scheduleStop();
 	}
-}
 
-/**
- * Primarily included for MediaPlayer.setDataSource
- */
-class Uri {
-	constructor(uriString) {
-		this.string = uriString;
+	// To play n more times, the source loops, and stops once the last one has played. A later stop() replaces an earlier one
+	scheduleStop() {
+		if(this.loop > 0) {
+			let context = this.engine.context;
+			let played = this.position + (context.currentTime - this.startedAt) * this.rate;
+
+			this.source.stop(context.currentTime + Math.max(0, this.buffer.duration * (this.loop + 1) - played) / this.rate);
+		}
 	}
-}
 
-Uri.parse = function(uriString) {
-	return new Uri(uriString.replace(/.+\/res\/raw\/.+/));
-};
+	stopSource() {
+		if(this.source !== null) {
+			let source = this.source;
 
-/**
- * MediaPlayer is used for instance to play background music.
- * Note: for small files, like sound effect, SoundPool is preferred.
- */
-class MediaPlayer {
-	constructor() {
+			this.source = null;
+			source.onended = null;
+			source.stop();
+			source.disconnect();
+		}
+	}
 
-		this.audioStreamType;
-		this.media = new Audio(); // @todo Allow video...
-		this.src = "";
+	setVolume(leftVolume, rightVolume) {
+		let total = leftVolume + rightVolume;
 
-		this.looping = false;
-		this.active = false; // Used internally for A2JS
+		this.gain.gain.value = Math.max(leftVolume, rightVolume);
 
-		this.onPrepared = function() {/* noop */};
-		this.onError = function() {/* noop */};
+		if(this.panner !== null) {
+			this.panner.pan.value = total > 0 ? (rightVolume - leftVolume) / total : 0;
+		}
 	}
 
-	/** This method needs to be inside a try/catch clause. */
-	prepare() {
-		try {
-			this.media.src = this.src;
-			this.media.load();
-			this.onPrepared();
-		} catch(e) {
-			console.error("Could not load media from src " + this.src);
+	setRate(rate) {
+		this.rate = Math.min(2, Math.max(0.5, rate));
+
+		if(this.source !== null) {
+			this.position += (this.engine.context.currentTime - this.startedAt) * this.source.playbackRate.value;
+			this.startedAt = this.engine.context.currentTime;
+			this.source.playbackRate.value = this.rate;
+			this.scheduleStop();
 		}
 	}
 
-	prepareAsync() {
-		let mediaPlayer = this;
-		this.media.onloadeddata = function() {
-			mediaPlayer.onPrepared();
-		};
+	setLoop(loop) {
+		this.loop = loop;
 
-		this.media.src = this.src;
-		this.media.load();
+		if(this.source !== null) {
+			this.source.loop = loop !== 0;
+			this.scheduleStop();
+		}
 	}
 
-	start() {
-		try {
-			this.media.play();
-			this.active = true;
-		} catch(e) {
-			this.onError();
+	// Keeps the voice, so the stream can be resumed where it left off
+	pause() {
+		if(this.source === null || this.paused) {
+			return;
 		}
+
+		this.position += (this.engine.context.currentTime - this.startedAt) * this.rate;
+		this.stopSource();
+		this.paused = true;
 	}
 
-	pause() {
-		this.media.pause();
-		this.active = false;
+	resume() {
+		if(!this.paused) {
+			return;
+		}
+
+		this.paused = false;
+		this.startSource();
 	}
 
 	stop() {
-		this.media.pause();
-		this.active = false;
-		this.media.currentTime = 0;
+		this.stopSource();
+		this.free();
 	}
 
-	setLooping(looping) {
-		this.looping = looping;
-		this.media.loop = looping;
+	free() {
+		this.source = null;
+		this.owner = null;
+		this.streamId = 0;
+		this.buffer = null;
+		this.paused = false;
 	}
+}
 
-	seekTo(msec, mode) {
-		this.media.currentTime = msec;
+/**
+ * Returns the audio engine SoundPools share, created on first use, or null if the browser
+ * has no Web Audio.
+ */
+function Android2JSGameGetAudioEngine() {
+	if(window.Android2JSGameAudio === null) {
+		if(!window.AudioContext && !window.webkitAudioContext) {
+			console.error("SoundPool needs Web Audio, which this browser does not support.");
+			return null;
+		}
+
+		window.Android2JSGameAudio = new Android2JSGameAudioEngine(Android2JSGame.maxAudioVoices, Android2JSGame.audioBufferMaxBytes);
 	}
 
-	reset() {
-		this.active = false;
-		this.media = null;
+	return window.Android2JSGameAudio;
+}
+
+/** Calls `callback` on the user's next touch, click or key press, once browsers let audio start. */
+function Android2JSGameOnNextGesture(callback) {
+	let events = ["touchend", "mousedown", "keydown"];
+
+	function onGesture() {
+		events.forEach(function(type) {
+			window.removeEventListener(type, onGesture, true);
+		});
+
+		callback();
 	}
 
-	release() {
-		this.media.pause();
-		this.media = null;
+	events.forEach(function(type) {
+		window.addEventListener(type, onGesture, true);
+	});
+}
+
+/**
+ * A JS Map, which is already a hash table with O(1) get, put and remove, given the Java
+ * methods converted code calls. As in Java, size() is a method here, not Map's property.
+ */
+class HashMap extends Map {
+	constructor(iterable) {
+		super(iterable);
 	}
 
-	/**
-	 * Upon the writing of this library, HTML5 Audio does not support left/right
-	 * volume difference, so we set both to the mean average of the two.
-	 */
-	setVolume(leftVolume, rightVolume) {
-		this.media.volume = (leftVolume + rightVolume) / 2;
+	/** Returns the value `key` had, or null if it wasn't in the map. */
+	put(key, value) {
+		let previous = this.has(key) ? super.get(key) : null;
+		this.set(key, value);
+		return previous;
 	}
 
-	// For games, type should generally be AudioManager.STREAM_MUSIC
-	setAudioStreamType(type) {
-		this.audioStreamType = type;
+	putAll(map) {
+		let self = this;
+
+		map.forEach(function(value, key) {
+			self.set(key, value);
+		});
 	}
 
-	/**
-	 * This sets the path where the media will be pulled from.
-	 * We save the actual load/assignment for the prepare() method
-	 * or prepareAsync().
-	 */
-	setDataSource(contextOrUrl, uri) {
-		if(arguments.length === 2) {
-			this.src = uri.string;
-		} else {
-			this.src = contextOrUrl;
+	putIfAbsent(key, value) {
+		if(this.has(key)) {
+			return super.get(key);
 		}
+
+		this.set(key, value);
+		return null;
 	}
 
-	setOnPreparedListener(listener) {
-		this.onPrepared = listener.onPrepared;
+	getOrDefault(key, defaultValue) {
+		return this.has(key) ? super.get(key) : defaultValue;
 	}
 
-	setOnErrorListener(listener) {
-		this.onError = listener.onError;
+	containsKey(key) {
+		return this.has(key);
 	}
 
-	setWakeMode() {}
+	containsValue(value) {
+		for(let mappedValue of super.values()) {
+			if(mappedValue === value) {
+				return true;
+			}
+		}
 
-	setOnCompletionListener(onCompletionListener) {
-		let self = this;
-		this.media.onended = function() {
-			onCompletionListener.onCompletion(self);
-		};
+		return false;
+	}
+
+	/** Returns the value `key` had, or null if it wasn't in the map. */
+	remove(key) {
+		let previous = this.has(key) ? super.get(key) : null;
+		this.delete(key);
+		return previous;
+	}
+
+	size() {
+		return super.size;
+	}
+
+	isEmpty() {
+		return super.size === 0;
 	}
 }
 
 /**
- * For this library we only support the MediaPlayer.create method with
- * arguments as Context and resource ID. Attempting to overcome
- * XSS errors by streaming resources from different URLs is outside
- * the scope of what this framework is meant for.
- *
- * Example:
- *
- * mediaPlayer = MediaPlayer.create(Constants.CURRENT_CONTEXT, "my_song");
- * mediaPlayer.start();
- *
+ * Emulates android.util.LruCache. Entries live in a Map, whose insertion order doubles
+ * as recency: a hit is moved to the end, and eviction starts from the front. As in Java,
+ * override sizeOf (and optionally create and entryRemoved) to customize it.
  */
-MediaPlayer.create = function(context, resourceId) {
+class LruCache {
+	constructor(maxSize) {
+		if(maxSize <= 0) {
+			throw new Error("IllegalArgumentException: maxSize <= 0");
+		}
 
-	// Currently only support audio (.wav), not video
-	let mediaPlayer = new MediaPlayer();
-	mediaPlayer.src = "audio/" + resourceId + ".wav";
-	mediaPlayer.prepare();
-	return mediaPlayer;
-};
+		this.map = new Map();
+		this.sizes = new Map();
+		this.currentSize = 0;
+		this.maxSizeValue = maxSize;
 
-// MediaPlayer that is ready for playback
-MediaPlayer.onPreparedListener = function(mediaPlayer) {};
-MediaPlayer.onPreparedListener.prototype.onPrepared = function() {};
+		this.hits = 0;
+		this.misses = 0;
+		this.puts = 0;
+		this.creates = 0;
+		this.evictions = 0;
+	}
 
-/** Mobile browsers generally know not to sleep during playback. */
-MediaPlayer.setScreenOnWhilePlaying = function() {};
-MediaPlayer.setWakeMode = function() {};
+	get(key) {
+		if(key == null) {
+			throw new Error("NullPointerException: key == null");
+		}
 
-class AudioManager {}
-AudioManager.STREAM_MUSIC = "STREAM_MUSIC";
+		if(this.map.has(key)) {
+			let value = this.map.get(key);
 
-class AudioAttributes {
-	constructor() {}
-}
+			// Re-insert, to mark this entry as the most recently used
+			this.map.delete(key);
+			this.map.set(key, value);
 
-AudioAttributes.CONTENT_TYPE_MOVIE = 3;
-AudioAttributes.CONTENT_TYPE_MUSIC = 2;
-AudioAttributes.CONTENT_TYPE_SPEECH = 1;
-AudioAttributes.CONTENT_TYPE_UNKNOWN = 0;
+			this.hits++;
+			return value;
+		}
 
-AudioAttributes.USAGE_UNKNOWN = 0;
-AudioAttributes.USAGE_GAME = 14;
-AudioAttributes.USAGE_MEDIA = 1;
+		this.misses++;
 
-AudioAttributes.Builder = class {
-	constructor(builder) { // builder is an AudioAttributes instance or nothing
-		if(builder instanceof AudioAttributes) {
-			this.usage = builder.usage;
-			this.contentType = contentType;
-		} else { // Use the defaults
-			this.usage = AudioAttributes.USAGE_UNKNOWN;
-			this.contentType = AudioAttributes.CONTENT_TYPE_UNKNOWN;
+		let createdValue = this.create(key);
+
+		if(createdValue == null) {
+			return null;
 		}
-	}
 
-	setUsage(usage) {
-		this.usage = usage;
-		return this;
+		this.creates++;
+		this.put(key, createdValue);
+		return createdValue;
 	}
 
-	setContentType(contentType) {
-		this.contentType = contentType;
-		return this;
-	}
+	put(key, value) {
+		if(key == null || value == null) {
+			throw new Error("NullPointerException: key == null || value == null");
+		}
 
-	build() {
-		let audioAttributes = new AudioAttributes();
-		audioAttributes.usage = this.usage;
-		audioAttributes.contentType = this.contentType;
+		this.puts++;
 
-		return audioAttributes;
-	}
-};
+		let previous = this.removeEntry(key);
+		let size = this.safeSizeOf(key, value);
 
-class SoundPool {
+		this.map.set(key, value);
+		this.sizes.set(key, size);
+		this.currentSize += size;
 
-	// srcQuality is generally 0
-	constructor(constructorKey, maxStreams, streamType, srcQuality) {
-		if(constructorKey !== SOUND_POOL_CONSTRUCTOR_KEY) {
-			console.error("Newer versions of Android do not support the " + "SoundPool constructor. Use SoundPool.Builder instead.");
+		if(previous !== null) {
+			this.entryRemoved(false, key, previous, value);
 		}
 
-		this.media;
-		this.clips = new ArrayList();
+		this.trimToSize(this.maxSizeValue);
+		return previous;
+	}
 
-		this.maxStreams = maxStreams; // max # of these clips allowed to play at once
+	remove(key) {
+		if(key == null) {
+			throw new Error("NullPointerException: key == null");
+		}
 
-		this.onLoadCompleteListener = {
-			onLoadComplete: function(soundPool, sampleId, status) {/* noop */}
-		};
+		let previous = this.removeEntry(key);
+
+		if(previous !== null) {
+			this.entryRemoved(false, key, previous, null);
+		}
+
+		return previous;
 	}
 
-	load(context, clip, priority) {
-		let mediaPlayer = new MediaPlayer();
-		let self = this;
+	// Removes an entry without notifying entryRemoved, returning its value or null
+	removeEntry(key) {
+		if(!this.map.has(key)) {
+			return null;
+		}
 
-		mediaPlayer.media.onloadeddata = function() {
-			self.onLoadCompleteListener.onLoadComplete(self, "", 0);
-		};
+		let previous = this.map.get(key);
 
-		mediaPlayer.setDataSource("audio/" + clip + ".wav");
-		mediaPlayer.prepare();
+		this.currentSize -= this.sizes.get(key);
+		this.map.delete(key);
+		this.sizes.delete(key);
 
-		this.clips.push( mediaPlayer );
-		return this.clips.size() - 1;
+		return previous;
 	}
 
-	play(clipId, leftVolume, rightVolume, priority, loop, rate) {
-		this.clips[clipId].start();
+	trimToSize(maxSize) {
+		while(this.currentSize > maxSize && this.map.size > 0) {
+			let eldestKey = this.map.keys().next().value;
+			let eldestValue = this.removeEntry(eldestKey);
+
+			this.evictions++;
+			this.entryRemoved(true, eldestKey, eldestValue, null);
+		}
 	}
 
-	pause(clipId) {
-		this.clips[clipId].pause();
+	resize(maxSize) {
+		if(maxSize <= 0) {
+			throw new Error("IllegalArgumentException: maxSize <= 0");
+		}
+
+		this.maxSizeValue = maxSize;
+		this.trimToSize(maxSize);
 	}
 
-	resume(clipId) {
-		this.clips[clipId].start();
+	evictAll() {
+		this.trimToSize(-1); // -1 will evict 0-sized elements
 	}
 
-	stop() {
-		this.clips[clipId].stop();
+	safeSizeOf(key, value) {
+		let result = this.sizeOf(key, value);
+
+		if(result < 0) {
+			throw new Error("IllegalStateException: Negative size: " + key + "=" + value);
+		}
+
+		return result;
 	}
 
-	resume(clipId) {
-		this.clips[clipId].start();
+	// Override these three methods as you would in Java
+	sizeOf(key, value) {
+		return 1;
 	}
 
-	setVolume(clipId, leftVolume, rightVolume) {
-		this.clips[clipId].setVolume(leftVolume, rightVolume);
+	create(key) {
+		return null;
 	}
 
-	autoPause() {
-		this.clips.forEach(function(clip) {
-			clip.pause();
-		});
+	entryRemoved(evicted, key, oldValue, newValue) {}
+
+	size() {
+		return this.currentSize;
 	}
 
-	autoResume() {
-		this.clips.forEach(function(clip) {
-			clip.play();
-		});
+	maxSize() {
+		return this.maxSizeValue;
 	}
 
-	setOnLoadCompleteListener(onLoadCompleteListener) {
-		this.onLoadCompleteListener = onLoadCompleteListener;
+	hitCount() {
+		return this.hits;
 	}
-}
 
-SoundPool.Builder = class {
-	constructor() {
-		this.audioAttributes = {};
-		this.maxStreams = 1;
-		this.streamType = AudioManager.STREAM_MUSIC;
-		this.srcQuality = 0;
+	missCount() {
+		return this.misses;
 	}
 
-	build() {
-		let soundPool = new SoundPool(SOUND_POOL_CONSTRUCTOR_KEY, maxStreams, streamType, srcQuality);
-		return soundPool;
+	putCount() {
+		return this.puts;
 	}
 
-	setAudioAttributes(audioAttributes) {
-		this.audioAttributes = audioAttributes;
-		return this;
+	createCount() {
+		return this.creates;
 	}
 
-	setMaxStreams(maxStreams) {
-		this.maxStreams = maxStreams;
-		return this;
+	evictionCount() {
+		return this.evictions;
 	}
-};
 
-class HashMap extends Map {
-	constructor(iterable) {
-		super(iterable);
+	// Returns a copy of the current contents, ordered from least to most recently used
+	snapshot() {
+		return new Map(this.map);
 	}
 
-	put(key, value) {
-		this.set(key, value);
+	toString() {
+		let accesses = this.hits + this.misses;
+		let hitPercent = accesses !== 0 ? Math.floor(100 * this.hits / accesses) : 0;
+
+		return "LruCache[maxSize=" + this.maxSizeValue + ",hits=" + this.hits +
+			",misses=" + this.misses + ",hitRate=" + hitPercent + "%]";
 	}
 }
 
@@ -4691,6 +8927,14 @@ function getFullscreenDimensions() {
 	let screenWidth = null;
 	let screenHeight = null;
 
+	// A worker has no screen to measure; the page sends its size over
+	if(Android2JSGameIsWorker) {
+		return {
+			width: window.Android2JSGameWidth,
+			height: window.Android2JSGameHeight
+		};
+	}
+
 	/**
 	 * Safari/Opera do not support fullscreen, so provide
 	 * dimensions without toolbars, scrollbars, etc.
@@ -0,0 +1,66 @@
+class Layer {
+
+    /* Layer.Painter is any object with paint(canvas) and getVersion() methods */
+    constructor(/* Layer.Painter */ painter) {
+        this.painter = painter;
+        this.bitmap = null;
+        this.canvas = null;
+        this.width = 0;
+        this.height = 0;
+        this.dirty = true;
+        this.paintedVersion = 0;
+    }
+
+    /* public */ /* void */ setSize(/* int */ width, /* int */ height) {
+        if(width == this.width && height == this.height) {
+            return;
+        }
+
+        this.width = width;
+        this.height = height;
+        this.recycle();
+    }
+
+    /* public */ /* void */ invalidate() {
+        this.dirty = true;
+    }
+
+    /* public */ /* boolean */ isDirty() {
+        return this.dirty || this.painter.getVersion() != this.paintedVersion;
+    }
+
+    /* public */ /* void */ draw(/* Canvas */ target) {
+
+        // Until the layer has a size there is nothing to record into, so just paint straight through
+        if(this.width <= 0 || this.height <= 0) {
+            this.painter.paint(target);
+            return;
+        }
+
+        if(this.bitmap == null) {
+            this.bitmap = Bitmap.createBitmap(this.width, this.height, Bitmap.Config.ARGB_8888);
+            this.canvas = new Canvas(this.bitmap);
+            this.dirty = true;
+        }
+
+        if(this.isDirty()) {
+            let version = this.painter.getVersion(); // Read first, so a change made while painting shows next time
+            this.bitmap.eraseColor(Color.TRANSPARENT);
+            this.painter.paint(this.canvas);
+            this.paintedVersion = version;
+            this.dirty = false;
+        }
+
+        target.drawBitmap(this.bitmap, 0, 0, null);
+    }
+
+    /* public */ /* void */ recycle() {
+        if(this.bitmap != null) {
+            this.bitmap.recycle();
+        }
+
+        this.bitmap = null;
+        this.canvas = null;
+        this.dirty = true;
+    }
+}
\ No newline at end of file
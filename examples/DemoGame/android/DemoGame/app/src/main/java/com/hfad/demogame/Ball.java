@@ -4,109 +4,144 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
-import android.graphics.RectF;
+import android.graphics.Rect;
 
 /** Class representing a sprite - a game object with a physical onscreen presence. */
 public class Ball extends Sprite {
 
-    private int velocityX;
-    private int velocityY;
+    // Position, size and velocity are Sprite's; only the previous position is the ball's own
     private Bitmap image;
-    private int x;
-    private int y;
-    private int width;
-    private int height;
+    private int previousX;
+    private int previousY;
     private Game game;
 
     public Ball(Bitmap image, int x, int y, int width, int height, Game game) {
         super(image, x, y, width, height, game);
 
-        this.x = x;
-        this.y = y;
-        this.width = width;
-        this.height = height;
+        this.previousX = x;
+        this.previousY = y;
         this.game = game;
 
-        this.velocityX = 5;
-        this.velocityY = 5;
+        this.setVelocityX(5);
+        this.setVelocityY(5);
 
         // Note: image may be null. Try updating this with a Bitmap!
         this.image = image;
+
+        this.getPaint().setColor( Color.MAGENTA );
+        this.getPaint().setStyle( Paint.Style.FILL );
+    }
+
+    /**
+     * @description Puts a pooled ball back into a freshly constructed state.
+     */
+    public void reset(Bitmap image, int x, int y, int width, int height) {
+        super.reset(image, x, y, width, height);
+
+        this.previousX = x;
+        this.previousY = y;
+
+        this.setVelocityX(5);
+        this.setVelocityY(5);
+
+        this.image = image;
+    }
+
+    /** Called when this ball is handed back to a SpritePool. */
+    public void onRelease() {
+        super.onRelease();
+        this.image = null;
     }
 
     /**
      * @description Draws the current object to the game screen.
      */
     public void draw(Canvas canvas) {
-        Paint paint = new Paint();
-        paint.setColor( Color.MAGENTA );
-        paint.setStyle( Paint.Style.FILL );
-        
+        this.draw(canvas, 1.0f);
+    }
+
+    /**
+     * @description Draws the ball between its previous and current positions, so motion stays smooth
+     * when the frame rate and the game tick rate differ.
+     */
+    public void draw(Canvas canvas, float interpolation) {
+        int drawX = this.getDrawX(interpolation);
+        int drawY = this.getDrawY(interpolation);
+
         if(this.image == null) {
-            canvas.drawOval(new RectF(this.x, this.y, this.x + this.width, this.y + this.height), paint);
+            canvas.drawOval(this.getBoundsF(drawX, drawY), this.getPaint());
         } else {
             canvas.drawBitmap( this.image,
                 null,
-                new Rect(this.x, this.y, this.x + this.width, this.y + this.height),
-                paint);
+                this.getBounds(drawX, drawY),
+                this.getPaint());
         }
     }
 
+    /**
+     * @description Returns the bounds the ball is drawn at for `interpolation`, between its previous and current positions.
+     */
+    public Rect getDrawBounds(float interpolation) {
+        return this.getBounds( this.getDrawX(interpolation), this.getDrawY(interpolation) );
+    }
+
+    /** Returns where the ball was before the latest tick. */
+    public int getPreviousX() {
+        return this.previousX;
+    }
+
+    public int getPreviousY() {
+        return this.previousY;
+    }
+
+    private int getDrawX(float interpolation) {
+        return (int) (this.previousX + (this.getX() - this.previousX) * interpolation);
+    }
+
+    private int getDrawY(float interpolation) {
+        return (int) (this.previousY + (this.getY() - this.previousY) * interpolation);
+    }
+
     /**
      * @description Performs state updates to the current instance for the current game loop cycle.
      */
     public void update() {
-        this.x += this.velocityX;
-        this.y += this.velocityY;
+        this.previousX = this.getX();
+        this.previousY = this.getY();
+
+        super.update(); // Moves by the current velocity, without resetting the previous position
+
+        int x = this.getX();
+        int y = this.getY();
 
         // Bounce of right side of screen
-        if(this.x >= Constants.SCREEN_WIDTH) {
-            this.velocityX *= -1;
+        if(x >= Constants.SCREEN_WIDTH) {
+            this.setVelocityX( -this.getVelocityX() );
         }
 
         // Bounce of top and bottom of screen
-        if(this.y >= Constants.SCREEN_HEIGHT || this.y <= 0) {
-            this.velocityY *= -1;
+        if(y >= Constants.SCREEN_HEIGHT || y <= 0) {
+            this.setVelocityY( -this.getVelocityY() );
         }
 
         // Bouncing off paddle should always result in positive velocityX
         if( this.hittingPaddle(this.game.getPaddle()) ) {
-            this.velocityX = Math.abs( this.velocityX );
+            this.setVelocityX( Math.abs( this.getVelocityX() ) );
         }
 
         // Ball passes paddle on the left
-        if(this.x + this.width <= 0) {
+        if(x + this.getWidth() <= 0) {
             this.game.handleMiss();
         }
     }
 
-    /** Returns the width of this sprite in the game. */
-    public int getWidth() {
-        return this.width;
-    }
-
-    /** Returns the height of this sprite in the game. */
-    public int getHeight() {
-        return this.height;
-    }
-
-    /** Returns this sprite's `x` {number} property. */
-    public int getX() {
-        return this.x;
-    }
-
     /**
      * Sets this sprite's `x` property.
      * @param {number} newX - The new value for this sprite's x.
      */
     public void setX(int newX) {
-        this.x = newX;
-    }
-
-    /** Returns this sprite's `y` {number} property. */
-    public int getY() {
-        return this.y;
+        super.setX(newX);
+        this.previousX = newX; // Placing the ball directly should not be drawn as movement
     }
 
     /**
@@ -114,42 +149,19 @@ public class Ball extends Sprite {
      * @param {number} newY - The new value for this sprite's y.
      */
     public void setY(int newY) {
-        this.y = newY;
-    }
-
-    /** Returns this sprite's `velocityX` {number} property. */
-    public int getVelocityX() {
-        return this.velocityX;
-    }
-
-    /**
-     * Sets this sprite's `velocityX` property.
-     * @param {number} newVX - The new value for this sprite's velocityX.
-     */
-    public void setVelocityX(int newVX) {
-        this.velocityX = newVX;
-    }
-
-    /** Returns this sprite's `velocityY` {number} property. */
-    public int getVelocityY() {
-        return this.velocityY;
-    }
-
-    /**
-     * Sets this sprite's `velocityY` property.
-     * @param {number} newVY - The new value for this sprite's velocityY.
-     */
-    public void setVelocityY(int newVY) {
-        this.velocityY = newVY;
+        super.setY(newY);
+        this.previousY = newY;
     }
 
     public boolean hittingPaddle(Paddle paddle) {
-        
+        int x = this.getX();
+        int y = this.getY();
+
         // First verify that the ball is even within the vertical bounds of the paddle
-        if(this.y + this.height > paddle.getY() && this.y < paddle.getY() + paddle.getHeight()) {
+        if(y + this.getHeight() > paddle.getY() && y < paddle.getY() + paddle.getHeight()) {
 
             // Ball is either intersecting the paddle, or is exactly on the right edge
-            if(this.x > paddle.getX() && this.x <= paddle.getX() + paddle.getWidth()) {
+            if(x > paddle.getX() && x <= paddle.getX() + paddle.getWidth()) {
                 return true;
             }
         }
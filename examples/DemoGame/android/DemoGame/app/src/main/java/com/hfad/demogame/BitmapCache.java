@@ -0,0 +1,104 @@
+package com.hfad.demogame;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+/**
+ * Cache of decoded and scaled drawables, keyed by resource id, target size and Bitmap.Config.
+ * Entries are evicted least-recently-used first once their total size passes the byte budget,
+ * so loading the same images again (e.g. for each new wave) skips the decode and scale.
+ */
+public class BitmapCache {
+
+    static final int MEMORY_FRACTION = 8; // Use at most 1/8 of the heap by default
+
+    private static BitmapCache instance = null;
+
+    private LruCache<String, Bitmap> cache;
+
+    /** Returns the cache shared across the game, sized from the available heap. */
+    public static BitmapCache getInstance() {
+        if(instance == null) {
+            long maxBytes = Runtime.getRuntime().maxMemory() / MEMORY_FRACTION;
+            instance = new BitmapCache( (int) Math.min(maxBytes, Integer.MAX_VALUE) );
+        }
+
+        return instance;
+    }
+
+    /**
+     * @param {number} maxBytes - The total size, in bytes, of the bitmaps to keep.
+     */
+    public BitmapCache(int maxBytes) {
+        this.cache = new LruCache<String, Bitmap>(maxBytes) {
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+
+            // Evicted bitmaps are not recycled here, since sprites may still be drawing them
+        };
+    }
+
+    /**
+     * Returns the drawable decoded and scaled to the given size, decoding it only on a miss.
+     * The returned Bitmap is shared; do not modify or recycle it.
+     */
+    public Bitmap getScaledResource(Resources resources, int resourceId, int width, int height, Bitmap.Config config) {
+        String key = BitmapCache.keyFor(resourceId, width, height, config);
+        Bitmap bitmap = this.cache.get(key);
+
+        if(bitmap != null) {
+            return bitmap;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = config;
+
+        Bitmap decodedBitmap = BitmapFactory.decodeResource(resources, resourceId, options);
+        bitmap = Bitmap.createScaledBitmap(decodedBitmap, width, height, false);
+
+        // createScaledBitmap hands back the source itself when no scaling was needed
+        if(bitmap != decodedBitmap) {
+            decodedBitmap.recycle();
+        }
+
+        this.cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    /** Drops every cached bitmap, e.g. when the system is low on memory. */
+    public void evictAll() {
+        this.cache.evictAll();
+    }
+
+    /** Evicts least-recently-used bitmaps until the cache holds at most `maxBytes`. */
+    public void trimToSize(int maxBytes) {
+        this.cache.trimToSize(maxBytes);
+    }
+
+    /** Returns the total size, in bytes, of the cached bitmaps. */
+    public int getSizeBytes() {
+        return this.cache.size();
+    }
+
+    /** Returns the byte budget of this cache. */
+    public int getMaxSizeBytes() {
+        return this.cache.maxSize();
+    }
+
+    /** Returns how many lookups found a cached bitmap. */
+    public int getHitCount() {
+        return this.cache.hitCount();
+    }
+
+    /** Returns how many lookups had to decode. */
+    public int getMissCount() {
+        return this.cache.missCount();
+    }
+
+    static String keyFor(int resourceId, int width, int height, Bitmap.Config config) {
+        return resourceId + ":" + width + "x" + height + ":" + config;
+    }
+}
@@ -0,0 +1,119 @@
+package com.hfad.demogame;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * The part of the world that is on screen. Sprites keep world coordinates; the camera's position is
+ * the world point drawn at the top-left of the screen, and it is kept inside the world bounds, so a
+ * level larger than the screen scrolls without showing anything past its edges.
+ */
+public class Camera {
+
+    private int x;
+    private int y;
+    private int width;
+    private int height;
+    private Rect worldBounds;
+    private Rect visibleBounds;
+    private boolean moved;
+
+    /**
+     * Starts at the top-left of a world the same size as the screen, so nothing scrolls until
+     * setWorldBounds() makes the world larger.
+     * @param {number} width - Screen width, in pixels.
+     * @param {number} height - Screen height, in pixels.
+     */
+    public Camera(int width, int height) {
+        this.x = 0;
+        this.y = 0;
+        this.width = width;
+        this.height = height;
+        this.worldBounds = new Rect(0, 0, width, height);
+        this.visibleBounds = new Rect();
+        this.moved = false;
+    }
+
+    /** Sets the area the camera can show, in world coordinates, and moves back inside it if need be. */
+    public void setWorldBounds(int left, int top, int right, int bottom) {
+        this.worldBounds.set(left, top, right, bottom);
+        this.setPosition(this.x, this.y);
+    }
+
+    /** Moves the top-left of the screen to world point (x, y), as far as the world bounds allow. */
+    public void setPosition(int x, int y) {
+
+        // A world smaller than the screen is pinned to its top-left corner
+        x = Math.max( this.worldBounds.left, Math.min(x, this.worldBounds.right - this.width) );
+        y = Math.max( this.worldBounds.top, Math.min(y, this.worldBounds.bottom - this.height) );
+
+        if(x != this.x || y != this.y) {
+            this.x = x;
+            this.y = y;
+            this.moved = true;
+        }
+    }
+
+    /** Moves the camera so world point (x, y) is in the middle of the screen, e.g. to follow the player. */
+    public void centerOn(int x, int y) {
+        this.setPosition(x - this.width / 2, y - this.height / 2);
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    /** Returns true if the camera shows the world as it is, with no scrolling. */
+    public boolean isAtOrigin() {
+        return this.x == 0 && this.y == 0;
+    }
+
+    /** Returns true once after each time the camera moves, so the caller can redraw the whole screen. */
+    public boolean takeMoved() {
+        boolean moved = this.moved;
+        this.moved = false;
+
+        return moved;
+    }
+
+    /** Returns the world area on screen. The Rect is reused, so do not keep it. */
+    public Rect getVisibleBounds() {
+        this.visibleBounds.set(this.x, this.y, this.x + this.width, this.y + this.height);
+
+        return this.visibleBounds;
+    }
+
+    /**
+     * Returns the world area inside `screenClip`, e.g. a canvas's clip bounds. The Rect is reused,
+     * so do not keep it.
+     * @param {Rect} screenClip - An area of the screen, in screen coordinates.
+     */
+    public Rect getVisibleBounds(Rect screenClip) {
+        this.visibleBounds.set(screenClip);
+        this.visibleBounds.offset(this.x, this.y);
+
+        if(!this.visibleBounds.intersect(this.x, this.y, this.x + this.width, this.y + this.height)) {
+            this.visibleBounds.setEmpty();
+        }
+
+        return this.visibleBounds;
+    }
+
+    /** Makes world coordinates land in the right place on `canvas`. Pair with end(). */
+    public void begin(Canvas canvas) {
+        canvas.save();
+
+        if(!this.isAtOrigin()) {
+            canvas.translate(-this.x, -this.y);
+        }
+    }
+
+    /** Puts `canvas` back to screen coordinates, e.g. to draw the HUD. */
+    public void end(Canvas canvas) {
+        canvas.restore();
+    }
+}
@@ -9,4 +9,23 @@ public class Constants {
     static int SCREEN_HEIGHT = 300;
 
     static Context CURRENT_CONTEXT = null;
+
+    // Draws MainThread's frame metrics over the game, for profiling
+    static boolean SHOW_FRAME_METRICS = false;
+
+    // Lock and redraw only the part of the screen that changed each frame, instead of all of it
+    static boolean DIRTY_RECT_RENDERING = true;
+
+    // Render the HUD and banner text into a bitmap once and copy it out each frame, instead of drawing text
+    static boolean HUD_GLYPH_CACHE = true;
+
+    // Spread the movement of large enemy waves over every core. The result is the same either way
+    static boolean PARALLEL_UPDATE = true;
+
+    // Run the game logic on its own thread, with MainThread only drawing the latest finished tick.
+    // Frames are then always redrawn in full, and without the frame metrics overlay
+    static boolean SPLIT_SIMULATION_THREAD = false;
+
+    // Log each session's seed and touches, so SessionReplayer can play it back off-device
+    static boolean RECORD_SESSION = false;
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.hfad.demogame;
+
+import android.graphics.Rect;
+
+/**
+ * The part of the screen that has changed since the last frame, kept as one bounding Rect, since
+ * that is what SurfaceHolder.lockCanvas(Rect) takes. Game adds the old and new bounds of anything
+ * that moved, appeared or went away; the next frame then only clears and redraws that area.
+ */
+public class DirtyRegion {
+
+    private Rect bounds;
+    private boolean everything;
+
+    public DirtyRegion() {
+        this.bounds = new Rect();
+        this.everything = true; // Nothing has been drawn yet
+    }
+
+    /** Marks `rect` as needing a redraw. Empty rects are ignored. */
+    public void add(Rect rect) {
+        if(this.everything || rect.isEmpty()) {
+            return;
+        }
+
+        this.bounds.union(rect);
+    }
+
+    /** Marks the whole screen as needing a redraw, e.g. after a restart or when the surface is recreated. */
+    public void invalidateAll() {
+        this.everything = true;
+    }
+
+    /** Returns true if the whole screen needs a redraw. */
+    public boolean isEverythingDirty() {
+        return this.everything;
+    }
+
+    /** Returns true if nothing has changed, so the frame can be skipped. */
+    public boolean isEmpty() {
+        return !this.everything && this.bounds.isEmpty();
+    }
+
+    /** Returns the area to redraw, or null if it is the whole screen. The Rect is reused, so do not keep it. */
+    public Rect getBounds() {
+        if(this.everything) {
+            return null;
+        }
+
+        return this.bounds;
+    }
+
+    /** Forgets every dirty area. Call once the frame has been drawn. */
+    public void clear() {
+        this.bounds.setEmpty();
+        this.everything = false;
+    }
+}
@@ -2,115 +2,51 @@ package com.hfad.demogame;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Rect;
 
 /** Class representing a sprite - a game object with a physical onscreen presence. */
 public class Enemy extends Sprite {
 
-    private int velocityX;
-    private int velocityY;
+    // Position, size and velocity are Sprite's, so that they can live in Game's EntityStore
     private Bitmap image;
-    private int x;
-    private int y;
-    private int width;
-    private int height;
     private Game game;
 
     public Enemy(Bitmap image, int x, int y, int width, int height, Game game) {
         super(image, x, y, width, height, game);
 
-        this.x = x;
-        this.y = y;
-        this.width = width;
-        this.height = height;
         this.game = game;
 
-        this.velocityX = 0;
-        this.velocityY = 0;
-
         // Note: image may be null
         this.image = image;
     }
 
     /**
-     * @description Draws the current object to the game screen.
-     */
-    public void draw(Canvas canvas) {
-
-        canvas.drawBitmap( this.image,
-            null,
-            new Rect(this.x, this.y, this.x + this.width, this.y + this.height),
-            new Paint());
-    }
-
-    /**
-     * @description Performs state updates to the current instance for the current game loop cycle.
-     */
-    public void update() {
-        this.x += this.velocityX;
-        this.y += this.velocityY;
-    }
-
-    /** Returns the width of this sprite in the game. */
-    public int getWidth() {
-        return this.width;
-    }
-
-    /** Returns the height of this sprite in the game. */
-    public int getHeight() {
-        return this.height;
-    }
-
-    /** Returns this sprite's `x` {number} property. */
-    public int getX() {
-        return this.x;
-    }
-
-    /**
-     * Sets this sprite's `x` property.
-     * @param {number} newX - The new value for this sprite's x.
+     * @description Puts a pooled enemy back into a freshly constructed state.
      */
-    public void setX(int newX) {
-        this.x = newX;
-    }
+    public void reset(Bitmap image, int x, int y, int width, int height) {
+        super.reset(image, x, y, width, height);
 
-    /** Returns this sprite's `y` {number} property. */
-    public int getY() {
-        return this.y;
-    }
-
-    /**
-     * Sets this sprite's `y` property.
-     * @param {number} newY - The new value for this sprite's y.
-     */
-    public void setY(int newY) {
-        this.y = newY;
+        this.image = image;
     }
 
-    /** Returns this sprite's `velocityX` {number} property. */
-    public int getVelocityX() {
-        return this.velocityX;
+    /** Called when this enemy is handed back to a SpritePool. */
+    public void onRelease() {
+        super.onRelease();
+        this.image = null;
     }
 
     /**
-     * Sets this sprite's `velocityX` property.
-     * @param {number} newVX - The new value for this sprite's velocityX.
+     * @description Draws the current object to the game screen.
      */
-    public void setVelocityX(int newVX) {
-        this.velocityX = newVX;
-    }
+    public void draw(Canvas canvas) {
 
-    /** Returns this sprite's `velocityY` {number} property. */
-    public int getVelocityY() {
-        return this.velocityY;
-    }
+        if(this.getRegion() != null) {
+            this.drawRegion(canvas);
+            return;
+        }
 
-    /**
-     * Sets this sprite's `velocityY` property.
-     * @param {number} newVY - The new value for this sprite's velocityY.
-     */
-    public void setVelocityY(int newVY) {
-        this.velocityY = newVY;
+        canvas.drawBitmap( this.image,
+            null,
+            this.getBounds(),
+            this.getPaint());
     }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.hfad.demogame;
+
+import java.util.ArrayList;
+
+/**
+ * Unordered list of sprites that is safe to remove from while it is being iterated. remove() only
+ * marks a sprite; the marked sprites are taken out together by flushRemovals() at the end of the
+ * tick, each with an O(1) swap-remove. Until then, indexes and size() stay exactly as they were.
+ */
+public class EntityList<T extends Sprite> {
+
+    private ArrayList<T> items;
+    private ArrayList<T> pendingRemovals;
+
+    public EntityList() {
+        this.items = new ArrayList<T>();
+        this.pendingRemovals = new ArrayList<T>();
+    }
+
+    /** Returns the number of sprites in the list, including any still waiting to be removed. */
+    public int size() {
+        return this.items.size();
+    }
+
+    /** Returns true if the list holds no sprites. */
+    public boolean isEmpty() {
+        return this.items.isEmpty();
+    }
+
+    /** Returns the sprite at the given index. Order is not preserved across removals. */
+    public T get(int index) {
+        return this.items.get(index);
+    }
+
+    /** Returns true if the sprite is in this list. */
+    public boolean contains(Sprite sprite) {
+        int index = sprite.getEntityIndex();
+
+        return index >= 0 && index < this.items.size() && this.items.get(index) == sprite;
+    }
+
+    /** Adds a sprite to the end of the list. */
+    public void add(T sprite) {
+        if(this.contains(sprite)) {
+            return;
+        }
+
+        sprite.setEntityIndex( this.items.size() );
+        this.items.add(sprite);
+    }
+
+    /**
+     * Marks a sprite for removal at the next flushRemovals(). Safe to call mid-iteration.
+     * @return {boolean} false if the sprite is not in the list, or was already marked.
+     */
+    public boolean remove(Sprite sprite) {
+        if(!this.contains(sprite) || sprite.isPendingRemoval()) {
+            return false;
+        }
+
+        sprite.setPendingRemoval(true);
+        this.pendingRemovals.add( this.items.get( sprite.getEntityIndex() ) );
+        return true;
+    }
+
+    /** Takes out every sprite marked by remove(). Call once the tick is done iterating. */
+    public void flushRemovals() {
+        this.flushRemovals(null);
+    }
+
+    /**
+     * Takes out every sprite marked by remove(), and hands each one back to `pool`.
+     * @param {SpritePool} pool - Where removed sprites go for reuse; may be null.
+     */
+    public void flushRemovals(SpritePool<T> pool) {
+        for(int i = 0; i < this.pendingRemovals.size(); i++) {
+            T sprite = this.pendingRemovals.get(i);
+            int index = sprite.getEntityIndex();
+            int last = this.items.size() - 1;
+
+            // Move the last sprite into the hole, so nothing after it has to shift
+            T moved = this.items.get(last);
+            this.items.set(index, moved);
+            moved.setEntityIndex(index);
+            this.items.remove(last);
+
+            sprite.setEntityIndex(-1);
+            sprite.setPendingRemoval(false);
+
+            if(pool != null) {
+                pool.release(sprite);
+            }
+        }
+
+        this.pendingRemovals.clear();
+    }
+
+    /** Removes every sprite immediately. */
+    public void clear() {
+        this.clear(null);
+    }
+
+    /** Removes every sprite immediately, handing each one back to `pool` if it is not null. */
+    public void clear(SpritePool<T> pool) {
+        for(int i = 0; i < this.items.size(); i++) {
+            T sprite = this.items.get(i);
+            sprite.setEntityIndex(-1);
+            sprite.setPendingRemoval(false);
+
+            if(pool != null) {
+                pool.release(sprite);
+            }
+        }
+
+        this.items.clear();
+        this.pendingRemovals.clear();
+    }
+}
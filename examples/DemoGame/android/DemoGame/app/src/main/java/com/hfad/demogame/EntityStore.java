@@ -0,0 +1,217 @@
+package com.hfad.demogame;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Position, size and velocity for many sprites, kept as one primitive array per field and indexed
+ * by entity id, with each Sprite only a handle to its id (see Sprite.setEntityStore). Moving every
+ * entity is then one pass down a few int arrays, with no virtual update() call per sprite.
+ */
+public class EntityStore {
+
+    static final int INITIAL_CAPACITY = 64;
+    static final int PARALLEL_THRESHOLD = 4096; // Below this many ids, handing work to other threads costs more than it saves
+    static final int MIN_CHUNK_SIZE = 1024;
+    static final int CHUNKS_PER_THREAD = 4; // A few chunks per thread, so a slow one can be balanced by work stealing
+
+    /** Integrates one range of ids, splitting it in half until it is a single chunk. */
+    static class IntegrateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private EntityStore store;
+        private int from;
+        private int to;
+        private int chunkSize;
+
+        IntegrateTask(EntityStore store, int from, int to, int chunkSize) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.to - this.from <= this.chunkSize) {
+                this.store.integrate(this.from, this.to);
+                return;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            RecursiveAction.invokeAll(new IntegrateTask(this.store, this.from, middle, this.chunkSize),
+                new IntegrateTask(this.store, middle, this.to, this.chunkSize));
+        }
+    }
+
+    private int[] x;
+    private int[] y;
+    private int[] width;
+    private int[] height;
+    private int[] velocityX;
+    private int[] velocityY;
+
+    // Ids below `count` have been handed out; released ones wait in `freeIds` to be reused
+    private int count;
+    private int[] freeIds;
+    private int freeCount;
+
+    public EntityStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public EntityStore(int capacity) {
+        capacity = Math.max(1, capacity);
+
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.width = new int[capacity];
+        this.height = new int[capacity];
+        this.velocityX = new int[capacity];
+        this.velocityY = new int[capacity];
+        this.freeIds = new int[capacity];
+
+        this.count = 0;
+        this.freeCount = 0;
+    }
+
+    /** Returns an unused entity id, with everything set to 0. */
+    public int allocate() {
+        if(this.freeCount > 0) {
+            this.freeCount--;
+            return this.freeIds[this.freeCount];
+        }
+
+        if(this.count == this.x.length) {
+            this.grow();
+        }
+
+        return this.count++;
+    }
+
+    /**
+     * Hands `id` back to be reused. Its slot is zeroed, so integrate() leaves it where it is.
+     * @param {number} id - An id from allocate() that is no longer used.
+     */
+    public void release(int id) {
+        this.set(id, 0, 0, 0, 0, 0, 0);
+        this.freeIds[this.freeCount] = id;
+        this.freeCount++;
+    }
+
+    /**
+     * Moves every entity by its velocity. Released and idle ids have no velocity, so the loops can
+     * run over every slot without checking which are in use, which lets the JIT vectorize them.
+     */
+    public void integrate() {
+        this.integrate(0, this.count);
+    }
+
+    /**
+     * Same as integrate(), but splits the ids into chunks that run on `pool`, and returns once all
+     * of them are done. Each id is in exactly one chunk and only depends on itself, so the result is
+     * identical to integrate() whatever order the chunks run in. Small stores are integrated on the
+     * calling thread.
+     * @param {ForkJoinPool} pool - The pool to run chunks on, or null to integrate on this thread.
+     */
+    public void integrate(ForkJoinPool pool) {
+        if(pool == null || pool.getParallelism() < 2 || this.count < PARALLEL_THRESHOLD) {
+            this.integrate(0, this.count);
+            return;
+        }
+
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, this.count / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        pool.invoke( new IntegrateTask(this, 0, this.count, chunkSize) );
+    }
+
+    /** Moves the entities with ids from `from` up to, but not including, `to` by their velocity. */
+    void integrate(int from, int to) {
+        int[] x = this.x;
+        int[] y = this.y;
+        int[] velocityX = this.velocityX;
+        int[] velocityY = this.velocityY;
+
+        for(int i = from; i < to; i++) {
+            x[i] += velocityX[i];
+        }
+
+        for(int i = from; i < to; i++) {
+            y[i] += velocityY[i];
+        }
+    }
+
+    /** Returns how many ids have ever been handed out, in use or not. Ids are always below this. */
+    public int getCount() {
+        return this.count;
+    }
+
+    /** Sets every field of `id` at once. */
+    public void set(int id, int x, int y, int width, int height, int velocityX, int velocityY) {
+        this.x[id] = x;
+        this.y[id] = y;
+        this.width[id] = width;
+        this.height[id] = height;
+        this.velocityX[id] = velocityX;
+        this.velocityY[id] = velocityY;
+    }
+
+    /** Moves `id` by dx, dy. */
+    public void moveBy(int id, int dx, int dy) {
+        this.x[id] += dx;
+        this.y[id] += dy;
+    }
+
+    public int getX(int id) {
+        return this.x[id];
+    }
+
+    public void setX(int id, int x) {
+        this.x[id] = x;
+    }
+
+    public int getY(int id) {
+        return this.y[id];
+    }
+
+    public void setY(int id, int y) {
+        this.y[id] = y;
+    }
+
+    public int getWidth(int id) {
+        return this.width[id];
+    }
+
+    public int getHeight(int id) {
+        return this.height[id];
+    }
+
+    public int getVelocityX(int id) {
+        return this.velocityX[id];
+    }
+
+    public void setVelocityX(int id, int velocityX) {
+        this.velocityX[id] = velocityX;
+    }
+
+    public int getVelocityY(int id) {
+        return this.velocityY[id];
+    }
+
+    public void setVelocityY(int id, int velocityY) {
+        this.velocityY[id] = velocityY;
+    }
+
+    private void grow() {
+        int capacity = this.x.length * 2;
+
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.width = Arrays.copyOf(this.width, capacity);
+        this.height = Arrays.copyOf(this.height, capacity);
+        this.velocityX = Arrays.copyOf(this.velocityX, capacity);
+        this.velocityY = Arrays.copyOf(this.velocityY, capacity);
+        this.freeIds = Arrays.copyOf(this.freeIds, capacity);
+    }
+}
@@ -0,0 +1,164 @@
+package com.hfad.demogame;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Timings for the frames MainThread runs: the latest frame's update, draw and present times,
+ * plus running totals and a histogram of frame times. One instance is reused for every frame,
+ * so read it from a MainThread.FrameListener, on the game thread, rather than keeping it.
+ */
+public class FrameMetrics {
+
+    private long updateNanos;
+    private long drawNanos;
+    private long presentNanos;
+    private long workNanos;
+    private long frameNanos;
+    private int updates;
+    private boolean gcDuringFrame;
+
+    private long frameCount;
+    private long droppedFrames;
+    private long gcFrames;
+    private long droppedGcFrames;
+    private float averageFPS;
+    private FrameTimeHistogram histogram;
+
+    // Cleared by the collector, which tells us a GC ran since we last looked
+    private WeakReference<Object> gcSentinel;
+
+    public FrameMetrics() {
+        this.histogram = new FrameTimeHistogram();
+        this.gcSentinel = new WeakReference<Object>(new Object());
+        this.averageFPS = 0.0f;
+        this.reset();
+    }
+
+    /**
+     * Records one frame. Called by MainThread.
+     * @param {number} updateNanos - Time spent in game updates this frame.
+     * @param {number} drawNanos - Time spent drawing.
+     * @param {number} presentNanos - Time spent in lockCanvas and unlockCanvasAndPost.
+     * @param {number} frameNanos - Time from the start of the previous frame to the start of this one, including any sleep.
+     * @param {number} updates - How many game ticks ran this frame.
+     * @param {number} targetNanos - The frame budget; frames whose work runs over it count as dropped.
+     */
+    public void recordFrame(long updateNanos, long drawNanos, long presentNanos, long frameNanos, int updates, long targetNanos) {
+        this.updateNanos = updateNanos;
+        this.drawNanos = drawNanos;
+        this.presentNanos = presentNanos;
+        this.workNanos = updateNanos + drawNanos + presentNanos;
+        this.frameNanos = frameNanos;
+        this.updates = updates;
+
+        this.gcDuringFrame = this.gcSentinel.get() == null;
+        if(this.gcDuringFrame) {
+            this.gcSentinel = new WeakReference<Object>(new Object());
+            this.gcFrames++;
+        }
+
+        if(this.workNanos > targetNanos) {
+            this.droppedFrames++;
+
+            if(this.gcDuringFrame) {
+                this.droppedGcFrames++;
+            }
+        }
+
+        this.frameCount++;
+        this.histogram.record(frameNanos / 1000);
+    }
+
+    /**
+     * Sets the frame rate averaged over recent frames. Called by MainThread.
+     * @param {number} averageFPS - Frames per second.
+     */
+    public void setAverageFPS(float averageFPS) {
+        this.averageFPS = averageFPS;
+    }
+
+    /** Returns the frame rate averaged over recent frames. */
+    public float getAverageFPS() {
+        return this.averageFPS;
+    }
+
+    /** Returns the nanoseconds the latest frame spent in Game.update(). */
+    public long getUpdateNanos() {
+        return this.updateNanos;
+    }
+
+    /** Returns the nanoseconds the latest frame spent in Game.draw(). */
+    public long getDrawNanos() {
+        return this.drawNanos;
+    }
+
+    /** Returns the nanoseconds the latest frame spent in lockCanvas and unlockCanvasAndPost. */
+    public long getPresentNanos() {
+        return this.presentNanos;
+    }
+
+    /** Returns the latest frame's update, draw and present time together. */
+    public long getWorkNanos() {
+        return this.workNanos;
+    }
+
+    /** Returns the time between the start of the previous frame and the latest one. */
+    public long getFrameNanos() {
+        return this.frameNanos;
+    }
+
+    /** Returns how many game ticks the latest frame ran. */
+    public int getUpdates() {
+        return this.updates;
+    }
+
+    /** Returns true if a garbage collection ran during the latest frame. */
+    public boolean isGcDuringFrame() {
+        return this.gcDuringFrame;
+    }
+
+    /** Returns how many frames have been recorded since the last reset(). */
+    public long getFrameCount() {
+        return this.frameCount;
+    }
+
+    /** Returns how many frames ran over their budget. */
+    public long getDroppedFrames() {
+        return this.droppedFrames;
+    }
+
+    /** Returns how many frames had a garbage collection during them. */
+    public long getGcFrames() {
+        return this.gcFrames;
+    }
+
+    /** Returns how many dropped frames also had a garbage collection, i.e. hitches GC may explain. */
+    public long getDroppedGcFrames() {
+        return this.droppedGcFrames;
+    }
+
+    /** Returns the histogram of frame times, in microseconds. */
+    public FrameTimeHistogram getHistogram() {
+        return this.histogram;
+    }
+
+    /** Clears the running totals and the histogram. */
+    public void reset() {
+        this.frameCount = 0;
+        this.droppedFrames = 0;
+        this.gcFrames = 0;
+        this.droppedGcFrames = 0;
+        this.histogram.reset();
+    }
+
+    /** Returns a one-line summary, e.g. for a log or the debug overlay. Allocates, so do not call every frame. */
+    public String getSummary() {
+        return "FPS " + Math.round(this.averageFPS)
+            + "  p50 " + this.histogram.getValueAtPercentile(50) / 1000
+            + "  p95 " + this.histogram.getValueAtPercentile(95) / 1000
+            + "  p99 " + this.histogram.getValueAtPercentile(99) / 1000
+            + "  max " + this.histogram.getMaxValue() / 1000 + " ms"
+            + "  dropped " + this.droppedFrames
+            + " (GC " + this.droppedGcFrames + ")";
+    }
+}
@@ -0,0 +1,102 @@
+package com.hfad.demogame;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations in microseconds, bucketed the way HdrHistogram does it: exact
+ * below 64, then each power of two is split into 32 equal sub-buckets, so every recorded value is
+ * kept to within about 3%. Recording is a few shifts and an array increment, with no allocation.
+ */
+public class FrameTimeHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; // 32
+    static final int EXACT_LIMIT = SUB_BUCKET_COUNT * 2; // Values below 64 get a bucket each
+    static final int MAX_SHIFT = 40; // Anything past 2^45 microseconds lands in the last bucket
+
+    private long[] counts;
+    private long totalCount;
+    private long maxValue;
+
+    public FrameTimeHistogram() {
+        this.counts = new long[EXACT_LIMIT + MAX_SHIFT * SUB_BUCKET_COUNT];
+        this.reset();
+    }
+
+    /** Adds one duration, in microseconds. Negative values are counted as 0. */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+
+        this.counts[ FrameTimeHistogram.indexFor(value) ]++;
+        this.totalCount++;
+        this.maxValue = Math.max(this.maxValue, value);
+    }
+
+    /**
+     * Returns the value, in microseconds, that `percentile` percent of recorded values are at or below.
+     * @param {number} percentile - From 0 to 100, e.g. 99 for p99.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if(this.totalCount == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil( Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * this.totalCount );
+        target = Math.max(1, target);
+
+        long seen = 0;
+        for(int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+
+            if(seen >= target) {
+                return Math.min( FrameTimeHistogram.highestValueFor(i), this.maxValue );
+            }
+        }
+
+        return this.maxValue;
+    }
+
+    /** Returns the largest value recorded, in microseconds. */
+    public long getMaxValue() {
+        return this.maxValue;
+    }
+
+    /** Returns how many values have been recorded. */
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    /** Forgets every recorded value. */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.totalCount = 0;
+        this.maxValue = 0;
+    }
+
+    static int indexFor(long value) {
+        if(value < EXACT_LIMIT) {
+            return (int) value;
+        }
+
+        // Shift the value down until it fits in [32, 64); that shift picks the power-of-two bucket
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+
+        if(shift > MAX_SHIFT) {
+            return EXACT_LIMIT + MAX_SHIFT * SUB_BUCKET_COUNT - 1;
+        }
+
+        int subBucket = (int) (value >> shift) - SUB_BUCKET_COUNT;
+        return EXACT_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueFor(int index) {
+        if(index < EXACT_LIMIT) {
+            return index;
+        }
+
+        int shift = (index - EXACT_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - EXACT_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+}
@@ -3,54 +3,157 @@ package com.hfad.demogame;
 import java.util.ArrayList;
 import java.util.ArrayList;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.PointF;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import android.graphics.Rect;
 import android.view.MotionEvent;
 
 public class Game {
 
     private Random random;
+    private long seed;
+    private long tick;
+    private SessionRecorder recorder;
+    private PointF touchPoint;
     private Ball ball;
     private Paddle paddle;
-    private ArrayList<Enemy> enemies;
+    private EntityList<Enemy> enemies;
+    private SpritePool<Enemy> enemyPool;
+    private SpritePool<Ball> ballPool;
+    private EntityStore entityStore;
+    private ForkJoinPool updatePool;
+    private static ForkJoinPool sharedUpdatePool;
+    private SpatialHash spatialHash;
+    private ArrayList<Sprite> collisionCandidates;
+    private Camera camera;
+    private Scene scene;
+    static final int LAYER_PLAYER = 0;
+    static final int LAYER_ENEMIES = 1; // Above the player, as enemies were always drawn last
+    static final int LAYER_COUNT = 2;
+    private TextureAtlas atlas;
+    private SpriteBatch spriteBatch;
+    private DirtyRegion dirtyRegion;
+    private Rect clipBounds;
+    private boolean drawnGameOver;
+    static final int ATLAS_SIZE = 512;
     private boolean started;
     private boolean gameOver;
     private boolean paused;
+    private boolean stepped;
     private int score;
     private int lives;
     private int gameOverTime;
     private int timeBeforeStart;
     static final int INITIAL_TIME_BEFORE_START  = 200;
-    private GamePanel gamePanel;
+    private GameSurface gamePanel;
+    private boolean headless;
+    private int enemiesPerWave;
+
+    // HUD render state, kept between frames so a steady-state draw allocates nothing
+    private Paint hudPaint;
+    private Paint bannerPaint;
+    private Rect textBounds;
+    private String livesText;
+    private String scoreText;
+    private int livesTextX;
+    private int scoreTextX;
+    private int hudTextY;
+    private int hudLives;
+    private int hudScore;
+    private Rect hudBounds;
+    private GlyphCache hudGlyphs;
+    private GlyphCache bannerGlyphs;
+    private String bannerLayoutText;
+    private int bannerX;
+    private int bannerY;
+    private FrameMetrics frameMetrics;
+    private String frameMetricsText;
+    private Rect frameMetricsBounds;
+    private long frameMetricsTextFrame;
+    static final int FRAME_METRICS_REFRESH_FRAMES = 30; // The overlay text allocates, so only rebuild it about once a second
+    static final String WIN_TEXT = "You win!";
+    static final String LOSE_TEXT = "Better luck next time!";
+    static final String LIVES_LABEL = "Lives: ";
+    static final String SCORE_LABEL = "Score: ";
+    static final int HUD_GLYPH_ATLAS_WIDTH = 256;
+    static final int HUD_GLYPH_ATLAS_HEIGHT = 64;
+    static final int BANNER_GLYPH_ATLAS_WIDTH = 256;
+    static final int BANNER_GLYPH_ATLAS_HEIGHT = 128;
 
-    public Game(GamePanel gamePanel) {
+    public Game(GameSurface gamePanel) {
+        this(gamePanel, false);
+    }
+
+    /**
+     * @param {GameSurface} gamePanel - The view the game runs in; a HeadlessGameSurface off-device.
+     * @param {boolean} headless - If true, no resources are loaded, so the game can run without a
+     *   Context, e.g. in benchmarks. Enemies then have no image, so draw to a RecordingCanvas.
+     */
+    public Game(GameSurface gamePanel, boolean headless) {
+        this(gamePanel, headless, System.nanoTime());
+    }
+
+    /**
+     * @param {GameSurface} gamePanel - The view the game runs in; a HeadlessGameSurface off-device.
+     * @param {boolean} headless - If true, no resources are loaded (see above).
+     * @param {number} seed - Seeds every random choice the game makes, so the same seed and the
+     *   same input play out the same way, e.g. in a SessionReplayer.
+     */
+    public Game(GameSurface gamePanel, boolean headless, long seed) {
 
         this.gamePanel = gamePanel;
+        this.headless = headless;
+        this.enemiesPerWave = 5;
         this.started = false;
         this.score = 0;
         this.lives = 3;
         this.gameOver = false;
         this.gameOverTime = 0;
         this.paused = false;
-        this.random = new Random();
+        this.stepped = false;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.tick = 0L;
+        this.recorder = null;
+        this.touchPoint = new PointF();
         this.timeBeforeStart = 0;
         this.timeBeforeStart = INITIAL_TIME_BEFORE_START;
 
+        final Game game = this;
+
+        // Enemies keep their position and velocity here, so one loop moves them all
+        this.entityStore = new EntityStore();
+        this.updatePool = Constants.PARALLEL_UPDATE ? Game.getSharedUpdatePool() : null;
+
+        // Sprites come from pools, so new waves reuse the instances from earlier ones
+        this.ballPool = new SpritePool<Ball>(new SpritePool.Factory<Ball>() {
+            public Ball create() {
+                return new Ball(null, 0, 0, 0, 0, game);
+            }
+        });
+
+        this.enemyPool = new SpritePool<Enemy>(new SpritePool.Factory<Enemy>() {
+            public Enemy create() {
+                Enemy enemy = new Enemy(null, 0, 0, 0, 0, game);
+                enemy.setEntityStore(game.entityStore); // Kept while pooled, so each store slot is reused
+                return enemy;
+            }
+        });
+
         int ballWidth = (int) ( Math.round( Constants.SCREEN_WIDTH / 40 ) );
 
         // Create ball, centered in the screen
-        this.ball = new Ball(null,
+        this.ball = this.ballPool.acquire();
+        this.ball.reset(null,
             (int) ( Math.round( Constants.SCREEN_WIDTH / 2 - ballWidth / 2 ) ),
             (int) ( Math.round( Constants.SCREEN_HEIGHT / 2 - ballWidth / 2 ) ),
             ballWidth,
-            ballWidth,
-            this);
+            ballWidth);
 
         // Create a Paddle on the left side of the screen, halfway down
         this.paddle = new Paddle(null,
@@ -60,24 +163,71 @@ import android.view.MotionEvent;
             ballWidth * 4,
             this);
 
-        this.enemies = new ArrayList<Enemy>();
+        this.enemies = new EntityList<Enemy>();
+        this.spatialHash = new SpatialHash();
+        this.collisionCandidates = new ArrayList<Sprite>();
+
+        // The world is the screen for now, but sprites are drawn through the camera, so a level can outgrow it
+        this.camera = new Camera(Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT);
+        this.scene = new Scene(this.spatialHash, LAYER_COUNT);
+        this.scene.add(this.paddle, LAYER_PLAYER);
+        this.scene.add(this.ball, LAYER_PLAYER);
+        this.spriteBatch = new SpriteBatch();
+        this.dirtyRegion = new DirtyRegion();
+        this.clipBounds = new Rect();
+        this.drawnGameOver = false;
         this.loadEnemies();
+
+        this.hudPaint = new Paint();
+        this.hudPaint.setColor(Color.WHITE);
+
+        this.bannerPaint = new Paint();
+        this.bannerPaint.setTextSize( 20 );
+        this.bannerPaint.setColor( Color.YELLOW );
+
+        this.textBounds = new Rect();
+        this.hudBounds = new Rect();
+        this.hudLives = -1; // Forces the first draw to build the HUD text
+        this.hudScore = -1;
+        this.bannerLayoutText = null;
+
+        // Headless games have no bitmaps to render text into, so they keep drawing it with drawText
+        if(!this.headless && Constants.HUD_GLYPH_CACHE) {
+            this.hudGlyphs = new GlyphCache(this.hudPaint, HUD_GLYPH_ATLAS_WIDTH, HUD_GLYPH_ATLAS_HEIGHT, LIVES_LABEL, SCORE_LABEL);
+            this.bannerGlyphs = new GlyphCache(this.bannerPaint, BANNER_GLYPH_ATLAS_WIDTH, BANNER_GLYPH_ATLAS_HEIGHT, WIN_TEXT, LOSE_TEXT);
+        }
+
+        this.frameMetrics = null;
+        this.frameMetricsText = "";
+        this.frameMetricsBounds = new Rect();
+        this.frameMetricsTextFrame = -FRAME_METRICS_REFRESH_FRAMES;
     }
 
     public void loadEnemies() {
-        int numEnemies = 5;
+        int numEnemies = this.enemiesPerWave;
         int enemyWidth = (int) ( Math.round( Constants.SCREEN_WIDTH / 20 ) );
         int enemyHeight = (int) ( Math.round( Constants.SCREEN_WIDTH / 20 ) );
+        Bitmap enemyImage = null;
+        TextureAtlas.Region enemyRegion = null;
+
+        if(!this.headless) {
+
+            // Decoded and scaled once; later waves get the cached copy
+            enemyImage = BitmapCache.getInstance().getScaledResource(
+                Constants.CURRENT_CONTEXT.getResources(),
+                R.drawable.enemy_img,
+                300,
+                230,
+                Bitmap.Config.ARGB_8888);
+
+            // Pack the image into the atlas once, at the size enemies are drawn at
+            if(this.atlas == null) {
+                this.atlas = new TextureAtlas(ATLAS_SIZE, ATLAS_SIZE);
+            }
 
-        BitmapFactory bitmapFactory = new BitmapFactory();
-        Bitmap decodedBitmap = bitmapFactory.decodeResource(
-            Constants.CURRENT_CONTEXT.getResources(),
-            R.drawable.enemy_img);
-
-        Bitmap enemyImage = Bitmap.createScaledBitmap(decodedBitmap,
-            300,
-            230,
-            false);
+            // If the atlas is full this is null, and enemies fall back to drawing enemyImage
+            enemyRegion = this.atlas.add("enemy_img", enemyImage, enemyWidth, enemyWidth);
+        }
 
         for(int i = 0; i < numEnemies; i++) {
 
@@ -87,7 +237,12 @@ import android.view.MotionEvent;
             // Create random y position, anywhere within screen bounds
             int enemyY = (int) (this.random.nextInt( (int) ( Math.round(Constants.SCREEN_HEIGHT - enemyHeight) ) ) );
 
-            this.enemies.add(new Enemy(enemyImage, enemyX, enemyY, enemyWidth, enemyWidth, this));
+            Enemy enemy = this.enemyPool.acquire();
+            enemy.reset(enemyImage, enemyX, enemyY, enemyWidth, enemyWidth);
+            enemy.setRegion(enemyRegion);
+            this.enemies.add(enemy);
+            this.spatialHash.register(enemy);
+            this.scene.add(enemy, LAYER_ENEMIES);
         }
     }
 
@@ -126,17 +281,24 @@ import android.view.MotionEvent;
         // Create random y position, anywhere within screen bounds
         int newY = (int) (this.random.nextInt( Math.round(Constants.SCREEN_HEIGHT - this.ball.getHeight()) ) );
 
-        this.ball.setX( newX );
-        this.ball.setY( newY );
+        int velocityX = this.ball.getVelocityX();
+        int velocityY = this.ball.getVelocityY();
+
+        this.ball.reset(null, newX, newY, this.ball.getWidth(), this.ball.getHeight());
 
         // Set ball's horizontal velocity away from the player
-        this.ball.setVelocityX( Math.abs( this.ball.getVelocityX() ) );
+        this.ball.setVelocityX( Math.abs( velocityX ) );
+        this.ball.setVelocityY( velocityY );
 
         // Reset this time to allow a small delay
         this.timeBeforeStart = INITIAL_TIME_BEFORE_START;
     }
 
     public void update() {
+        this.tick++;
+
+        // Only a tick that moves the sprites leaves anything to interpolate toward
+        this.stepped = false;
 
         if(this.timeBeforeStart > 0) {
             this.timeBeforeStart--;
@@ -154,77 +316,273 @@ import android.view.MotionEvent;
 
         this.paddle.update(); // Currently unused, since movement follows touch
         this.ball.update(); // Moves ball and handles collision with paddle
+        this.stepped = true;
 
-        for(Enemy enemy : enemies) {
-            enemy.update(); // This could be used for movement or image animation
+        // Moves every enemy at once, rather than calling update() on each one. Big waves are split
+        // across cores; each enemy only moves itself, so this is as deterministic as a serial loop
+        this.entityStore.integrate(this.updatePool);
 
-            // Check for collision with ball, and respond
-            if( Game.colliding(this.ball, enemy) ) {
-                this.enemies.remove( enemy );
-                this.score += 100;
+        // Everything below reads and changes shared state (the hash, the enemy list, the score), so it
+        // stays on this thread, in a fixed order
+
+        // Only enemies sharing a grid cell with the ball can be hit
+        this.spatialHash.rebuild();
+        this.spatialHash.query(this.ball, this.collisionCandidates);
 
-                if(this.enemies.size() == 0) {
-                    this.gameOver = true;
-                }
+        for(int i = 0; i < this.collisionCandidates.size(); i++) {
+            Sprite enemy = this.collisionCandidates.get(i);
+
+            // Check for collision with ball, and respond. The removal is deferred to the end of the tick
+            if( Game.colliding(this.ball, enemy) && this.enemies.remove( enemy ) ) {
+                this.spatialHash.unregister( enemy );
+                this.scene.remove( enemy );
+                enemy.markRemoved( this.dirtyRegion );
+                this.score += 100;
             }
         }
+
+        this.enemies.flushRemovals(this.enemyPool);
+
+        if(this.enemies.size() == 0) {
+            this.gameOver = true;
+        }
     }
 
     public void draw(Canvas canvas) {
-        Paint paint = new Paint();
+        this.draw(canvas, 1.0f);
+    }
+
+    /**
+     * Works out which part of the screen the next draw(canvas, interpolation) changes, for
+     * SurfaceHolder.lockCanvas(Rect). Call once per frame, after the game ticks and before drawing.
+     * @return {Rect} The area to redraw, empty if nothing changed, or null to redraw the whole screen.
+     */
+    public Rect collectDirtyRect(float interpolation) {
+
+        if(!this.stepped) {
+            interpolation = 1.0f;
+        }
+
+        this.paddle.markDirty(this.dirtyRegion, 1.0f);
+        this.ball.markDirty(this.dirtyRegion, interpolation);
+
+        for(int i = 0; i < this.enemies.size(); i++) {
+            this.enemies.get(i).markDirty(this.dirtyRegion, 1.0f);
+        }
+
+        this.updateHudText();
+
+        if(this.frameMetrics != null) {
+            this.updateFrameMetricsText();
+        }
+
+        // Dirty rects are in world coordinates, which only match the screen while the camera is at the
+        // origin. Anywhere else the view scrolls, so the whole screen changes anyway
+        if(this.camera.takeMoved() || !this.camera.isAtOrigin()) {
+            this.dirtyRegion.invalidateAll();
+        }
+
+        // The end-of-game banner sits over everything, so showing or hiding it redraws the whole screen
+        if(this.gameOver != this.drawnGameOver) {
+            this.drawnGameOver = this.gameOver;
+            this.dirtyRegion.invalidateAll();
+        }
+
+        return this.dirtyRegion.getBounds();
+    }
+
+    /** Makes the next frame redraw the whole screen, e.g. when the surface has been recreated. */
+    public void invalidate() {
+        this.dirtyRegion.invalidateAll();
+    }
+
+    /**
+     * Draws the game, with moving sprites blended `interpolation` (0 to 1) of the way
+     * from the previous game tick to the current one. Only the canvas's clip is redrawn, so
+     * a canvas locked to the rect from collectDirtyRect() leaves the rest of the last frame alone.
+     */
+    public void draw(Canvas canvas, float interpolation) {
 
         if(canvas == null) {
             return;
         }
 
-        // Clear canvas and set current frame background to black
+        // A canvas with no clip, e.g. one with no bitmap, gets everything drawn
+        if(!canvas.getClipBounds(this.clipBounds)) {
+            this.clipBounds.set(0, 0, Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT);
+        }
+
+        // Clear canvas and set current frame background to black. This only fills the clip
         canvas.drawColor(Color.BLACK);
 
-        // Draw game elements
-        this.paddle.draw(canvas);
-        this.ball.draw(canvas);
+        if(!this.stepped) {
+            interpolation = 1.0f;
+        }
+
+        // Draw game elements, skipping any that are off screen (e.g. the ball once it passes the paddle)
+        // or outside the redrawn area, which still shows them from the last frame. Enemies share one
+        // atlas, so each layer's are drawn as one batch
+        this.scene.cull(this.camera.getVisibleBounds(this.clipBounds), interpolation);
+        this.camera.begin(canvas);
+        this.scene.draw(canvas, this.spriteBatch, interpolation);
+        this.camera.end(canvas);
+
+        this.updateHudText();
+
+        if(this.hudGlyphs != null) {
+            this.hudGlyphs.draw(canvas, LIVES_LABEL, this.hudLives, this.livesTextX, this.hudTextY);
+            this.hudGlyphs.draw(canvas, SCORE_LABEL, this.hudScore, this.scoreTextX, this.hudTextY);
+        } else {
+            canvas.drawText(this.livesText, this.livesTextX, this.hudTextY, this.hudPaint);
+            canvas.drawText(this.scoreText, this.scoreTextX, this.hudTextY, this.hudPaint);
+        }
 
-        for(Enemy enemy : enemies) {
-            enemy.draw(canvas);
+        if(this.frameMetrics != null) {
+            this.drawFrameMetrics(canvas);
         }
 
-        paint.setColor(Color.WHITE);
+        String bannerText = this.getBannerText();
+        if(bannerText != null) {
+            this.drawBanner(canvas, bannerText);
+        }
 
-        String livesText = "Lives: " + this.lives;
-        String scoreText = "Score: " + this.score;
-        Rect rect = new Rect();
+        this.dirtyRegion.clear();
+    }
+
+    /**
+     * Copies everything draw() would show into `snapshot`, so another thread can draw it while the
+     * game carries on. Call on the thread that runs update(), between ticks.
+     * @param {GameSnapshot} snapshot - The back buffer of a TripleBuffer.
+     * @param {number} publishedNanos - System.nanoTime() now.
+     * @param {number} tickNanos - The length of a game tick.
+     */
+    public void writeSnapshot(GameSnapshot snapshot, long publishedNanos, long tickNanos) {
+        this.updateHudText();
+
+        snapshot.begin(publishedNanos, tickNanos, this.stepped);
+        snapshot.setCamera(this.camera);
+        snapshot.setPaddle(this.paddle);
+        snapshot.setBall(this.ball);
+
+        for(int i = 0; i < this.enemies.size(); i++) {
+            snapshot.addEnemy( this.enemies.get(i) );
+        }
+
+        snapshot.setHud(this.livesText, this.livesTextX, this.scoreText, this.scoreTextX, this.hudTextY, this.hudPaint);
+
+        String bannerText = this.getBannerText();
+        if(bannerText != null) {
+            this.updateBannerLayout(bannerText);
+            snapshot.setBanner(bannerText, this.bannerX, this.bannerY, this.bannerPaint);
+        }
+    }
+
+    /** Returns the end-of-game message to show, or null while the game is on. */
+    private String getBannerText() {
+        if(!this.gameOver) {
+            return null;
+        }
+
+        // Enemies are all gone. You win!
+        if(this.enemies.size() == 0) {
+            return WIN_TEXT;
+        } else if(this.lives == 0) { // Lives are all gone. You lose!
+            return LOSE_TEXT;
+        }
+
+        return null;
+    }
+
+    /** Rebuilds and re-measures the "Lives:" and "Score:" text, but only when those values have changed. */
+    private void updateHudText() {
+        if(this.hudLives == this.lives && this.hudScore == this.score) {
+            return;
+        }
+
+        this.hudLives = this.lives;
+        this.hudScore = this.score;
+        this.livesText = LIVES_LABEL + this.lives;
+        this.scoreText = SCORE_LABEL + this.score;
+
+        // The old text has to be cleared, and the new text may be wider
+        this.dirtyRegion.add(this.hudBounds);
 
         // Use Paint.getTextBounds to help position/center text
-        paint.getTextBounds(livesText, 0, livesText.length (), rect);
-        canvas.drawText("Lives: " + this.lives, (int) (Constants.SCREEN_WIDTH / 4 - rect.width() / 2), rect.height() * 3, paint);
+        this.hudPaint.getTextBounds(this.livesText, 0, this.livesText.length (), this.textBounds);
+        this.livesTextX = (int) (Constants.SCREEN_WIDTH / 4 - this.textBounds.width() / 2);
+        this.hudTextY = this.textBounds.height() * 3;
+        this.textBounds.offset(this.livesTextX, this.hudTextY);
+        this.hudBounds.set(this.textBounds);
+
+        this.hudPaint.getTextBounds(this.scoreText, 0, this.scoreText.length (), this.textBounds);
+        this.scoreTextX = (int) (3 * Constants.SCREEN_WIDTH / 4 - this.textBounds.width() / 2);
+        this.textBounds.offset(this.scoreTextX, this.hudTextY);
+        this.hudBounds.union(this.textBounds);
+
+        // Glyph runs are a full line tall, so they can reach past the ink bounds
+        if(this.hudGlyphs != null) {
+            this.hudGlyphs.getBounds(LIVES_LABEL, this.lives, this.livesTextX, this.hudTextY, this.textBounds);
+            this.hudBounds.union(this.textBounds);
+            this.hudGlyphs.getBounds(SCORE_LABEL, this.score, this.scoreTextX, this.hudTextY, this.textBounds);
+            this.hudBounds.union(this.textBounds);
+        }
 
-        paint.getTextBounds(scoreText, 0, scoreText.length (), rect);
-        canvas.drawText("Score: " + this.score, (int) (3 * Constants.SCREEN_WIDTH / 4 - rect.width() / 2), rect.height() * 3, paint);
+        this.dirtyRegion.add(this.hudBounds);
+    }
 
-        if(this.gameOver) {
-            paint.setTextSize( 20 );
-            paint.setColor( Color.YELLOW );
-
-            // Enemies are all gone. You win!
-            if(this.enemies.size() == 0) {
-                String winText = "You win!";
-
-                paint.getTextBounds(winText, 0, winText.length (), rect);
-                canvas.drawText(winText,
-                    (int) (Constants.SCREEN_WIDTH / 2 - rect.width() / 2),
-                    (int) (Constants.SCREEN_HEIGHT / 2 - rect.height() / 2),
-                    paint);
-
-            } else if(this.lives == 0) { // Lives are all gone. You lose!
-                String loseText = "Better luck next time!";
-
-                paint.getTextBounds(loseText, 0, loseText.length (), rect);
-                canvas.drawText(loseText,
-                    (int) (Constants.SCREEN_WIDTH / 2 - rect.width() / 2),
-                    (int) (Constants.SCREEN_HEIGHT / 2 - rect.height() / 2),
-                    paint);
-            }
+    /**
+     * Shows frame metrics in the corner of the screen, or hides them when null.
+     * @param {FrameMetrics} frameMetrics - Usually MainThread.getFrameMetrics().
+     */
+    public void setFrameMetrics(FrameMetrics frameMetrics) {
+        this.frameMetrics = frameMetrics;
+    }
+
+    /** Rebuilds the frame metrics text every FRAME_METRICS_REFRESH_FRAMES frames. */
+    private void updateFrameMetricsText() {
+        long frameCount = this.frameMetrics.getFrameCount();
+
+        if(frameCount - this.frameMetricsTextFrame < FRAME_METRICS_REFRESH_FRAMES && frameCount >= this.frameMetricsTextFrame) {
+            return;
+        }
+
+        this.frameMetricsText = this.frameMetrics.getSummary();
+        this.frameMetricsTextFrame = frameCount;
+
+        this.dirtyRegion.add(this.frameMetricsBounds);
+        this.hudPaint.getTextBounds(this.frameMetricsText, 0, this.frameMetricsText.length (), this.frameMetricsBounds);
+        this.frameMetricsBounds.offset(10, Constants.SCREEN_HEIGHT - 10);
+        this.dirtyRegion.add(this.frameMetricsBounds);
+    }
+
+    /** Draws the frame metrics overlay along the bottom of the screen. */
+    private void drawFrameMetrics(Canvas canvas) {
+        this.updateFrameMetricsText();
+
+        canvas.drawText(this.frameMetricsText, 10, Constants.SCREEN_HEIGHT - 10, this.hudPaint);
+    }
+
+    /** Draws a centered end-of-game message. */
+    private void drawBanner(Canvas canvas, String text) {
+        this.updateBannerLayout(text);
+
+        if(this.bannerGlyphs != null) {
+            this.bannerGlyphs.draw(canvas, text, this.bannerX, this.bannerY);
+        } else {
+            canvas.drawText(text, this.bannerX, this.bannerY, this.bannerPaint);
+        }
+    }
+
+    /** Centers the end-of-game message, but only re-measures it when the message changes. */
+    private void updateBannerLayout(String text) {
+        if(text.equals(this.bannerLayoutText)) {
+            return;
         }
+
+        this.bannerLayoutText = text;
+        this.bannerPaint.getTextBounds(text, 0, text.length (), this.textBounds);
+        this.bannerX = (int) (Constants.SCREEN_WIDTH / 2 - this.textBounds.width() / 2);
+        this.bannerY = (int) (Constants.SCREEN_HEIGHT / 2 - this.textBounds.height() / 2);
     }
 
     public int getWidth() {
@@ -235,6 +593,61 @@ import android.view.MotionEvent;
         return this.gamePanel.getGamePanelHeight();
     }
 
+    /**
+     * Handles one touch event, between ticks. Coordinates are rounded to what a SessionRecorder
+     * can log whether or not one is attached, so play and replay always see the same values.
+     * @param {number} action - The MotionEvent action.
+     */
+    public void handleTouch(int action, float x, float y) {
+        x = SessionRecorder.quantize(x);
+        y = SessionRecorder.quantize(y);
+
+        if(this.recorder != null) {
+            this.recorder.recordInput(this.tick, action, x, y);
+        }
+
+        this.touchPoint.set(x, y);
+
+        switch(action) {
+            case MotionEvent.ACTION_DOWN:
+                this.handleTouchDown(this.touchPoint);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                this.handleTouchMove(this.touchPoint);
+                break;
+            case MotionEvent.ACTION_UP:
+                this.handleTouchUp(this.touchPoint);
+                break;
+        }
+    }
+
+    /**
+     * Starts logging every touch to `recorder`. Only a recording that starts before the first
+     * tick can be replayed, since the replay starts from a new Game.
+     * @param {SessionRecorder} recorder - Created with this game's seed.
+     */
+    public void setRecorder(SessionRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /** Ends and closes the recording, if there is one. */
+    public void stopRecording() {
+        if(this.recorder != null) {
+            this.recorder.close(this.tick, this.score);
+            this.recorder = null;
+        }
+    }
+
+    /** Returns the seed every random choice in this game comes from. */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /** Returns how many times update() has run. */
+    public long getTick() {
+        return this.tick;
+    }
+
     public void handleTouchDown(PointF touchPoint) {
         this.handleTouchDownOrMove(touchPoint);
     }
@@ -252,32 +665,120 @@ import android.view.MotionEvent;
         }
 
         if(this.gameOver && this.gameOverTime >= 200) {
-            this.gameOver = false;
-            this.gameOverTime = 0;
-            this.score = 0;
-            this.lives = 3;
-            this.loadEnemies();
-            this.resetBallAndTime();            
+            this.restart();
+        }
+    }
+
+    /** Starts a new game with a fresh wave of enemies. */
+    public void restart() {
+        this.gameOver = false;
+        this.gameOverTime = 0;
+        this.score = 0;
+        this.lives = 3;
+
+        // Hand any survivors back to the pool, so the new wave starts from a full set
+        for(int i = 0; i < this.enemies.size(); i++) {
+            this.scene.remove( this.enemies.get(i) );
         }
+
+        this.spatialHash.clear();
+        this.enemies.clear(this.enemyPool);
+        this.loadEnemies();
+        this.resetBallAndTime();
+
+        // Every enemy has changed, so redraw the lot
+        this.dirtyRegion.invalidateAll();
+    }
+
+    /** Skips the pause before the ball starts moving, e.g. so benchmarks measure gameplay from the first tick. */
+    public void skipStartDelay() {
+        this.timeBeforeStart = 0;
+    }
+
+    /**
+     * Sets how many enemies each new wave has. Takes effect at the next restart().
+     * @param {number} enemiesPerWave - The new wave size.
+     */
+    public void setEnemiesPerWave(int enemiesPerWave) {
+        this.enemiesPerWave = enemiesPerWave;
+    }
+
+    public boolean isGameOver() {
+        return this.gameOver;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public Ball getBall() {
+        return this.ball;
+    }
+
+    public EntityList<Enemy> getEnemies() {
+        return this.enemies;
+    }
+
+    /** Returns the camera sprites are drawn through, e.g. to scroll a level larger than the screen. */
+    public Camera getCamera() {
+        return this.camera;
+    }
+
+    /** Returns the layered scene that draw() culls and draws sprites from. */
+    public Scene getScene() {
+        return this.scene;
     }
 
     public void handleTouchUp(PointF touchPoint) {
 
     }
 
+    /** Returns the pool that enemies are drawn from, e.g. to check its hit and miss counts. */
+    public SpritePool<Enemy> getEnemyPool() {
+        return this.enemyPool;
+    }
+
+    /**
+     * Sets the pool that large waves are moved on, or null to move them on the game thread.
+     * @param {ForkJoinPool} updatePool - Shared with other games, so do not shut it down.
+     */
+    public void setUpdatePool(ForkJoinPool updatePool) {
+        this.updatePool = updatePool;
+    }
+
+    /** Returns a pool with a thread per core, created on first use and shared by every Game, or null on one core. */
+    static synchronized ForkJoinPool getSharedUpdatePool() {
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        if(cores < 2) {
+            return null;
+        }
+
+        if(Game.sharedUpdatePool == null) {
+            Game.sharedUpdatePool = new ForkJoinPool(cores); // Its threads are daemons, so they never keep the app alive
+        }
+
+        return Game.sharedUpdatePool;
+    }
+
+    /** Returns the store that enemies' positions and velocities live in. */
+    public EntityStore getEntityStore() {
+        return this.entityStore;
+    }
+
+    /** Returns the pool that balls are drawn from. */
+    public SpritePool<Ball> getBallPool() {
+        return this.ballPool;
+    }
+
     // Convenience accessor method so that Ball can detect collision
     public Paddle getPaddle() {
         return this.paddle;
     }
 
-    static boolean colliding(Ball ball, Enemy enemy) {
-        Rect ballRect = new Rect(ball.getX(), ball.getY(), ball.getX() + ball.getWidth(), ball.getY() + ball.getHeight());
-        Rect enemyRect = new Rect(enemy.getX(), enemy.getY(), enemy.getX() + enemy.getWidth(), enemy.getY() + enemy.getHeight());
-
-        if( Rect.intersects(ballRect, enemyRect) ) {
-            return true;
-        }
+    static boolean colliding(Sprite ball, Sprite enemy) {
 
-        return false;
+        // Compares coordinates directly, rather than building two Rects for Rect.intersects
+        return SpatialHash.overlaps(ball, enemy);
     }/* ; */
 }
\ No newline at end of file
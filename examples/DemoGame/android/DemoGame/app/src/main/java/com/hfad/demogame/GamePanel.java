@@ -4,15 +4,20 @@ import android.graphics.Canvas;
 import android.content.Context;
 import android.graphics.Point;
 import android.graphics.PointF;
+import android.graphics.Rect;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.MotionEvent;
 import android.view.View;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 
-public class GamePanel extends SurfaceView  implements SurfaceHolder.Callback {
+public class GamePanel extends SurfaceView  implements SurfaceHolder.Callback, GameSurface {
 
     private MainThread thread;
     private Game game;
+    private TouchQueue touchQueue;
     private int width;
     private int height;
 
@@ -28,11 +33,19 @@ public class GamePanel extends SurfaceView  implements SurfaceHolder.Callback {
         this.getHolder().addCallback(this);
         Constants.CURRENT_CONTEXT = context;
 
+        // Touches are queued on the UI thread and handled by the game loop, between ticks
+        this.touchQueue = new TouchQueue();
+
         // Create the thread that will run the game loops
         this.thread = new MainThread(this.getHolder(), this);
 
-        // Create the Game instance that will contain the game logic
-        this.game = new Game(this);
+        // Create the Game instance that will contain the game logic. The seed is kept so a recording can replay it
+        long seed = System.nanoTime();
+        this.game = new Game(this, false, seed);
+
+        if(Constants.RECORD_SESSION) {
+            this.startRecording(context, seed);
+        }
 
         this.setFocusable(true);
 
@@ -58,12 +71,36 @@ public class GamePanel extends SurfaceView  implements SurfaceHolder.Callback {
 
             retry = false;
         }
+
+        // Nothing more is played on this surface, so finish the log while the ticks are stopped
+        if(this.game != null) {
+            this.game.stopRecording();
+        }
+    }
+
+    /** Records this session from the first tick, to SessionRecorder.DEFAULT_FILE_NAME in the app's files directory. */
+    private void startRecording(Context context, long seed) {
+        try {
+            File file = new File(context.getFilesDir(), SessionRecorder.DEFAULT_FILE_NAME);
+            this.game.setRecorder( new SessionRecorder(new FileOutputStream(file), seed) );
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
     }
 
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
         this.thread = new MainThread(this.getHolder(), this);
 
+        // A new surface starts out blank, so its first frame has to draw everything
+        if(this.game != null) {
+            this.game.invalidate();
+        }
+
+        if(Constants.SHOW_FRAME_METRICS && this.game != null) {
+            this.game.setFrameMetrics( this.thread.getFrameMetrics() );
+        }
+
         this.thread.setRunning(true);
         this.thread.start(); // Start!
     }
@@ -101,6 +138,7 @@ public class GamePanel extends SurfaceView  implements SurfaceHolder.Callback {
         }
 
         try {
+            this.dispatchTouchEvents();
             this.game.update();
         } catch(NullPointerException e) {
             e.printStackTrace();
@@ -123,26 +161,79 @@ public class GamePanel extends SurfaceView  implements SurfaceHolder.Callback {
         }
     }
 
+    /**
+     * Returns the area the next frame changes, for SurfaceHolder.lockCanvas(Rect): empty if
+     * nothing changed, or null if the whole surface should be locked and redrawn.
+     * @param {number} interpolation - How far (0 to 1) the frame lies between the last game tick and the next.
+     */
+    public Rect getDirtyRect(float interpolation) {
+
+        // Game may not have been created before first thread calls to this method
+        if(!Constants.DIRTY_RECT_RENDERING || this.game == null) {
+            return null;
+        }
+
+        return this.game.collectDirtyRect(interpolation);
+    }
+
+    /**
+     * Copies the game into `snapshot`, for SimulationThread in two-thread mode.
+     * @param {number} publishedNanos - System.nanoTime() now.
+     * @param {number} tickNanos - The length of a game tick.
+     */
+    public void writeSnapshot(GameSnapshot snapshot, long publishedNanos, long tickNanos) {
+
+        // Game may not have been created before first thread calls to this method
+        if(this.game == null) {
+            return;
+        }
+
+        this.game.writeSnapshot(snapshot, publishedNanos, tickNanos);
+    }
+
+    /**
+     * Draws the current frame for the fixed-timestep loop in MainThread.
+     * @param {number} interpolation - How far (0 to 1) the frame lies between the last game tick and the next.
+     */
+    public void draw(Canvas canvas, float interpolation) {
+        super.draw(canvas);
+
+        // Game may not have been created before first thread calls to this method
+        if(this.game == null) {
+            return;
+        }
+
+        try {
+            this.game.draw(canvas, interpolation);
+        } catch(NullPointerException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Hands the touches queued since the last tick to the game, on the game loop's thread. */
+    private void dispatchTouchEvents() {
+        while(this.touchQueue.poll()) {
+            this.game.handleTouch( this.touchQueue.getAction(), this.touchQueue.getX(), this.touchQueue.getY() );
+        }
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         float x = (float) (event.getX());
         float y = (float) (event.getY());
 
-        switch(event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                this.game.handleTouchDown(new PointF(x, y));
-                break;
-            case MotionEvent.ACTION_MOVE:
-                this.game.handleTouchMove(new PointF(x, y));
-                break;
-            case MotionEvent.ACTION_UP:
-                this.game.handleTouchUp(new PointF(x, y));
-                break;
-        }
+        // Game state is only changed on the game loop's thread, so just queue the event. The masked action
+        // leaves out which pointer moved, which the game doesn't use and the session log has no room for
+        this.touchQueue.offer(event.getActionMasked(), x, y, event.getEventTime());
 
         return true;
     }
 
+    /** Returns the queue touch events wait in until the next game tick. */
+    public TouchQueue getTouchQueue() {
+        return this.touchQueue;
+    }
+
     public MainThread getThread() {
         return this.thread;
     }
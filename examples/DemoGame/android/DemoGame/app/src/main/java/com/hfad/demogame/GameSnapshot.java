@@ -0,0 +1,245 @@
+package com.hfad.demogame;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import java.util.Arrays;
+
+/**
+ * Everything needed to draw one game tick, copied out of Game by the simulation thread so the
+ * render thread can draw it while the simulation moves on. Snapshots live in a TripleBuffer and
+ * are reused, so nothing is allocated per tick once the arrays are big enough. A published snapshot
+ * is only read, never changed, until the buffer hands it back to the writer.
+ */
+public class GameSnapshot {
+
+    static final int INITIAL_CAPACITY = 64;
+
+    private boolean valid;
+    private long publishedNanos;
+    private long tickNanos;
+    private boolean stepped;
+
+    // Where the camera was, so the render thread draws the world as Game.draw() would
+    private int cameraX;
+    private int cameraY;
+    private Rect visibleBounds;
+
+    private Rect paddleBounds;
+    private Paint paddlePaint;
+
+    private int ballPreviousX;
+    private int ballPreviousY;
+    private int ballX;
+    private int ballY;
+    private int ballWidth;
+    private int ballHeight;
+    private Paint ballPaint;
+
+    private int enemyCount;
+    private int[] enemyX;
+    private int[] enemyY;
+    private int[] enemyWidth;
+    private int[] enemyHeight;
+    private TextureAtlas.Region[] enemyRegion;
+    private Bitmap[] enemyImage;
+    private Paint[] enemyPaint;
+
+    private String livesText;
+    private String scoreText;
+    private int livesTextX;
+    private int scoreTextX;
+    private int hudTextY;
+    private Paint hudPaint;
+
+    private String bannerText;
+    private int bannerX;
+    private int bannerY;
+    private Paint bannerPaint;
+
+    // Only used while drawing, on the render thread
+    private Rect drawBounds;
+    private RectF drawBoundsF;
+
+    public GameSnapshot() {
+        this.valid = false;
+        this.visibleBounds = new Rect();
+        this.paddleBounds = new Rect();
+        this.enemyCount = 0;
+        this.enemyX = new int[INITIAL_CAPACITY];
+        this.enemyY = new int[INITIAL_CAPACITY];
+        this.enemyWidth = new int[INITIAL_CAPACITY];
+        this.enemyHeight = new int[INITIAL_CAPACITY];
+        this.enemyRegion = new TextureAtlas.Region[INITIAL_CAPACITY];
+        this.enemyImage = new Bitmap[INITIAL_CAPACITY];
+        this.enemyPaint = new Paint[INITIAL_CAPACITY];
+        this.bannerText = null;
+        this.drawBounds = new Rect();
+        this.drawBoundsF = new RectF();
+    }
+
+    /**
+     * Starts a new snapshot, forgetting the enemies from the last one.
+     * @param {number} publishedNanos - System.nanoTime() of the tick this snapshot shows.
+     * @param {number} tickNanos - The length of a tick, for interpolating the ball.
+     * @param {boolean} stepped - False if the tick moved nothing, so there is nothing to interpolate.
+     */
+    public void begin(long publishedNanos, long tickNanos, boolean stepped) {
+        this.valid = true;
+        this.publishedNanos = publishedNanos;
+        this.tickNanos = tickNanos;
+        this.stepped = stepped;
+        this.bannerText = null;
+
+        // Let go of the last snapshot's bitmaps and paints; the arrays themselves are kept
+        Arrays.fill(this.enemyRegion, 0, this.enemyCount, null);
+        Arrays.fill(this.enemyImage, 0, this.enemyCount, null);
+        Arrays.fill(this.enemyPaint, 0, this.enemyCount, null);
+        this.enemyCount = 0;
+    }
+
+    /** Copies the camera's position and the world area it shows; sprites outside that area are not drawn. */
+    public void setCamera(Camera camera) {
+        this.cameraX = camera.getX();
+        this.cameraY = camera.getY();
+        this.visibleBounds.set( camera.getVisibleBounds() );
+    }
+
+    public void setPaddle(Sprite paddle) {
+        this.paddleBounds.set( paddle.getBounds() );
+        this.paddlePaint = paddle.getPaint();
+    }
+
+    public void setBall(Ball ball) {
+        this.ballPreviousX = ball.getPreviousX();
+        this.ballPreviousY = ball.getPreviousY();
+        this.ballX = ball.getX();
+        this.ballY = ball.getY();
+        this.ballWidth = ball.getWidth();
+        this.ballHeight = ball.getHeight();
+        this.ballPaint = ball.getPaint();
+    }
+
+    public void addEnemy(Sprite enemy) {
+        if(this.enemyCount == this.enemyX.length) {
+            this.grow();
+        }
+
+        int i = this.enemyCount;
+        this.enemyX[i] = enemy.getX();
+        this.enemyY[i] = enemy.getY();
+        this.enemyWidth[i] = enemy.getWidth();
+        this.enemyHeight[i] = enemy.getHeight();
+        this.enemyRegion[i] = enemy.getRegion();
+        this.enemyImage[i] = enemy.getImage();
+        this.enemyPaint[i] = enemy.getPaint();
+        this.enemyCount++;
+    }
+
+    /** Sets the HUD text, already laid out by Game. */
+    public void setHud(String livesText, int livesTextX, String scoreText, int scoreTextX, int hudTextY, Paint hudPaint) {
+        this.livesText = livesText;
+        this.livesTextX = livesTextX;
+        this.scoreText = scoreText;
+        this.scoreTextX = scoreTextX;
+        this.hudTextY = hudTextY;
+        this.hudPaint = hudPaint;
+    }
+
+    /** Sets the end-of-game message, already laid out by Game. */
+    public void setBanner(String bannerText, int bannerX, int bannerY, Paint bannerPaint) {
+        this.bannerText = bannerText;
+        this.bannerX = bannerX;
+        this.bannerY = bannerY;
+        this.bannerPaint = bannerPaint;
+    }
+
+    /** Returns false until the snapshot has been written at least once. */
+    public boolean isValid() {
+        return this.valid;
+    }
+
+    /**
+     * Returns how far (0 to 1) the ball should be drawn between its previous and current positions
+     * at `nowNanos`. The render thread shows each tick over the tick that follows it.
+     */
+    public float getInterpolation(long nowNanos) {
+        if(!this.stepped || this.tickNanos <= 0) {
+            return 1.0f;
+        }
+
+        float interpolation = (float) (nowNanos - this.publishedNanos) / this.tickNanos;
+        return Math.max(0.0f, Math.min(1.0f, interpolation));
+    }
+
+    /**
+     * Draws the snapshot: the sprites through the camera, skipping any outside its visible bounds,
+     * then the HUD in screen coordinates. Call on the render thread only.
+     */
+    public void draw(Canvas canvas, float interpolation) {
+
+        // Clear canvas and set current frame background to black
+        canvas.drawColor(Color.BLACK);
+
+        if(!this.valid) {
+            return;
+        }
+
+        // The same transform as Camera.begin(), which can't be used here: the camera belongs to the simulation thread
+        canvas.save();
+
+        if(this.cameraX != 0 || this.cameraY != 0) {
+            canvas.translate(-this.cameraX, -this.cameraY);
+        }
+
+        if( Rect.intersects(this.visibleBounds, this.paddleBounds) ) {
+            canvas.drawRect(this.paddleBounds, this.paddlePaint);
+        }
+
+        int ballDrawX = (int) (this.ballPreviousX + (this.ballX - this.ballPreviousX) * interpolation);
+        int ballDrawY = (int) (this.ballPreviousY + (this.ballY - this.ballPreviousY) * interpolation);
+
+        if( this.visibleBounds.intersects(ballDrawX, ballDrawY, ballDrawX + this.ballWidth, ballDrawY + this.ballHeight) ) {
+            this.drawBoundsF.set(ballDrawX, ballDrawY, ballDrawX + this.ballWidth, ballDrawY + this.ballHeight);
+            canvas.drawOval(this.drawBoundsF, this.ballPaint);
+        }
+
+        for(int i = 0; i < this.enemyCount; i++) {
+            this.drawBounds.set(this.enemyX[i], this.enemyY[i], this.enemyX[i] + this.enemyWidth[i], this.enemyY[i] + this.enemyHeight[i]);
+
+            if( !Rect.intersects(this.visibleBounds, this.drawBounds) ) {
+                continue;
+            }
+
+            if(this.enemyRegion[i] != null) {
+                canvas.drawBitmap( this.enemyRegion[i].getAtlas().getBitmap(), this.enemyRegion[i].getBounds(), this.drawBounds, this.enemyPaint[i] );
+            } else if(this.enemyImage[i] != null) {
+                canvas.drawBitmap( this.enemyImage[i], null, this.drawBounds, this.enemyPaint[i] );
+            }
+        }
+
+        canvas.restore();
+
+        canvas.drawText(this.livesText, this.livesTextX, this.hudTextY, this.hudPaint);
+        canvas.drawText(this.scoreText, this.scoreTextX, this.hudTextY, this.hudPaint);
+
+        if(this.bannerText != null) {
+            canvas.drawText(this.bannerText, this.bannerX, this.bannerY, this.bannerPaint);
+        }
+    }
+
+    private void grow() {
+        int capacity = this.enemyX.length * 2;
+
+        this.enemyX = Arrays.copyOf(this.enemyX, capacity);
+        this.enemyY = Arrays.copyOf(this.enemyY, capacity);
+        this.enemyWidth = Arrays.copyOf(this.enemyWidth, capacity);
+        this.enemyHeight = Arrays.copyOf(this.enemyHeight, capacity);
+        this.enemyRegion = Arrays.copyOf(this.enemyRegion, capacity);
+        this.enemyImage = Arrays.copyOf(this.enemyImage, capacity);
+        this.enemyPaint = Arrays.copyOf(this.enemyPaint, capacity);
+    }
+}
@@ -0,0 +1,11 @@
+package com.hfad.demogame;
+
+/** What Game needs from the view it runs in. GamePanel is the on-device one; HeadlessGameSurface stands in for it off-device. */
+public interface GameSurface {
+
+    /** Returns the width of the game area. */
+    int getGamePanelWidth();
+
+    /** Returns the height of the game area. */
+    int getGamePanelHeight();
+}
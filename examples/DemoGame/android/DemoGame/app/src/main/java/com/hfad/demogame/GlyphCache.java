@@ -0,0 +1,192 @@
+package com.hfad.demogame;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import java.util.HashMap;
+
+/**
+ * Text rendered once into a TextureAtlas and drawn from then on as bitmap copies, so the HUD
+ * doesn't measure and rasterize its text every frame. Labels and banners are kept as whole runs,
+ * and numbers are drawn digit by digit from ten cached glyphs, without building a String.
+ * Pack every run the HUD needs in the constructor, so nothing is rendered mid-game. Not thread-safe.
+ */
+public class GlyphCache {
+
+    static final String DIGITS = "0123456789";
+    static final int MAX_DIGITS = 10; // Enough for any int
+
+    private TextureAtlas atlas;
+    private Paint paint;
+    private Paint blitPaint;
+    private HashMap<String, TextureAtlas.Region> runs;
+    private TextureAtlas.Region[] digits;
+    private TextureAtlas.Region minus;
+    private int baseline;
+    private int lineHeight;
+
+    // Only used while drawing
+    private int[] digitBuffer;
+    private Rect drawBounds;
+
+    /**
+     * @param {Paint} paint - The paint to render with. It is copied, so later changes to it don't apply.
+     * @param {number} width - Atlas width, in pixels.
+     * @param {number} height - Atlas height, in pixels.
+     * @param {String[]} runs - Text to pack up front, e.g. labels and banners.
+     */
+    public GlyphCache(Paint paint, int width, int height, String... runs) {
+        this.atlas = new TextureAtlas(width, height);
+        this.paint = new Paint(paint);
+        this.paint.setTextAlign(Paint.Align.LEFT);
+        this.blitPaint = new Paint();
+        this.runs = new HashMap<String, TextureAtlas.Region>();
+        this.digits = new TextureAtlas.Region[DIGITS.length()];
+        this.baseline = (int) Math.ceil( -this.paint.ascent() );
+        this.lineHeight = (int) Math.ceil( this.paint.descent() - this.paint.ascent() );
+        this.digitBuffer = new int[MAX_DIGITS];
+        this.drawBounds = new Rect();
+
+        for(int i = 0; i < this.digits.length; i++) {
+            this.digits[i] = this.getRun( DIGITS.substring(i, i + 1) );
+        }
+
+        this.minus = this.getRun("-");
+
+        for(int i = 0; i < runs.length; i++) {
+            this.getRun(runs[i]);
+        }
+    }
+
+    /**
+     * Returns the cached run for `text`, rendering it into the atlas the first time.
+     * @return {TextureAtlas.Region} The run, or null if the atlas is full.
+     */
+    public TextureAtlas.Region getRun(String text) {
+        TextureAtlas.Region region = this.runs.get(text);
+
+        if(region == null && !this.runs.containsKey(text)) {
+            region = this.atlas.addText(text, text, this.paint);
+            this.runs.put(text, region); // A run that didn't fit stays null, so we don't retry every frame
+        }
+
+        return region;
+    }
+
+    /** Returns the distance from the top of a run to its baseline. */
+    public int getBaseline() {
+        return this.baseline;
+    }
+
+    /** Returns the height of every run. */
+    public int getLineHeight() {
+        return this.lineHeight;
+    }
+
+    /** Returns the width `text` is drawn at. */
+    public int measure(String text) {
+        TextureAtlas.Region region = this.getRun(text);
+
+        if(region == null) {
+            return (int) Math.ceil( this.paint.measureText(text) );
+        }
+
+        return region.getWidth();
+    }
+
+    /** Returns the width `label` followed by `value` is drawn at. */
+    public int measure(String label, int value) {
+        int width = this.measure(label);
+        int count = this.splitDigits(value);
+
+        if(value < 0) {
+            width += this.minus != null ? this.minus.getWidth() : (int) Math.ceil( this.paint.measureText("-") );
+        }
+
+        for(int i = 0; i < count; i++) {
+            TextureAtlas.Region digit = this.digits[ this.digitBuffer[i] ];
+            width += digit != null ? digit.getWidth() : (int) Math.ceil( this.paint.measureText(DIGITS, this.digitBuffer[i], this.digitBuffer[i] + 1) );
+        }
+
+        return width;
+    }
+
+    /**
+     * Sets `out` to the area drawing `label` followed by `value` covers.
+     * @param {number} x - Left edge, as passed to draw().
+     * @param {number} y - Baseline, as passed to draw().
+     */
+    public void getBounds(String label, int value, int x, int y, Rect out) {
+        out.set(x, y - this.baseline, x + this.measure(label, value), y - this.baseline + this.lineHeight);
+    }
+
+    /**
+     * Draws `text` with its left edge at `x` and its baseline at `y`, like Canvas.drawText.
+     * @return {number} The x just after the text.
+     */
+    public int draw(Canvas canvas, String text, int x, int y) {
+        TextureAtlas.Region region = this.getRun(text);
+
+        if(region == null) {
+            canvas.drawText(text, x, y, this.paint);
+            return x + (int) Math.ceil( this.paint.measureText(text) );
+        }
+
+        return this.blit(canvas, region, x, y);
+    }
+
+    /**
+     * Draws `label` followed by `value`, e.g. "Score: " and 120, without building a String.
+     * @return {number} The x just after the text.
+     */
+    public int draw(Canvas canvas, String label, int value, int x, int y) {
+        int count = this.splitDigits(value);
+
+        x = this.draw(canvas, label, x, y);
+
+        if(value < 0) {
+            x = this.draw(canvas, "-", x, y);
+        }
+
+        for(int i = 0; i < count; i++) {
+            TextureAtlas.Region digit = this.digits[ this.digitBuffer[i] ];
+
+            if(digit == null) {
+                canvas.drawText(DIGITS, this.digitBuffer[i], this.digitBuffer[i] + 1, x, y, this.paint);
+                x += (int) Math.ceil( this.paint.measureText(DIGITS, this.digitBuffer[i], this.digitBuffer[i] + 1) );
+            } else {
+                x = this.blit(canvas, digit, x, y);
+            }
+        }
+
+        return x;
+    }
+
+    private int blit(Canvas canvas, TextureAtlas.Region region, int x, int y) {
+        int top = y - this.baseline;
+
+        this.drawBounds.set(x, top, x + region.getWidth(), top + region.getHeight());
+        canvas.drawBitmap(this.atlas.getBitmap(), region.getBounds(), this.drawBounds, this.blitPaint);
+
+        return x + region.getWidth();
+    }
+
+    // Fills digitBuffer with the decimal digits of |value|, most significant first, and returns how many
+    private int splitDigits(int value) {
+        long magnitude = Math.abs( (long) value ); // Integer.MIN_VALUE has no int magnitude
+        int count = 0;
+
+        do {
+            this.digitBuffer[count++] = (int) (magnitude % 10);
+            magnitude /= 10;
+        } while(magnitude > 0);
+
+        for(int i = 0, j = count - 1; i < j; i++, j--) {
+            int digit = this.digitBuffer[i];
+            this.digitBuffer[i] = this.digitBuffer[j];
+            this.digitBuffer[j] = digit;
+        }
+
+        return count;
+    }
+}
@@ -2,16 +2,29 @@ package com.hfad.demogame;
 
 import android.graphics.Canvas;
 import android.graphics.Point;
+import android.graphics.Rect;
 import android.view.SurfaceHolder;
 
 public class MainThread extends Thread {
+
+    /** Receives the metrics of each frame, on the game thread, once the frame (and any frame-cap sleep) is done. */
+    public interface FrameListener {
+        void onFrame(FrameMetrics metrics);
+    }
 
     private Canvas canvas;
     private boolean running;
     private float averageFPS;
     static final int MAX_FPS  = 30;
+    static final int UPDATES_PER_SECOND = 60;
+    static final int MAX_UPDATES_PER_FRAME = 5; // Bound on catch-up ticks, so a slow frame cannot snowball
+    private long tickNanos;
     private SurfaceHolder surfaceHolder;
     private GamePanel gamePanel;
+    private FrameMetrics frameMetrics;
+    private volatile FrameListener frameListener;
+    private long frameCount;
+    private long totalTime;
 
     public MainThread(SurfaceHolder surfaceHolder, GamePanel gamePanel) {
         super(); // Invoke the default Thread constructor
@@ -20,6 +33,11 @@ import android.view.SurfaceHolder;
         this.gamePanel = gamePanel;
 
         this.averageFPS = 30.00f;
+        this.tickNanos = 1000000000L / UPDATES_PER_SECOND;
+        this.frameMetrics = new FrameMetrics();
+        this.frameListener = null;
+        this.frameCount = 0L;
+        this.totalTime = 0L;
         this.running = false;
         this.canvas = new Canvas(); // For converter to identify type
         this.canvas = null;
@@ -48,31 +66,116 @@ import android.view.SurfaceHolder;
             return this.surfaceHolder.lockCanvas();
     }
 
+    /**
+     * Sets how many times per second the game logic is stepped, independently of the frame rate.
+     * @param {number} updatesPerSecond - The new simulation tick rate.
+     */
+    public void setUpdatesPerSecond(int updatesPerSecond) {
+        if(updatesPerSecond > 0) {
+            this.tickNanos = 1000000000L / updatesPerSecond;
+        }
+    }
+
+    /** Returns the frame rate, averaged over the last MAX_FPS frames. */
+    public float getAverageFPS() {
+        return this.averageFPS;
+    }
+
+    /** Returns the metrics this thread records each frame. Only read them on the game thread. */
+    public FrameMetrics getFrameMetrics() {
+        return this.frameMetrics;
+    }
+
+    /**
+     * Sets the listener told about every frame, or null for none.
+     * @param {FrameListener} frameListener - Called on the game thread, so keep it quick.
+     */
+    public void setFrameListener(FrameListener frameListener) {
+        this.frameListener = frameListener;
+    }
+
+    /** Returns the length of one simulation tick, in nanoseconds. */
+    public long getTickNanos() {
+        return this.tickNanos;
+    }
+
     @Override
     public void run() {
 
+        if(Constants.SPLIT_SIMULATION_THREAD) {
+            this.runRenderLoop();
+            return;
+        }
+
         // Set these vars to longs in Java version
         long startTime = 0L;
-        long timeMillis = 1000L;
-        timeMillis = 1000 / MAX_FPS; // Integer division - we will need integers for mseconds
-        long waitTime = 0L;
-        long frameCount = 0L;
-        long totalTime = 0L;
-        long targetTime = 1000L;
-        targetTime = 1000 / MAX_FPS;
+        long previousTime = 0L;
+        long lag = 0L;
+        int updates = 0;
+        float interpolation = 0.0f;
+        long lockedTime = 0L;
+        long updatedTime = 0L;
+        long drawnTime = 0L;
+        Rect dirtyRect = null;
+
+        previousTime = System.nanoTime();
 
         if(this.running) { // Unnecessary in Java - used in JS version
              while(this.running) { // `while` here in JS will cause infinite loop and crash the page
                     startTime = System.nanoTime();
                     this.canvas = null;
+                    updates = 0;
+
+                    // Bank the real time that has passed, then spend it in fixed simulation ticks
+                    lag += startTime - previousTime;
+                    previousTime = startTime;
+
+                    // Until each stage runs, it counts as taking no time
+                    lockedTime = startTime;
+                    updatedTime = startTime;
+                    drawnTime = startTime;
 
                     try {
-                        this.canvas = this.surfaceHolder.lockCanvas();
                          synchronized (surfaceHolder) {
 
                             // Here's where the gameplay is moved forward
-                            this.gamePanel.updateAndDraw(this.canvas);
+                            while(lag >= this.tickNanos && updates < MAX_UPDATES_PER_FRAME) {
+                                this.gamePanel.update();
+                                lag -= this.tickNanos;
+                                updates++;
+                            }
+
+                            // After a long stall, drop the backlog instead of fast-forwarding through it
+                            if(lag >= this.tickNanos) {
+                                lag = lag % this.tickNanos;
+                            }
+
+                            // How far we are between the last tick and the next one, from 0 to 1
+                            interpolation = (float) lag / this.tickNanos;
+
+                            // Only lock what changed since the last frame; null means the whole surface
+                            dirtyRect = this.gamePanel.getDirtyRect(interpolation);
+                            updatedTime = System.nanoTime();
+                            lockedTime = updatedTime;
+                            drawnTime = updatedTime;
                          }
+
+                        if(dirtyRect == null) {
+                            this.canvas = this.surfaceHolder.lockCanvas();
+                        } else if(!dirtyRect.isEmpty()) {
+                            this.canvas = this.surfaceHolder.lockCanvas(dirtyRect); // The surface keeps last frame's pixels outside it
+                        }
+
+                        lockedTime = System.nanoTime();
+                        drawnTime = lockedTime;
+
+                        // With nothing dirty, the last frame stays up and nothing is locked or drawn
+                        if(this.canvas != null) {
+                            synchronized (surfaceHolder) {
+                                this.gamePanel.draw(this.canvas, interpolation);
+                                drawnTime = System.nanoTime();
+                            }
+                        }
                     } catch(NullPointerException e) {
                         e.printStackTrace();
                     } finally {
@@ -85,26 +188,123 @@ import android.view.SurfaceHolder;
                         }
                     }
 
-                    timeMillis = System.nanoTime() - startTime / 1000000; // nano to millis
-                    waitTime = targetTime - timeMillis;
+                    this.finishFrame(startTime, updatedTime, lockedTime, drawnTime, updates);
+             }
+        }
+    }
 
-                    try {
-                        if(waitTime > 0) {
-                            this.sleep(waitTime); // capping the frame rate
+    /**
+     * Two-thread mode: a SimulationThread runs the game ticks and publishes a GameSnapshot after
+     * each batch, and this thread only draws the latest one. The threads share no lock, so
+     * lockCanvas and unlockCanvasAndPost overlap with game ticks instead of adding to them.
+     */
+    private void runRenderLoop() {
+        TripleBuffer<GameSnapshot> snapshots = new TripleBuffer<GameSnapshot>(new GameSnapshot(), new GameSnapshot(), new GameSnapshot());
+        SimulationThread simulation = new SimulationThread(this.gamePanel, snapshots, this.tickNanos);
+        GameSnapshot snapshot = null;
+        long startTime = 0L;
+        long lockedTime = 0L;
+        long drawnTime = 0L;
+        float interpolation = 0.0f;
+        boolean retry = true;
+
+        simulation.setRunning(true);
+        simulation.start();
+
+        try {
+            while(this.running) {
+                startTime = System.nanoTime();
+                this.canvas = null;
+
+                // Whatever tick finished last; if none has since the last frame, redraw the same one
+                snapshots.acquire();
+                snapshot = snapshots.getFront();
+                interpolation = snapshot.getInterpolation(startTime);
+
+                lockedTime = startTime;
+                drawnTime = startTime;
+
+                try {
+                    this.canvas = this.surfaceHolder.lockCanvas();
+                    lockedTime = System.nanoTime();
+                    drawnTime = lockedTime;
+
+                    if(this.canvas != null) {
+                        snapshot.draw(this.canvas, interpolation);
+                        drawnTime = System.nanoTime();
+                    }
+                } catch(NullPointerException e) {
+                    e.printStackTrace();
+                } finally {
+                    if(this.canvas != null) {
+                        try {
+                            this.surfaceHolder.unlockCanvasAndPost(this.canvas);
+                        } catch(NullPointerException e) {
+                            e.printStackTrace();
                         }
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
                     }
+                }
 
-                    totalTime += System.nanoTime() - startTime;
-                    frameCount++;
+                // No ticks run on this thread, so the update time is 0
+                this.finishFrame(startTime, startTime, lockedTime, drawnTime, 0);
+            }
+        } finally {
+            simulation.setRunning(false);
+            simulation.interrupt(); // Cuts its sleep short
 
-                    if(frameCount == MAX_FPS) {
-                        this.averageFPS = 1000 / ((totalTime / frameCount) / 1000000);
-                        frameCount = 0;
-                        totalTime = 0;
-                    }
-             }
+            while(retry) {
+                try {
+                    simulation.join();
+                    retry = false;
+                } catch(InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sleeps off the rest of the frame to cap the frame rate, then records the frame's metrics
+     * and tells the listener. Times are System.nanoTime() values taken during the frame.
+     * @param {number} startTime - When the frame started.
+     * @param {number} updatedTime - When the game ticks (if any) finished.
+     * @param {number} lockedTime - When lockCanvas returned.
+     * @param {number} drawnTime - When drawing finished.
+     * @param {number} updates - How many game ticks ran this frame.
+     */
+    private void finishFrame(long startTime, long updatedTime, long lockedTime, long drawnTime, int updates) {
+        long postedTime = System.nanoTime();
+        long targetTime = 1000 / MAX_FPS; // Integer division - we will need integers for mseconds
+        long timeMillis = (postedTime - startTime) / 1000000; // nano to millis
+        long waitTime = targetTime - timeMillis;
+        long frameTime = 0L;
+        FrameListener listener = null;
+
+        if(waitTime > 0) {
+            this.sleep((int) waitTime); // capping the frame rate
+        }
+
+        frameTime = System.nanoTime() - startTime;
+        this.totalTime += frameTime;
+        this.frameCount++;
+
+        this.frameMetrics.recordFrame(updatedTime - startTime,
+            drawnTime - lockedTime,
+            (lockedTime - updatedTime) + (postedTime - drawnTime),
+            frameTime,
+            updates,
+            targetTime * 1000000L);
+
+        if(this.frameCount == MAX_FPS) {
+            this.averageFPS = this.frameCount * 1000000000.0f / this.totalTime; // Float math, so short frames do not truncate to zero
+            this.frameMetrics.setAverageFPS(this.averageFPS);
+            this.frameCount = 0;
+            this.totalTime = 0;
+        }
+
+        listener = this.frameListener;
+        if(listener != null) {
+            listener.onFrame(this.frameMetrics);
         }
     }
 }
\ No newline at end of file
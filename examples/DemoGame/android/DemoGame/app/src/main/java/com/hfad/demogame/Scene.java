@@ -0,0 +1,171 @@
+package com.hfad.demogame;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import java.util.ArrayList;
+
+/**
+ * The sprites to draw, each on one of a fixed number of layers, drawn lowest layer first. Each frame
+ * only the sprites in view are drawn: those registered with the broadphase SpatialHash are found by
+ * querying it for the visible area, and the few that are not (e.g. the player) are tested one by one.
+ * Visible sprites are bucketed by layer as they are found, so z-order costs nothing per frame and
+ * nothing is sorted. Within a layer no order is kept, so sprites sharing a layer should not overlap.
+ */
+public class Scene {
+
+    private SpatialHash broadphase;
+    private ArrayList<Sprite> unhashed;
+    private ArrayList<Sprite> candidates;
+
+    // One list per layer of the sprites that passed culling this frame, reused between frames
+    private ArrayList<ArrayList<Sprite>> visible;
+    private Rect cullBounds;
+
+    /**
+     * @param {SpatialHash} broadphase - Where most sprites are registered, e.g. the collision hash. Query
+     *   results that were never added to the scene are not drawn.
+     * @param {number} layerCount - How many layers there are. Layer 0 is drawn first, at the back.
+     */
+    public Scene(SpatialHash broadphase, int layerCount) {
+        this.broadphase = broadphase;
+        this.unhashed = new ArrayList<Sprite>();
+        this.candidates = new ArrayList<Sprite>();
+        this.visible = new ArrayList<ArrayList<Sprite>>(layerCount);
+        this.cullBounds = new Rect();
+
+        for(int i = 0; i < layerCount; i++) {
+            this.visible.add( new ArrayList<Sprite>() );
+        }
+    }
+
+    /** Returns the number of layers. */
+    public int getLayerCount() {
+        return this.visible.size();
+    }
+
+    /**
+     * Adds a sprite to a layer, or moves it there. It can be registered with the broadphase before
+     * or after; until it is, it is culled on its own every frame. A sprite unregistered while in the
+     * scene is not drawn again until it is added again.
+     */
+    public void add(Sprite sprite, int layer) {
+        if(layer < 0 || layer >= this.visible.size()) {
+            throw new IllegalArgumentException("No layer " + layer);
+        }
+
+        if(sprite.getHashSlot() == -1 && !this.unhashed.contains(sprite)) {
+            this.unhashed.add(sprite);
+        }
+
+        sprite.setSceneLayer(layer);
+    }
+
+    /** Takes a sprite out of the scene, so it is no longer drawn. */
+    public void remove(Sprite sprite) {
+        if(sprite.getSceneLayer() == -1) {
+            return;
+        }
+
+        sprite.setSceneLayer(-1);
+        this.unhashed.remove(sprite); // Only a handful of sprites are ever in here
+    }
+
+    /**
+     * Finds the sprites inside `bounds`, layer by layer, for the next draw().
+     * @param {Rect} bounds - The world area to draw, e.g. from Camera.getVisibleBounds().
+     * @param {number} interpolation - As passed to draw(), so sprites are culled where they are drawn.
+     */
+    public void cull(Rect bounds, float interpolation) {
+        for(int i = 0; i < this.visible.size(); i++) {
+            this.visible.get(i).clear();
+        }
+
+        if(bounds.isEmpty()) {
+            return;
+        }
+
+        this.cullBounds.set(bounds);
+
+        for(int i = this.unhashed.size() - 1; i >= 0; i--) {
+            Sprite sprite = this.unhashed.get(i);
+
+            // Registered since it was added: the broadphase query finds it now, so it would be drawn twice
+            if(sprite.getHashSlot() != -1) {
+                int last = this.unhashed.size() - 1;
+                this.unhashed.set( i, this.unhashed.get(last) );
+                this.unhashed.remove(last);
+                continue;
+            }
+
+            this.addIfVisible(sprite, interpolation);
+        }
+
+        // A removal leaves the grid empty until it is rebuilt, which the game loop only does on its next tick
+        if(!this.broadphase.isBuilt()) {
+            this.broadphase.rebuild();
+        }
+
+        // Sprites are bucketed by where they were at the last tick, but drawn up to a tick earlier;
+        // widening the query by a cell finds any that have moved into view since
+        int margin = this.broadphase.getCellSize();
+        this.broadphase.query(this.cullBounds.left - margin,
+            this.cullBounds.top - margin,
+            this.cullBounds.right + margin,
+            this.cullBounds.bottom + margin,
+            this.candidates);
+
+        for(int i = 0; i < this.candidates.size(); i++) {
+            this.addIfVisible( this.candidates.get(i), interpolation );
+        }
+
+        this.candidates.clear(); // Don't keep removed sprites reachable until the next frame
+    }
+
+    /** Returns how many sprites the last cull() found. */
+    public int getVisibleCount() {
+        int count = 0;
+
+        for(int i = 0; i < this.visible.size(); i++) {
+            count += this.visible.get(i).size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Draws what the last cull() found, back layer first. In each layer, sprites drawn out of an atlas
+     * go through `batch`, which is flushed before the next layer, so layers never interleave.
+     * @param {Canvas} canvas - Already in world coordinates, e.g. after Camera.begin().
+     * @param {SpriteBatch} batch - Empty, and left empty.
+     * @param {number} interpolation - How far (0 to 1) moving sprites are from their previous tick to their current one.
+     */
+    public void draw(Canvas canvas, SpriteBatch batch, float interpolation) {
+        for(int layer = 0; layer < this.visible.size(); layer++) {
+            ArrayList<Sprite> sprites = this.visible.get(layer);
+
+            for(int i = 0; i < sprites.size(); i++) {
+                Sprite sprite = sprites.get(i);
+
+                if(sprite.getRegion() != null) {
+                    batch.add(sprite);
+                } else {
+                    sprite.draw(canvas, interpolation);
+                }
+            }
+
+            batch.flush(canvas);
+        }
+    }
+
+    private void addIfVisible(Sprite sprite, float interpolation) {
+        int layer = sprite.getSceneLayer();
+
+        if(layer == -1) {
+            return;
+        }
+
+        if( Rect.intersects(this.cullBounds, sprite.getDrawBounds(interpolation)) ) {
+            this.visible.get(layer).add(sprite);
+        }
+    }
+}
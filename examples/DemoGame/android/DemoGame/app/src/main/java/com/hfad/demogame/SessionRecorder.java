@@ -0,0 +1,160 @@
+package com.hfad.demogame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a game session to a compact binary log that SessionReplayer can play back exactly: the
+ * Random seed Game was created with, then every touch event with the tick it was handled on. Ticks
+ * and coordinates are stored as varint deltas from the previous event, so a typical MOVE costs
+ * 3 to 5 bytes. The log ends with the final tick and score, so a replay can check it matched; a log
+ * from a process that died before close() has no end, and replays up to its last whole event.
+ */
+public class SessionRecorder {
+
+    static final int MAGIC = 0x44475331; // "DGS1"
+    static final int VERSION = 1;
+    static final int SUBPIXELS = 16; // Touch coordinates are kept to 1/16 of a pixel
+    static final int END_OF_SESSION = 0xFF;
+    static final String DEFAULT_FILE_NAME = "last-session.dgs";
+
+    private DataOutputStream out;
+    private long lastTick;
+    private int lastX;
+    private int lastY;
+    private int events;
+
+    /**
+     * Writes the log header. The stream is closed by close().
+     * @param {OutputStream} stream - Where the log goes, e.g. a FileOutputStream.
+     * @param {number} seed - The seed the recorded Game was created with.
+     */
+    public SessionRecorder(OutputStream stream, long seed) throws IOException {
+        this.out = new DataOutputStream( new BufferedOutputStream(stream) );
+        this.lastTick = 0L;
+        this.lastX = 0;
+        this.lastY = 0;
+        this.events = 0;
+
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(seed);
+        this.out.writeInt(Constants.SCREEN_WIDTH);
+        this.out.writeInt(Constants.SCREEN_HEIGHT);
+        this.out.writeInt(MainThread.UPDATES_PER_SECOND);
+    }
+
+    /**
+     * Logs one touch event. If writing fails, recording stops and the game carries on.
+     * @param {number} tick - How many game ticks had run when the event was handled.
+     * @param {number} action - The masked MotionEvent action (getActionMasked()), which fits in a byte.
+     * @param {number} x - Touch x, already passed through quantize().
+     * @param {number} y - Touch y, already passed through quantize().
+     */
+    public void recordInput(long tick, int action, float x, float y) {
+        if(this.out == null) {
+            return;
+        }
+
+        int subX = Math.round(x * SUBPIXELS);
+        int subY = Math.round(y * SUBPIXELS);
+
+        try {
+            SessionRecorder.writeVarLong(this.out, tick - this.lastTick);
+            this.out.writeByte(action);
+            SessionRecorder.writeVarLong(this.out, SessionRecorder.zigzag(subX - this.lastX));
+            SessionRecorder.writeVarLong(this.out, SessionRecorder.zigzag(subY - this.lastY));
+        } catch(IOException e) {
+            e.printStackTrace();
+            this.closeQuietly();
+            return;
+        }
+
+        this.lastTick = tick;
+        this.lastX = subX;
+        this.lastY = subY;
+        this.events++;
+    }
+
+    /**
+     * Ends the log and closes the stream.
+     * @param {number} tick - How many game ticks had run in total.
+     * @param {number} score - The score at the end, which a replay should reproduce.
+     */
+    public void close(long tick, int score) {
+        if(this.out == null) {
+            return;
+        }
+
+        try {
+            SessionRecorder.writeVarLong(this.out, tick - this.lastTick);
+            this.out.writeByte(END_OF_SESSION);
+            this.out.writeInt(score);
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+
+        this.closeQuietly();
+    }
+
+    /** Returns how many events have been logged. */
+    public int getEventCount() {
+        return this.events;
+    }
+
+    /** Returns true until close() is called or a write fails. */
+    public boolean isRecording() {
+        return this.out != null;
+    }
+
+    /** Rounds a touch coordinate to what the log can hold, so play and replay see the same value. */
+    static float quantize(float value) {
+        return Math.round(value * SUBPIXELS) / (float) SUBPIXELS;
+    }
+
+    private void closeQuietly() {
+        try {
+            this.out.close();
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+
+        this.out = null;
+    }
+
+    // Maps signed deltas to unsigned ones (0, -1, 1, -2 -> 0, 1, 2, 3), so small negatives stay short as varints
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // 7 bits per byte, low bits first; the high bit says another byte follows
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            out.writeByte( (int) ((value & 0x7F) | 0x80) );
+            value >>>= 7;
+        }
+
+        out.writeByte( (int) value );
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0L;
+        int shift = 0;
+        int b = 0;
+
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0 && shift < 64);
+
+        return value;
+    }
+}
@@ -0,0 +1,78 @@
+package com.hfad.demogame;
+
+/**
+ * Runs the game logic at a fixed tick rate, apart from drawing. After each batch of ticks it copies
+ * the game into the back buffer of a TripleBuffer of GameSnapshots and publishes it, so the render
+ * thread (MainThread in two-thread mode) always has a complete tick to draw and neither thread waits.
+ */
+public class SimulationThread extends Thread {
+
+    private volatile boolean running;
+    private GamePanel gamePanel;
+    private TripleBuffer<GameSnapshot> snapshots;
+    private long tickNanos;
+
+    public SimulationThread(GamePanel gamePanel, TripleBuffer<GameSnapshot> snapshots, long tickNanos) {
+        super("SimulationThread");
+
+        this.gamePanel = gamePanel;
+        this.snapshots = snapshots;
+        this.tickNanos = tickNanos;
+        this.running = false;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    @Override
+    public void run() {
+        long previousTime = System.nanoTime();
+        long startTime = 0L;
+        long lag = 0L;
+        long waitNanos = 0L;
+        int updates = 0;
+
+        // Show the starting state straight away, rather than a blank screen until the first tick
+        this.publish();
+
+        while(this.running) {
+            startTime = System.nanoTime();
+            lag += startTime - previousTime;
+            previousTime = startTime;
+
+            updates = 0;
+            while(lag >= this.tickNanos && updates < MainThread.MAX_UPDATES_PER_FRAME) {
+                this.gamePanel.update();
+                lag -= this.tickNanos;
+                updates++;
+            }
+
+            // After a long stall, drop the backlog instead of fast-forwarding through it
+            if(lag >= this.tickNanos) {
+                lag = lag % this.tickNanos;
+            }
+
+            if(updates > 0) {
+                this.publish();
+            }
+
+            // Sleep until the next tick is due
+            waitNanos = this.tickNanos - lag - (System.nanoTime() - startTime);
+
+            if(waitNanos > 0) {
+                try {
+                    Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+                } catch(InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish() {
+        GameSnapshot snapshot = this.snapshots.getBack();
+        this.gamePanel.writeSnapshot(snapshot, System.nanoTime(), this.tickNanos);
+        this.snapshots.publish();
+    }
+}
@@ -0,0 +1,281 @@
+package com.hfad.demogame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Uniform-grid spatial hash, used as the collision broadphase. Sprites are registered once, the grid
+ * is rebuilt from their current bounds each game tick, and queries only visit the cells that a region
+ * touches, so collision cost follows local density rather than the total number of sprites.
+ */
+public class SpatialHash {
+
+    static final int CELLS_ACROSS_SCREEN = 10;
+    static final int BUCKET_COUNT = 1024; // Must be a power of 2, so we can mask instead of mod
+    static final int INITIAL_ENTRY_CAPACITY = 64;
+
+    private int cellSize;
+    private ArrayList<Sprite> sprites;
+
+    // Each bucket is a linked chain of entries, stored in flat arrays that are reused between ticks
+    private int[] bucketHeads;
+    private int[] entryNext;
+    private int[] entrySprite;
+    private int[] entryCellX;
+    private int[] entryCellY;
+    private int entryCount;
+    private boolean built;
+
+    // Marks which sprites a query has already reported, so a sprite spanning several cells is returned once
+    private int[] queryStamps;
+    private int queryStamp;
+
+    public SpatialHash() {
+        this( Math.max(1, Constants.SCREEN_WIDTH / CELLS_ACROSS_SCREEN) );
+    }
+
+    public SpatialHash(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        this.sprites = new ArrayList<Sprite>();
+
+        this.bucketHeads = new int[BUCKET_COUNT];
+        this.entryNext = new int[INITIAL_ENTRY_CAPACITY];
+        this.entrySprite = new int[INITIAL_ENTRY_CAPACITY];
+        this.entryCellX = new int[INITIAL_ENTRY_CAPACITY];
+        this.entryCellY = new int[INITIAL_ENTRY_CAPACITY];
+        this.entryCount = 0;
+
+        this.queryStamps = new int[INITIAL_ENTRY_CAPACITY];
+        this.queryStamp = 0;
+
+        this.clearBuckets();
+    }
+
+    /** Returns the width and height of one grid cell. */
+    public int getCellSize() {
+        return this.cellSize;
+    }
+
+    /** Returns the number of registered sprites. */
+    public int size() {
+        return this.sprites.size();
+    }
+
+    /** Returns true if every registered sprite has been bucketed since the last register or unregister. */
+    public boolean isBuilt() {
+        return this.built;
+    }
+
+    /** Adds a sprite to the grid. It is bucketed on the next call to rebuild(). */
+    public void register(Sprite sprite) {
+        if(sprite.getHashSlot() != -1) {
+            return;
+        }
+
+        sprite.setHashSlot( this.sprites.size() );
+        this.sprites.add(sprite);
+        this.built = false;
+    }
+
+    /** Removes a sprite from the grid. Call rebuild() before querying again. */
+    public void unregister(Sprite sprite) {
+        int index = sprite.getHashSlot();
+
+        if(index < 0 || index >= this.sprites.size() || this.sprites.get(index) != sprite) {
+            return;
+        }
+
+        // Swap-remove; order does not matter here, and entries are rebuilt anyway
+        int last = this.sprites.size() - 1;
+        Sprite moved = this.sprites.get(last);
+        this.sprites.set(index, moved);
+        moved.setHashSlot(index);
+        this.sprites.remove(last);
+        sprite.setHashSlot(-1);
+        this.clearBuckets();
+    }
+
+    /** Removes every sprite from the grid. */
+    public void clear() {
+        for(int i = 0; i < this.sprites.size(); i++) {
+            this.sprites.get(i).setHashSlot(-1);
+        }
+
+        this.sprites.clear();
+        this.clearBuckets();
+    }
+
+    /** Re-buckets every registered sprite from its current bounds. Call once per tick, after sprites move. */
+    public void rebuild() {
+        this.clearBuckets();
+
+        if(this.queryStamps.length < this.sprites.size()) {
+            this.queryStamps = new int[this.sprites.size() * 2];
+        }
+
+        for(int i = 0; i < this.sprites.size(); i++) {
+            Sprite sprite = this.sprites.get(i);
+
+            int minCellX = this.cellFor( sprite.getX() );
+            int minCellY = this.cellFor( sprite.getY() );
+            int maxCellX = this.cellFor( sprite.getX() + sprite.getWidth() - 1 );
+            int maxCellY = this.cellFor( sprite.getY() + sprite.getHeight() - 1 );
+
+            for(int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for(int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                    this.insert(i, cellX, cellY);
+                }
+            }
+        }
+
+        this.built = true;
+    }
+
+    /**
+     * Fills `results` with the registered sprites that share a grid cell with `sprite`, which
+     * need not be registered itself. These are candidates only; confirm with overlaps().
+     */
+    public void query(Sprite sprite, ArrayList<Sprite> results) {
+        this.query(sprite.getX(),
+            sprite.getY(),
+            sprite.getX() + sprite.getWidth(),
+            sprite.getY() + sprite.getHeight(),
+            sprite,
+            results);
+    }
+
+    /** Fills `results` with the registered sprites that share a grid cell with the given region. */
+    public void query(int left, int top, int right, int bottom, ArrayList<Sprite> results) {
+        this.query(left, top, right, bottom, null, results);
+    }
+
+    /**
+     * Fills `pairs` with every pair of registered sprites whose bounds overlap, flattened as
+     * [a0, b0, a1, b1, ...]. Each pair is reported exactly once.
+     */
+    public void findPairs(ArrayList<Sprite> pairs) {
+        pairs.clear();
+
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            for(int e = this.bucketHeads[bucket]; e != -1; e = this.entryNext[e]) {
+                for(int f = this.entryNext[e]; f != -1; f = this.entryNext[f]) {
+
+                    // Different cells can hash to the same bucket; only pair entries from the same cell
+                    if(this.entryCellX[e] != this.entryCellX[f] || this.entryCellY[e] != this.entryCellY[f]) {
+                        continue;
+                    }
+
+                    Sprite a = this.sprites.get( this.entrySprite[e] );
+                    Sprite b = this.sprites.get( this.entrySprite[f] );
+
+                    if(a == b || !SpatialHash.overlaps(a, b)) {
+                        continue;
+                    }
+
+                    // Overlapping sprites share several cells when they are large; report the pair
+                    // only from the cell holding the top-left corner of their intersection
+                    if(this.cellFor( Math.max(a.getX(), b.getX()) ) == this.entryCellX[e]
+                        && this.cellFor( Math.max(a.getY(), b.getY()) ) == this.entryCellY[e]) {
+                        pairs.add(a);
+                        pairs.add(b);
+                    }
+                }
+            }
+        }
+    }
+
+    private void query(int left, int top, int right, int bottom, Sprite exclude, ArrayList<Sprite> results) {
+        results.clear();
+
+        // Stamps are compared by value, so wrapping around just needs a fresh start
+        this.queryStamp++;
+        if(this.queryStamp == Integer.MAX_VALUE) {
+            this.queryStamp = 1;
+            Arrays.fill(this.queryStamps, 0);
+        }
+
+        int minCellX = this.cellFor(left);
+        int minCellY = this.cellFor(top);
+        int maxCellX = this.cellFor(right - 1);
+        int maxCellY = this.cellFor(bottom - 1);
+
+        for(int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for(int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                int bucket = SpatialHash.bucketFor(cellX, cellY);
+
+                for(int e = this.bucketHeads[bucket]; e != -1; e = this.entryNext[e]) {
+                    int spriteIndex = this.entrySprite[e];
+
+                    if(this.entryCellX[e] != cellX || this.entryCellY[e] != cellY
+                        || this.queryStamps[spriteIndex] == this.queryStamp) {
+                        continue;
+                    }
+
+                    this.queryStamps[spriteIndex] = this.queryStamp;
+
+                    Sprite sprite = this.sprites.get(spriteIndex);
+                    if(sprite != exclude) {
+                        results.add(sprite);
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(int spriteIndex, int cellX, int cellY) {
+        if(this.entryCount == this.entrySprite.length) {
+            this.growEntries();
+        }
+
+        int bucket = SpatialHash.bucketFor(cellX, cellY);
+        int entry = this.entryCount++;
+
+        this.entrySprite[entry] = spriteIndex;
+        this.entryCellX[entry] = cellX;
+        this.entryCellY[entry] = cellY;
+        this.entryNext[entry] = this.bucketHeads[bucket];
+        this.bucketHeads[bucket] = entry;
+    }
+
+    private void growEntries() {
+        int capacity = this.entrySprite.length * 2;
+
+        this.entryNext = Arrays.copyOf(this.entryNext, capacity);
+        this.entrySprite = Arrays.copyOf(this.entrySprite, capacity);
+        this.entryCellX = Arrays.copyOf(this.entryCellX, capacity);
+        this.entryCellY = Arrays.copyOf(this.entryCellY, capacity);
+    }
+
+    private void clearBuckets() {
+        Arrays.fill(this.bucketHeads, -1);
+        this.entryCount = 0;
+        this.built = false;
+    }
+
+    private int cellFor(int coordinate) {
+
+        // Floor rather than truncate, so sprites past the left or top edge land in negative cells
+        return Math.floorDiv(coordinate, this.cellSize);
+    }
+
+    static int bucketFor(int cellX, int cellY) {
+        return ((cellX * 73856093) ^ (cellY * 19349663)) & (BUCKET_COUNT - 1);
+    }
+
+    /** Allocation-free bounding box test, with the same edge rules as Rect.intersects. */
+    static boolean overlaps(int aLeft, int aTop, int aRight, int aBottom, int bLeft, int bTop, int bRight, int bBottom) {
+        return aLeft < bRight && bLeft < aRight && aTop < bBottom && bTop < aBottom;
+    }
+
+    /** Returns true if the two sprites' bounds overlap. */
+    static boolean overlaps(Sprite a, Sprite b) {
+        return SpatialHash.overlaps(a.getX(),
+            a.getY(),
+            a.getX() + a.getWidth(),
+            a.getY() + a.getHeight(),
+            b.getX(),
+            b.getY(),
+            b.getX() + b.getWidth(),
+            b.getY() + b.getHeight());
+    }
+}
@@ -2,6 +2,9 @@ package com.hfad.demogame;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
 
 /** Class representing a sprite - a game object with a physical onscreen presence. */
 public class Sprite {
@@ -14,7 +17,27 @@ public class Sprite {
     private int width;
     private int height;
     private Game game;
+
+    // When set, position, size and velocity live in the store instead of the fields above
+    private EntityStore store;
+    private int storeId;
+
+    // Render state reused by every draw call, so drawing a frame does not allocate
+    private Paint paint;
+    private Rect bounds;
+    private RectF boundsF;
+    private TextureAtlas.Region region;
 
+    // Where this sprite was last drawn, so that area can be redrawn once it moves or goes away
+    private Rect drawnBounds;
+    private boolean hasDrawnBounds;
+
+    // Bookkeeping for the containers this sprite lives in, so removing it from them is O(1)
+    private int entityIndex;
+    private boolean pendingRemoval;
+    private int hashSlot;
+    private int sceneLayer;
+
     public Sprite(Bitmap image, int x, int y, int width, int height, Game game) {
 
         this.x = x;
@@ -28,29 +51,230 @@ public class Sprite {
 
         // Note: image may be null if this this object is drawn programmatically
         this.image = image;
+
+        this.store = null;
+        this.storeId = -1;
+
+        this.paint = new Paint();
+        this.bounds = new Rect();
+        this.boundsF = new RectF();
+        this.region = null;
+
+        this.drawnBounds = new Rect();
+        this.hasDrawnBounds = false;
+
+        this.entityIndex = -1;
+        this.pendingRemoval = false;
+        this.hashSlot = -1;
+        this.sceneLayer = -1;
+    }
+
+    /**
+     * Puts a pooled sprite back into a freshly constructed state. Subclasses that keep their
+     * own copies of these fields must override this and call super.reset().
+     */
+    public void reset(Bitmap image, int x, int y, int width, int height) {
+        this.writeState(x, y, width, height, 0, 0);
+
+        this.image = image;
+        this.hasDrawnBounds = false;
+    }
+
+    /** Called when this sprite is handed back to a SpritePool. */
+    public void onRelease() {
+        this.image = null; // Let the pool keep the sprite without pinning its Bitmap
+        this.region = null;
+
+        // A pooled sprite keeps its store slot, so stop it drifting in EntityStore.integrate()
+        this.setVelocityX(0);
+        this.setVelocityY(0);
+    }
+
+    /** Returns the store this sprite's position, size and velocity live in, or null if it keeps its own. */
+    public EntityStore getEntityStore() {
+        return this.store;
+    }
+
+    /**
+     * Moves this sprite's position, size and velocity into `store`, which holds them from then on,
+     * so the sprite is only a handle. Game does this for enemies so it can move them all in one loop.
+     * @param {EntityStore} store - The store to move into, or null to keep the values in this sprite again.
+     */
+    public void setEntityStore(EntityStore store) {
+        if(store == this.store) {
+            return;
+        }
+
+        int x = this.getX();
+        int y = this.getY();
+        int width = this.getWidth();
+        int height = this.getHeight();
+        int velocityX = this.getVelocityX();
+        int velocityY = this.getVelocityY();
+
+        if(this.store != null) {
+            this.store.release(this.storeId);
+        }
+
+        this.store = store;
+        this.storeId = store == null ? -1 : store.allocate();
+        this.writeState(x, y, width, height, velocityX, velocityY);
+    }
+
+    private void writeState(int x, int y, int width, int height, int velocityX, int velocityY) {
+        if(this.store != null) {
+            this.store.set(this.storeId, x, y, width, height, velocityX, velocityY);
+            return;
+        }
+
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+    }
+
+    /** Returns the image this sprite was created or last reset with, or null if it is drawn programmatically. */
+    public Bitmap getImage() {
+        return this.image;
+    }
+
+    /** Returns the atlas region this sprite is drawn from, or null if it draws some other way. */
+    public TextureAtlas.Region getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Sets the atlas region this sprite is drawn from.
+     * @param {TextureAtlas.Region} region - Should already be packed at this sprite's width and height.
+     */
+    public void setRegion(TextureAtlas.Region region) {
+        this.region = region;
+    }
+
+    /** Copies this sprite's atlas region to its current bounds. */
+    public void drawRegion(Canvas canvas) {
+        canvas.drawBitmap( this.region.getAtlas().getBitmap(),
+            this.region.getBounds(),
+            this.getBounds(),
+            this.paint);
+    }
+
+    /** Returns the Paint this sprite reuses for drawing. Set its color and style once, not per frame. */
+    public Paint getPaint() {
+        return this.paint;
+    }
+
+    /** Updates this sprite's reusable bounds Rect in place to its current position, and returns it. */
+    public Rect getBounds() {
+        return this.getBounds(this.getX(), this.getY());
+    }
+
+    /**
+     * Updates this sprite's reusable bounds Rect in place, and returns it.
+     * @param {number} left - The x position to draw the sprite at.
+     * @param {number} top - The y position to draw the sprite at.
+     */
+    public Rect getBounds(int left, int top) {
+        this.bounds.set(left, top, left + this.getWidth(), top + this.getHeight());
+        return this.bounds;
+    }
+
+    /** Float version of getBounds(int, int), for drawOval and other RectF draws. */
+    public RectF getBoundsF(int left, int top) {
+        this.boundsF.set(left, top, left + this.getWidth(), top + this.getHeight());
+        return this.boundsF;
+    }
+
+    /**
+     * Returns where draw(canvas, interpolation) will put this sprite. Sprites that draw somewhere
+     * other than their current position override this to match.
+     */
+    public Rect getDrawBounds(float interpolation) {
+        return this.getBounds();
+    }
+
+    /**
+     * Adds this sprite to `dirtyRegion` if it will be drawn somewhere other than where it was last
+     * drawn: both the old bounds, to be cleared, and the new ones. Call once per frame, before drawing.
+     * @return {boolean} True if the sprite was dirty.
+     */
+    public boolean markDirty(DirtyRegion dirtyRegion, float interpolation) {
+        Rect drawBounds = this.getDrawBounds(interpolation);
+
+        if(this.hasDrawnBounds) {
+            if(this.drawnBounds.equals(drawBounds)) {
+                return false;
+            }
+
+            dirtyRegion.add(this.drawnBounds);
+        }
+
+        dirtyRegion.add(drawBounds);
+        this.drawnBounds.set(drawBounds);
+        this.hasDrawnBounds = true;
+
+        return true;
+    }
+
+    /** Adds where this sprite was last drawn to `dirtyRegion`, so the area is cleared once it is removed. */
+    public void markRemoved(DirtyRegion dirtyRegion) {
+        if(this.hasDrawnBounds) {
+            dirtyRegion.add(this.drawnBounds);
+            this.hasDrawnBounds = false;
+        }
     }
 
     /** Draws the current object to the game screen. */
     public void draw(Canvas canvas) {}
 
-    /** Performs state updates to the current instance for the current game loop cycle. */
+    /**
+     * Draws the current object, blended `interpolation` (0 to 1) of the way from its previous tick to its current one.
+     * Sprites that do not move on their own can ignore this and keep the default.
+     */
+    public void draw(Canvas canvas, float interpolation) {
+        this.draw(canvas);
+    }
+
+    /**
+     * Performs state updates to the current instance for the current game loop cycle.
+     * Sprites in an EntityStore are moved by EntityStore.integrate() instead.
+     */
     public void update() {
+        if(this.store != null) {
+            this.store.moveBy(this.storeId, this.store.getVelocityX(this.storeId), this.store.getVelocityY(this.storeId));
+            return;
+        }
+
         this.x += this.velocityX;
         this.y += this.velocityY;
     }
 
     /** Returns the width of this sprite in the game. */
     public int getWidth() {
+        if(this.store != null) {
+            return this.store.getWidth(this.storeId);
+        }
+
         return this.width;
     }
 
     /** Returns the height of this sprite in the game. */
     public int getHeight() {
+        if(this.store != null) {
+            return this.store.getHeight(this.storeId);
+        }
+
         return this.height;
     }
 
     /** Returns this sprite's `x` {number} property. */
     public int getX() {
+        if(this.store != null) {
+            return this.store.getX(this.storeId);
+        }
+
         return this.x;
     }
 
@@ -59,11 +283,20 @@ public class Sprite {
      * @param {number} newX - The new value for this sprite's x.
      */
     public void setX(int newX) {
+        if(this.store != null) {
+            this.store.setX(this.storeId, newX);
+            return;
+        }
+
         this.x = newX;
     }
 
     /** Returns this sprite's `y` {number} property. */
     public int getY() {
+        if(this.store != null) {
+            return this.store.getY(this.storeId);
+        }
+
         return this.y;
     }
 
@@ -72,11 +305,56 @@ public class Sprite {
      * @param {number} newY - The new value for this sprite's y.
      */
     public void setY(int newY) {
+        if(this.store != null) {
+            this.store.setY(this.storeId, newY);
+            return;
+        }
+
         this.y = newY;
     }
 
+    /** Returns this sprite's position in its EntityList, or -1 if it is not in one. */
+    int getEntityIndex() {
+        return this.entityIndex;
+    }
+
+    void setEntityIndex(int entityIndex) {
+        this.entityIndex = entityIndex;
+    }
+
+    /** Returns true if this sprite has been removed from its EntityList, but the removal is not yet flushed. */
+    public boolean isPendingRemoval() {
+        return this.pendingRemoval;
+    }
+
+    void setPendingRemoval(boolean pendingRemoval) {
+        this.pendingRemoval = pendingRemoval;
+    }
+
+    /** Returns this sprite's slot in its SpatialHash, or -1 if it is not registered. */
+    int getHashSlot() {
+        return this.hashSlot;
+    }
+
+    void setHashSlot(int hashSlot) {
+        this.hashSlot = hashSlot;
+    }
+
+    /** Returns the Scene layer this sprite is drawn on, or -1 if it is not in a Scene. */
+    int getSceneLayer() {
+        return this.sceneLayer;
+    }
+
+    void setSceneLayer(int sceneLayer) {
+        this.sceneLayer = sceneLayer;
+    }
+
     /** Returns this sprite's `velocityX` {number} property. */
     public int getVelocityX() {
+        if(this.store != null) {
+            return this.store.getVelocityX(this.storeId);
+        }
+
         return this.velocityX;
     }
 
@@ -85,11 +363,20 @@ public class Sprite {
      * @param {number} newVX - The new value for this sprite's velocityX.
      */
     public void setVelocityX(int newVX) {
+        if(this.store != null) {
+            this.store.setVelocityX(this.storeId, newVX);
+            return;
+        }
+
         this.velocityX = newVX;
     }
 
     /** Returns this sprite's `velocityY` {number} property. */
     public int getVelocityY() {
+        if(this.store != null) {
+            return this.store.getVelocityY(this.storeId);
+        }
+
         return this.velocityY;
     }
 
@@ -98,6 +385,11 @@ public class Sprite {
      * @param {number} newVY - The new value for this sprite's velocityY.
      */
     public void setVelocityY(int newVY) {
+        if(this.store != null) {
+            this.store.setVelocityY(this.storeId, newVY);
+            return;
+        }
+
         this.velocityY = newVY;
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.hfad.demogame;
+
+import android.graphics.Canvas;
+import java.util.ArrayList;
+
+/**
+ * Collects sprites for a frame, then draws them grouped by atlas, so every draw out of the same
+ * atlas bitmap is issued back to back (which a hardware canvas can merge). Sprites in one batch
+ * should not overlap, since grouping changes their draw order; sprites without an atlas region
+ * are drawn afterwards, in the order they were added.
+ */
+public class SpriteBatch {
+
+    private ArrayList<Sprite> queued;
+    private ArrayList<TextureAtlas> atlases;
+
+    public SpriteBatch() {
+        this.queued = new ArrayList<Sprite>();
+        this.atlases = new ArrayList<TextureAtlas>();
+    }
+
+    /** Queues a sprite to be drawn by the next flush(). */
+    public void add(Sprite sprite) {
+        this.queued.add(sprite);
+
+        TextureAtlas.Region region = sprite.getRegion();
+        if(region != null && !this.atlases.contains( region.getAtlas() )) {
+            this.atlases.add( region.getAtlas() );
+        }
+    }
+
+    /** Draws every queued sprite, one atlas at a time, then empties the batch. */
+    public void flush(Canvas canvas) {
+        for(int a = 0; a < this.atlases.size(); a++) {
+            TextureAtlas atlas = this.atlases.get(a);
+
+            for(int i = 0; i < this.queued.size(); i++) {
+                Sprite sprite = this.queued.get(i);
+
+                if(sprite.getRegion() != null && sprite.getRegion().getAtlas() == atlas) {
+                    sprite.drawRegion(canvas);
+                }
+            }
+        }
+
+        for(int i = 0; i < this.queued.size(); i++) {
+            if(this.queued.get(i).getRegion() == null) {
+                this.queued.get(i).draw(canvas);
+            }
+        }
+
+        this.queued.clear();
+        this.atlases.clear();
+    }
+}
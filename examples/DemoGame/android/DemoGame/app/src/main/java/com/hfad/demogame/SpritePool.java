@@ -0,0 +1,113 @@
+package com.hfad.demogame;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps released sprites around so later waves can reuse them instead of allocating. Callers
+ * acquire() a sprite, then set it up through Sprite.reset(); release() hands it back.
+ * Hit and miss counts are kept so the pool can be sized for a level.
+ */
+public class SpritePool<T extends Sprite> {
+
+    /** Creates a new sprite when the pool is empty. */
+    public interface Factory<T> {
+        T create();
+    }
+
+    static final int DEFAULT_MAX_SIZE = 256;
+
+    private ArrayList<T> free;
+    private Factory<T> factory;
+    private int maxSize;
+    private int hits;
+    private int misses;
+    private int drops;
+
+    public SpritePool(Factory<T> factory) {
+        this(factory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param {Factory} factory - Creates sprites on a miss.
+     * @param {number} maxSize - The most released sprites to hold on to; extras are left to the garbage collector.
+     */
+    public SpritePool(Factory<T> factory, int maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.free = new ArrayList<T>();
+        this.hits = 0;
+        this.misses = 0;
+        this.drops = 0;
+    }
+
+    /** Returns a pooled sprite if one is free, or a new one otherwise. Call reset() on it before use. */
+    public T acquire() {
+        int last = this.free.size() - 1;
+
+        if(last >= 0) {
+            this.hits++;
+            return this.free.remove(last);
+        }
+
+        this.misses++;
+        return this.factory.create();
+    }
+
+    /** Returns a sprite to the pool. The sprite must not be used again until it is re-acquired. */
+    public void release(T sprite) {
+        if(sprite == null) {
+            return;
+        }
+
+        sprite.onRelease();
+
+        if(this.free.size() < this.maxSize) {
+            this.free.add(sprite);
+        } else {
+            sprite.setEntityStore(null); // A dropped sprite's store slot can go to the next new one
+            this.drops++;
+        }
+    }
+
+    /** Creates sprites ahead of time, so the first waves hit the pool too. */
+    public void prewarm(int count) {
+        while(this.free.size() < count && this.free.size() < this.maxSize) {
+            this.free.add( this.factory.create() );
+        }
+    }
+
+    /** Returns the number of sprites waiting to be acquired. */
+    public int getFreeCount() {
+        return this.free.size();
+    }
+
+    /** Returns how many acquire() calls were served from the pool. */
+    public int getHitCount() {
+        return this.hits;
+    }
+
+    /** Returns how many acquire() calls had to create a new sprite. */
+    public int getMissCount() {
+        return this.misses;
+    }
+
+    /** Returns how many released sprites were dropped because the pool was full. */
+    public int getDropCount() {
+        return this.drops;
+    }
+
+    /** Clears the hit, miss and drop counters. */
+    public void resetCounters() {
+        this.hits = 0;
+        this.misses = 0;
+        this.drops = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SpritePool[free=" + this.free.size()
+            + ", hits=" + this.hits
+            + ", misses=" + this.misses
+            + ", drops=" + this.drops + "]";
+    }
+}
@@ -0,0 +1,150 @@
+package com.hfad.demogame;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import java.util.HashMap;
+
+/**
+ * A single Bitmap that several drawables are packed into at load time, each already scaled to the
+ * size it is drawn at. Sprites reference a Region of it, so drawing them is a 1:1 copy out of one
+ * shared bitmap, with no scaling per draw and no switching between bitmaps.
+ */
+public class TextureAtlas {
+
+    static final int PADDING = 1; // Keeps filtering from bleeding neighbouring regions into each other
+
+    /** A named sub-rectangle of an atlas. */
+    public static class Region {
+
+        private TextureAtlas atlas;
+        private Rect bounds;
+
+        Region(TextureAtlas atlas, int left, int top, int width, int height) {
+            this.atlas = atlas;
+            this.bounds = new Rect(left, top, left + width, top + height);
+        }
+
+        /** Returns the atlas this region lives in. */
+        public TextureAtlas getAtlas() {
+            return this.atlas;
+        }
+
+        /** Returns this region's source rectangle within the atlas bitmap. Do not modify it. */
+        public Rect getBounds() {
+            return this.bounds;
+        }
+
+        public int getWidth() {
+            return this.bounds.width();
+        }
+
+        public int getHeight() {
+            return this.bounds.height();
+        }
+    }
+
+    private Bitmap bitmap;
+    private Canvas canvas;
+    private Paint packPaint;
+    private HashMap<String, Region> regions;
+
+    // Shelf packing: regions fill a row left to right, and a new row starts below the tallest one
+    private int cursorX;
+    private int cursorY;
+    private int shelfHeight;
+
+    public TextureAtlas(int width, int height) {
+        this.bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        this.canvas = new Canvas(this.bitmap);
+        this.regions = new HashMap<String, Region>();
+
+        this.packPaint = new Paint();
+        this.packPaint.setFilterBitmap(true); // Scaling happens once here, so it can afford to be smooth
+
+        this.cursorX = 0;
+        this.cursorY = 0;
+        this.shelfHeight = 0;
+    }
+
+    /**
+     * Packs `source`, scaled to width x height, into the atlas.
+     * @return {Region} The packed region, the existing one if `name` was already added, or null if the atlas is full.
+     */
+    public Region add(String name, Bitmap source, int width, int height) {
+        Region region = this.regions.get(name);
+
+        if(region != null) {
+            return region;
+        }
+
+        region = this.allocate(width, height);
+
+        if(region == null) {
+            return null;
+        }
+
+        this.canvas.drawBitmap(source, null, region.getBounds(), this.packPaint);
+        this.regions.put(name, region);
+
+        return region;
+    }
+
+    /**
+     * Renders `text` into the atlas with `paint`, which should be left-aligned. The region is one
+     * line tall, from the paint's ascent to its descent, so the baseline is -paint.ascent() from its top.
+     * @return {Region} The packed region, the existing one if `name` was already added, or null if the atlas is full.
+     */
+    public Region addText(String name, String text, Paint paint) {
+        Region region = this.regions.get(name);
+
+        if(region != null) {
+            return region;
+        }
+
+        region = this.allocate( (int) Math.ceil( paint.measureText(text) ), (int) Math.ceil( paint.descent() - paint.ascent() ) );
+
+        if(region == null) {
+            return null;
+        }
+
+        this.canvas.drawText(text, region.getBounds().left, region.getBounds().top - paint.ascent(), paint);
+        this.regions.put(name, region);
+
+        return region;
+    }
+
+    // Reserves a width x height area on the current shelf, or on a new one below it
+    private Region allocate(int width, int height) {
+        int paddedWidth = width + PADDING * 2;
+        int paddedHeight = height + PADDING * 2;
+
+        if(this.cursorX + paddedWidth > this.bitmap.getWidth()) {
+            this.cursorX = 0;
+            this.cursorY += this.shelfHeight;
+            this.shelfHeight = 0;
+        }
+
+        if(paddedWidth > this.bitmap.getWidth() || this.cursorY + paddedHeight > this.bitmap.getHeight()) {
+            return null;
+        }
+
+        Region region = new Region(this, this.cursorX + PADDING, this.cursorY + PADDING, width, height);
+
+        this.cursorX += paddedWidth;
+        this.shelfHeight = Math.max(this.shelfHeight, paddedHeight);
+
+        return region;
+    }
+
+    /** Returns the region packed under `name`, or null. */
+    public Region get(String name) {
+        return this.regions.get(name);
+    }
+
+    /** Returns the atlas bitmap that regions are drawn from. */
+    public Bitmap getBitmap() {
+        return this.bitmap;
+    }
+}
@@ -0,0 +1,137 @@
+package com.hfad.demogame;
+
+/**
+ * Fixed-size ring buffer of touch events, passed from the UI thread (the only producer) to the
+ * game loop (the only consumer) without locks or allocation. Each event is kept as primitives in
+ * parallel arrays. The consumer drains the queue once per tick, and a run of queued ACTION_MOVE
+ * events comes out as just its latest sample.
+ */
+public class TouchQueue {
+
+    static final int DEFAULT_CAPACITY = 64; // Must be a power of 2, so we can mask instead of mod
+    static final int ACTION_MOVE = 2; // MotionEvent.ACTION_MOVE
+
+    private int[] actions;
+    private float[] xs;
+    private float[] ys;
+    private long[] times;
+    private int mask;
+
+    // Only the producer writes tail, and only the consumer writes head; volatile publishes the slots between them
+    private volatile int head;
+    private volatile int tail;
+    private volatile int drops;
+
+    // The event the consumer last polled
+    private int action;
+    private float x;
+    private float y;
+    private long time;
+    private int coalesced;
+
+    public TouchQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param {number} capacity - How many events can wait at once. Rounded up to a power of 2.
+     */
+    public TouchQueue(int capacity) {
+        int size = Integer.highestOneBit( Math.max(2, capacity - 1) ) << 1;
+
+        this.actions = new int[size];
+        this.xs = new float[size];
+        this.ys = new float[size];
+        this.times = new long[size];
+        this.mask = size - 1;
+
+        this.head = 0;
+        this.tail = 0;
+        this.drops = 0;
+        this.coalesced = 0;
+    }
+
+    /**
+     * Producer: queues one event. If the queue is full, the event is dropped.
+     * @param {number} action - The MotionEvent action, masked (getActionMasked()).
+     * @param {number} x - Touch x, in screen pixels.
+     * @param {number} y - Touch y, in screen pixels.
+     * @param {number} time - The event time, in SystemClock.uptimeMillis() milliseconds.
+     * @return {boolean} False if the event was dropped.
+     */
+    public boolean offer(int action, float x, float y, long time) {
+        int tail = this.tail;
+
+        if(tail - this.head == this.actions.length) {
+            this.drops++; // Only the producer writes this
+            return false;
+        }
+
+        int slot = tail & this.mask;
+        this.actions[slot] = action;
+        this.xs[slot] = x;
+        this.ys[slot] = y;
+        this.times[slot] = time;
+
+        this.tail = tail + 1; // Publishes the slot to the consumer
+        return true;
+    }
+
+    /**
+     * Consumer: takes the oldest event, which getAction(), getX(), getY() and getTime() then return.
+     * A MOVE followed by another MOVE is skipped, so a burst of moves yields only the latest.
+     * @return {boolean} False if the queue was empty.
+     */
+    public boolean poll() {
+        int head = this.head;
+        int tail = this.tail;
+
+        if(head == tail) {
+            return false;
+        }
+
+        while(head + 1 != tail
+            && this.actions[head & this.mask] == ACTION_MOVE
+            && this.actions[(head + 1) & this.mask] == ACTION_MOVE) {
+            head++;
+            this.coalesced++;
+        }
+
+        int slot = head & this.mask;
+        this.action = this.actions[slot];
+        this.x = this.xs[slot];
+        this.y = this.ys[slot];
+        this.time = this.times[slot];
+
+        this.head = head + 1; // Hands the slots back to the producer
+        return true;
+    }
+
+    /** Returns the action of the event last polled. */
+    public int getAction() {
+        return this.action;
+    }
+
+    public float getX() {
+        return this.x;
+    }
+
+    public float getY() {
+        return this.y;
+    }
+
+    /** Returns the time of the event last polled, in SystemClock.uptimeMillis() milliseconds. */
+    public long getTime() {
+        return this.time;
+    }
+
+    /** Returns how many events were dropped because the queue was full. */
+    public int getDrops() {
+        return this.drops;
+    }
+
+    /** Returns how many MOVE events were skipped in favour of a later one. Consumer only. */
+    public int getCoalesced() {
+        return this.coalesced;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hfad.demogame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three buffers shared by one writer thread and one reader thread without locks. The writer fills
+ * the back buffer and publishes it; the reader takes the latest published buffer as its front. The
+ * two never touch the same buffer, and neither ever waits: a writer running ahead just replaces
+ * snapshots the reader never saw, and a slow writer leaves the reader redrawing its front buffer.
+ */
+public class TripleBuffer<T> {
+
+    static final int INDEX_MASK = 3;
+    static final int FRESH = 4; // Set on the middle index when it holds a buffer the reader has not taken yet
+
+    private Object[] buffers;
+    private AtomicInteger middle;
+    private int back; // Only touched by the writer
+    private int front; // Only touched by the reader
+
+    public TripleBuffer(T first, T second, T third) {
+        this.buffers = new Object[] { first, second, third };
+        this.front = 0;
+        this.middle = new AtomicInteger(1);
+        this.back = 2;
+    }
+
+    /** Writer: returns the buffer to fill. It stays the writer's until publish(). */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) this.buffers[this.back];
+    }
+
+    /** Writer: hands the filled back buffer to the reader, and takes an unused one as the new back buffer. */
+    public void publish() {
+        this.back = this.middle.getAndSet(this.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Reader: swaps the latest published buffer to the front, if there is one.
+     * @return {boolean} True if the front buffer changed.
+     */
+    public boolean acquire() {
+        if((this.middle.get() & FRESH) == 0) {
+            return false;
+        }
+
+        this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+        return true;
+    }
+
+    /** Reader: returns the front buffer, i.e. the latest one acquired. It stays the reader's until the next acquire(). */
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        return (T) this.buffers[this.front];
+    }
+}
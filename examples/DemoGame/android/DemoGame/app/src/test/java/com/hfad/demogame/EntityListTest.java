@@ -0,0 +1,121 @@
+package com.hfad.demogame;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Plain JVM test. Sprite makes a Paint and Rects, so it needs the stubbed android.jar to return
+ * defaults rather than throw; see HeadlessHarnessTest.
+ */
+public class EntityListTest {
+
+    @Test
+    public void removingMidIterationChangesNothingUntilFlushed() {
+        EntityList<Sprite> list = new EntityList<Sprite>();
+        Sprite a = EntityListTest.sprite();
+        Sprite b = EntityListTest.sprite();
+        Sprite c = EntityListTest.sprite();
+        Sprite d = EntityListTest.sprite();
+
+        list.add(a);
+        list.add(b);
+        list.add(c);
+        list.add(d);
+
+        for(int i = 0; i < list.size(); i++) {
+            if(list.get(i) == b || list.get(i) == d) {
+                Assert.assertTrue( list.remove( list.get(i) ) );
+            }
+
+            Assert.assertEquals(4, list.size());
+        }
+
+        Assert.assertSame(b, list.get(1));
+
+        list.flushRemovals();
+
+        Assert.assertEquals(2, list.size());
+        Assert.assertTrue( list.contains(a) );
+        Assert.assertTrue( list.contains(c) );
+        Assert.assertFalse( list.contains(b) );
+        Assert.assertFalse( list.contains(d) );
+        Assert.assertFalse( b.isPendingRemoval() );
+    }
+
+    @Test
+    public void flushingMovesTheLastSpriteIntoTheHole() {
+        EntityList<Sprite> list = new EntityList<Sprite>();
+        Sprite a = EntityListTest.sprite();
+        Sprite b = EntityListTest.sprite();
+        Sprite c = EntityListTest.sprite();
+
+        list.add(a);
+        list.add(b);
+        list.add(c);
+        list.remove(a);
+        list.flushRemovals();
+
+        Assert.assertSame(c, list.get(0));
+        Assert.assertSame(b, list.get(1));
+        Assert.assertEquals(0, c.getEntityIndex());
+        Assert.assertEquals(-1, a.getEntityIndex());
+    }
+
+    @Test
+    public void removingTheSpriteThatAnEarlierRemovalMovedStillWorks() {
+        EntityList<Sprite> list = new EntityList<Sprite>();
+        Sprite a = EntityListTest.sprite();
+        Sprite b = EntityListTest.sprite();
+        Sprite c = EntityListTest.sprite();
+
+        list.add(a);
+        list.add(b);
+        list.add(c);
+        list.remove(a);
+        list.remove(c); // Moves into a's slot during the flush, before its own removal
+        list.flushRemovals();
+
+        Assert.assertEquals(1, list.size());
+        Assert.assertSame(b, list.get(0));
+        Assert.assertEquals(0, b.getEntityIndex());
+    }
+
+    @Test
+    public void removingTwiceOrFromAnotherListIsRefused() {
+        EntityList<Sprite> list = new EntityList<Sprite>();
+        EntityList<Sprite> other = new EntityList<Sprite>();
+        Sprite a = EntityListTest.sprite();
+        Sprite stranger = EntityListTest.sprite();
+
+        list.add(a);
+        other.add( EntityListTest.sprite() );
+        other.add(stranger);
+
+        Assert.assertTrue( list.remove(a) );
+        Assert.assertFalse( list.remove(a) );
+        Assert.assertFalse( list.remove(stranger) );
+
+        list.flushRemovals();
+
+        Assert.assertTrue( list.isEmpty() );
+        Assert.assertEquals(2, other.size());
+    }
+
+    @Test
+    public void aRemovedSpriteCanBeAddedAgain() {
+        EntityList<Sprite> list = new EntityList<Sprite>();
+        Sprite a = EntityListTest.sprite();
+
+        list.add(a);
+        list.remove(a);
+        list.flushRemovals();
+        list.add(a);
+
+        Assert.assertTrue( list.contains(a) );
+        Assert.assertEquals(1, list.size());
+    }
+
+    private static Sprite sprite() {
+        return new Sprite(null, 0, 0, 1, 1, null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.hfad.demogame;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameTimeHistogramTest {
+
+    @Test
+    public void anEmptyHistogramReportsZero() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+        Assert.assertEquals(0L, histogram.getTotalCount());
+        Assert.assertEquals(0L, histogram.getMaxValue());
+        Assert.assertEquals(0L, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void valuesBelow64AreExact() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+        for(long value = 0; value < 64; value++) {
+            histogram.record(value);
+        }
+
+        Assert.assertEquals(31L, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(63L, histogram.getValueAtPercentile(100));
+        Assert.assertEquals(0L, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void everyBucketIsWithinAThirtySecondOfItsValues() {
+        for(long value = 64; value < 100000000L; value = value * 3 / 2 + 7) {
+            long highest = FrameTimeHistogram.highestValueFor( FrameTimeHistogram.indexFor(value) );
+
+            Assert.assertTrue("Bucket of " + value + " ends below it", highest >= value);
+            Assert.assertTrue("Bucket of " + value + " ends at " + highest, (highest - value) * 32 <= value);
+        }
+    }
+
+    @Test
+    public void percentilesOfAKnownSpread() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+        for(long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        Assert.assertEquals(1000L, histogram.getTotalCount());
+        Assert.assertEquals(1000L, histogram.getMaxValue());
+        FrameTimeHistogramTest.assertNear(500, histogram.getValueAtPercentile(50));
+        FrameTimeHistogramTest.assertNear(990, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(1000L, histogram.getValueAtPercentile(100)); // Capped at the largest value seen
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+        histogram.record(-5);
+
+        Assert.assertEquals(1L, histogram.getTotalCount());
+        Assert.assertEquals(0L, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void hugeValuesAreStillCounted() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+        histogram.record(Long.MAX_VALUE);
+
+        Assert.assertEquals(1L, histogram.getTotalCount());
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getMaxValue());
+    }
+
+    @Test
+    public void resetForgetsEverything() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+
+        histogram.record(100);
+        histogram.reset();
+
+        Assert.assertEquals(0L, histogram.getTotalCount());
+        Assert.assertEquals(0L, histogram.getMaxValue());
+        Assert.assertEquals(0L, histogram.getValueAtPercentile(50));
+    }
+
+    // At or above `expected`, by no more than a bucket's width
+    private static void assertNear(long expected, long actual) {
+        Assert.assertTrue("Expected about " + expected + ", got " + actual, actual >= expected && (actual - expected) * 32 <= expected);
+    }
+}
@@ -0,0 +1,164 @@
+package com.hfad.demogame;
+
+import android.graphics.PointF;
+import java.util.Random;
+
+/**
+ * Times Game.update() and Game.draw() headlessly: the game runs against a HeadlessGameSurface and
+ * a RecordingCanvas, with a bot moving the paddle under the ball so play continues. Each scenario
+ * runs at 10, 100, 1000 and 10000 enemies and reports the average nanoseconds per call.
+ * Off-device it needs Robolectric; see HeadlessHarnessTest.
+ */
+public class GameBenchmark {
+
+    static final int[] ENEMY_COUNTS = { 10, 100, 1000, 10000 };
+    static final int WARMUP_ITERATIONS = 2000;
+    static final int MEASURED_ITERATIONS = 10000;
+    static final int WAVE_RELOADS = 200;
+    static final int DENSE_AREA_CELLS = 2; // Side of the square, in SpatialHash cells, that dense waves are packed into
+
+    private Game game;
+    private RecordingCanvas canvas;
+    private PointF touchPoint;
+    private Random random;
+    private int denseAreaSize;
+    private int restarts;
+
+    /**
+     * @param {number} enemies - How many enemies each wave has.
+     * @param {boolean} dense - If true, every wave is packed into a small square around the ball.
+     */
+    public GameBenchmark(int enemies, boolean dense) {
+        this.canvas = new RecordingCanvas();
+        this.touchPoint = new PointF();
+        this.random = new Random(42);
+        this.restarts = 0;
+        this.denseAreaSize = dense ? DENSE_AREA_CELLS * Constants.SCREEN_WIDTH / SpatialHash.CELLS_ACROSS_SCREEN : 0;
+
+        this.game = new Game(new HeadlessGameSurface(Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT), true);
+        this.game.setEnemiesPerWave(enemies);
+        this.startWave();
+    }
+
+    public static void main(String[] args) {
+        System.out.println( GameBenchmark.runAll() );
+    }
+
+    /** Runs every scenario and returns the results, one per line. */
+    public static String runAll() {
+        StringBuilder report = new StringBuilder();
+
+        for(int i = 0; i < ENEMY_COUNTS.length; i++) {
+            int enemies = ENEMY_COUNTS[i];
+
+            GameBenchmark benchmark = new GameBenchmark(enemies, false);
+            GameBenchmark.appendResult(report, "update", enemies, benchmark.measureUpdate(), benchmark.restarts);
+            GameBenchmark.appendResult(report, "draw", enemies, benchmark.measureDraw(), benchmark.restarts);
+
+            benchmark = new GameBenchmark(enemies, true);
+            GameBenchmark.appendResult(report, "update-dense", enemies, benchmark.measureUpdate(), benchmark.restarts);
+
+            benchmark = new GameBenchmark(enemies, false);
+            GameBenchmark.appendResult(report, "wave-reload", enemies, benchmark.measureWaveReload(), benchmark.restarts);
+        }
+
+        return report.toString();
+    }
+
+    /** Returns the average nanoseconds per Game.update() call, including any restarts it triggers. */
+    public long measureUpdate() {
+        for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+            this.tick();
+        }
+
+        this.restarts = 0;
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < MEASURED_ITERATIONS; i++) {
+            this.tick();
+        }
+
+        return (System.nanoTime() - startTime) / MEASURED_ITERATIONS;
+    }
+
+    /** Returns the average nanoseconds per Game.draw() call. */
+    public long measureDraw() {
+        for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+            this.canvas.reset();
+            this.game.draw(this.canvas);
+        }
+
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < MEASURED_ITERATIONS; i++) {
+            this.canvas.reset();
+            this.game.draw(this.canvas);
+        }
+
+        return (System.nanoTime() - startTime) / MEASURED_ITERATIONS;
+    }
+
+    /** Returns the average nanoseconds to clear the current wave and load a new one. */
+    public long measureWaveReload() {
+        for(int i = 0; i < WAVE_RELOADS; i++) {
+            this.startWave();
+        }
+
+        this.restarts = 0;
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < WAVE_RELOADS; i++) {
+            this.startWave();
+        }
+
+        return (System.nanoTime() - startTime) / WAVE_RELOADS;
+    }
+
+    /** Returns the draw calls the last measured frame made. */
+    public int getLastFrameDrawCalls() {
+        return this.canvas.getDrawCalls();
+    }
+
+    private void tick() {
+
+        // Follow the ball with the paddle, the way a player would
+        this.touchPoint.x = 0;
+        this.touchPoint.y = this.game.getBall().getY() + this.game.getBall().getHeight() / 2;
+        this.game.handleTouchMove(this.touchPoint);
+
+        this.game.update();
+
+        if(this.game.isGameOver()) {
+            this.startWave();
+        }
+    }
+
+    private void startWave() {
+        this.game.restart();
+        this.game.skipStartDelay();
+        this.restarts++;
+
+        if(this.denseAreaSize > 0) {
+            this.packEnemiesAroundBall();
+        }
+    }
+
+    private void packEnemiesAroundBall() {
+        EntityList<Enemy> enemies = this.game.getEnemies();
+        int left = this.game.getBall().getX() - this.denseAreaSize / 2;
+        int top = this.game.getBall().getY() - this.denseAreaSize / 2;
+
+        for(int i = 0; i < enemies.size(); i++) {
+            enemies.get(i).setX( left + this.random.nextInt(this.denseAreaSize) );
+            enemies.get(i).setY( top + this.random.nextInt(this.denseAreaSize) );
+        }
+    }
+
+    private static void appendResult(StringBuilder report, String name, int enemies, long nanos, int restarts) {
+        report.append(name)
+            .append(" enemies=").append(enemies)
+            .append(" ns/op=").append(nanos)
+            .append(" restarts=").append(restarts)
+            .append('\n');
+    }
+}
@@ -0,0 +1,21 @@
+package com.hfad.demogame;
+
+/** Fake GamePanel with a fixed size, for running Game with no view, surface or thread. */
+public class HeadlessGameSurface implements GameSurface {
+
+    private int width;
+    private int height;
+
+    public HeadlessGameSurface(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getGamePanelWidth() {
+        return this.width;
+    }
+
+    public int getGamePanelHeight() {
+        return this.height;
+    }
+}
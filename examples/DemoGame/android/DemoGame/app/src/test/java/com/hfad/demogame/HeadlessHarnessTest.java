@@ -0,0 +1,85 @@
+package com.hfad.demogame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+/**
+ * Runs GameBenchmark and SessionReplayer on a plain JVM, e.g. a CI box. They draw and measure text
+ * through android.graphics, which the stock android.jar only has stubs for, so they run under
+ * Robolectric with its native graphics. The other tests in this directory are plain JUnit.
+ *
+ * This example ships without its Gradle files, so nothing here is wired into a build yet. Once
+ * app/build.gradle exists, the tests need:
+ *
+ *   android.testOptions.unitTests.returnDefaultValues = true // Sprite makes a Paint and Rects, even in plain tests
+ *   android.testOptions.unitTests.all { systemProperty 'demogame.session', findProperty('session') }
+ *   testImplementation 'junit:junit:4.13.2'
+ *   testImplementation 'org.robolectric:robolectric:4.11.1'
+ *
+ * Then `./gradlew testDebugUnitTest` runs them all. Add `-Psession=last-session.dgs` to also
+ * replay a session pulled off a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class HeadlessHarnessTest {
+
+    static final int RECORDED_TICKS = 600;
+
+    @Test
+    public void benchmark() {
+        String report = GameBenchmark.runAll();
+        System.out.println(report);
+
+        // Each enemy count runs four scenarios; a missing line means one stopped early
+        Assert.assertEquals(GameBenchmark.ENEMY_COUNTS.length * 4, report.split("\n").length);
+    }
+
+    @Test
+    public void replayMatchesARecordedGame() throws IOException {
+        long seed = 7L;
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        Game game = new Game(new HeadlessGameSurface(Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT), true, seed);
+
+        game.setRecorder( new SessionRecorder(log, seed) );
+
+        // Chase the ball with the paddle, touching down before each tick as GamePanel does
+        for(int tick = 0; tick < RECORDED_TICKS; tick++) {
+            int action = tick == 0 ? TouchQueueTest.ACTION_DOWN : TouchQueue.ACTION_MOVE;
+            game.handleTouch(action, 0.0f, game.getBall().getY() + game.getBall().getHeight() / 2);
+            game.update();
+        }
+
+        game.stopRecording();
+
+        SessionReplayer replayer = new SessionReplayer( new ByteArrayInputStream( log.toByteArray() ) );
+        replayer.replay();
+
+        Assert.assertTrue(replayer.getReport(), replayer.matchesRecording());
+        Assert.assertEquals(RECORDED_TICKS, replayer.getUpdateTimes().getTotalCount());
+        Assert.assertEquals((RECORDED_TICKS + SessionReplayer.UPDATES_PER_DRAW - 1) / SessionReplayer.UPDATES_PER_DRAW,
+            replayer.getDrawTimes().getTotalCount());
+    }
+
+    @Test
+    public void replay() throws IOException {
+        String path = System.getProperty("demogame.session");
+        Assume.assumeTrue(path != null && !path.isEmpty());
+
+        SessionReplayer replayer = new SessionReplayer( new FileInputStream(path) );
+        replayer.replay();
+        System.out.println( replayer.getReport() );
+
+        // A log cut short by a crash has no score to check, but still replays
+        if(replayer.hasRecordedScore()) {
+            Assert.assertTrue("Replay did not end on the recorded score", replayer.matchesRecording());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.hfad.demogame;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas with no backing bitmap that only counts the draw calls Game makes, so drawing can be
+ * measured without a surface and without the cost of rasterizing.
+ */
+public class RecordingCanvas extends Canvas {
+
+    private int drawCalls;
+    private int bitmapDraws;
+    private int textDraws;
+
+    public RecordingCanvas() {
+        super();
+        this.reset();
+    }
+
+    /** Clears the counters, e.g. between frames. */
+    public void reset() {
+        this.drawCalls = 0;
+        this.bitmapDraws = 0;
+        this.textDraws = 0;
+    }
+
+    /** Returns the number of draw calls of any kind since the last reset(). */
+    public int getDrawCalls() {
+        return this.drawCalls;
+    }
+
+    /** Returns the number of drawBitmap calls since the last reset(). */
+    public int getBitmapDraws() {
+        return this.bitmapDraws;
+    }
+
+    /** Returns the number of drawText calls since the last reset(). */
+    public int getTextDraws() {
+        return this.textDraws;
+    }
+
+    @Override
+    public void drawColor(int color) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        this.drawCalls++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        this.drawCalls++;
+        this.bitmapDraws++;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        this.drawCalls++;
+        this.textDraws++;
+    }
+}
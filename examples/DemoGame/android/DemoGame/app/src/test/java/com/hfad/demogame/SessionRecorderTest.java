@@ -0,0 +1,99 @@
+package com.hfad.demogame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SessionRecorderTest {
+
+    static final long[] VALUES = { 0L, 1L, -1L, 63L, -64L, 127L, 128L, 16383L, 16384L,
+        Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+
+    @Test
+    public void zigzagMapsSmallNegativesToSmallNumbers() {
+        Assert.assertEquals(0L, SessionRecorder.zigzag(0));
+        Assert.assertEquals(1L, SessionRecorder.zigzag(-1));
+        Assert.assertEquals(2L, SessionRecorder.zigzag(1));
+        Assert.assertEquals(3L, SessionRecorder.zigzag(-2));
+
+        for(int i = 0; i < VALUES.length; i++) {
+            Assert.assertEquals(VALUES[i], SessionRecorder.unzigzag( SessionRecorder.zigzag(VALUES[i]) ));
+        }
+    }
+
+    @Test
+    public void varintsRoundTrip() throws IOException {
+        for(int i = 0; i < VALUES.length; i++) {
+            byte[] bytes = SessionRecorderTest.writeVarLong(VALUES[i]);
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream(bytes) );
+
+            Assert.assertEquals(VALUES[i], SessionRecorder.readVarLong(in));
+            Assert.assertEquals(-1, in.read()); // Nothing left over
+        }
+    }
+
+    @Test
+    public void varintsTakeSevenBitsPerByte() throws IOException {
+        Assert.assertEquals(1, SessionRecorderTest.writeVarLong(127L).length);
+        Assert.assertEquals(2, SessionRecorderTest.writeVarLong(128L).length);
+        Assert.assertEquals(3, SessionRecorderTest.writeVarLong(16384L).length);
+        Assert.assertEquals(10, SessionRecorderTest.writeVarLong(-1L).length);
+    }
+
+    @Test
+    public void aRecordedSessionReadsBack() throws IOException {
+        byte[] log = SessionRecorderTest.record();
+        SessionReplayer replayer = new SessionReplayer( new ByteArrayInputStream(log) );
+
+        Assert.assertTrue( replayer.hasRecordedScore() );
+        Assert.assertTrue( replayer.getReport().startsWith("ticks=100 events=3 ") );
+    }
+
+    @Test
+    public void aLogThatWasNeverClosedReplaysUpToItsLastWholeEvent() throws IOException {
+        byte[] log = SessionRecorderTest.record();
+
+        // Drop the end of session (tick delta, marker and score), then one byte more, cutting the last event short
+        byte[] cut = Arrays.copyOf(log, log.length - 6 - 1);
+        SessionReplayer replayer = new SessionReplayer( new ByteArrayInputStream(cut) );
+
+        Assert.assertFalse( replayer.hasRecordedScore() );
+        Assert.assertFalse( replayer.matchesRecording() );
+        Assert.assertTrue( replayer.getReport().startsWith("ticks=10 events=2 ") );
+    }
+
+    // Three events, the last one 90 ticks before the end, so every tick delta takes one byte
+    private static byte[] record() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try {
+            SessionRecorder recorder = new SessionRecorder(bytes, 42L);
+            recorder.recordInput(3, TouchQueueTest.ACTION_DOWN, SessionRecorder.quantize(10.3f), 20.0f);
+            recorder.recordInput(9, TouchQueue.ACTION_MOVE, SessionRecorder.quantize(8.55f), 19.5f); // A negative delta
+            recorder.recordInput(10, TouchQueueTest.ACTION_UP, 8.5f, 19.5f);
+            recorder.close(100, 700);
+
+            Assert.assertFalse( recorder.isRecording() );
+            Assert.assertEquals(3, recorder.getEventCount());
+        } catch(IOException e) {
+            throw new AssertionError(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static byte[] writeVarLong(long value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        SessionRecorder.writeVarLong(out, value);
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,231 @@
+package com.hfad.demogame;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Plays back a log written by SessionRecorder, headlessly and as fast as possible: the same seed,
+ * the same touches on the same ticks, so the game goes exactly as it did when recorded. Each tick's
+ * update() and each frame's draw() is timed, in nanoseconds, into a histogram, so the same session
+ * can be replayed on two builds and their timings compared. Off-device it needs Robolectric; see
+ * HeadlessHarnessTest.
+ */
+public class SessionReplayer {
+
+    static final int UPDATES_PER_DRAW = MainThread.UPDATES_PER_SECOND / MainThread.MAX_FPS;
+
+    private long seed;
+    private int screenWidth;
+    private int screenHeight;
+    private int updatesPerSecond;
+    private long endTick;
+    private boolean scoreRecorded;
+    private int recordedScore;
+
+    // The whole log is decoded up front, so reading it is not part of the timings
+    private int eventCount;
+    private long[] eventTicks;
+    private int[] eventActions;
+    private float[] eventXs;
+    private float[] eventYs;
+
+    private FrameTimeHistogram updateTimes;
+    private FrameTimeHistogram drawTimes;
+    private int finalScore;
+
+    /** Reads a whole session log, then closes the stream. */
+    public SessionReplayer(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream( new BufferedInputStream(stream) );
+
+        try {
+            this.read(in);
+        } finally {
+            in.close();
+        }
+
+        this.updateTimes = new FrameTimeHistogram();
+        this.drawTimes = new FrameTimeHistogram();
+        this.finalScore = 0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.out.println("Usage: SessionReplayer <session file>");
+            return;
+        }
+
+        SessionReplayer replayer = new SessionReplayer( new FileInputStream(args[0]) );
+        replayer.replay();
+        System.out.println( replayer.getReport() );
+    }
+
+    /** Replays the session from the start, timing every tick and frame. */
+    public void replay() {
+        Constants.SCREEN_WIDTH = this.screenWidth;
+        Constants.SCREEN_HEIGHT = this.screenHeight;
+
+        Game game = new Game(new HeadlessGameSurface(this.screenWidth, this.screenHeight), true, this.seed);
+        RecordingCanvas canvas = new RecordingCanvas();
+        int nextEvent = 0;
+        long startTime = 0L;
+
+        this.updateTimes.reset();
+        this.drawTimes.reset();
+
+        for(long tick = 0; tick < this.endTick; tick++) {
+
+            // Touches reach the game just before the tick they were handled on, as in GamePanel.update()
+            while(nextEvent < this.eventCount && this.eventTicks[nextEvent] == tick) {
+                game.handleTouch(this.eventActions[nextEvent], this.eventXs[nextEvent], this.eventYs[nextEvent]);
+                nextEvent++;
+            }
+
+            startTime = System.nanoTime();
+            game.update();
+            this.updateTimes.record( System.nanoTime() - startTime ); // A tick can take well under a microsecond
+
+            if(tick % UPDATES_PER_DRAW == 0) {
+                canvas.reset();
+                startTime = System.nanoTime();
+                game.draw(canvas);
+                this.drawTimes.record( System.nanoTime() - startTime );
+            }
+        }
+
+        this.finalScore = game.getScore();
+    }
+
+    /**
+     * Returns true if the last replay() ended on the score the session was recorded with. Always
+     * false if the log has no score; see hasRecordedScore().
+     */
+    public boolean matchesRecording() {
+        return this.scoreRecorded && this.finalScore == this.recordedScore;
+    }
+
+    /**
+     * Returns false if the log stops without an end, e.g. because the game was killed before it
+     * could close the recording. Such a log replays up to its last whole event.
+     */
+    public boolean hasRecordedScore() {
+        return this.scoreRecorded;
+    }
+
+    /** Returns the update() times of the last replay(), in nanoseconds. */
+    public FrameTimeHistogram getUpdateTimes() {
+        return this.updateTimes;
+    }
+
+    /** Returns the draw() times of the last replay(), in nanoseconds. */
+    public FrameTimeHistogram getDrawTimes() {
+        return this.drawTimes;
+    }
+
+    /** Returns a summary of the last replay(), one fact per line. */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+
+        report.append("ticks=").append(this.endTick)
+            .append(" events=").append(this.eventCount)
+            .append(" ticksPerSecond=").append(this.updatesPerSecond)
+            .append(" seed=").append(this.seed)
+            .append('\n');
+        report.append("score=").append(this.finalScore);
+
+        if(this.scoreRecorded) {
+            report.append(" recorded=").append(this.recordedScore)
+                .append(this.matchesRecording() ? " (match)" : " (MISMATCH)");
+        } else {
+            report.append(" recorded=unknown (the log ends without a score)");
+        }
+
+        report.append('\n');
+        SessionReplayer.appendTimes(report, "update", this.updateTimes);
+        SessionReplayer.appendTimes(report, "draw", this.drawTimes);
+
+        return report.toString();
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        if(in.readInt() != SessionRecorder.MAGIC) {
+            throw new IOException("Not a session log");
+        }
+
+        int version = in.readUnsignedByte();
+        if(version != SessionRecorder.VERSION) {
+            throw new IOException("Unsupported session log version " + version);
+        }
+
+        this.seed = in.readLong();
+        this.screenWidth = in.readInt();
+        this.screenHeight = in.readInt();
+        this.updatesPerSecond = in.readInt();
+
+        this.eventCount = 0;
+        this.eventTicks = new long[64];
+        this.eventActions = new int[64];
+        this.eventXs = new float[64];
+        this.eventYs = new float[64];
+
+        long tick = 0L;
+        int subX = 0;
+        int subY = 0;
+
+        try {
+            while(true) {
+                tick += SessionRecorder.readVarLong(in);
+                int action = in.readUnsignedByte();
+
+                if(action == SessionRecorder.END_OF_SESSION) {
+                    this.endTick = tick;
+                    this.recordedScore = in.readInt();
+                    this.scoreRecorded = true;
+                    return;
+                }
+
+                subX += (int) SessionRecorder.unzigzag( SessionRecorder.readVarLong(in) );
+                subY += (int) SessionRecorder.unzigzag( SessionRecorder.readVarLong(in) );
+
+                if(this.eventCount == this.eventTicks.length) {
+                    this.grow();
+                }
+
+                this.eventTicks[this.eventCount] = tick;
+                this.eventActions[this.eventCount] = action;
+                this.eventXs[this.eventCount] = subX / (float) SessionRecorder.SUBPIXELS;
+                this.eventYs[this.eventCount] = subY / (float) SessionRecorder.SUBPIXELS;
+                this.eventCount++;
+            }
+        } catch(EOFException e) {
+
+            // The recording was never closed. Whatever was written is replayed, up to and including the
+            // tick of the last whole event; an event cut off partway through is dropped
+            this.endTick = this.eventCount == 0 ? 0L : this.eventTicks[this.eventCount - 1] + 1;
+            this.scoreRecorded = false;
+        }
+    }
+
+    private void grow() {
+        int capacity = this.eventTicks.length * 2;
+
+        this.eventTicks = Arrays.copyOf(this.eventTicks, capacity);
+        this.eventActions = Arrays.copyOf(this.eventActions, capacity);
+        this.eventXs = Arrays.copyOf(this.eventXs, capacity);
+        this.eventYs = Arrays.copyOf(this.eventYs, capacity);
+    }
+
+    private static void appendTimes(StringBuilder report, String name, FrameTimeHistogram times) {
+        report.append(name)
+            .append(" count=").append(times.getTotalCount())
+            .append(" p50=").append(times.getValueAtPercentile(50))
+            .append(" p95=").append(times.getValueAtPercentile(95))
+            .append(" p99=").append(times.getValueAtPercentile(99))
+            .append(" max=").append(times.getMaxValue())
+            .append(" ns\n");
+    }
+}
@@ -0,0 +1,123 @@
+package com.hfad.demogame;
+
+import java.util.ArrayList;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Plain JVM test. Sprite makes a Paint and Rects, so it needs the stubbed android.jar to return
+ * defaults rather than throw; see HeadlessHarnessTest.
+ */
+public class SpatialHashTest {
+
+    static final int CELL_SIZE = 10;
+
+    @Test
+    public void aSpriteSpanningManyCellsIsFoundOnce() {
+        SpatialHash hash = new SpatialHash(CELL_SIZE);
+        Sprite big = new Sprite(null, 0, 0, 35, 35, null); // 4 by 4 cells
+        Sprite small = new Sprite(null, 12, 12, 5, 5, null);
+        Sprite far = new Sprite(null, 200, 200, 5, 5, null);
+        ArrayList<Sprite> results = new ArrayList<Sprite>();
+
+        hash.register(big);
+        hash.register(small);
+        hash.register(far);
+        hash.rebuild();
+
+        // Twice, so the second query can't lean on marks left by the first
+        for(int i = 0; i < 2; i++) {
+            hash.query(0, 0, 40, 40, results);
+
+            Assert.assertEquals(2, results.size());
+            Assert.assertTrue( results.contains(big) );
+            Assert.assertTrue( results.contains(small) );
+        }
+    }
+
+    @Test
+    public void queryingForASpriteLeavesItOut() {
+        SpatialHash hash = new SpatialHash(CELL_SIZE);
+        Sprite a = new Sprite(null, 0, 0, 15, 15, null);
+        Sprite b = new Sprite(null, 5, 5, 15, 15, null);
+        ArrayList<Sprite> results = new ArrayList<Sprite>();
+
+        hash.register(a);
+        hash.register(b);
+        hash.rebuild();
+        hash.query(a, results);
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertSame(b, results.get(0));
+    }
+
+    @Test
+    public void spritesPastTheTopLeftAreFound() {
+        SpatialHash hash = new SpatialHash(CELL_SIZE);
+        Sprite offscreen = new Sprite(null, -15, -15, 5, 5, null);
+        ArrayList<Sprite> results = new ArrayList<Sprite>();
+
+        hash.register(offscreen);
+        hash.rebuild();
+
+        hash.query(-20, -20, -10, -10, results);
+        Assert.assertEquals(1, results.size());
+
+        // Truncating -15 / 10 would put it in cell -1, next to the origin
+        hash.query(-5, -5, 5, 5, results);
+        Assert.assertEquals(0, results.size());
+    }
+
+    @Test
+    public void findPairsReportsEachOverlapOnce() {
+        SpatialHash hash = new SpatialHash(CELL_SIZE);
+        Sprite a = new Sprite(null, 0, 0, 40, 40, null);
+        Sprite b = new Sprite(null, 10, 10, 40, 40, null); // Shares 9 cells with a
+        Sprite touching = new Sprite(null, 40, 12, 5, 5, null); // Inside b, and against a's right edge without overlapping it
+        ArrayList<Sprite> pairs = new ArrayList<Sprite>();
+
+        hash.register(a);
+        hash.register(b);
+        hash.register(touching);
+        hash.rebuild();
+        hash.findPairs(pairs);
+
+        Assert.assertEquals(4, pairs.size());
+        Assert.assertTrue( SpatialHashTest.hasPair(pairs, a, b) );
+        Assert.assertTrue( SpatialHashTest.hasPair(pairs, b, touching) );
+        Assert.assertFalse( SpatialHashTest.hasPair(pairs, a, touching) );
+    }
+
+    @Test
+    public void anUnregisteredSpriteIsNoLongerFound() {
+        SpatialHash hash = new SpatialHash(CELL_SIZE);
+        Sprite a = new Sprite(null, 0, 0, 5, 5, null);
+        Sprite b = new Sprite(null, 2, 2, 5, 5, null);
+        ArrayList<Sprite> results = new ArrayList<Sprite>();
+
+        hash.register(a);
+        hash.register(b);
+        hash.rebuild();
+        hash.unregister(a);
+
+        Assert.assertFalse( hash.isBuilt() );
+        Assert.assertEquals(-1, a.getHashSlot());
+        Assert.assertEquals(0, b.getHashSlot()); // Swapped into a's slot
+
+        hash.rebuild();
+        hash.query(0, 0, 10, 10, results);
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertSame(b, results.get(0));
+    }
+
+    private static boolean hasPair(ArrayList<Sprite> pairs, Sprite a, Sprite b) {
+        for(int i = 0; i < pairs.size(); i += 2) {
+            if((pairs.get(i) == a && pairs.get(i + 1) == b) || (pairs.get(i) == b && pairs.get(i + 1) == a)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.hfad.demogame;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TouchQueueTest {
+
+    static final int ACTION_DOWN = 0; // MotionEvent.ACTION_DOWN
+    static final int ACTION_UP = 1; // MotionEvent.ACTION_UP
+
+    @Test
+    public void eventsComeOutInOrder() {
+        TouchQueue queue = new TouchQueue();
+
+        queue.offer(ACTION_DOWN, 1.0f, 2.0f, 10L);
+        queue.offer(ACTION_UP, 3.0f, 4.0f, 20L);
+
+        Assert.assertTrue( queue.poll() );
+        Assert.assertEquals(ACTION_DOWN, queue.getAction());
+        Assert.assertEquals(1.0f, queue.getX(), 0.0f);
+        Assert.assertEquals(2.0f, queue.getY(), 0.0f);
+        Assert.assertEquals(10L, queue.getTime());
+
+        Assert.assertTrue( queue.poll() );
+        Assert.assertEquals(ACTION_UP, queue.getAction());
+        Assert.assertEquals(20L, queue.getTime());
+
+        Assert.assertFalse( queue.poll() );
+    }
+
+    @Test
+    public void aRunOfMovesComesOutAsTheLatest() {
+        TouchQueue queue = new TouchQueue();
+
+        queue.offer(ACTION_DOWN, 0.0f, 0.0f, 0L);
+        queue.offer(TouchQueue.ACTION_MOVE, 1.0f, 0.0f, 1L);
+        queue.offer(TouchQueue.ACTION_MOVE, 2.0f, 0.0f, 2L);
+        queue.offer(TouchQueue.ACTION_MOVE, 3.0f, 0.0f, 3L);
+        queue.offer(ACTION_UP, 3.0f, 0.0f, 4L);
+
+        Assert.assertTrue( queue.poll() );
+        Assert.assertEquals(ACTION_DOWN, queue.getAction());
+
+        Assert.assertTrue( queue.poll() );
+        Assert.assertEquals(TouchQueue.ACTION_MOVE, queue.getAction());
+        Assert.assertEquals(3.0f, queue.getX(), 0.0f);
+        Assert.assertEquals(2, queue.getCoalesced());
+
+        Assert.assertTrue( queue.poll() );
+        Assert.assertEquals(ACTION_UP, queue.getAction());
+        Assert.assertFalse( queue.poll() );
+    }
+
+    @Test
+    public void movesSeparatedByOtherEventsAreKept() {
+        TouchQueue queue = new TouchQueue();
+
+        queue.offer(TouchQueue.ACTION_MOVE, 1.0f, 0.0f, 1L);
+        queue.offer(ACTION_DOWN, 2.0f, 0.0f, 2L);
+        queue.offer(TouchQueue.ACTION_MOVE, 3.0f, 0.0f, 3L);
+
+        int polled = 0;
+        while(queue.poll()) {
+            polled++;
+        }
+
+        Assert.assertEquals(3, polled);
+        Assert.assertEquals(0, queue.getCoalesced());
+    }
+
+    @Test
+    public void aFullQueueDropsNewEvents() {
+        TouchQueue queue = new TouchQueue(4);
+
+        // Downs and ups alternate, so nothing is coalesced
+        for(int i = 0; i < 4; i++) {
+            Assert.assertTrue( queue.offer(i % 2 == 0 ? ACTION_DOWN : ACTION_UP, i, 0.0f, i) );
+        }
+
+        Assert.assertFalse( queue.offer(ACTION_DOWN, 4.0f, 0.0f, 4L) );
+        Assert.assertEquals(1, queue.getDrops());
+
+        // The oldest event is still first, and a poll makes room again
+        Assert.assertTrue( queue.poll() );
+        Assert.assertEquals(0L, queue.getTime());
+        Assert.assertTrue( queue.offer(ACTION_DOWN, 5.0f, 0.0f, 5L) );
+    }
+
+    @Test
+    public void capacityRoundsUpToAPowerOfTwo() {
+        TouchQueue queue = new TouchQueue(5);
+        int accepted = 0;
+
+        while(queue.offer(accepted % 2 == 0 ? ACTION_DOWN : ACTION_UP, 0.0f, 0.0f, accepted)) {
+            accepted++;
+        }
+
+        Assert.assertEquals(8, accepted);
+    }
+}
@@ -0,0 +1,61 @@
+package com.hfad.demogame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TripleBufferTest {
+
+    @Test
+    public void thereIsNothingToAcquireUntilTheWriterPublishes() {
+        TripleBuffer<String> buffers = new TripleBuffer<String>("a", "b", "c");
+
+        Assert.assertFalse( buffers.acquire() );
+        Assert.assertEquals("a", buffers.getFront());
+    }
+
+    @Test
+    public void theReaderGetsWhatWasPublishedOnce() {
+        TripleBuffer<String> buffers = new TripleBuffer<String>("a", "b", "c");
+        String written = buffers.getBack();
+
+        buffers.publish();
+
+        Assert.assertTrue( buffers.acquire() );
+        Assert.assertSame(written, buffers.getFront());
+        Assert.assertFalse( buffers.acquire() ); // Taking it cleared the fresh bit
+        Assert.assertSame(written, buffers.getFront());
+    }
+
+    @Test
+    public void aSnapshotTheReaderSkippedGoesBackToTheWriter() {
+        TripleBuffer<String> buffers = new TripleBuffer<String>("a", "b", "c");
+        String first = buffers.getBack();
+
+        buffers.publish();
+        String second = buffers.getBack();
+        buffers.publish();
+
+        Assert.assertSame(first, buffers.getBack());
+        Assert.assertTrue( buffers.acquire() );
+        Assert.assertSame(second, buffers.getFront());
+    }
+
+    @Test
+    public void theWriterAndReaderNeverShareABuffer() {
+        TripleBuffer<String> buffers = new TripleBuffer<String>("a", "b", "c");
+        Random random = new Random(1);
+        String lastPublished = null;
+
+        for(int i = 0; i < 10000; i++) {
+            if(random.nextBoolean()) {
+                lastPublished = buffers.getBack();
+                buffers.publish();
+            } else if(buffers.acquire()) {
+                Assert.assertSame(lastPublished, buffers.getFront()); // Always the latest, never an older one
+            }
+
+            Assert.assertNotSame(buffers.getBack(), buffers.getFront());
+        }
+    }
+}
@@ -6,6 +6,8 @@ class Ball extends Sprite {
 
 		this.x = x;
 		this.y = y;
+		this.previousX = x;
+		this.previousY = y;
 		this.width = width;
 		this.height = height;
 		this.game = game;
@@ -18,19 +20,28 @@ class Ball extends Sprite {
 	}
 
 	/**
-	 * @description Draws the current object to the game screen.
+	 * @description Draws the ball between its previous and current positions, so motion stays smooth
+	 * when the frame rate and the game tick rate differ. Java overloads draw(canvas) for the
+	 * current position; here leaving `interpolation` out does the same.
 	 */
-	/* public */ /* void */ draw(/* Canvas */ canvas) {
+	/* public */ /* void */ draw(/* Canvas */ canvas, /* float */ interpolation) {
+		if(typeof interpolation === "undefined") {
+			interpolation = 1.0/* f */;
+		}
+
+		let drawX = (int) (this.previousX + (this.x - this.previousX) * interpolation);
+		let drawY = (int) (this.previousY + (this.y - this.previousY) * interpolation);
+
 		let paint = new Paint();
 		paint.setColor( Color.MAGENTA );
 		paint.setStyle( Paint.Style.FILL );
 		
 		if(this.image == null) {
-			canvas.drawOval(new RectF(this.x, this.y, this.x + this.width, this.y + this.height), paint);
+			canvas.drawOval(RectF.obtain(drawX, drawY, drawX + this.width, drawY + this.height), paint);
 		} else {
 			canvas.drawBitmap( this.image,
 				null,
-				new Rect(this.x, this.y, this.x + this.width, this.y + this.height),
+				Rect.obtain(drawX, drawY, drawX + this.width, drawY + this.height),
 				paint);
 		}
 	}
@@ -39,6 +50,9 @@ class Ball extends Sprite {
 	 * @description Performs state updates to the current instance for the current game loop cycle.
 	 */
 	/* public */ /* void */ update() {
+		this.previousX = this.x;
+		this.previousY = this.y;
+
 		this.x += this.velocityX;
 		this.y += this.velocityY;
 
@@ -84,6 +98,7 @@ class Ball extends Sprite {
 	 */
 	/* public */ /* void */ setX(/* int */ newX) {
 		this.x = newX;
+		this.previousX = newX; // Placing the ball directly should not be drawn as movement
 	}
 
 	/** Returns this sprite's `y` {number} property. */
@@ -97,6 +112,7 @@ class Ball extends Sprite {
 	 */
 	/* public */ /* void */ setY(/* int */ newY) {
 		this.y = newY;
+		this.previousY = newY;
 	}
 
 	/** Returns this sprite's `velocityX` {number} property. */
@@ -24,7 +24,7 @@ class Enemy extends Sprite {
 
 		canvas.drawBitmap( this.image,
 			null,
-			new Rect(this.x, this.y, this.x + this.width, this.y + this.height),
+			Rect.obtain(this.x, this.y, this.x + this.width, this.y + this.height),
 			new Paint());
 	}
 
@@ -91,8 +91,13 @@ class GamePanel extends SurfaceView /* implements SurfaceHolder.Callback */ {
 		}
     }
 
+	/**
+	 * Draws the current frame for the fixed-timestep loop in MainThread. Java overloads draw(canvas);
+	 * JS has one draw, so `interpolation` is optional and defaults to the latest tick.
+	 * @param {number} interpolation - How far (0 to 1) the frame lies between the last game tick and the next.
+	 */
 	/* @Override */
-	/* public */ /* void */ draw(/* Canvas */ canvas) {
+	/* public */ /* void */ draw(/* Canvas */ canvas, /* float */ interpolation) {
         super.draw(canvas);
 
 		// Game may not have been created before first thread calls to this method
@@ -101,7 +106,7 @@ class GamePanel extends SurfaceView /* implements SurfaceHolder.Callback */ {
 		}
 
 		try {
-			this.game.draw(canvas);
+			this.game.draw(canvas, interpolation);
 		} catch(/* NullPointerException */ e) {
 			e.printStackTrace();
 		}
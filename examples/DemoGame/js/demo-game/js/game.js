@@ -10,6 +10,7 @@ class Game {
 		this.gameOver = false;
 		this.gameOverTime = 0;
 		this.paused = false;
+		this.stepped = false;
 		this.random = new Random();
 		this.timeBeforeStart = 0;
 		this.timeBeforeStart = INITIAL_TIME_BEFORE_START;
@@ -110,6 +111,9 @@ class Game {
 
 	/* public */ /* void */ update() {
 
+		// Only a tick that moves the sprites leaves anything to interpolate toward
+		this.stepped = false;
+
 		if(this.timeBeforeStart > 0) {
 			this.timeBeforeStart--;
 			return;
@@ -126,6 +130,7 @@ class Game {
 
 		this.paddle.update(); // Currently unused, since movement follows touch
 		this.ball.update(); // Moves ball and handles collision with paddle
+		this.stepped = true;
 
 		for(let enemy of this.enemies) {
 			enemy.update(); // This could be used for movement or image animation
@@ -144,7 +149,12 @@ class Game {
 		}
 	}
 
-	/* public */ /* void */ draw(/* Canvas */ canvas) {
+	/**
+	 * Draws the game, with moving sprites blended `interpolation` (0 to 1) of the way
+	 * from the previous game tick to the current one. Java overloads draw(canvas) for the
+	 * latest tick; here leaving `interpolation` out does the same.
+	 */
+	/* public */ /* void */ draw(/* Canvas */ canvas, /* float */ interpolation) {
 		let paint = new Paint();
 
 		if(canvas == null) {
@@ -154,9 +164,13 @@ class Game {
 		// Clear canvas and set current frame background to black
 		canvas.drawColor(Color.BLACK);
 
+		if(typeof interpolation === "undefined" || !this.stepped) {
+			interpolation = 1.0/* f */;
+		}
+
 		// Draw game elements
 		this.paddle.draw(canvas);
-		this.ball.draw(canvas);
+		this.ball.draw(canvas, interpolation);
 
 		for(let enemy of this.enemies) {
 			enemy.draw(canvas);
@@ -246,8 +260,9 @@ class Game {
 }
 
 /* static */ /* boolean */ Game.colliding = function(/* Ball */ ball, /* Enemy */ enemy) {
-	let ballRect = new Rect(ball.getX(), ball.getY(), ball.getX() + ball.getWidth(), ball.getY() + ball.getHeight());
-	let enemyRect = new Rect(enemy.getX(), enemy.getY(), enemy.getX() + enemy.getWidth(), enemy.getY() + enemy.getHeight());
+	// Scratch Rects, since these are only needed for this test (see Rect.obtain)
+	let ballRect = Rect.obtain(ball.getX(), ball.getY(), ball.getX() + ball.getWidth(), ball.getY() + ball.getHeight());
+	let enemyRect = Rect.obtain(enemy.getX(), enemy.getY(), enemy.getX() + enemy.getWidth(), enemy.getY() + enemy.getHeight());
 
 	if( Rect.intersects(ballRect, enemyRect) ) {
 		return true;
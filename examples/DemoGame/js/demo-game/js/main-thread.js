@@ -1,4 +1,6 @@
 const MAX_FPS = 30;
+const UPDATES_PER_SECOND = 60;
+const MAX_UPDATES_PER_FRAME = 5; // Bound on catch-up ticks, so a slow frame cannot snowball
 
 class MainThread extends Thread {
 
@@ -9,9 +11,14 @@ class MainThread extends Thread {
         this.gamePanel = gamePanel;
 
 		this.averageFPS = 30.00/* f */;
+		this.tickNanos = 1000000000/* L */ / UPDATES_PER_SECOND;
 		this.running = false;
 		this.canvas = new Canvas(); // For converter to identify type
 		this.canvas = null;
+
+		// Locals of run() in Java. Here run() is called once per frame, so they must outlive it
+		this.previousTime = 0/* L */;
+		this.lag = 0/* L */;
     }
 
 	/* public */ /* void */ setRunning(/* boolean */ running) {
@@ -37,6 +44,21 @@ class MainThread extends Thread {
 			return this.surfaceHolder.lockCanvas();
 	}
 
+	/**
+	 * Sets how many times per second the game logic is stepped, independently of the frame rate.
+	 * @param {number} updatesPerSecond - The new simulation tick rate.
+	 */
+	/* public */ /* void */ setUpdatesPerSecond(/* int */ updatesPerSecond) {
+		if(updatesPerSecond > 0) {
+			this.tickNanos = 1000000000/* L */ / updatesPerSecond;
+		}
+	}
+
+	/** Returns the length of one simulation tick, in nanoseconds. */
+	/* public */ /* long */ getTickNanos() {
+		return this.tickNanos;
+	}
+
 	/* @Override */
 	/* public */ /* void */ run() {
 
@@ -49,18 +71,44 @@ class MainThread extends Thread {
         let totalTime = 0/* L */;
 		let targetTime = 1000/* L */;
 		targetTime = 1000 / MAX_FPS;
+		let updates = 0;
+		let interpolation = 0.0/* f */;
+
+		// Java sets this once, before the loop; here the first frame does
+		if(this.previousTime == 0) {
+			this.previousTime = System.nanoTime();
+		}
 
         if(this.running) { // Unnecessary in Java - used in JS version
 			/* while(this.running) { */ // `while` here in JS will cause infinite loop and crash the page
 					startTime = System.nanoTime();
 					this.canvas = null;
 
+					// Bank the real time that has passed, then spend it in fixed simulation ticks
+					this.lag += startTime - this.previousTime;
+					this.previousTime = startTime;
+
 					try {
 						this.canvas = this.surfaceHolder.lockCanvas();
 						/* synchronized (surfaceHolder) { */
 
 							// Here's where the gameplay is moved forward
-							this.gamePanel.updateAndDraw(this.canvas);
+							updates = 0;
+							while(this.lag >= this.tickNanos && updates < MAX_UPDATES_PER_FRAME) {
+								this.gamePanel.update();
+								this.lag -= this.tickNanos;
+								updates++;
+							}
+
+							// After a long stall, drop the backlog instead of fast-forwarding through it
+							if(this.lag >= this.tickNanos) {
+								this.lag = this.lag % this.tickNanos;
+							}
+
+							// How far we are between the last tick and the next one, from 0 to 1
+							interpolation = this.lag / this.tickNanos;
+
+							this.gamePanel.draw(this.canvas, interpolation);
 						/* } */
 					} catch(/* NullPointerException */ e) {
 						e.printStackTrace();
@@ -74,7 +122,7 @@ class MainThread extends Thread {
 						}
 					}
 
-					timeMillis = System.nanoTime() - startTime / 1000000; // nano to millis
+					timeMillis = (System.nanoTime() - startTime) / 1000000; // nano to millis
 					waitTime = targetTime - timeMillis;
 
 					try {
@@ -25,7 +25,7 @@ class Paddle extends Sprite {
 		paint.setColor( Color.GRAY );
 		paint.setStyle( Paint.Style.FILL );
 
-		canvas.drawRect(new Rect(this.x, this.y, this.x + this.width, this.y + this.height), paint);
+		canvas.drawRect(Rect.obtain(this.x, this.y, this.x + this.width, this.y + this.height), paint);
 	}
 
 	/**